@@ -0,0 +1,254 @@
+package bptree.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.jmh.Keys.Distribution;
+import bptree.jmh.Keys.KeyType;
+
+/**
+ * Measures {@link BPlusTree#insert(Comparable, Object)}, {@link BPlusTree#find(Comparable)},
+ * {@link BPlusTree#delete(Comparable, Object)} and {@link BPlusTree#BPlusTree(BPlusTree)} across degrees, key types
+ * and key distributions. {@code insert}, {@code find} and {@code delete} report the average time per entry over
+ * {@value #SIZE} entries; {@code copy} reports the time to copy a tree of {@value #SIZE} entries. See
+ * {@link MapBenchmark} for the same operations on {@code TreeMap} and {@code ConcurrentSkipListMap}.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar BPlusTreeBenchmark -p degree=64 -p keyType=LONG}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BPlusTreeBenchmark {
+
+	/**
+	 * The keys and trees of a benchmark, typed by the type of keys.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Trees<K extends Comparable<K>> {
+
+		/**
+		 * The degree of the trees.
+		 */
+		final int degree;
+
+		/**
+		 * The keys in insertion order.
+		 */
+		final K[] keys;
+
+		/**
+		 * The keys in lookup order.
+		 */
+		final K[] lookups;
+
+		/**
+		 * A tree containing all keys.
+		 */
+		final BPlusTree<K, Integer> tree;
+
+		/**
+		 * A tree to delete all keys from.
+		 */
+		BPlusTree<K, Integer> doomed;
+
+		/**
+		 * Constructs a {@code Trees}.
+		 *
+		 * @param degree
+		 *            the degree of the trees
+		 * @param keys
+		 *            the keys in insertion order
+		 * @param lookups
+		 *            the keys in lookup order
+		 */
+		Trees(int degree, K[] keys, K[] lookups) {
+			this.degree = degree;
+			this.keys = keys;
+			this.lookups = lookups;
+			this.tree = build();
+		}
+
+		/**
+		 * Builds a tree by inserting all keys, each with its index as the pointer.
+		 *
+		 * @return a tree containing all keys
+		 */
+		BPlusTree<K, Integer> build() {
+			BPlusTree<K, Integer> t = new BPlusTree<K, Integer>(degree);
+			for (int i = 0; i < keys.length; i++)
+				t.insert(keys[i], i);
+			return t;
+		}
+
+		/**
+		 * Looks up all keys in lookup order.
+		 *
+		 * @param blackhole
+		 *            the {@code Blackhole} that consumes the {@code LeafNode}s found
+		 */
+		void find(Blackhole blackhole) {
+			for (K k : lookups)
+				blackhole.consume(tree.find(k));
+		}
+
+		/**
+		 * Rebuilds the tree to delete all keys from.
+		 */
+		void rebuild() {
+			doomed = build();
+		}
+
+		/**
+		 * Deletes all entries in insertion order from the doomed tree.
+		 *
+		 * @return the empty tree
+		 */
+		BPlusTree<K, Integer> delete() {
+			for (int i = 0; i < keys.length; i++)
+				doomed.delete(keys[i], i);
+			return doomed;
+		}
+
+		/**
+		 * Copies the tree with the copy constructor.
+		 *
+		 * @return the copy
+		 */
+		BPlusTree<K, Integer> copy() {
+			return new BPlusTree<K, Integer>(tree);
+		}
+
+	}
+
+	/**
+	 * The number of entries in each tree.
+	 */
+	public static final int SIZE = 100000;
+
+	/**
+	 * The degree of the trees.
+	 */
+	@Param({ "4", "16", "64", "128", "512" })
+	int degree;
+
+	/**
+	 * The type of keys.
+	 */
+	@Param({ "INTEGER", "LONG", "STRING" })
+	KeyType keyType;
+
+	/**
+	 * The distribution of keys.
+	 */
+	@Param({ "SEQUENTIAL", "UNIFORM", "ZIPFIAN" })
+	Distribution distribution;
+
+	/**
+	 * The keys and trees.
+	 */
+	Trees<?> trees;
+
+	/**
+	 * Rebuilds the tree to delete all keys from before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Doomed {
+
+		/**
+		 * Rebuilds the tree.
+		 *
+		 * @param benchmark
+		 *            the benchmark state
+		 */
+		@Setup(Level.Invocation)
+		public void setup(BPlusTreeBenchmark benchmark) {
+			benchmark.trees.rebuild();
+		}
+
+	}
+
+	/**
+	 * Generates the keys and builds the tree to look up and copy.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		trees = trees();
+	}
+
+	/**
+	 * Generates the keys and constructs the keys and trees of a benchmark.
+	 *
+	 * @return the keys and trees
+	 */
+	<K extends Comparable<K>> Trees<K> trees() {
+		K[] keys = Keys.generate(keyType, distribution, SIZE, 1);
+		return new Trees<K>(degree, keys, Keys.lookups(keys, distribution, 2));
+	}
+
+	/**
+	 * Inserts all keys into an empty tree.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<?, Integer> insert() {
+		return trees.build();
+	}
+
+	/**
+	 * Looks up {@value #SIZE} keys in the lookup order of the distribution.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the {@code LeafNode}s found
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void find(Blackhole blackhole) {
+		trees.find(blackhole);
+	}
+
+	/**
+	 * Deletes all entries in insertion order.
+	 *
+	 * @param doomed
+	 *            the state that rebuilds the tree to delete the entries from
+	 * @return the empty tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<?, Integer> delete(Doomed doomed) {
+		return trees.delete();
+	}
+
+	/**
+	 * Copies the tree with the copy constructor.
+	 *
+	 * @return the copy
+	 */
+	@Benchmark
+	public BPlusTree<?, Integer> copy() {
+		return trees.copy();
+	}
+
+}
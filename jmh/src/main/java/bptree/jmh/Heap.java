@@ -0,0 +1,55 @@
+package bptree.jmh;
+
+import java.util.function.Supplier;
+
+/**
+ * {@code Heap} measures the heap footprint of the trees that the benchmarks compare. JMH measures time, so the
+ * benchmarks print the footprints when they set up a trial.
+ */
+public class Heap {
+
+	/**
+	 * Holds the object whose footprint is being measured.
+	 */
+	static volatile Object sink;
+
+	/**
+	 * Returns the number of bytes used in the heap after a garbage collection.
+	 *
+	 * @return the number of bytes used in the heap after a garbage collection
+	 */
+	public static long used() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Returns the number of heap bytes retained by the object that the specified builder creates.
+	 *
+	 * @param builder
+	 *            a builder
+	 * @return the number of heap bytes retained by the object that the specified builder creates
+	 */
+	public static long retained(Supplier<?> builder) {
+		long before = used();
+		sink = builder.get(); // keeps the object reachable until the heap has been measured
+		long after = used();
+		sink = null;
+		return after - before;
+	}
+
+	/**
+	 * Prints the heap footprint of the specified object.
+	 *
+	 * @param name
+	 *            the name of the object
+	 * @param bytes
+	 *            the number of heap bytes that the object retains
+	 */
+	public static void print(String name, long bytes) {
+		System.out.printf("%n%s: %.1f MB of heap%n", name, bytes / 1048576.0);
+	}
+
+}
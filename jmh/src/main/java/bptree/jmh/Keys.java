@@ -0,0 +1,143 @@
+package bptree.jmh;
+
+import java.util.Random;
+
+import workload.ZipfianGenerator;
+
+/**
+ * {@code Keys} generates the keys that the benchmarks insert, look up and delete.
+ */
+public class Keys {
+
+	/**
+	 * The types of keys.
+	 */
+	public enum KeyType {
+
+		/**
+		 * {@code Integer} keys.
+		 */
+		INTEGER,
+
+		/**
+		 * {@code Long} keys.
+		 */
+		LONG,
+
+		/**
+		 * {@code String} keys of the form {@code user} followed by a number, as in YCSB.
+		 */
+		STRING;
+
+		/**
+		 * Converts the specified number into a key of this type.
+		 *
+		 * @param n
+		 *            a number
+		 * @return a key of this type
+		 */
+		Comparable<?> key(long n) {
+			switch (this) {
+			case INTEGER:
+				return (int) n;
+			case LONG:
+				return n;
+			default:
+				return "user" + n;
+			}
+		}
+
+	}
+
+	/**
+	 * The distributions of keys.
+	 */
+	public enum Distribution {
+
+		/**
+		 * Keys 0, 1, 2, and so on.
+		 */
+		SEQUENTIAL,
+
+		/**
+		 * Keys drawn uniformly at random.
+		 */
+		UNIFORM,
+
+		/**
+		 * Distinct keys in random order, looked up with the Zipfian popularity and skew used by YCSB, so that some keys
+		 * are looked up many times and others never (see {@link Keys#lookups(Comparable[], Distribution, long)}).
+		 */
+		ZIPFIAN
+
+	}
+
+	/**
+	 * Generates keys. Sequential and Zipfian keys are distinct, so that every key adds an entry to a map as well as to
+	 * a tree.
+	 *
+	 * @param type
+	 *            the type of the keys
+	 * @param distribution
+	 *            the distribution of the keys
+	 * @param count
+	 *            the number of keys
+	 * @param seed
+	 *            the seed of the random number generator
+	 * @return the keys
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K extends Comparable<K>> K[] generate(KeyType type, Distribution distribution, int count,
+			long seed) {
+		Random random = new Random(seed);
+		Comparable<?>[] keys = new Comparable<?>[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = type.key(distribution != Distribution.UNIFORM ? i
+					: type == KeyType.INTEGER ? random.nextInt() : random.nextLong());
+		return distribution == Distribution.ZIPFIAN ? shuffle((K[]) keys, seed) : (K[]) keys;
+	}
+
+	/**
+	 * Returns as many keys to look up as there are specified keys. Zipfian lookups draw the keys by popularity, with
+	 * the popular keys spread over the whole key range; other lookups visit each key once in random order.
+	 *
+	 * @param keys
+	 *            keys
+	 * @param distribution
+	 *            the distribution of the keys
+	 * @param seed
+	 *            the seed of the random number generator
+	 * @return the keys to look up
+	 */
+	public static <K> K[] lookups(K[] keys, Distribution distribution, long seed) {
+		if (distribution != Distribution.ZIPFIAN)
+			return shuffle(keys, seed);
+		ZipfianGenerator zipfian = new ZipfianGenerator(keys.length, new Random(seed));
+		K[] lookups = keys.clone();
+		for (int i = 0; i < lookups.length; i++)
+			lookups[i] = keys[(int) zipfian.scrambled(zipfian.next())];
+		return lookups;
+	}
+
+	/**
+	 * Returns a copy of the specified keys in random order.
+	 *
+	 * @param keys
+	 *            keys
+	 * @param seed
+	 *            the seed of the random number generator
+	 * @return a copy of the specified keys in random order
+	 */
+	public static <K> K[] shuffle(K[] keys, long seed) {
+		K[] shuffled = keys.clone();
+		Random random = new Random(seed);
+		for (int i = shuffled.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			K t = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = t;
+		}
+		return shuffled;
+	}
+
+}
@@ -0,0 +1,132 @@
+package bptree.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.primitive.LongLongBPlusTree;
+
+/**
+ * Compares the throughput of {@code LongLongBPlusTree} with that of {@code BPlusTree<Long, Long>} on {@value #SIZE}
+ * random 64-bit keys. The heap footprints of both trees are printed when a trial is set up.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar LongLongBenchmark -p degree=64}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongLongBenchmark {
+
+	/**
+	 * The number of entries in each tree.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The degree of the trees.
+	 */
+	@Param({ "16", "64", "128" })
+	int degree;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	long[] keys;
+
+	/**
+	 * A {@code BPlusTree<Long, Long>} containing all keys.
+	 */
+	BPlusTree<Long, Long> boxed;
+
+	/**
+	 * A {@code LongLongBPlusTree} containing all keys.
+	 */
+	LongLongBPlusTree primitive;
+
+	/**
+	 * Generates the keys, builds the trees to look up, and prints their heap footprints.
+	 */
+	@Setup
+	public void setup() {
+		keys = new long[SIZE];
+		Random random = new Random(42);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = random.nextLong();
+		Heap.print("BPlusTree<Long, Long>", Heap.retained(this::insertBoxed));
+		Heap.print("LongLongBPlusTree", Heap.retained(this::insertPrimitive));
+		boxed = insertBoxed();
+		primitive = insertPrimitive();
+	}
+
+	/**
+	 * Inserts all keys into an empty {@code BPlusTree<Long, Long>}.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<Long, Long> insertBoxed() {
+		BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree);
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], (long) i);
+		return tree;
+	}
+
+	/**
+	 * Inserts all keys into an empty {@code LongLongBPlusTree}.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public LongLongBPlusTree insertPrimitive() {
+		LongLongBPlusTree tree = new LongLongBPlusTree(degree);
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], i);
+		return tree;
+	}
+
+	/**
+	 * Looks up all entries of the {@code BPlusTree<Long, Long>} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void findBoxed(Blackhole blackhole) {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(boxed.contains(keys[i], (long) i));
+	}
+
+	/**
+	 * Looks up all entries of the {@code LongLongBPlusTree} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void findPrimitive(Blackhole blackhole) {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(primitive.contains(keys[i], i));
+	}
+
+}
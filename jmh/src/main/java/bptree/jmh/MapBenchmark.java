@@ -0,0 +1,281 @@
+package bptree.jmh;
+
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.jmh.Keys.Distribution;
+import bptree.jmh.Keys.KeyType;
+
+/**
+ * Measures the operations of {@link BPlusTreeBenchmark} on the {@code TreeMap} and {@code ConcurrentSkipListMap}
+ * baselines: {@code put}, {@code get}, {@code remove} and the copy constructor. The keys are those of
+ * {@link BPlusTreeBenchmark}, which are distinct except for rare collisions of uniform keys, so the maps hold as many
+ * entries as the trees.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar MapBenchmark -p keyType=LONG}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapBenchmark {
+
+	/**
+	 * The baseline maps.
+	 */
+	public enum MapType {
+
+		/**
+		 * {@code TreeMap}, a red-black tree.
+		 */
+		TREE_MAP,
+
+		/**
+		 * {@code ConcurrentSkipListMap}, a lock-free skip list.
+		 */
+		SKIP_LIST;
+
+		/**
+		 * Constructs a map of this type.
+		 *
+		 * @param map
+		 *            the map to copy from ({@code null} for an empty map)
+		 * @return a map of this type
+		 */
+		<K, V> NavigableMap<K, V> create(SortedMap<K, V> map) {
+			if (this == TREE_MAP)
+				return map == null ? new TreeMap<K, V>() : new TreeMap<K, V>(map);
+			return map == null ? new ConcurrentSkipListMap<K, V>() : new ConcurrentSkipListMap<K, V>(map);
+		}
+
+	}
+
+	/**
+	 * The keys and maps of a benchmark, typed by the type of keys.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Maps<K extends Comparable<K>> {
+
+		/**
+		 * The type of map.
+		 */
+		final MapType mapType;
+
+		/**
+		 * The keys in insertion order.
+		 */
+		final K[] keys;
+
+		/**
+		 * The keys in lookup order.
+		 */
+		final K[] lookups;
+
+		/**
+		 * A map containing all keys.
+		 */
+		final NavigableMap<K, Integer> map;
+
+		/**
+		 * A map to remove all keys from.
+		 */
+		NavigableMap<K, Integer> doomed;
+
+		/**
+		 * Constructs a {@code Maps}.
+		 *
+		 * @param mapType
+		 *            the type of map
+		 * @param keys
+		 *            the keys in insertion order
+		 * @param lookups
+		 *            the keys in lookup order
+		 */
+		Maps(MapType mapType, K[] keys, K[] lookups) {
+			this.mapType = mapType;
+			this.keys = keys;
+			this.lookups = lookups;
+			this.map = build();
+		}
+
+		/**
+		 * Builds a map by putting all keys, each with its index as the value.
+		 *
+		 * @return a map containing all keys
+		 */
+		NavigableMap<K, Integer> build() {
+			NavigableMap<K, Integer> m = mapType.create(null);
+			for (int i = 0; i < keys.length; i++)
+				m.put(keys[i], i);
+			return m;
+		}
+
+		/**
+		 * Gets all keys in lookup order.
+		 *
+		 * @param blackhole
+		 *            the {@code Blackhole} that consumes the values found
+		 */
+		void find(Blackhole blackhole) {
+			for (K k : lookups)
+				blackhole.consume(map.get(k));
+		}
+
+		/**
+		 * Rebuilds the map to remove all keys from.
+		 */
+		void rebuild() {
+			doomed = build();
+		}
+
+		/**
+		 * Copies the map with the copy constructor.
+		 *
+		 * @return the copy
+		 */
+		NavigableMap<K, Integer> copy() {
+			return mapType.create(map);
+		}
+
+		/**
+		 * Removes all keys in insertion order from the doomed map.
+		 *
+		 * @return the empty map
+		 */
+		NavigableMap<K, Integer> delete() {
+			for (K k : keys)
+				doomed.remove(k);
+			return doomed;
+		}
+
+	}
+
+	/**
+	 * The type of map.
+	 */
+	@Param({ "TREE_MAP", "SKIP_LIST" })
+	MapType mapType;
+
+	/**
+	 * The type of keys.
+	 */
+	@Param({ "INTEGER", "LONG", "STRING" })
+	KeyType keyType;
+
+	/**
+	 * The distribution of keys.
+	 */
+	@Param({ "SEQUENTIAL", "UNIFORM", "ZIPFIAN" })
+	Distribution distribution;
+
+	/**
+	 * The keys and maps.
+	 */
+	Maps<?> maps;
+
+	/**
+	 * Rebuilds the map to remove all keys from before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Doomed {
+
+		/**
+		 * Rebuilds the map.
+		 *
+		 * @param benchmark
+		 *            the benchmark state
+		 */
+		@Setup(Level.Invocation)
+		public void setup(MapBenchmark benchmark) {
+			benchmark.maps.rebuild();
+		}
+
+	}
+
+	/**
+	 * Generates the keys and builds the map to look up and copy.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		maps = maps();
+	}
+
+	/**
+	 * Generates the keys and constructs the keys and maps of a benchmark.
+	 *
+	 * @return the keys and maps
+	 */
+	<K extends Comparable<K>> Maps<K> maps() {
+		K[] keys = Keys.generate(keyType, distribution, BPlusTreeBenchmark.SIZE, 1);
+		return new Maps<K>(mapType, keys, Keys.lookups(keys, distribution, 2));
+	}
+
+	/**
+	 * Puts all keys into an empty map.
+	 *
+	 * @return the map
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BPlusTreeBenchmark.SIZE)
+	public NavigableMap<?, Integer> insert() {
+		return maps.build();
+	}
+
+	/**
+	 * Gets {@value BPlusTreeBenchmark#SIZE} keys in the lookup order of the distribution.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the values found
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BPlusTreeBenchmark.SIZE)
+	public void find(Blackhole blackhole) {
+		maps.find(blackhole);
+	}
+
+	/**
+	 * Removes all keys in insertion order.
+	 *
+	 * @param doomed
+	 *            the state that rebuilds the map to remove the keys from
+	 * @return the empty map
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BPlusTreeBenchmark.SIZE)
+	public NavigableMap<?, Integer> delete(Doomed doomed) {
+		return maps.delete();
+	}
+
+	/**
+	 * Copies the map with the copy constructor.
+	 *
+	 * @return the copy
+	 */
+	@Benchmark
+	public NavigableMap<?, Integer> copy() {
+		return maps.copy();
+	}
+
+}
@@ -0,0 +1,218 @@
+package bptree.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.codec.LongCodec;
+import bptree.page.MappedBPlusTree;
+import bptree.page.PagedBPlusTree;
+
+/**
+ * Writes a {@code BPlusTree<Long, Long>} of {@value #SIZE} entries to a tree file with {@code MappedBPlusTree.write}
+ * and compares the time to open it and the throughput of random lookups through a {@code MappedBPlusTree}, through a
+ * {@code PagedBPlusTree} with a {@code BufferPool}, and in the heap-resident tree. The heap that each of them
+ * occupies is printed when a trial is set up.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar MappedBenchmark -p pageSize=8192}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedBenchmark {
+
+	/**
+	 * The number of entries in the trees.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The number of lookups per invocation.
+	 */
+	public static final int LOOKUPS = 100000;
+
+	/**
+	 * The page size of the tree file.
+	 */
+	@Param({ "4096" })
+	int pageSize;
+
+	/**
+	 * The keys to look up, drawn at random from the keys of the trees.
+	 */
+	long[] lookups;
+
+	/**
+	 * The heap-resident tree.
+	 */
+	BPlusTree<Long, Long> tree;
+
+	/**
+	 * The tree file.
+	 */
+	Path file;
+
+	/**
+	 * The number of pages in the tree file.
+	 */
+	long pages;
+
+	/**
+	 * The tree file mapped into memory.
+	 */
+	MappedBPlusTree<Long, Long> mapped;
+
+	/**
+	 * The tree file read through a {@code BufferPool}.
+	 */
+	PagedBPlusTree<Long, Long> paged;
+
+	/**
+	 * Builds the heap-resident tree, writes the tree file, opens it both ways, and prints the heap that each tree
+	 * occupies.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Setup
+	public void setup() throws IOException {
+		lookups = new long[LOOKUPS];
+		Random random = new Random(0);
+		for (int i = 0; i < lookups.length; i++)
+			lookups[i] = random.nextInt(SIZE) * 7L;
+		long heap = Heap.used();
+		tree = new BPlusTree<Long, Long>(64);
+		for (long i = 0; i < SIZE; i++)
+			tree.insert(i * 7, i);
+		Heap.print("BPlusTree", Heap.used() - heap);
+		file = Files.createTempFile("tree", ".bpt");
+		pages = MappedBPlusTree.write(tree, file, pageSize, LongCodec.INSTANCE, LongCodec.INSTANCE);
+		System.out.printf("%nfile: %d pages, %.1f MB%n", pages, Files.size(file) / 1048576.0);
+		heap = Heap.used();
+		mapped = openMapped();
+		Heap.print("MappedBPlusTree", Heap.used() - heap);
+		heap = Heap.used();
+		paged = openPaged();
+		Heap.print("PagedBPlusTree", Heap.used() - heap);
+	}
+
+	/**
+	 * Closes the trees and deletes the tree file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		mapped.close();
+		paged.close();
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Maps the tree file.
+	 *
+	 * @return the {@code MappedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	MappedBPlusTree<Long, Long> openMapped() throws IOException {
+		return MappedBPlusTree.open(file, LongCodec.INSTANCE, LongCodec.INSTANCE);
+	}
+
+	/**
+	 * Opens the tree file with a {@code BufferPool} of up to 65536 frames.
+	 *
+	 * @return the {@code PagedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	PagedBPlusTree<Long, Long> openPaged() throws IOException {
+		return PagedBPlusTree.open(file, (int) Math.min(pages, 1 << 16), LongCodec.INSTANCE, LongCodec.INSTANCE);
+	}
+
+	/**
+	 * Maps the tree file and unmaps it.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	public void openCloseMapped() throws IOException {
+		openMapped().close();
+	}
+
+	/**
+	 * Opens the tree file with a {@code BufferPool} and closes it.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	public void openClosePaged() throws IOException {
+		openPaged().close();
+	}
+
+	/**
+	 * Looks up {@value #LOOKUPS} random keys through the {@code MappedBPlusTree}.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the pointers found
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void getMapped(Blackhole blackhole) {
+		for (long k : lookups)
+			blackhole.consume(mapped.get(k));
+	}
+
+	/**
+	 * Looks up {@value #LOOKUPS} random keys through the {@code PagedBPlusTree}.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the pointers found
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void getPaged(Blackhole blackhole) throws IOException {
+		for (long k : lookups)
+			blackhole.consume(paged.get(k));
+	}
+
+	/**
+	 * Looks up {@value #LOOKUPS} random entries in the heap-resident tree.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void containsHeap(Blackhole blackhole) {
+		for (long k : lookups)
+			blackhole.consume(tree.contains(k, k / 7));
+	}
+
+}
@@ -0,0 +1,366 @@
+package bptree.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.SearchStrategy;
+import bptree.codec.BinaryKey;
+import bptree.codec.OrderedCodec;
+
+/**
+ * Compares {@code BPlusTree}s of {@code Long}, {@code String} and composite keys, whose searches call
+ * {@code compareTo} on each key type through the same call sites, with {@code BPlusTree<BinaryKey, Integer>}s of the
+ * same keys normalized by {@link OrderedCodec}s and searched with {@link SearchStrategy#normalized()}. Inserts into
+ * and lookups into the normalized trees include normalizing the keys. Both report the average time per entry over
+ * {@value #SIZE} entries.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar NormalizedKeyBenchmark -p keyType=COMPOSITE}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizedKeyBenchmark {
+
+	/**
+	 * The number of entries in each tree.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The types of keys.
+	 */
+	public enum KeyType {
+
+		/**
+		 * Random {@code Long} keys.
+		 */
+		LONG,
+
+		/**
+		 * URL-like {@code String} keys.
+		 */
+		STRING,
+
+		/**
+		 * Composite keys made of a tenant number and a {@code String} identifier.
+		 */
+		COMPOSITE
+
+	}
+
+	/**
+	 * A composite key made of a tenant number and a {@code String} identifier, compared by tenant first.
+	 */
+	static final class TenantKey implements Comparable<TenantKey> {
+
+		final int tenant;
+
+		final String id;
+
+		TenantKey(int tenant, String id) {
+			this.tenant = tenant;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(TenantKey o) {
+			int c = Integer.compare(tenant, o.tenant);
+			return c != 0 ? c : id.compareTo(o.id);
+		}
+
+	}
+
+	/**
+	 * The keys and the tree of a benchmark.
+	 */
+	abstract static class Trees {
+
+		/**
+		 * Inserts all keys into an empty tree.
+		 *
+		 * @return the tree
+		 */
+		abstract BPlusTree<?, Integer> insert();
+
+		/**
+		 * Looks up all entries of the tree built in setup.
+		 *
+		 * @param blackhole
+		 *            the {@code Blackhole} that consumes the results
+		 */
+		abstract void find(Blackhole blackhole);
+
+	}
+
+	/**
+	 * A tree of keys compared by {@code compareTo}.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Plain<K extends Comparable<K>> extends Trees {
+
+		/**
+		 * The degree of the trees.
+		 */
+		final int degree;
+
+		/**
+		 * The keys in insertion order.
+		 */
+		final K[] keys;
+
+		/**
+		 * A tree containing all keys.
+		 */
+		final BPlusTree<K, Integer> tree;
+
+		/**
+		 * Constructs a {@code Plain}.
+		 *
+		 * @param degree
+		 *            the degree of the trees
+		 * @param keys
+		 *            the keys in insertion order
+		 */
+		Plain(int degree, K[] keys) {
+			this.degree = degree;
+			this.keys = keys;
+			this.tree = insert();
+		}
+
+		@Override
+		BPlusTree<K, Integer> insert() {
+			BPlusTree<K, Integer> t = new BPlusTree<K, Integer>(degree);
+			for (int i = 0; i < keys.length; i++)
+				t.insert(keys[i], i);
+			return t;
+		}
+
+		@Override
+		void find(Blackhole blackhole) {
+			for (int i = 0; i < keys.length; i++)
+				blackhole.consume(tree.contains(keys[i], i));
+		}
+
+	}
+
+	/**
+	 * A tree of keys normalized by an {@code OrderedCodec}.
+	 *
+	 * @param <T>
+	 *            the type of values that the codec normalizes
+	 */
+	static class Normalized<T> extends Trees {
+
+		/**
+		 * The degree of the trees.
+		 */
+		final int degree;
+
+		/**
+		 * The keys in insertion order.
+		 */
+		final T[] keys;
+
+		/**
+		 * The {@code OrderedCodec} that normalizes the keys.
+		 */
+		final OrderedCodec<T> codec;
+
+		/**
+		 * A tree containing all keys.
+		 */
+		final BPlusTree<BinaryKey, Integer> tree;
+
+		/**
+		 * Constructs a {@code Normalized}.
+		 *
+		 * @param degree
+		 *            the degree of the trees
+		 * @param keys
+		 *            the keys in insertion order
+		 * @param codec
+		 *            the {@code OrderedCodec} that normalizes the keys
+		 */
+		Normalized(int degree, T[] keys, OrderedCodec<T> codec) {
+			this.degree = degree;
+			this.keys = keys;
+			this.codec = codec;
+			this.tree = insert();
+		}
+
+		@Override
+		BPlusTree<BinaryKey, Integer> insert() {
+			BPlusTree<BinaryKey, Integer> t = new BPlusTree<BinaryKey, Integer>(degree, SearchStrategy.normalized());
+			for (int i = 0; i < keys.length; i++)
+				t.insert(codec.encode(keys[i]), i);
+			return t;
+		}
+
+		@Override
+		void find(Blackhole blackhole) {
+			for (int i = 0; i < keys.length; i++)
+				blackhole.consume(tree.contains(codec.encode(keys[i]), i));
+		}
+
+	}
+
+	/**
+	 * The type of keys.
+	 */
+	@Param({ "LONG", "STRING", "COMPOSITE" })
+	KeyType keyType;
+
+	/**
+	 * Whether the keys are normalized.
+	 */
+	@Param({ "false", "true" })
+	boolean normalized;
+
+	/**
+	 * The degree of the trees.
+	 */
+	@Param({ "64" })
+	int degree;
+
+	/**
+	 * The keys and the tree.
+	 */
+	Trees trees;
+
+	/**
+	 * Generates the keys and builds the tree to look up. Trees of all key types are built first, so that the call
+	 * sites of {@code compareTo} in the searches see every key type, as in an application with several types of keys
+	 * rather than in a JVM forked for one of them.
+	 */
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		new Plain<Long>(degree, longs(random, SIZE / 100));
+		new Plain<String>(degree, strings(random, SIZE / 100));
+		new Plain<TenantKey>(degree, tenantKeys(components(random, SIZE / 100)));
+		switch (keyType) {
+		case LONG:
+			Long[] longs = longs(random, SIZE);
+			trees = normalized ? new Normalized<Long>(degree, longs, OrderedCodec.longs())
+					: new Plain<Long>(degree, longs);
+			break;
+		case STRING:
+			String[] strings = strings(random, SIZE);
+			trees = normalized ? new Normalized<String>(degree, strings, OrderedCodec.strings())
+					: new Plain<String>(degree, strings);
+			break;
+		default:
+			Object[][] components = components(random, SIZE);
+			trees = normalized ? new Normalized<Object[]>(degree, components,
+					OrderedCodec.composite(OrderedCodec.integers(), OrderedCodec.strings()))
+					: new Plain<TenantKey>(degree, tenantKeys(components));
+		}
+	}
+
+	/**
+	 * Generates random {@code Long} keys.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 * @param count
+	 *            the number of keys
+	 * @return the keys
+	 */
+	static Long[] longs(Random random, int count) {
+		Long[] keys = new Long[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = random.nextLong();
+		return keys;
+	}
+
+	/**
+	 * Generates URL-like {@code String} keys.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 * @param count
+	 *            the number of keys
+	 * @return the keys
+	 */
+	static String[] strings(Random random, int count) {
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = String.format("https://api.example.com/v1/orders/%010d", random.nextInt(Integer.MAX_VALUE));
+		return keys;
+	}
+
+	/**
+	 * Generates the components of composite keys: a tenant number and a {@code String} identifier.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 * @param count
+	 *            the number of keys
+	 * @return the components of the keys
+	 */
+	static Object[][] components(Random random, int count) {
+		Object[][] keys = new Object[count][];
+		for (int i = 0; i < count; i++)
+			keys[i] = new Object[] { random.nextInt(1000),
+					String.format("order-%010d", random.nextInt(Integer.MAX_VALUE)) };
+		return keys;
+	}
+
+	/**
+	 * Returns the {@code TenantKey}s made of the specified components.
+	 *
+	 * @param components
+	 *            the components of composite keys
+	 * @return the {@code TenantKey}s made of the specified components
+	 */
+	static TenantKey[] tenantKeys(Object[][] components) {
+		TenantKey[] keys = new TenantKey[components.length];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = new TenantKey((Integer) components[i][0], (String) components[i][1]);
+		return keys;
+	}
+
+	/**
+	 * Inserts all keys into an empty tree.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<?, Integer> insert() {
+		return trees.insert();
+	}
+
+	/**
+	 * Looks up all entries in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void find(Blackhole blackhole) {
+		trees.find(blackhole);
+	}
+
+}
@@ -0,0 +1,194 @@
+package bptree.jmh;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.codec.LongCodec;
+import bptree.page.OffHeapPageStore;
+import bptree.page.PagedBPlusTree;
+
+/**
+ * Compares a heap-resident {@code BPlusTree<Long, Long>} with a {@code PagedBPlusTree<Long, Long>} on an
+ * {@code OffHeapPageStore} as the number of entries grows: the time to insert and to look up all entries, and the
+ * duration of a full collection with the tree alive, which grows with the number of heap objects. The heap in use
+ * after a garbage collection and the direct memory of the store are printed when a trial is set up; run with
+ * {@code -prof gc} for the time spent in garbage collection while inserting.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar OffHeapBenchmark -p entries=4000000 -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+
+	/**
+	 * The types of trees.
+	 */
+	public enum TreeType {
+
+		/**
+		 * A {@code BPlusTree} in the heap.
+		 */
+		HEAP,
+
+		/**
+		 * A {@code PagedBPlusTree} on an {@code OffHeapPageStore}.
+		 */
+		OFF_HEAP
+
+	}
+
+	/**
+	 * The type of tree.
+	 */
+	@Param({ "HEAP", "OFF_HEAP" })
+	TreeType treeType;
+
+	/**
+	 * The number of entries.
+	 */
+	@Param({ "1000000", "2000000", "4000000" })
+	int entries;
+
+	/**
+	 * The degree of the heap tree.
+	 */
+	@Param({ "64" })
+	int degree;
+
+	/**
+	 * The page size of the off-heap tree.
+	 */
+	@Param({ "4096" })
+	int pageSize;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	long[] keys;
+
+	/**
+	 * The heap tree containing all keys ({@code null} for an off-heap tree).
+	 */
+	BPlusTree<Long, Long> tree;
+
+	/**
+	 * The off-heap tree containing all keys ({@code null} for a heap tree).
+	 */
+	PagedBPlusTree<Long, Long> paged;
+
+	/**
+	 * Generates the keys, builds the tree to look up, and prints the heap and direct memory it occupies.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Setup
+	public void setup() throws IOException {
+		keys = new long[entries];
+		Random random = new Random(entries);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = random.nextLong();
+		long heap = Heap.used();
+		if (treeType == TreeType.HEAP)
+			tree = heapTree();
+		else
+			paged = offHeapTree();
+		Heap.print(treeType.toString(), Heap.used() - heap);
+		if (paged != null)
+			System.out.printf("direct memory: %.1f MB%n", ((OffHeapPageStore) paged.store()).capacity() / 1048576.0);
+	}
+
+	/**
+	 * Closes the off-heap tree.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		if (paged != null)
+			paged.close();
+	}
+
+	/**
+	 * Builds a heap tree of all keys.
+	 *
+	 * @return the tree
+	 */
+	BPlusTree<Long, Long> heapTree() {
+		BPlusTree<Long, Long> t = new BPlusTree<Long, Long>(degree);
+		for (int i = 0; i < keys.length; i++)
+			t.insert(keys[i], (long) i);
+		return t;
+	}
+
+	/**
+	 * Builds an off-heap tree of all keys. Its store returns its memory once the tree is garbage collected.
+	 *
+	 * @return the tree
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	PagedBPlusTree<Long, Long> offHeapTree() throws IOException {
+		PagedBPlusTree<Long, Long> t = PagedBPlusTree.create(new OffHeapPageStore(pageSize), LongCodec.INSTANCE,
+				LongCodec.INSTANCE);
+		for (int i = 0; i < keys.length; i++)
+			t.insert(keys[i], (long) i);
+		return t;
+	}
+
+	/**
+	 * Inserts all keys into an empty tree.
+	 *
+	 * @return the tree
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	public Object insert() throws IOException {
+		return treeType == TreeType.HEAP ? heapTree() : offHeapTree();
+	}
+
+	/**
+	 * Looks up all keys.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	public void find(Blackhole blackhole) throws IOException {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(tree != null ? tree.contains(keys[i], (long) i) : paged.get(keys[i]));
+	}
+
+	/**
+	 * Performs a full garbage collection with the tree alive.
+	 */
+	@Benchmark
+	public void fullGc() {
+		System.gc();
+	}
+
+}
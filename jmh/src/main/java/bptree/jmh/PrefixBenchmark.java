@@ -0,0 +1,202 @@
+package bptree.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.prefix.PrefixBPlusTree;
+import bptree.prefix.PrefixLeafNode;
+import bptree.prefix.PrefixNode;
+import bptree.prefix.PrefixNonLeafNode;
+
+/**
+ * Compares the throughput of {@code PrefixBPlusTree<Integer>} with that of {@code BPlusTree<String, Integer>} on
+ * {@value #SIZE} URL-like keys that share long prefixes. The heap footprints of both trees, each built from its own
+ * copies of the keys, and the average length of the leaf prefixes are printed when a trial is set up.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar PrefixBenchmark -p tenants=10}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrefixBenchmark {
+
+	/**
+	 * The number of entries in each tree.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The degree of the trees.
+	 */
+	@Param({ "64" })
+	int degree;
+
+	/**
+	 * The number of tenants in the keys.
+	 */
+	@Param({ "100" })
+	int tenants;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	String[] keys;
+
+	/**
+	 * A {@code BPlusTree<String, Integer>} containing all keys.
+	 */
+	BPlusTree<String, Integer> generic;
+
+	/**
+	 * A {@code PrefixBPlusTree<Integer>} containing all keys.
+	 */
+	PrefixBPlusTree<Integer> prefix;
+
+	/**
+	 * Generates the keys, builds the trees to look up, and prints their heap footprints and the average length of the
+	 * leaf prefixes.
+	 */
+	@Setup
+	public void setup() {
+		keys = new String[SIZE];
+		Random random = new Random(42);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = String.format("https://api.example.com/v1/tenants/tenant-%05d/orders/%010d",
+					random.nextInt(tenants), random.nextInt(Integer.MAX_VALUE));
+		// each tree is built from copies of the keys so that it alone retains them
+		Heap.print("BPlusTree<String, Integer>", Heap.retained(() -> insertGeneric(copy(keys))));
+		Heap.print("PrefixBPlusTree<Integer>", Heap.retained(() -> insertPrefix(copy(keys))));
+		generic = insertGeneric(keys);
+		prefix = insertPrefix(keys);
+		System.out.printf("key length: %d, average leaf prefix: %.1f%n", keys[0].length(), averageLeafPrefix(prefix));
+	}
+
+	/**
+	 * Returns copies of the specified keys.
+	 *
+	 * @param keys
+	 *            keys
+	 * @return copies of the specified keys
+	 */
+	static String[] copy(String[] keys) {
+		String[] copies = new String[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			copies[i] = new String(keys[i].toCharArray());
+		return copies;
+	}
+
+	/**
+	 * Returns the average length of the prefixes of the leaves of the specified tree.
+	 *
+	 * @param tree
+	 *            a {@code PrefixBPlusTree}
+	 * @return the average length of the prefixes of the leaves of the specified tree
+	 */
+	static double averageLeafPrefix(PrefixBPlusTree<Integer> tree) {
+		PrefixNode<Integer> n = tree.root();
+		while (n instanceof PrefixNonLeafNode)
+			n = ((PrefixNonLeafNode<Integer>) n).child(0);
+		long leaves = 0;
+		long length = 0;
+		for (PrefixLeafNode<Integer> l = (PrefixLeafNode<Integer>) n; l != null; l = l.successor()) {
+			leaves++;
+			length += l.prefix().length();
+		}
+		return (double) length / leaves;
+	}
+
+	/**
+	 * Builds a {@code BPlusTree<String, Integer>} of the specified keys.
+	 *
+	 * @param keys
+	 *            keys
+	 * @return the tree
+	 */
+	BPlusTree<String, Integer> insertGeneric(String[] keys) {
+		BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(degree);
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], i);
+		return tree;
+	}
+
+	/**
+	 * Builds a {@code PrefixBPlusTree<Integer>} of the specified keys.
+	 *
+	 * @param keys
+	 *            keys
+	 * @return the tree
+	 */
+	PrefixBPlusTree<Integer> insertPrefix(String[] keys) {
+		PrefixBPlusTree<Integer> tree = new PrefixBPlusTree<Integer>(degree);
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], i);
+		return tree;
+	}
+
+	/**
+	 * Inserts all keys into an empty {@code BPlusTree<String, Integer>}.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<String, Integer> insertGeneric() {
+		return insertGeneric(keys);
+	}
+
+	/**
+	 * Inserts all keys into an empty {@code PrefixBPlusTree<Integer>}.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public PrefixBPlusTree<Integer> insertPrefix() {
+		return insertPrefix(keys);
+	}
+
+	/**
+	 * Looks up all entries of the {@code BPlusTree<String, Integer>} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void findGeneric(Blackhole blackhole) {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(generic.contains(keys[i], i));
+	}
+
+	/**
+	 * Looks up all entries of the {@code PrefixBPlusTree<Integer>} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void findPrefix(Blackhole blackhole) {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(prefix.contains(keys[i], i));
+	}
+
+}
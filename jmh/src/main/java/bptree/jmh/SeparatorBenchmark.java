@@ -0,0 +1,204 @@
+package bptree.jmh;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bptree.BPlusTree;
+import bptree.Node;
+import bptree.NonLeafNode;
+import bptree.Separator;
+import bptree.codec.IntegerCodec;
+import bptree.codec.StringCodec;
+import bptree.page.OffHeapPageStore;
+import bptree.page.PagedBPlusTree;
+
+/**
+ * Compares trees of {@value #SIZE} URL-like {@code String} keys whose leaf splits promote the first key of the new
+ * leaf with trees that promote the shortest separating prefix ({@link Separator#shortestPrefix()}), by the throughput
+ * of lookups into a {@code PagedBPlusTree} and into a {@code BPlusTree}. When a trial is set up, the height and the
+ * number of pages of the {@code PagedBPlusTree}, whose inner pages hold as many keys as fit, are printed, and so are
+ * the height of the {@code BPlusTree}, whose nodes hold a fixed number of keys, and the average length of the keys in
+ * its {@code NonLeafNode}s.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar SeparatorBenchmark -p pageSize=8192}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeparatorBenchmark {
+
+	/**
+	 * The number of entries in each tree.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The separators.
+	 */
+	public enum SeparatorType {
+
+		/**
+		 * The first key of the new leaf ({@link Separator#first()}).
+		 */
+		FIRST_KEY,
+
+		/**
+		 * The shortest separating prefix ({@link Separator#shortestPrefix()}).
+		 */
+		SHORTEST_PREFIX;
+
+		/**
+		 * Returns the {@code Separator} of this type.
+		 *
+		 * @return the {@code Separator} of this type
+		 */
+		Separator<String> separator() {
+			return this == FIRST_KEY ? Separator.<String>first() : Separator.shortestPrefix();
+		}
+
+	}
+
+	/**
+	 * The separator.
+	 */
+	@Param({ "FIRST_KEY", "SHORTEST_PREFIX" })
+	SeparatorType separator;
+
+	/**
+	 * The page size of the {@code PagedBPlusTree}.
+	 */
+	@Param({ "4096" })
+	int pageSize;
+
+	/**
+	 * The degree of the {@code BPlusTree}.
+	 */
+	@Param({ "64" })
+	int degree;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	String[] keys;
+
+	/**
+	 * A {@code PagedBPlusTree} containing all keys.
+	 */
+	PagedBPlusTree<String, Integer> paged;
+
+	/**
+	 * A {@code BPlusTree} containing all keys.
+	 */
+	BPlusTree<String, Integer> tree;
+
+	/**
+	 * Generates the keys, builds the trees, and prints their shapes.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Setup
+	public void setup() throws IOException {
+		keys = new String[SIZE];
+		Random random = new Random(42);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = String.format("https://api.example.com/v1/tenants/tenant-%05d/orders/%010d/receipt.pdf?sig=%016x",
+					random.nextInt(1000), random.nextInt(Integer.MAX_VALUE), random.nextLong());
+		paged = PagedBPlusTree.create(new OffHeapPageStore(pageSize), StringCodec.INSTANCE, IntegerCodec.INSTANCE);
+		paged.setSeparator(separator.separator());
+		tree = new BPlusTree<String, Integer>(degree);
+		tree.setSeparator(separator.separator());
+		for (int i = 0; i < keys.length; i++) {
+			paged.insert(keys[i], i);
+			tree.insert(keys[i], i);
+		}
+		long[] stats = new long[3];
+		innerKeys(tree.root(), 1, stats);
+		System.out.printf("%nkey length: %d%nPagedBPlusTree: height %d, %d pages%n", keys[0].length(), paged.height(),
+				paged.store().pageCount());
+		System.out.printf("BPlusTree: height %d, %.1f chars per inner key%n", stats[0], (double) stats[2] / stats[1]);
+	}
+
+	/**
+	 * Closes the {@code PagedBPlusTree}.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		paged.close();
+	}
+
+	/**
+	 * Records the height of the specified subtree and the number and total length of the keys in its
+	 * {@code NonLeafNode}s.
+	 *
+	 * @param n
+	 *            the root of a subtree
+	 * @param depth
+	 *            the depth of the root of the subtree, starting at 1
+	 * @param stats
+	 *            the height, the number of keys, and the total length of the keys
+	 */
+	static void innerKeys(Node<String, Integer> n, int depth, long[] stats) {
+		stats[0] = Math.max(stats[0], depth);
+		if (!(n instanceof NonLeafNode))
+			return;
+		NonLeafNode<String, Integer> p = (NonLeafNode<String, Integer>) n;
+		for (int i = 0; i < p.keyCount(); i++) {
+			stats[1]++;
+			stats[2] += p.key(i).length();
+		}
+		for (int i = 0; i <= p.keyCount(); i++)
+			innerKeys(p.pointer(i), depth + 1, stats);
+	}
+
+	/**
+	 * Looks up all keys in the {@code PagedBPlusTree} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the pointers found
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void getPaged(Blackhole blackhole) throws IOException {
+		for (String k : keys)
+			blackhole.consume(paged.get(k));
+	}
+
+	/**
+	 * Looks up all entries in the {@code BPlusTree} in insertion order.
+	 *
+	 * @param blackhole
+	 *            the {@code Blackhole} that consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void containsTree(Blackhole blackhole) {
+		for (int i = 0; i < keys.length; i++)
+			blackhole.consume(tree.contains(keys[i], i));
+	}
+
+}
@@ -0,0 +1,150 @@
+package bptree.jmh;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+import bptree.TreeSerializer;
+import bptree.codec.LongCodec;
+
+/**
+ * Measures saving a {@code BPlusTree<Long, Long>} of {@value #SIZE} random keys to a file with a
+ * {@code TreeSerializer}, with and without the inner-node section, and loading it back, compared with rebuilding the
+ * tree by inserting its entries one at a time. All methods report the average time per entry; the size of the file,
+ * which is created in {@code java.io.tmpdir}, is printed when a trial is set up.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar SerializationBenchmark -p innerNodes=true}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+	/**
+	 * The number of entries in the tree.
+	 */
+	public static final int SIZE = 1000000;
+
+	/**
+	 * The degree of the tree.
+	 */
+	@Param({ "64" })
+	int degree;
+
+	/**
+	 * Whether the file includes the inner-node section.
+	 */
+	@Param({ "false", "true" })
+	boolean innerNodes;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	long[] keys;
+
+	/**
+	 * The tree to save.
+	 */
+	BPlusTree<Long, Long> tree;
+
+	/**
+	 * The file of the tree.
+	 */
+	Path file;
+
+	/**
+	 * Builds the tree, saves it, and prints the size of the file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Setup
+	public void setup() throws IOException {
+		keys = new long[SIZE];
+		Random random = new Random(0);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = random.nextLong();
+		tree = insert();
+		file = Files.createTempFile("tree", ".bpt");
+		save();
+		System.out.printf("%nfile: %.1f MB%n", Files.size(file) / 1048576.0);
+	}
+
+	/**
+	 * Deletes the file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Rebuilds the tree by inserting its entries one at a time.
+	 *
+	 * @return the tree
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<Long, Long> insert() {
+		BPlusTree<Long, Long> t = new BPlusTree<Long, Long>(degree);
+		for (int i = 0; i < keys.length; i++)
+			t.insert(keys[i], (long) i);
+		return t;
+	}
+
+	/**
+	 * Saves the tree to the file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void save() throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			TreeSerializer.write(tree, LongCodec.INSTANCE, LongCodec.INSTANCE, innerNodes, channel);
+		}
+	}
+
+	/**
+	 * Loads the tree from the file.
+	 *
+	 * @return the tree
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public BPlusTree<Long, Long> load() throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return TreeSerializer.read(channel, LongCodec.INSTANCE, LongCodec.INSTANCE);
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package workload;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.metrics.LatencyHistogram;
+
+/**
+ * A {@code ReplayEngine} replays {@link Trace}s against a {@code BPlusTree<String, Integer>} without the visualizer
+ * and reports, for each trace, the throughput, the 50th, 99th and 99.9th percentile latencies of each operation type,
+ * and the allocation rate of the replaying thread. The traces are replayed in order against the same tree, so that a
+ * load phase can be followed by a run phase as produced by {@link WorkloadGenerator}. Warm-up rounds replay all traces
+ * against a throwaway tree first so that the measured round runs compiled code.
+ * <p>
+ * Usage: {@code java -cp jmh/target/benchmarks.jar workload.ReplayEngine degree warmup-rounds trace...}
+ */
+public class ReplayEngine {
+
+	/**
+	 * Accumulates lookup results so that lookups cannot be optimized away.
+	 */
+	static volatile long sink;
+
+	/**
+	 * The {@code BPlusTree} to replay against.
+	 */
+	protected final BPlusTree<String, Integer> tree;
+
+	/**
+	 * The latencies of each operation type.
+	 */
+	protected final LatencyHistogram[] latencies = new LatencyHistogram[Trace.VERBS.length];
+
+	/**
+	 * The number of nanoseconds spent replaying.
+	 */
+	protected long elapsed;
+
+	/**
+	 * The number of bytes allocated while replaying ({@code -1} if the JVM cannot tell).
+	 */
+	protected long allocated;
+
+	/**
+	 * The number of operations replayed.
+	 */
+	protected long operations;
+
+	/**
+	 * Constructs a {@code ReplayEngine}.
+	 *
+	 * @param tree
+	 *            the {@code BPlusTree} to replay against
+	 */
+	public ReplayEngine(BPlusTree<String, Integer> tree) {
+		this.tree = tree;
+		for (int i = 0; i < latencies.length; i++)
+			latencies[i] = new LatencyHistogram();
+	}
+
+	/**
+	 * Replays the specified {@code Trace}, adding to the statistics of this {@code ReplayEngine}.
+	 *
+	 * @param trace
+	 *            a {@code Trace}
+	 */
+	public void replay(Trace trace) {
+		long sum = 0;
+		long allocatedBefore = allocatedBytes();
+		long begin = System.nanoTime();
+		for (int i = 0, n = trace.size(); i < n; i++) {
+			byte type = trace.type(i);
+			String k = trace.key(i);
+			int a = trace.argument(i);
+			long start = System.nanoTime();
+			switch (type) {
+			case Trace.INSERT:
+				tree.insert(k, a);
+				break;
+			case Trace.DELETE:
+				tree.delete(k, a);
+				break;
+			case Trace.FIND:
+				sum += tree.containsKey(k) ? 1 : 0;
+				break;
+			default:
+				RangeCursor<String, Integer> c = tree.range(k, null, Inclusivity.CLOSED);
+				for (int j = 0; j < a && c.next(); j++)
+					sum += c.pointer();
+			}
+			latencies[type].record(System.nanoTime() - start);
+		}
+		elapsed += System.nanoTime() - begin;
+		long allocatedAfter = allocatedBytes();
+		allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocated + allocatedAfter - allocatedBefore;
+		operations += trace.size();
+		sink = sum;
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread.
+	 *
+	 * @return the number of bytes allocated so far by the current thread; {@code -1} if the JVM cannot tell
+	 */
+	static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/**
+	 * Prints the statistics of this {@code ReplayEngine}.
+	 *
+	 * @param title
+	 *            the title of the report
+	 */
+	public void print(String title) {
+		double seconds = elapsed / 1e9;
+		System.out.printf("%s: %d operations in %.3f s, %.0f ops/s%n", title, operations, seconds,
+				operations / seconds);
+		if (allocated >= 0)
+			System.out.printf("allocation: %.1f MB/s, %.1f bytes/op%n", allocated / seconds / (1 << 20),
+					(double) allocated / Math.max(1, operations));
+		else
+			System.out.println("allocation: n/a");
+		System.out.printf("%-8s %12s %10s %10s %10s %10s%n", "op", "count", "p50 ns", "p99 ns", "p999 ns", "max ns");
+		for (int t = 0; t < latencies.length; t++) {
+			LatencyHistogram h = latencies[t];
+			if (h.count() > 0)
+				System.out.printf("%-8s %12d %10d %10d %10d %10d%n", Trace.VERBS[t], h.count(), h.percentile(50),
+						h.percentile(99), h.percentile(99.9), h.max());
+		}
+	}
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the degree of the tree, the number of warm-up rounds, and the trace files
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("usage: java workload.ReplayEngine degree warmup-rounds trace...");
+			System.exit(1);
+		}
+		int degree = Integer.parseInt(args[0]);
+		int warmups = Integer.parseInt(args[1]);
+		Trace[] traces = new Trace[args.length - 2];
+		for (int i = 0; i < traces.length; i++)
+			traces[i] = Trace.read(args[i + 2]);
+		for (int round = 0; round < warmups; round++) {
+			ReplayEngine engine = new ReplayEngine(new BPlusTree<String, Integer>(degree));
+			for (Trace trace : traces)
+				engine.replay(trace);
+		}
+		BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(degree);
+		System.out.printf("degree: %d, warm-up rounds: %d%n", degree, warmups);
+		for (int i = 0; i < traces.length; i++) {
+			ReplayEngine engine = new ReplayEngine(tree);
+			engine.replay(traces[i]);
+			System.out.println();
+			engine.print(args[i + 2]);
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package workload;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A {@code Trace} holds a sequence of operations read from a file in the format of {@code input.txt}, one operation
+ * per line:
+ * <ul>
+ * <li>{@code insert key pointer} inserts an entry,</li>
+ * <li>{@code delete key pointer} deletes an entry,</li>
+ * <li>{@code find key} looks up a key, and</li>
+ * <li>{@code scan key length} reads up to {@code length} entries starting at a key.</li>
+ * </ul>
+ * Pointers and lengths are {@code int}s. Blank lines and lines starting with {@code #} are ignored. The operations are
+ * kept in parallel arrays and each distinct key is stored once, so that a trace of millions of operations fits in
+ * memory and can be replayed without parsing.
+ */
+public class Trace {
+
+	/**
+	 * The operation types.
+	 */
+	public static final byte INSERT = 0, DELETE = 1, FIND = 2, SCAN = 3;
+
+	/**
+	 * The names of the operation types.
+	 */
+	public static final String[] VERBS = { "insert", "delete", "find", "scan" };
+
+	/**
+	 * The types of the operations.
+	 */
+	protected byte[] types = new byte[1024];
+
+	/**
+	 * The indices of the keys of the operations in {@link #keyTable}.
+	 */
+	protected int[] keys = new int[1024];
+
+	/**
+	 * The pointers or lengths of the operations.
+	 */
+	protected int[] arguments = new int[1024];
+
+	/**
+	 * The distinct keys.
+	 */
+	protected String[] keyTable = new String[1024];
+
+	/**
+	 * The number of operations.
+	 */
+	protected int size;
+
+	/**
+	 * The number of distinct keys.
+	 */
+	protected int keyCount;
+
+	/**
+	 * Reads a {@code Trace} from the specified file.
+	 *
+	 * @param file
+	 *            the name of a trace file
+	 * @return the {@code Trace} in the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if a line is malformed
+	 */
+	public static Trace read(String file) throws IOException {
+		Trace trace = new Trace();
+		HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+			String line;
+			for (int number = 1; (line = reader.readLine()) != null; number++) {
+				if (line.isEmpty() || line.charAt(0) == '#')
+					continue;
+				try {
+					trace.add(line, ids);
+				} catch (RuntimeException e) {
+					throw new IllegalArgumentException(file + ":" + number + ": malformed operation: " + line, e);
+				}
+			}
+		}
+		return trace;
+	}
+
+	/**
+	 * Parses the specified line and appends its operation to this {@code Trace}.
+	 *
+	 * @param line
+	 *            a line of a trace
+	 * @param ids
+	 *            the indices of the keys seen so far in {@link #keyTable}
+	 */
+	protected void add(String line, HashMap<String, Integer> ids) {
+		int s1 = line.indexOf(' ');
+		int s2 = line.indexOf(' ', s1 + 1);
+		String verb = line.substring(0, s1);
+		byte type = -1;
+		for (byte t = 0; t < VERBS.length; t++)
+			if (VERBS[t].equals(verb))
+				type = t;
+		if (type < 0 || (type == FIND) != (s2 < 0))
+			throw new IllegalArgumentException();
+		String key = s2 < 0 ? line.substring(s1 + 1) : line.substring(s1 + 1, s2);
+		Integer id = ids.get(key);
+		if (id == null) {
+			if (keyCount == keyTable.length)
+				keyTable = Arrays.copyOf(keyTable, keyCount * 2);
+			keyTable[keyCount] = key;
+			ids.put(key, id = keyCount++);
+		}
+		if (size == types.length) {
+			types = Arrays.copyOf(types, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+			arguments = Arrays.copyOf(arguments, size * 2);
+		}
+		types[size] = type;
+		keys[size] = id;
+		arguments[size] = s2 < 0 ? 0 : Integer.parseInt(line.substring(s2 + 1));
+		size++;
+	}
+
+	/**
+	 * Returns the number of operations in this {@code Trace}.
+	 *
+	 * @return the number of operations in this {@code Trace}
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the type of the specified operation.
+	 *
+	 * @param i
+	 *            the index of an operation
+	 * @return the type of the specified operation ({@link #INSERT}, {@link #DELETE}, {@link #FIND} or {@link #SCAN})
+	 */
+	public byte type(int i) {
+		return types[i];
+	}
+
+	/**
+	 * Returns the key of the specified operation.
+	 *
+	 * @param i
+	 *            the index of an operation
+	 * @return the key of the specified operation
+	 */
+	public String key(int i) {
+		return keyTable[keys[i]];
+	}
+
+	/**
+	 * Returns the pointer or length of the specified operation.
+	 *
+	 * @param i
+	 *            the index of an operation
+	 * @return the pointer of the specified insertion or deletion; the length of the specified scan; 0 for a lookup
+	 */
+	public int argument(int i) {
+		return arguments[i];
+	}
+
+}
@@ -0,0 +1,413 @@
+package workload;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.PersistentBPlusTree;
+import bptree.RangeCursor;
+
+/**
+ * A {@code TraceReplayer} streams a trace file in the format of {@link Trace} into a
+ * {@code BPlusTree<String, Integer>}. The file is memory-mapped in windows of up to {@link #WINDOW} bytes, so traces of
+ * any size can be replayed, and each line is parsed directly from the mapped bytes. The parser allocates nothing per
+ * line: keys are looked up in a table of the distinct keys seen so far without building a {@code String}, so a
+ * {@code String} is created only the first time a key appears (or for every line with a non-ASCII key). The only
+ * other allocation is the boxing of pointers that {@code BPlusTree<String, Integer>} requires.
+ * <p>
+ * Unlike {@code BPlusTreeVisualizer.startVisualizer}, which echoes every line and takes a snapshot after every
+ * operation, a {@code TraceReplayer} only calls a {@link Checkpointer}, if any, every given number of operations.
+ * <p>
+ * Usage: {@code java -cp jmh/target/benchmarks.jar workload.TraceReplayer trace [degree] [checkpoint-interval]}.
+ * With a checkpoint interval, the trace is replayed into a {@code PersistentBPlusTree} and a snapshot of it is taken
+ * at each checkpoint, so the measured tree differs from the {@code BPlusTree} replayed into otherwise; the report
+ * names the tree replayed into.
+ */
+public class TraceReplayer {
+
+	/**
+	 * The largest number of bytes mapped at once.
+	 */
+	public static final int WINDOW = 1 << 30;
+
+	/**
+	 * A {@code Checkpointer} is notified every given number of operations while a {@code TraceReplayer} replays a
+	 * trace.
+	 */
+	public interface Checkpointer {
+
+		/**
+		 * Takes a checkpoint of the tree, which reflects exactly the operations before the specified position.
+		 *
+		 * @param operations
+		 *            the number of operations replayed so far
+		 * @param position
+		 *            the byte position in the trace file of the first operation not replayed yet
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void checkpoint(long operations, long position) throws IOException;
+
+	}
+
+	/**
+	 * The verbs of the operations as bytes, in the order of the operation types of {@link Trace}.
+	 */
+	static final byte[][] VERBS = new byte[Trace.VERBS.length][];
+
+	static {
+		for (int t = 0; t < VERBS.length; t++)
+			VERBS[t] = Trace.VERBS[t].getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Accumulates lookup results so that lookups cannot be optimized away.
+	 */
+	static volatile long sink;
+
+	/**
+	 * The {@code BPlusTree} to replay into.
+	 */
+	protected final BPlusTree<String, Integer> tree;
+
+	/**
+	 * The distinct keys seen so far, in an open-addressing hash table.
+	 */
+	protected String[] keys = new String[1 << 10];
+
+	/**
+	 * The number of distinct keys seen so far.
+	 */
+	protected int keyCount;
+
+	/**
+	 * A buffer for decoding non-ASCII keys.
+	 */
+	protected byte[] scratch = new byte[64];
+
+	/**
+	 * The number of the line being parsed.
+	 */
+	protected long line;
+
+	/**
+	 * Accumulates the results of lookups and scans.
+	 */
+	protected long result;
+
+	/**
+	 * Constructs a {@code TraceReplayer}.
+	 *
+	 * @param tree
+	 *            the {@code BPlusTree} to replay into
+	 */
+	public TraceReplayer(BPlusTree<String, Integer> tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Replays the specified trace file.
+	 *
+	 * @param file
+	 *            a trace file
+	 * @param interval
+	 *            the number of operations between checkpoints (0 for no checkpoints)
+	 * @param checkpointer
+	 *            the {@code Checkpointer} to notify ({@code null} for no checkpoints)
+	 * @return the number of operations replayed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if a line is malformed or longer than {@link #WINDOW}
+	 */
+	public long replay(Path file, long interval, Checkpointer checkpointer) throws IOException {
+		long operations = 0;
+		line = 0;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long base = 0;
+			while (base < size) {
+				int limit = (int) Math.min(WINDOW, size - base);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+				boolean last = base + limit == size;
+				int pos = 0;
+				while (pos < limit) {
+					int end = pos;
+					while (end < limit && buffer.get(end) != '\n')
+						end++;
+					if (end == limit && !last) { // the line continues in the next window
+						if (pos == 0)
+							throw new IllegalArgumentException(file + ":" + (line + 1) + ": line too long");
+						break;
+					}
+					line++;
+					int type = apply(buffer, pos, end > pos && buffer.get(end - 1) == '\r' ? end - 1 : end, file);
+					pos = end + 1;
+					if (type < 0)
+						continue;
+					operations++;
+					if (checkpointer != null && interval > 0 && operations % interval == 0)
+						checkpointer.checkpoint(operations, Math.min(base + pos, size));
+				}
+				base += Math.min(pos, limit);
+			}
+		}
+		sink = result;
+		return operations;
+	}
+
+	/**
+	 * Parses the specified line and applies its operation to the tree.
+	 *
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index after the last byte of the line, excluding the line terminator
+	 * @param file
+	 *            the trace file (for error messages)
+	 * @return the type of the operation; -1 for a blank line or a comment
+	 */
+	protected int apply(MappedByteBuffer b, int begin, int end, Path file) {
+		if (begin == end || b.get(begin) == '#')
+			return -1;
+		int type = verb(b, begin, end);
+		if (type < 0)
+			throw malformed(b, begin, end, file);
+		int keyBegin = begin + VERBS[type].length + 1;
+		int keyEnd = keyBegin;
+		while (keyEnd < end && b.get(keyEnd) != ' ')
+			keyEnd++;
+		if (keyEnd == keyBegin || (type == Trace.FIND) != (keyEnd == end))
+			throw malformed(b, begin, end, file);
+		String k = key(b, keyBegin, keyEnd);
+		if (type == Trace.FIND) {
+			result += tree.containsKey(k) ? 1 : 0;
+			return type;
+		}
+		long a = 0;
+		int i = keyEnd + 1;
+		boolean negative = i < end && b.get(i) == '-';
+		if (negative)
+			i++;
+		if (i == end)
+			throw malformed(b, begin, end, file);
+		for (; i < end; i++) {
+			int d = b.get(i) - '0';
+			if (d < 0 || d > 9 || (a = a * 10 + d) > Integer.MAX_VALUE + 1L)
+				throw malformed(b, begin, end, file);
+		}
+		if (!negative && a > Integer.MAX_VALUE)
+			throw malformed(b, begin, end, file);
+		int p = (int) (negative ? -a : a);
+		switch (type) {
+		case Trace.INSERT:
+			tree.insert(k, p);
+			break;
+		case Trace.DELETE:
+			tree.delete(k, p);
+			break;
+		default:
+			RangeCursor<String, Integer> c = tree.range(k, null, Inclusivity.CLOSED);
+			for (int j = 0; j < p && c.next(); j++)
+				result += c.pointer();
+		}
+		return type;
+	}
+
+	/**
+	 * Determines the type of the operation on the specified line.
+	 *
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index after the last byte of the line
+	 * @return the type of the operation; -1 if the line does not start with a verb followed by a space
+	 */
+	static int verb(MappedByteBuffer b, int begin, int end) {
+		outer: for (int t = 0; t < VERBS.length; t++) {
+			byte[] v = VERBS[t];
+			if (end - begin <= v.length || b.get(begin + v.length) != ' ')
+				continue;
+			for (int j = 0; j < v.length; j++)
+				if (b.get(begin + j) != v[j])
+					continue outer;
+			return t;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the key spelled by the specified bytes, creating a {@code String} only if the key has not been seen
+	 * before or is not ASCII.
+	 *
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte of the key
+	 * @param end
+	 *            the index after the last byte of the key
+	 * @return the key spelled by the specified bytes
+	 */
+	protected String key(MappedByteBuffer b, int begin, int end) {
+		int length = end - begin;
+		int h = 0;
+		boolean ascii = true;
+		for (int i = begin; i < end; i++) {
+			byte c = b.get(i);
+			ascii &= c >= 0;
+			h = 31 * h + c; // equals String.hashCode() for ASCII keys
+		}
+		String decoded = null;
+		if (!ascii) {
+			if (scratch.length < length)
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			for (int i = 0; i < length; i++)
+				scratch[i] = b.get(begin + i);
+			decoded = new String(scratch, 0, length, StandardCharsets.UTF_8);
+			h = decoded.hashCode();
+		}
+		int mask = keys.length - 1;
+		for (int i = (h ^ h >>> 16) & mask;; i = (i + 1) & mask) {
+			String s = keys[i];
+			if (s == null) {
+				s = decoded != null ? decoded : ascii(b, begin, end);
+				keys[i] = s;
+				if (++keyCount * 2 > keys.length)
+					rehash();
+				return s;
+			}
+			if (s.hashCode() == h && (decoded != null ? s.equals(decoded) : equals(s, b, begin, end)))
+				return s;
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the key table.
+	 */
+	protected void rehash() {
+		String[] old = keys;
+		keys = new String[old.length * 2];
+		int mask = keys.length - 1;
+		for (String s : old)
+			if (s != null) {
+				int h = s.hashCode();
+				int i = (h ^ h >>> 16) & mask;
+				while (keys[i] != null)
+					i = (i + 1) & mask;
+				keys[i] = s;
+			}
+	}
+
+	/**
+	 * Determines whether the specified {@code String} is spelled by the specified ASCII bytes.
+	 *
+	 * @param s
+	 *            a {@code String}
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte
+	 * @param end
+	 *            the index after the last byte
+	 * @return {@code true} if the {@code String} is spelled by the specified bytes; {@code false} otherwise
+	 */
+	static boolean equals(String s, MappedByteBuffer b, int begin, int end) {
+		if (s.length() != end - begin)
+			return false;
+		for (int i = 0; i < s.length(); i++)
+			if (s.charAt(i) != b.get(begin + i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Creates a {@code String} from the specified ASCII bytes.
+	 *
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte
+	 * @param end
+	 *            the index after the last byte
+	 * @return a {@code String} spelled by the specified bytes
+	 */
+	static String ascii(MappedByteBuffer b, int begin, int end) {
+		char[] chars = new char[end - begin];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) b.get(begin + i);
+		return new String(chars);
+	}
+
+	/**
+	 * Constructs the exception for a malformed line.
+	 *
+	 * @param b
+	 *            the mapped bytes
+	 * @param begin
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index after the last byte of the line
+	 * @param file
+	 *            the trace file
+	 * @return an {@code IllegalArgumentException} describing the malformed line
+	 */
+	IllegalArgumentException malformed(MappedByteBuffer b, int begin, int end, Path file) {
+		byte[] bytes = new byte[end - begin];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = b.get(begin + i);
+		return new IllegalArgumentException(
+				file + ":" + line + ": malformed operation: " + new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the trace file, the degree of the tree, and the number of operations between checkpoints
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: java workload.TraceReplayer trace [degree] [checkpoint-interval]");
+			System.exit(1);
+		}
+		Path file = Paths.get(args[0]);
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		long interval = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		final PersistentBPlusTree<String, Integer> persistent = interval > 0
+				? new PersistentBPlusTree<String, Integer>(degree) : null;
+		BPlusTree<String, Integer> tree = persistent != null ? persistent
+				: new BPlusTree<String, Integer>(degree);
+		final long start = System.nanoTime();
+		final PersistentBPlusTree<?, ?>[] latest = new PersistentBPlusTree<?, ?>[1];
+		TraceReplayer replayer = new TraceReplayer(tree);
+		long operations = replayer.replay(file, interval, new Checkpointer() {
+
+			@Override
+			public void checkpoint(long operations, long position) {
+				latest[0] = persistent.snapshot();
+				System.out.printf("checkpoint: %d operations, byte %d, %.3f s%n", operations, position,
+						(System.nanoTime() - start) / 1e9);
+			}
+
+		});
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long bytes = java.nio.file.Files.size(file);
+		System.out.printf("%s: %d operations, %d distinct keys in %.3f s, %.0f ops/s, %.1f MB/s%n", file, operations,
+				replayer.keyCount, seconds, operations / seconds, bytes / seconds / (1 << 20));
+		System.out.printf("tree: %s of degree %d%s%n", tree.getClass().getSimpleName(), degree,
+				persistent != null ? " (checkpoints take snapshots, which plain BPlusTrees do not support)" : "");
+	}
+
+}
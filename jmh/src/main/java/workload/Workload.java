@@ -0,0 +1,95 @@
+package workload;
+
+/**
+ * The core workloads of the Yahoo! Cloud Serving Benchmark (Cooper et al., "Benchmarking Cloud Serving Systems with
+ * YCSB", SoCC 2010), given as the proportions of reads, updates, inserts, scans and read-modify-writes among their
+ * operations.
+ */
+public enum Workload {
+
+	/**
+	 * Update heavy: 50% reads and 50% updates of Zipfian keys.
+	 */
+	A(0.5, 0.5, 0, 0, 0, false),
+
+	/**
+	 * Read mostly: 95% reads and 5% updates of Zipfian keys.
+	 */
+	B(0.95, 0.05, 0, 0, 0, false),
+
+	/**
+	 * Read only: 100% reads of Zipfian keys.
+	 */
+	C(1, 0, 0, 0, 0, false),
+
+	/**
+	 * Read latest: 95% reads of recently inserted keys and 5% inserts.
+	 */
+	D(0.95, 0, 0.05, 0, 0, true),
+
+	/**
+	 * Short ranges: 95% scans starting at Zipfian keys and 5% inserts.
+	 */
+	E(0, 0, 0.05, 0.95, 0, false),
+
+	/**
+	 * Read-modify-write: 50% reads and 50% read-modify-writes of Zipfian keys.
+	 */
+	F(0.5, 0, 0, 0, 0.5, false);
+
+	/**
+	 * The proportion of reads.
+	 */
+	final double read;
+
+	/**
+	 * The proportion of updates.
+	 */
+	final double update;
+
+	/**
+	 * The proportion of inserts.
+	 */
+	final double insert;
+
+	/**
+	 * The proportion of scans.
+	 */
+	final double scan;
+
+	/**
+	 * The proportion of read-modify-writes.
+	 */
+	final double readModifyWrite;
+
+	/**
+	 * A flag indicating whether the most recently inserted keys are the most popular ones.
+	 */
+	final boolean latest;
+
+	/**
+	 * Constructs a {@code Workload}.
+	 *
+	 * @param read
+	 *            the proportion of reads
+	 * @param update
+	 *            the proportion of updates
+	 * @param insert
+	 *            the proportion of inserts
+	 * @param scan
+	 *            the proportion of scans
+	 * @param readModifyWrite
+	 *            the proportion of read-modify-writes
+	 * @param latest
+	 *            a flag indicating whether the most recently inserted keys are the most popular ones
+	 */
+	Workload(double read, double update, double insert, double scan, double readModifyWrite, boolean latest) {
+		this.read = read;
+		this.update = update;
+		this.insert = insert;
+		this.scan = scan;
+		this.readModifyWrite = readModifyWrite;
+		this.latest = latest;
+	}
+
+}
@@ -0,0 +1,197 @@
+package workload;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A {@code WorkloadGenerator} writes the operations of a YCSB {@link Workload} as a trace in the format of
+ * {@link Trace}. The load phase inserts the initial records and the run phase performs the operations of the
+ * workload on them. Since the trace format has no update, an update of a record deletes its entry and inserts a new
+ * one with a fresh pointer; a read-modify-write is a {@code find} followed by such an update. Keys are YCSB-style
+ * names ({@code user} followed by a hash of the record number), so that consecutive records are spread over the tree.
+ * <p>
+ * Usage: {@code java -cp jmh/target/benchmarks.jar workload.WorkloadGenerator [workload] [records] [operations]
+ * [prefix]} writes {@code prefix.load.txt} and {@code prefix.run.txt}.
+ */
+public class WorkloadGenerator {
+
+	/**
+	 * The longest scan.
+	 */
+	public static final int MAX_SCAN_LENGTH = 100;
+
+	/**
+	 * The {@code Workload}.
+	 */
+	protected final Workload workload;
+
+	/**
+	 * The source of randomness.
+	 */
+	protected final Random random;
+
+	/**
+	 * The distribution of the popular records.
+	 */
+	protected final ZipfianGenerator zipfian;
+
+	/**
+	 * The current pointers of the records.
+	 */
+	protected int[] pointers;
+
+	/**
+	 * The number of records.
+	 */
+	protected int records;
+
+	/**
+	 * The pointer of the next entry.
+	 */
+	protected int nextPointer;
+
+	/**
+	 * Constructs a {@code WorkloadGenerator}.
+	 *
+	 * @param workload
+	 *            the {@code Workload}
+	 * @param records
+	 *            the number of initial records
+	 * @param seed
+	 *            the seed of the random number generator
+	 */
+	public WorkloadGenerator(Workload workload, int records, long seed) {
+		this.workload = workload;
+		this.random = new Random(seed);
+		this.zipfian = new ZipfianGenerator(records, random);
+		this.pointers = new int[records];
+	}
+
+	/**
+	 * Returns the key of the specified record.
+	 *
+	 * @param record
+	 *            a record number
+	 * @return the key of the specified record
+	 */
+	public static String key(long record) {
+		return "user" + Long.toUnsignedString(record * 0x9E3779B97F4A7C15L); // a bijection, so keys are distinct
+	}
+
+	/**
+	 * Writes the load phase, which inserts the initial records in order.
+	 *
+	 * @param out
+	 *            the {@code Writer} of the trace
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void load(Writer out) throws IOException {
+		while (records < pointers.length)
+			insert(out);
+	}
+
+	/**
+	 * Writes the run phase.
+	 *
+	 * @param operations
+	 *            the number of operations
+	 * @param out
+	 *            the {@code Writer} of the trace
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void run(long operations, Writer out) throws IOException {
+		for (long i = 0; i < operations; i++) {
+			double r = random.nextDouble();
+			if ((r -= workload.read) < 0)
+				out.write("find " + key(choose()) + "\n");
+			else if ((r -= workload.update) < 0)
+				update(choose(), out);
+			else if ((r -= workload.insert) < 0)
+				insert(out);
+			else if ((r -= workload.scan) < 0)
+				out.write("scan " + key(choose()) + " " + (1 + random.nextInt(MAX_SCAN_LENGTH)) + "\n");
+			else {
+				int record = choose();
+				out.write("find " + key(record) + "\n");
+				update(record, out);
+			}
+		}
+	}
+
+	/**
+	 * Chooses a record to operate on.
+	 *
+	 * @return the number of the chosen record
+	 */
+	protected int choose() {
+		if (workload.latest)
+			return (int) Math.max(0, records - 1 - zipfian.next());
+		return (int) zipfian.scrambled(zipfian.next());
+	}
+
+	/**
+	 * Writes the insertion of a new record.
+	 *
+	 * @param out
+	 *            the {@code Writer} of the trace
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insert(Writer out) throws IOException {
+		if (records == pointers.length)
+			pointers = Arrays.copyOf(pointers, pointers.length * 2);
+		int p = nextPointer++;
+		pointers[records] = p;
+		out.write("insert " + key(records++) + " " + p + "\n");
+	}
+
+	/**
+	 * Writes the update of the specified record.
+	 *
+	 * @param record
+	 *            a record number
+	 * @param out
+	 *            the {@code Writer} of the trace
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void update(int record, Writer out) throws IOException {
+		String k = key(record);
+		int p = nextPointer++;
+		out.write("delete " + k + " " + pointers[record] + "\n");
+		out.write("insert " + k + " " + p + "\n");
+		pointers[record] = p;
+	}
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the workload (A to F), the number of records, the number of operations, and the prefix of the trace
+	 *            files
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static void main(String[] args) throws IOException {
+		Workload workload = args.length > 0 ? Workload.valueOf(args[0].toUpperCase()) : Workload.A;
+		int records = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		long operations = args.length > 2 ? Long.parseLong(args[2]) : 1000000;
+		String prefix = args.length > 3 ? args[3] : "workload-" + workload.name().toLowerCase();
+		WorkloadGenerator generator = new WorkloadGenerator(workload, records, 0);
+		try (Writer out = new BufferedWriter(new FileWriter(prefix + ".load.txt"), 1 << 16)) {
+			generator.load(out);
+		}
+		try (Writer out = new BufferedWriter(new FileWriter(prefix + ".run.txt"), 1 << 16)) {
+			generator.run(operations, out);
+		}
+		System.out.printf("workload %s: %d records in %s.load.txt, %d operations in %s.run.txt%n", workload, records,
+				prefix, operations, prefix);
+	}
+
+}
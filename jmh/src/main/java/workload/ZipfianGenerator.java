@@ -0,0 +1,130 @@
+package workload;
+
+import java.util.Random;
+
+/**
+ * A {@code ZipfianGenerator} draws items {@code 0} through {@code items - 1} so that item {@code i} is drawn with a
+ * probability proportional to {@code 1 / (i + 1)^theta}, using the method of Gray et al. ("Quickly Generating
+ * Billion-Record Synthetic Databases", SIGMOD 1994) as YCSB does. Item 0 is the most popular one; see
+ * {@link #scrambled(long)} for popular items spread over the whole range.
+ */
+public class ZipfianGenerator {
+
+	/**
+	 * The skew used by YCSB.
+	 */
+	public static final double YCSB_THETA = 0.99;
+
+	/**
+	 * The number of items.
+	 */
+	protected final long items;
+
+	/**
+	 * The skew of the distribution.
+	 */
+	protected final double theta;
+
+	/**
+	 * Constants derived from the number of items and the skew.
+	 */
+	protected final double alpha, zetan, eta, half;
+
+	/**
+	 * The source of randomness.
+	 */
+	protected final Random random;
+
+	/**
+	 * Constructs a {@code ZipfianGenerator} with the skew used by YCSB.
+	 *
+	 * @param items
+	 *            the number of items
+	 * @param random
+	 *            the source of randomness
+	 */
+	public ZipfianGenerator(long items, Random random) {
+		this(items, YCSB_THETA, random);
+	}
+
+	/**
+	 * Constructs a {@code ZipfianGenerator}. Construction takes time linear in the number of items.
+	 *
+	 * @param items
+	 *            the number of items
+	 * @param theta
+	 *            the skew of the distribution (between 0 and 1, exclusive)
+	 * @param random
+	 *            the source of randomness
+	 * @throws IllegalArgumentException
+	 *             if the number of items is not positive or the skew is not between 0 and 1
+	 */
+	public ZipfianGenerator(long items, double theta, Random random) {
+		if (items < 1)
+			throw new IllegalArgumentException("items: " + items);
+		if (!(theta > 0 && theta < 1))
+			throw new IllegalArgumentException("theta: " + theta);
+		this.items = items;
+		this.theta = theta;
+		this.random = random;
+		zetan = zeta(items, theta);
+		alpha = 1 / (1 - theta);
+		eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+		half = 1 + Math.pow(0.5, theta);
+	}
+
+	/**
+	 * Returns the generalized harmonic number {@code sum(1 / i^theta)} for {@code i} from 1 to {@code n}.
+	 *
+	 * @param n
+	 *            the number of terms
+	 * @param theta
+	 *            the exponent
+	 * @return the generalized harmonic number
+	 */
+	static double zeta(long n, double theta) {
+		double sum = 0;
+		for (long i = 1; i <= n; i++)
+			sum += 1 / Math.pow(i, theta);
+		return sum;
+	}
+
+	/**
+	 * Draws an item.
+	 *
+	 * @return an item between 0 and {@code items - 1}
+	 */
+	public long next() {
+		double u = random.nextDouble();
+		double uz = u * zetan;
+		if (uz < 1)
+			return 0;
+		if (uz < half)
+			return 1;
+		return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+	}
+
+	/**
+	 * Maps the specified item to an item in the same range so that popular items are spread over the whole range
+	 * instead of being clustered at its beginning.
+	 *
+	 * @param item
+	 *            an item between 0 and {@code items - 1}
+	 * @return the scrambled item between 0 and {@code items - 1}
+	 */
+	public long scrambled(long item) {
+		long h = item * 0x9E3779B97F4A7C15L; // Fibonacci hashing
+		h ^= h >>> 32;
+		return Math.floorMod(h, items);
+	}
+
+	/**
+	 * Returns the number of items.
+	 *
+	 * @return the number of items
+	 */
+	public long items() {
+		return items;
+	}
+
+}
@@ -0,0 +1,34 @@
+package workload;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.BPlusTree;
+
+public class ReplayEngineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A trace may start with lookups on an empty tree, and only lookups of present keys count as hits.
+	 */
+	@Test
+	public void testFindCountsPresentKeys() throws Exception {
+		File file = folder.newFile("trace.txt");
+		Files.write(file.toPath(), Arrays.asList("find a", "insert a 1", "insert c 2", "find a", "find b", "find d",
+				"delete a 1", "find a", "find c"), StandardCharsets.UTF_8);
+		ReplayEngine engine = new ReplayEngine(new BPlusTree<String, Integer>(4));
+		engine.replay(Trace.read(file.getPath()));
+		assertEquals(2, ReplayEngine.sink);
+	}
+
+}
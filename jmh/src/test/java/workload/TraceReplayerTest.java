@@ -0,0 +1,38 @@
+package workload;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.BPlusTree;
+import bptree.PersistentBPlusTree;
+
+public class TraceReplayerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A trace may start with lookups on an empty tree, and only lookups of present keys count as hits.
+	 */
+	@Test
+	public void testFindCountsPresentKeys() throws Exception {
+		File file = folder.newFile("trace.txt");
+		Files.write(file.toPath(), Arrays.asList("find a", "insert a 1", "insert c 2", "find a", "find b", "find d",
+				"delete a 1", "find a", "find c"), StandardCharsets.UTF_8);
+		for (BPlusTree<String, Integer> tree : Arrays.asList(new BPlusTree<String, Integer>(4),
+				new PersistentBPlusTree<String, Integer>(4))) {
+			TraceReplayer replayer = new TraceReplayer(tree);
+			assertEquals(9, replayer.replay(file.toPath(), 0, null));
+			assertEquals(2, replayer.result);
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package benchmark;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import bptree.BPlusTree;
+import bptree.BatchStats;
+import bptree.Node;
+import bptree.NonLeafNode;
+
+/**
+ * Compares inserting batches of random entries into a {@code BPlusTree<Long, Long>} with
+ * {@link BPlusTree#insertAll(java.util.Collection)} against calling {@link BPlusTree#insert(Comparable, Object)} in a
+ * loop, and reports the descents and splits that {@code insertAll} saves.
+ * <p>
+ * Usage: {@code java benchmark.BatchInsertBenchmark [initial entries] [batch size] [batches] [degree] [rounds]}
+ */
+public class BatchInsertBenchmark {
+
+	/**
+	 * Holds the last tree built so that building it cannot be optimized away.
+	 */
+	static volatile Object sink;
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of initial entries, the number of entries per batch, the number of batches, the degree of
+	 *            the trees, and the number of measured rounds
+	 */
+	public static void main(String[] args) {
+		int initial = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		int batches = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int degree = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+		int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+		Random random = new Random(0);
+		long[] base = new long[initial];
+		for (int i = 0; i < initial; i++)
+			base[i] = random.nextLong();
+		List<List<Map.Entry<Long, Long>>> input = new ArrayList<List<Map.Entry<Long, Long>>>();
+		for (int b = 0; b < batches; b++) {
+			List<Map.Entry<Long, Long>> batch = new ArrayList<Map.Entry<Long, Long>>(batchSize);
+			for (int i = 0; i < batchSize; i++) {
+				long k = random.nextLong();
+				batch.add(new AbstractMap.SimpleImmutableEntry<Long, Long>(k, k));
+			}
+			input.add(batch);
+		}
+		double loop = 0;
+		double batched = 0;
+		long loopSplits = 0;
+		long descents = 0;
+		long splits = 0;
+		for (int round = -2; round < rounds; round++) { // the first two rounds warm up the JIT
+			BPlusTree<Long, Long> tree = tree(base, degree);
+			long nodes = nodes(tree.root());
+			long start = System.nanoTime();
+			for (List<Map.Entry<Long, Long>> batch : input)
+				for (Map.Entry<Long, Long> e : batch)
+					tree.insert(e.getKey(), e.getValue());
+			long end = System.nanoTime();
+			long created = nodes(tree.root()) - nodes;
+			sink = tree;
+			tree = tree(base, degree);
+			long middle = System.nanoTime();
+			long d = 0;
+			long s = 0;
+			for (List<Map.Entry<Long, Long>> batch : input) {
+				BatchStats stats = tree.insertAll(batch);
+				d += stats.descents();
+				s += stats.splits();
+			}
+			long last = System.nanoTime();
+			sink = tree;
+			if (round >= 0) {
+				loop += (long) batchSize * batches * 1e9 / (end - start) / rounds;
+				batched += (long) batchSize * batches * 1e9 / (last - middle) / rounds;
+				loopSplits = created;
+				descents = d;
+				splits = s;
+			}
+		}
+		long entries = (long) batchSize * batches;
+		System.out.printf("initial entries: %d, batch size: %d, batches: %d, degree: %d%n", initial, batchSize, batches,
+				degree);
+		System.out.printf("%-12s %14s %12s %12s%n", "method", "entries/s", "descents", "splits");
+		System.out.printf("%-12s %14.0f %12d %12d%n", "insert", loop, entries, loopSplits);
+		System.out.printf("%-12s %14.0f %12d %12d%n", "insertAll", batched, descents, splits);
+		System.out.printf("insertAll: %.2fx faster, %d descents and %d splits saved%n", batched / loop,
+				entries - descents, loopSplits - splits);
+	}
+
+	/**
+	 * Constructs a {@code BPlusTree} containing the specified keys.
+	 *
+	 * @param keys
+	 *            keys
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @return a {@code BPlusTree} containing the specified keys
+	 */
+	static BPlusTree<Long, Long> tree(long[] keys, int degree) {
+		BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree);
+		for (long k : keys)
+			tree.insert(k, k);
+		return tree;
+	}
+
+	/**
+	 * Counts the {@code Node}s in the specified subtree.
+	 *
+	 * @param n
+	 *            the root of a subtree
+	 * @return the number of {@code Node}s in the specified subtree
+	 */
+	static long nodes(Node<Long, Long> n) {
+		if (!(n instanceof NonLeafNode))
+			return n == null ? 0 : 1;
+		long count = 1;
+		for (int i = 0; i <= n.keyCount(); i++)
+			count += nodes(((NonLeafNode<Long, Long>) n).pointer(i));
+		return count;
+	}
+
+}
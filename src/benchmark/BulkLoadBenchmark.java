@@ -0,0 +1,56 @@
+package benchmark;
+
+import bptree.BPlusTree;
+import bptree.BulkLoader;
+
+/**
+ * Compares building a {@code BPlusTree<Long, Long>} from sorted entries with a {@code BulkLoader} against inserting
+ * the entries one at a time.
+ * <p>
+ * Usage: {@code java benchmark.BulkLoadBenchmark [entries] [degree] [fill factor] [rounds]}
+ */
+public class BulkLoadBenchmark {
+
+	/**
+	 * Holds the last tree built so that building it cannot be optimized away.
+	 */
+	static volatile Object sink;
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of entries, the degree of the trees, the fill factor, and the number of measured rounds
+	 */
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		double fillFactor = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+		double insert = 0;
+		double bulkLoad = 0;
+		for (int round = -2; round < rounds; round++) { // the first two rounds warm up the JIT
+			long start = System.nanoTime();
+			BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree);
+			for (long i = 0; i < entries; i++)
+				tree.insert(i, i);
+			sink = tree;
+			long middle = System.nanoTime();
+			BulkLoader<Long, Long> loader = new BulkLoader<Long, Long>(degree, fillFactor);
+			for (long i = 0; i < entries; i++)
+				loader.add(i, i);
+			sink = loader.build();
+			long end = System.nanoTime();
+			if (round >= 0) {
+				insert += entries * 1e9 / (middle - start) / rounds;
+				bulkLoad += entries * 1e9 / (end - middle) / rounds;
+			}
+		}
+		System.out.printf("entries: %d, degree: %d, fill factor: %.2f%n", entries, degree, fillFactor);
+		System.out.printf("%-12s %14s%n", "method", "entries/s");
+		System.out.printf("%-12s %14.0f%n", "insert", insert);
+		System.out.printf("%-12s %14.0f%n", "bulk load", bulkLoad);
+		System.out.printf("bulk load: %.2fx faster%n", bulkLoad / insert);
+	}
+
+}
@@ -0,0 +1,160 @@
+package benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import bptree.BPlusTree;
+import bptree.concurrent.BLinkTree;
+import bptree.concurrent.OptimisticBPlusTree;
+
+/**
+ * Compares the throughput of {@code BLinkTree} and {@code OptimisticBPlusTree} with that of a {@code BPlusTree} guarded
+ * by a single read-write lock on a mixed insert/lookup workload over a growing number of threads. A small insert ratio
+ * (e.g., 0.05) yields the read-dominated workloads for which optimistic lock coupling is intended.
+ * <p>
+ * Usage: {@code java benchmark.ConcurrentBenchmark [operations per thread] [degree] [insert ratio] [max threads]}
+ */
+public class ConcurrentBenchmark {
+
+	/**
+	 * A tree under test.
+	 */
+	interface Tree {
+
+		void insert(long k);
+
+		boolean find(long k);
+
+	}
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of operations per thread, the degree of the trees, the fraction of inserts, and the maximum
+	 *            number of threads
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int operations = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		double insertRatio = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+		int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		System.out.printf("operations/thread: %d, degree: %d, inserts: %.0f%%, cores: %d%n", operations, degree,
+				insertRatio * 100, Runtime.getRuntime().availableProcessors());
+		System.out.printf("%8s %20s %20s %20s%n", "threads", "locked (op/s)", "BLinkTree (op/s)", "optimistic (op/s)");
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			double locked = 0;
+			double blink = 0;
+			double optimistic = 0;
+			for (int round = -1; round < 3; round++) { // the first round warms up the JIT
+				double l = run(locked(degree), threads, operations, insertRatio);
+				double b = run(blink(degree), threads, operations, insertRatio);
+				double o = run(optimistic(degree), threads, operations, insertRatio);
+				if (round >= 0) {
+					locked += l / 3;
+					blink += b / 3;
+					optimistic += o / 3;
+				}
+			}
+			System.out.printf("%8d %20.0f %20.0f %20.0f%n", threads, locked, blink, optimistic);
+		}
+	}
+
+	/**
+	 * Returns a {@code BPlusTree} guarded by a single read-write lock.
+	 */
+	static Tree locked(int degree) {
+		BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree);
+		ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		return new Tree() {
+
+			@Override
+			public void insert(long k) {
+				lock.writeLock().lock();
+				try {
+					tree.insert(k, k);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+
+			@Override
+			public boolean find(long k) {
+				lock.readLock().lock();
+				try {
+					return tree.root() != null && tree.find(k).contains(k, k);
+				} finally {
+					lock.readLock().unlock();
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a {@code BLinkTree}.
+	 */
+	static Tree blink(int degree) {
+		BLinkTree<Long, Long> tree = new BLinkTree<Long, Long>(degree);
+		return new Tree() {
+
+			@Override
+			public void insert(long k) {
+				tree.insert(k, k);
+			}
+
+			@Override
+			public boolean find(long k) {
+				return tree.find(k) != null;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an {@code OptimisticBPlusTree}.
+	 */
+	static Tree optimistic(int degree) {
+		OptimisticBPlusTree<Long, Long> tree = new OptimisticBPlusTree<Long, Long>(degree);
+		return new Tree() {
+
+			@Override
+			public void insert(long k) {
+				tree.insert(k, k);
+			}
+
+			@Override
+			public boolean find(long k) {
+				return tree.find(k) != null;
+			}
+
+		};
+	}
+
+	/**
+	 * Runs the workload on the specified number of threads and returns the throughput in operations per second.
+	 */
+	static double run(Tree tree, int threads, int operations, double insertRatio) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++)
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < operations; i++) {
+					long k = random.nextLong(operations * (long) threads);
+					if (random.nextDouble() < insertRatio)
+						tree.insert(k);
+					else
+						tree.find(k);
+				}
+			});
+		long start = System.nanoTime();
+		for (Thread worker : workers)
+			worker.start();
+		for (Thread worker : workers)
+			worker.join();
+		return (double) operations * threads * 1e9 / (System.nanoTime() - start);
+	}
+
+}
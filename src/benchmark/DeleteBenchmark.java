@@ -0,0 +1,93 @@
+package benchmark;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import bptree.BPlusTree;
+import bptree.BulkLoader;
+
+/**
+ * Compares purging entries from a {@code BPlusTree<Long, Long>} by calling {@link BPlusTree#delete(Comparable, Object)}
+ * in a loop against {@link BPlusTree#deleteRange(Comparable, Comparable)} (for a contiguous range of keys) and
+ * {@link BPlusTree#deleteAll(java.util.Collection)} (for every other key in the range).
+ * <p>
+ * Usage: {@code java benchmark.DeleteBenchmark [entries] [purged fraction] [degree] [rounds]}
+ */
+public class DeleteBenchmark {
+
+	/**
+	 * Holds the last tree purged so that purging it cannot be optimized away.
+	 */
+	static volatile Object sink;
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of entries, the fraction of the entries to purge, the degree of the trees, and the number of
+	 *            measured rounds
+	 */
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		double fraction = args.length > 1 ? Double.parseDouble(args[1]) : 0.5;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		long from = (long) (entries * (1 - fraction) / 2);
+		long to = from + (long) (entries * fraction) - 1;
+		List<Map.Entry<Long, Long>> odd = new ArrayList<Map.Entry<Long, Long>>();
+		for (long k = from | 1; k <= to; k += 2)
+			odd.add(new AbstractMap.SimpleImmutableEntry<Long, Long>(k, k));
+		double[] loop = new double[2];
+		double[] bulk = new double[2];
+		for (int round = -2; round < rounds; round++) { // the first two rounds warm up the JIT
+			double[] times = new double[4];
+			BPlusTree<Long, Long> tree = tree(entries, degree);
+			long start = System.nanoTime();
+			for (long k = from; k <= to; k++)
+				tree.delete(k, k);
+			times[0] = System.nanoTime() - start;
+			tree = tree(entries, degree);
+			start = System.nanoTime();
+			tree.deleteRange(from, to);
+			times[1] = System.nanoTime() - start;
+			tree = tree(entries, degree);
+			start = System.nanoTime();
+			for (Map.Entry<Long, Long> e : odd)
+				tree.delete(e.getKey(), e.getValue());
+			times[2] = System.nanoTime() - start;
+			tree = tree(entries, degree);
+			start = System.nanoTime();
+			tree.deleteAll(odd);
+			times[3] = System.nanoTime() - start;
+			sink = tree;
+			if (round >= 0)
+				for (int i = 0; i < 2; i++) {
+					loop[i] += times[2 * i] / 1e6 / rounds;
+					bulk[i] += times[2 * i + 1] / 1e6 / rounds;
+				}
+		}
+		System.out.printf("entries: %d, purged range: [%d, %d], degree: %d%n", entries, from, to, degree);
+		System.out.printf("%-24s %14s %14s %10s%n", "purge", "delete (ms)", "bulk (ms)", "speedup");
+		System.out.printf("%-24s %14.1f %14.1f %9.1fx%n", "range (deleteRange)", loop[0], bulk[0], loop[0] / bulk[0]);
+		System.out.printf("%-24s %14.1f %14.1f %9.1fx%n", "odd keys (deleteAll)", loop[1], bulk[1], loop[1] / bulk[1]);
+	}
+
+	/**
+	 * Constructs a {@code BPlusTree} whose keys and pointers are 0 through {@code entries - 1}.
+	 *
+	 * @param entries
+	 *            the number of entries
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @return a {@code BPlusTree} whose keys and pointers are 0 through {@code entries - 1}
+	 */
+	static BPlusTree<Long, Long> tree(int entries, int degree) {
+		BulkLoader<Long, Long> loader = new BulkLoader<Long, Long>(degree, 0.7);
+		for (long k = 0; k < entries; k++)
+			loader.add(k, k);
+		return loader.build();
+	}
+
+}
@@ -0,0 +1,85 @@
+package benchmark;
+
+import java.util.Random;
+
+import bptree.BPlusTree;
+import bptree.metrics.RecordingTreeMetrics;
+import bptree.metrics.TreeMetrics;
+
+/**
+ * Measures the overhead of {@code TreeMetrics} by running the same random insertions, lookups and deletions on a
+ * {@code BPlusTree<Long, Long>} without metrics ({@link TreeMetrics#NONE}) and with a {@link RecordingTreeMetrics},
+ * and prints the report of the latter.
+ * <p>
+ * Usage: {@code java benchmark.MetricsBenchmark [entries] [degree] [rounds]}
+ */
+public class MetricsBenchmark {
+
+	/**
+	 * Accumulates lookup results so that lookups cannot be optimized away.
+	 */
+	static volatile long sink;
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of entries, the degree of the trees, and the number of measured rounds
+	 */
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		long[] keys = new long[entries];
+		Random random = new Random(0);
+		for (int i = 0; i < entries; i++)
+			keys[i] = random.nextLong();
+		double none = 0;
+		double recording = 0;
+		RecordingTreeMetrics metrics = null;
+		for (int round = -2; round < rounds; round++) { // the first two rounds warm up the JIT
+			double t = run(keys, degree, TreeMetrics.NONE);
+			metrics = new RecordingTreeMetrics();
+			double r = run(keys, degree, metrics);
+			if (round >= 0) {
+				none += t / rounds;
+				recording += r / rounds;
+			}
+		}
+		System.out.printf("entries: %d, degree: %d%n", entries, degree);
+		System.out.printf("%-12s %14s%n", "metrics", "ops/s");
+		System.out.printf("%-12s %14.0f%n", "none", none);
+		System.out.printf("%-12s %14.0f%n", "recording", recording);
+		System.out.printf("recording overhead: %.1f%%%n", 100 * (none / recording - 1));
+		System.out.println();
+		System.out.print(metrics);
+	}
+
+	/**
+	 * Inserts, looks up and deletes the specified keys using a new {@code BPlusTree} with the specified
+	 * {@code TreeMetrics}.
+	 *
+	 * @param keys
+	 *            keys
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param metrics
+	 *            a {@code TreeMetrics}
+	 * @return the number of operations per second
+	 */
+	static double run(long[] keys, int degree, TreeMetrics metrics) {
+		long start = System.nanoTime();
+		BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree);
+		tree.setMetrics(metrics);
+		for (long k : keys)
+			tree.insert(k, k);
+		long sum = 0;
+		for (long k : keys)
+			sum += tree.find(k).keyCount();
+		for (long k : keys)
+			tree.delete(k, k);
+		sink = sum;
+		return 3.0 * keys.length * 1e9 / (System.nanoTime() - start);
+	}
+
+}
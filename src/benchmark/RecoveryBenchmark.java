@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import bptree.BPlusTree;
+import bptree.BulkLoader;
+import bptree.codec.IntegerCodec;
+import bptree.codec.LongCodec;
+import bptree.wal.DurableBPlusTree;
+import bptree.wal.Durability;
+
+/**
+ * Measures how long a {@code DurableBPlusTree} takes to recover after an increasing number of operations over a fixed
+ * key space, once from the log alone and once from background checkpoints and the rest of the log. Without
+ * checkpoints, recovery time grows with the number of operations; with checkpoints, it stays bounded by the size of
+ * the tree.
+ * <p>
+ * Usage: {@code java benchmark.RecoveryBenchmark [keys] [directory]}
+ */
+public class RecoveryBenchmark {
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of distinct keys, and the directory of the log and checkpoint files
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int keys = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		Path directory = Paths.get(args.length > 1 ? args[1] : ".");
+		System.out.printf("keys: %d, directory: %s%n", keys, directory.toAbsolutePath());
+		System.out.printf("%12s %12s %14s %12s %12s %14s%n", "operations", "log (KB)", "recovery (ms)", "cp log (KB)",
+				"checkpoints", "recovery (ms)");
+		for (int operations = keys; operations <= 16 * keys; operations *= 2) {
+			Path log = Files.createTempFile(directory, "recovery", ".log");
+			Path checkpointLog = Files.createTempFile(directory, "recovery", ".log");
+			Path checkpoint = Files.createTempFile(directory, "recovery", ".cp");
+			Files.delete(log);
+			Files.delete(checkpointLog);
+			Files.delete(checkpoint);
+			try {
+				DurableBPlusTree<Long, Integer> tree = new DurableBPlusTree<Long, Integer>(log,
+						new BPlusTree<Long, Integer>(64), LongCodec.INSTANCE, IntegerCodec.INSTANCE,
+						Durability.perBatch(1024));
+				run(tree, keys, operations);
+				tree.close();
+				long start = System.nanoTime();
+				tree = new DurableBPlusTree<Long, Integer>(log, new BPlusTree<Long, Integer>(64), LongCodec.INSTANCE,
+						IntegerCodec.INSTANCE, Durability.perBatch(1024));
+				double logRecovery = (System.nanoTime() - start) / 1e6;
+				tree.close();
+
+				tree = recover(checkpointLog, checkpoint);
+				tree.startCheckpoints(2L * keys * 21); // about two records of 21 bytes per key
+				run(tree, keys, operations);
+				long checkpoints = tree.checkpoints();
+				tree.close();
+				start = System.nanoTime();
+				tree = recover(checkpointLog, checkpoint);
+				double checkpointRecovery = (System.nanoTime() - start) / 1e6;
+				tree.close();
+				System.out.printf("%12d %12d %14.1f %12d %12d %14.1f%n", operations, Files.size(log) / 1024,
+						logRecovery, Files.size(checkpointLog) / 1024, checkpoints, checkpointRecovery);
+			} finally {
+				Files.deleteIfExists(log);
+				Files.deleteIfExists(checkpointLog);
+				Files.deleteIfExists(checkpoint);
+			}
+		}
+	}
+
+	/**
+	 * Recovers a {@code DurableBPlusTree} from the specified checkpoint and log files.
+	 *
+	 * @param log
+	 *            the log file
+	 * @param checkpoint
+	 *            the checkpoint file
+	 * @return the recovered {@code DurableBPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static DurableBPlusTree<Long, Integer> recover(Path log, Path checkpoint) throws Exception {
+		return DurableBPlusTree.recover(log, checkpoint, new BulkLoader<Long, Integer>(64, 0.7), LongCodec.INSTANCE,
+				IntegerCodec.INSTANCE, Durability.perBatch(1024));
+	}
+
+	/**
+	 * Applies the specified number of random insertions and deletions over the specified number of keys.
+	 *
+	 * @param tree
+	 *            a {@code DurableBPlusTree}
+	 * @param keys
+	 *            the number of distinct keys
+	 * @param operations
+	 *            the number of operations
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(DurableBPlusTree<Long, Integer> tree, int keys, int operations) throws Exception {
+		Random random = new Random(operations);
+		for (int i = 0; i < operations; i++) {
+			long k = random.nextInt(keys);
+			if (random.nextInt(4) == 0)
+				tree.delete(k, 0);
+			else
+				tree.insert(k, 0);
+		}
+	}
+
+}
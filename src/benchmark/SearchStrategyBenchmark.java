@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.util.Random;
+
+import bptree.BPlusTree;
+import bptree.SearchStrategy;
+
+/**
+ * Measures the number of key comparisons and the time per lookup of {@code BPlusTree<Long, Long>} for each
+ * {@code SearchStrategy} over a range of degrees.
+ * <p>
+ * Usage: {@code java benchmark.SearchStrategyBenchmark [entries] [rounds]}
+ */
+public class SearchStrategyBenchmark {
+
+	/**
+	 * The degrees to measure.
+	 */
+	static final int[] DEGREES = { 4, 16, 64, 128, 256, 512 };
+
+	/**
+	 * The names of the {@code SearchStrategy}s to measure.
+	 */
+	static final String[] STRATEGIES = { "linear", "binary", "interpolation" };
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of entries and the number of measured rounds
+	 */
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		Long[] keys = new Long[entries];
+		Random random = new Random(42);
+		for (int i = 0; i < entries; i++)
+			keys[i] = random.nextLong();
+
+		System.out.printf("entries: %d%n", entries);
+		System.out.printf("%8s %-14s %16s %14s%n", "degree", "strategy", "cmp/lookup", "ns/lookup");
+		for (int degree : DEGREES)
+			for (String strategy : STRATEGIES) {
+				BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(degree, strategy(strategy));
+				for (int i = 0; i < entries; i++)
+					tree.insert(keys[i], (long) i);
+				double nanos = 0;
+				for (int round = -2; round <= rounds; round++) { // the first two rounds warm up the JIT
+					boolean counting = round == rounds; // the last round counts comparisons and is not timed
+					tree.searchStrategy().countComparisons(counting);
+					tree.searchStrategy().resetComparisons();
+					long start = System.nanoTime();
+					int found = 0;
+					for (int i = 0; i < entries; i++)
+						if (tree.find(keys[i]).contains(keys[i], (long) i))
+							found++;
+					long end = System.nanoTime();
+					if (found != entries)
+						throw new IllegalStateException("found " + found + " of " + entries + " entries");
+					if (round >= 0 && !counting)
+						nanos += (double) (end - start) / entries / rounds;
+				}
+				long comparisons = tree.searchStrategy().comparisons();
+				System.out.printf("%8d %-14s %16.2f %14.1f%n", degree, strategy, (double) comparisons / entries, nanos);
+			}
+	}
+
+	/**
+	 * Returns a new {@code SearchStrategy} of the specified name.
+	 */
+	static SearchStrategy<Long> strategy(String name) {
+		switch (name) {
+		case "linear":
+			return SearchStrategy.linear();
+		case "binary":
+			return SearchStrategy.binary();
+		case "interpolation":
+			return SearchStrategy.interpolation();
+		default:
+			throw new IllegalArgumentException("unknown search strategy: " + name);
+		}
+	}
+
+}
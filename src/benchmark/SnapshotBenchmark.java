@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import bptree.BPlusTree;
+import bptree.PersistentBPlusTree;
+
+/**
+ * Compares keeping a version of the tree after every insertion, as {@code BPlusTreeVisualizer} does, by deep copying a
+ * {@code BPlusTree} and by taking snapshots of a {@code PersistentBPlusTree}.
+ * <p>
+ * Usage: {@code java benchmark.SnapshotBenchmark [operations] [degree]}
+ */
+public class SnapshotBenchmark {
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of operations and the degree of the trees
+	 */
+	public static void main(String[] args) {
+		int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		Random random = new Random(42);
+		int[] keys = new int[operations];
+		for (int i = 0; i < operations; i++)
+			keys[i] = random.nextInt();
+
+		long start = System.nanoTime();
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+		ArrayList<BPlusTree<Integer, Integer>> copies = new ArrayList<BPlusTree<Integer, Integer>>();
+		for (int i = 0; i < operations; i++) {
+			tree.insert(keys[i], i);
+			copies.add(new BPlusTree<Integer, Integer>(tree));
+		}
+		long middle = System.nanoTime();
+		PersistentBPlusTree<Integer, Integer> persistent = new PersistentBPlusTree<Integer, Integer>(degree);
+		ArrayList<BPlusTree<Integer, Integer>> snapshots = new ArrayList<BPlusTree<Integer, Integer>>();
+		for (int i = 0; i < operations; i++) {
+			persistent.insert(keys[i], i);
+			snapshots.add(persistent.snapshot());
+		}
+		long end = System.nanoTime();
+		System.out.printf("operations: %d, degree: %d%n", operations, degree);
+		System.out.printf("%-12s %12s%n", "method", "time (ms)");
+		System.out.printf("%-12s %12.1f%n", "deep copy", (middle - start) / 1e6);
+		System.out.printf("%-12s %12.1f%n", "snapshot", (end - middle) / 1e6);
+	}
+
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import bptree.BPlusTree;
+import bptree.codec.IntegerCodec;
+import bptree.codec.LongCodec;
+import bptree.wal.DurableBPlusTree;
+import bptree.wal.Durability;
+
+/**
+ * Measures the throughput of {@code DurableBPlusTree} insertions under each {@code Durability} with 1, 4 and 16
+ * threads, and reports how many records share each {@code fsync}. Per-operation durability only scales with the
+ * number of threads thanks to group commit.
+ * <p>
+ * Usage: {@code java benchmark.WalBenchmark [entries] [directory]}
+ */
+public class WalBenchmark {
+
+	/**
+	 * The main program.
+	 *
+	 * @param args
+	 *            the number of entries to insert per run, and the directory of the log files
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		Path directory = Paths.get(args.length > 1 ? args[1] : ".");
+		Durability[] durabilities = { Durability.perOperation(), Durability.perBatch(64), Durability.timed(10) };
+		int[] threadCounts = { 1, 4, 16 };
+		System.out.printf("entries: %d, directory: %s%n", entries, directory.toAbsolutePath());
+		System.out.printf("%-16s %8s %12s %10s %14s%n", "durability", "threads", "ops/s", "fsyncs", "records/fsync");
+		for (Durability durability : durabilities)
+			for (int threads : threadCounts) {
+				Path file = Files.createTempFile(directory, "wal", ".log");
+				Files.delete(file);
+				try {
+					DurableBPlusTree<Long, Integer> tree = new DurableBPlusTree<Long, Integer>(file,
+							new BPlusTree<Long, Integer>(64), LongCodec.INSTANCE, IntegerCodec.INSTANCE, durability);
+					double throughput = run(tree, entries, threads);
+					long syncs = tree.log().syncs();
+					tree.close();
+					System.out.printf("%-16s %8d %12.0f %10d %14.1f%n", durability, threads, throughput, syncs,
+							(double) entries / Math.max(1, syncs));
+				} finally {
+					Files.deleteIfExists(file);
+				}
+			}
+	}
+
+	/**
+	 * Inserts the specified number of entries into the specified {@code DurableBPlusTree} using the specified number
+	 * of threads.
+	 *
+	 * @param tree
+	 *            a {@code DurableBPlusTree}
+	 * @param entries
+	 *            the number of entries to insert
+	 * @param threads
+	 *            the number of threads
+	 * @return the number of insertions per second
+	 * @throws InterruptedException
+	 *             if interrupted
+	 */
+	static double run(final DurableBPlusTree<Long, Integer> tree, int entries, int threads)
+			throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		final int perThread = entries / threads;
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			workers[t] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < perThread; i++)
+							tree.insert((long) i * threads + id, i);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+		return (double) perThread * threads * 1e9 / (System.nanoTime() - start);
+	}
+
+}
@@ -1,9 +1,22 @@
 package bptree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import bptree.metrics.TreeMetrics;
+import bptree.metrics.TreeMetrics.Operation;
+
 /**
  * The {@code BPlusTree} class implements B+-trees. Each {@code BPlusTree} stores its elements in the main memory (not
- * on disks) for simplicity.
- * 
+ * on disks) for simplicity. See {@link bptree.page.PagedBPlusTree} for B+-trees whose nodes are stored in the pages
+ * of a file. A {@code BPlusTree} can be built from sorted entries with a {@link BulkLoader}.
+ *
  * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
  * 
  * @param <K>
@@ -12,9 +25,6 @@ package bptree;
  *            the type of pointers
  */
 public class BPlusTree<K extends Comparable<K>, P> {
-	int temp_val = 0;
-	int index =0;
-	int indexOfNdash = 0;
 	/**
 	 * The maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
 	 */
@@ -26,13 +36,52 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	protected Node<K, P> root;
 
 	/**
-	 * Constructs a {@code BPlusTree}.
+	 * The {@code SearchStrategy} that locates keys within the {@code Node}s of this {@code BPlusTree}.
+	 */
+	protected SearchStrategy<K> search;
+
+	/**
+	 * The {@code Separator} that chooses the key promoted when a {@code LeafNode} of this {@code BPlusTree} is split.
+	 */
+	protected Separator<K> separator = Separator.first();
+
+	/**
+	 * The {@code TreeMetrics} that receives the events of this {@code BPlusTree}.
+	 */
+	protected TreeMetrics metrics = TreeMetrics.NONE;
+
+	/**
+	 * The {@code NodePool} that recycles the {@code Node}s removed from this {@code BPlusTree} ({@code null} until
+	 * first needed).
+	 */
+	private NodePool<K, P> pool;
+
+	/**
+	 * Scratch arrays for combining the entries of two sibling {@code Node}s ({@code null} until first needed).
+	 */
+	private Object[] scratchKeys, scratchPointers;
+
+	/**
+	 * Constructs a {@code BPlusTree} that searches within its {@code Node}s using a branch-free binary search.
 	 * 
 	 * @param degree
 	 *            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
 	 */
 	public BPlusTree(int degree) {
+		this(degree, SearchStrategy.<K>binary());
+	}
+
+	/**
+	 * Constructs a {@code BPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
+	 * @param search
+	 *            the {@code SearchStrategy} that locates keys within the {@code Node}s of the {@code BPlusTree}
+	 */
+	public BPlusTree(int degree, SearchStrategy<K> search) {
 		this.degree = degree;
+		this.search = search;
 	}
 
 	/**
@@ -43,10 +92,49 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 */
 	public BPlusTree(BPlusTree<K, P> tree) {
 		this.degree = tree.degree;
+		this.search = tree.search;
+		this.separator = tree.separator;
+		this.metrics = tree.metrics;
+		if (tree.root == null)
+			return; // the other tree has become empty
 		if (tree.root instanceof LeafNode)
 			this.root = new LeafNode<K, P>(null, (LeafNode<K, P>) tree.root);
 		else
 			this.root = new NonLeafNode<K, P>(null, (NonLeafNode<K, P>) tree.root);
+		link(root, null);
+	}
+
+	/**
+	 * Returns the {@code NodePool} of this {@code BPlusTree}, creating it on first use so that trees which never split
+	 * or merge {@code Node}s, such as snapshots, do not pay for it.
+	 * 
+	 * @return the {@code NodePool} of this {@code BPlusTree}
+	 */
+	protected NodePool<K, P> pool() {
+		if (pool == null)
+			pool = new NodePool<K, P>(degree, NodePool.DEFAULT_CAPACITY);
+		return pool;
+	}
+
+	/**
+	 * Chains the {@code LeafNode}s in the specified subtree from left to right.
+	 * 
+	 * @param n
+	 *            the root of a subtree
+	 * @param last
+	 *            the {@code LeafNode} preceding the subtree ({@code null} if there is none)
+	 * @return the last {@code LeafNode} in the subtree
+	 */
+	@SuppressWarnings("unchecked")
+	LeafNode<K, P> link(Node<K, P> n, LeafNode<K, P> last) {
+		if (n instanceof LeafNode) {
+			if (last != null)
+				last.setSuccessor((LeafNode<K, P>) n);
+			return (LeafNode<K, P>) n;
+		}
+		for (int i = 0; n != null && i <= n.keyCount; i++)
+			last = link((Node<K, P>) n.pointers[i], last);
+		return last;
 	}
 
 	/**
@@ -67,15 +155,188 @@ public class BPlusTree<K extends Comparable<K>, P> {
 		return root;
 	}
 
+	/**
+	 * Returns the {@code SearchStrategy} of this {@code BPlusTree}, which also reports the number of key comparisons
+	 * performed so far.
+	 * 
+	 * @return the {@code SearchStrategy} of this {@code BPlusTree}
+	 */
+	public SearchStrategy<K> searchStrategy() {
+		return search;
+	}
+
+	/**
+	 * Returns the {@code Separator} of this {@code BPlusTree}.
+	 * 
+	 * @return the {@code Separator} of this {@code BPlusTree}
+	 */
+	public Separator<K> separator() {
+		return separator;
+	}
+
+	/**
+	 * Sets the {@code Separator} that chooses the key promoted when a {@code LeafNode} of this {@code BPlusTree} is
+	 * split (e.g., {@link Separator#shortestPrefix()} for {@code String} keys). The keys already in
+	 * {@code NonLeafNode}s are kept.
+	 * 
+	 * @param separator
+	 *            a {@code Separator}
+	 */
+	public void setSeparator(Separator<K> separator) {
+		this.separator = separator;
+	}
+
+	/**
+	 * Returns the {@code TreeMetrics} of this {@code BPlusTree}.
+	 * 
+	 * @return the {@code TreeMetrics} of this {@code BPlusTree}
+	 */
+	public TreeMetrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the {@code TreeMetrics} that receives the events of this {@code BPlusTree}.
+	 * 
+	 * @param metrics
+	 *            a {@code TreeMetrics} ({@link TreeMetrics#NONE} to ignore all events)
+	 */
+	public void setMetrics(TreeMetrics metrics) {
+		this.metrics = metrics;
+		search.countComparisons(false); // until a recording TreeMetrics turns counting on again
+		metrics.register(search);
+	}
+
 	/**
 	 * Finds the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key.
 	 * 
 	 * @param k
 	 *            the search key
-	 * @return the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key
+	 * @return the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key;
+	 *         {@code null} if this {@code BPlusTree} is empty
 	 */
 	public LeafNode<K, P> find(K k) {
-		return root.find(k);
+		if (root == null)
+			return null;
+		long start = metrics.start();
+		LeafNode<K, P> l = descend(k);
+		metrics.end(Operation.FIND, start);
+		return l;
+	}
+
+	/**
+	 * Descends from the root to the {@code LeafNode} that must be responsible for the specified key.
+	 * 
+	 * @param k
+	 *            the search key
+	 * @return the {@code LeafNode} that must be responsible for the specified key
+	 */
+	@SuppressWarnings("unchecked")
+	LeafNode<K, P> descend(K k) {
+		metrics.descent();
+		Node<K, P> n = root;
+		while (n instanceof NonLeafNode) // keys equal to a separating key are looked for in the left subtree
+			n = (Node<K, P>) n.pointers[search.lowerBound(n.keys, n.keyCount, k)];
+		return ((LeafNode<K, P>) n).find(k);
+	}
+
+	/**
+	 * Returns the leftmost {@code LeafNode} of this {@code BPlusTree}.
+	 * 
+	 * @return the leftmost {@code LeafNode} of this {@code BPlusTree}
+	 */
+	@SuppressWarnings("unchecked")
+	LeafNode<K, P> leftmost() {
+		Node<K, P> n = root;
+		while (n instanceof NonLeafNode)
+			n = (Node<K, P>) n.pointers[0];
+		return (LeafNode<K, P>) n;
+	}
+
+	/**
+	 * Returns a {@code RangeCursor} over the entries of this {@code BPlusTree} whose keys fall in the specified range.
+	 * 
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return a {@code RangeCursor} over the entries of this {@code BPlusTree} whose keys fall in the specified range
+	 */
+	public RangeCursor<K, P> range(K from, K to, Inclusivity inclusivity) {
+		return new RangeCursor<K, P>(this, from, to, inclusivity);
+	}
+
+	/**
+	 * Returns a {@code RangeSpliterator} over the entries of this {@code BPlusTree} whose keys fall in the specified
+	 * range. The {@code RangeSpliterator} splits along the children of {@code NonLeafNode}s, so that
+	 * {@code stream().parallel()} over it scales across cores.
+	 * 
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return a {@code RangeSpliterator} over the entries of this {@code BPlusTree} whose keys fall in the specified
+	 *         range
+	 */
+	public RangeSpliterator<K, P> spliterator(K from, K to, Inclusivity inclusivity) {
+		return new RangeSpliterator<K, P>(this, from, to, inclusivity);
+	}
+
+	/**
+	 * Determines whether or not this {@code BPlusTree} contains the specified key with any pointer.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return {@code true} if this {@code BPlusTree} contains the specified key; {@code false} otherwise
+	 */
+	public boolean containsKey(K k) {
+		LeafNode<K, P> l = find(k);
+		if (l == null)
+			return false;
+		int i = search.lowerBound(l.keys, l.keyCount, k);
+		return i < l.keyCount && l.keys[i].compareTo(k) == 0;
+	}
+
+	/**
+	 * Determines whether or not this {@code BPlusTree} contains the specified key and pointer.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if this {@code BPlusTree} contains the specified key and pointer; {@code false} otherwise
+	 */
+	public boolean contains(K k, P p) {
+		return root != null && contains(find(k), k, p);
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are contained in the specified {@code LeafNode} or, since
+	 * the entries of a key may span several {@code LeafNode}s, in its successors.
+	 * 
+	 * @param l
+	 *            the {@code LeafNode} responsible for the specified key
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are contained in this {@code BPlusTree}; {@code false}
+	 *         otherwise
+	 */
+	boolean contains(LeafNode<K, P> l, K k, P p) {
+		for (; l != null; l = l.successor()) {
+			int i = search.lowerBound(l.keys, l.keyCount, k);
+			for (; i < l.keyCount && l.keys[i].compareTo(k) == 0; i++)
+				if (l.pointers[i].equals(p))
+					return true;
+			if (i < l.keyCount)
+				return false;
+		}
+		return false;
 	}
 
 	/**
@@ -87,33 +348,239 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *            the pointer to insert
 	 */
 	public void insert(K k, P p) {
-		LeafNode<K, P> l; // will eventually be set to the leaf node that should contain the specified key
-		if (root == null) { // if the tree is empty
-			System.out.println("Degree of root is null :: " + degree);
-			l = new LeafNode<K, P>(degree); // create an empty leaf node
-			System.out.println("Node L ::" + l);
-			root = l; // the new leaf node is also the root
-			System.out.println("Root Node :: " + root);
-		} else // if the tree is not empty
-			l = find(k); // find the leaf node l that should contain the specified key
-			System.out.println("Leaf Node L that should contain the Key :: " + k + " Value of Leaf Node :: " + l +" Key is :: " + l.keys +" Pointer is ::" + l.pointers);
-		if (l.contains(k, p)) // no duplicate key-pointer entries are allowed in the tree
-			return;
+		long start = metrics.start();
+		if (root == null) // if the tree is empty
+			root = pool().leafNode(); // create an empty leaf node, which is also the root
+		insert(descend(k), k, p); // insert into the leaf node that should contain the specified key
+		metrics.end(Operation.INSERT, start);
+	}
+
+	/**
+	 * Inserts the specified key and the pointer into the specified {@code LeafNode}, splitting it if it is full.
+	 * 
+	 * @param l
+	 *            the {@code LeafNode} that should contain the specified key
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @return the number of splits performed; -1 if the key and pointer are already contained in this
+	 *         {@code BPlusTree}
+	 */
+	int insert(LeafNode<K, P> l, K k, P p) {
+		if (contains(l, k, p)) // no duplicate key-pointer entries are allowed in the tree
+			return -1;
 		if (!l.isFull()) { // if leaf node l has room for the specified key
-			l.insert(k, p); // insert the specified key and pointer into leaf node l
-		} else { // if leaf node l is full and thus needs to be split
-			LeafNode<K, P> t = new LeafNode<K, P>(degree + 1); // create a temporary leaf node t
-			t.append(l, 0, degree - 2);// copy everything to temporary node t
-			t.insert(k, p); // insert the key and pointer into temporary node t
-			LeafNode<K, P> lp = new LeafNode<K, P>(degree); // create a new leaf node lp
-			lp.setSuccessor(l.successor()); // chaining from lp to the next leaf node
-			l.clear(); // clear leaf node l
-			l.setSuccessor(lp); // chaining from leaf node l to leaf node lp
-			int m = (int) Math.ceil(degree / 2.0); // compute the split point
-			l.append(t, 0, m - 1); // copy the first half to leaf node l
-			lp.append(t, m, degree - 1); // copy the second half to leaf node lp
-			insertInParent(l, lp.key(0), lp); // use the first key of lp as the separating key
+			l.insert(search.upperBound(l.keys, l.keyCount, k), k, p); // insert the key and pointer into leaf node l
+			return 0;
+		}
+		// if leaf node l is full and thus needs to be split
+		metrics.split();
+		LeafNode<K, P> lp = pool().leafNode(); // create a new leaf node lp
+		split(l, search.upperBound(l.keys, l.keyCount, k), k, p, lp); // move the second half to lp
+		lp.setSuccessor(l.successor()); // chaining from lp to the next leaf node
+		l.setSuccessor(lp); // chaining from leaf node l to leaf node lp
+		return 1 + insertInParent(l, separate(l, lp), lp);
+	}
+
+	/**
+	 * Splits the specified full {@code LeafNode} in place while inserting the specified key and pointer at the
+	 * specified index. Of the resulting {@code degree} entries, the first {@code ceil(degree / 2)} remain in the
+	 * {@code LeafNode} and the others move to the specified empty {@code LeafNode}.
+	 * 
+	 * @param l
+	 *            a full {@code LeafNode}
+	 * @param i
+	 *            the index at which the key and pointer belong in the {@code LeafNode}
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param lp
+	 *            an empty {@code LeafNode} that receives the second half
+	 */
+	static <K extends Comparable<K>, P> void split(LeafNode<K, P> l, int i, K k, P p, LeafNode<K, P> lp) {
+		int n = l.keyCount;
+		int m = (n + 2) / 2; // the number of entries that remain in l
+		if (i >= m) { // the new entry goes to lp
+			System.arraycopy(l.keys, m, lp.keys, 0, i - m);
+			System.arraycopy(l.pointers, m, lp.pointers, 0, i - m);
+			lp.keys[i - m] = k;
+			lp.pointers[i - m] = p;
+			System.arraycopy(l.keys, i, lp.keys, i - m + 1, n - i);
+			System.arraycopy(l.pointers, i, lp.pointers, i - m + 1, n - i);
+		} else { // the new entry stays in l
+			System.arraycopy(l.keys, m - 1, lp.keys, 0, n - m + 1);
+			System.arraycopy(l.pointers, m - 1, lp.pointers, 0, n - m + 1);
+			System.arraycopy(l.keys, i, l.keys, i + 1, m - 1 - i);
+			System.arraycopy(l.pointers, i, l.pointers, i + 1, m - 1 - i);
+			l.keys[i] = k;
+			l.pointers[i] = p;
+		}
+		for (int j = m; j < n; j++) {
+			l.keys[j] = null;
+			l.pointers[j] = null;
+		}
+		l.keyCount = m;
+		lp.keyCount = n + 1 - m;
+	}
+
+	/**
+	 * Inserts the specified entries into this {@code BPlusTree}. The entries are sorted by key and each run of entries
+	 * that belong to the same {@code LeafNode} is merged into that {@code LeafNode} after a single descent from the
+	 * root. A {@code LeafNode} that overflows is split once into as many {@code LeafNode}s as needed rather than once
+	 * per entry. Entries whose key equals a separating key are inserted one at a time since the entries of such a key
+	 * may span several {@code LeafNode}s.
+	 * 
+	 * @param entries
+	 *            the entries to insert
+	 * @return a {@code BatchStats} reporting the descents and splits performed
+	 */
+	@SuppressWarnings("unchecked")
+	public BatchStats insertAll(Collection<? extends Map.Entry<K, P>> entries) {
+		long start = metrics.start();
+		Map.Entry<K, P>[] batch = toArray(entries);
+		Arrays.sort(batch, BPlusTree.<K, P>byKey()); // stable, so the pointers of a key keep their order
+		if (root == null && batch.length > 0)
+			root = pool().leafNode();
+		long inserted = 0, descents = 0, splits = 0, nodesCreated = 0;
+		Object[] keys = new Object[degree - 1];
+		Object[] pointers = new Object[degree - 1];
+		for (int i = 0; i < batch.length;) {
+			K k = batch[i].getKey();
+			K fence = null; // the smallest separating key to the right of the leaf node
+			Node<K, P> n = root;
+			while (n instanceof NonLeafNode) {
+				int j = search.lowerBound(n.keys, n.keyCount, k);
+				if (j < n.keyCount)
+					fence = n.keys[j];
+				n = (Node<K, P>) n.pointers[j];
+			}
+			descents++;
+			metrics.descent();
+			LeafNode<K, P> l = (LeafNode<K, P>) n;
+			int end = i;
+			if (l.find(k) == l) // keys below the fence belong to l
+				while (end < batch.length && (fence == null || batch[end].getKey().compareTo(fence) < 0))
+					end++;
+			if (end == i) { // the key equals the fence and its entries may span several leaf nodes
+				int s = insert(l.find(k), k, batch[i++].getValue());
+				if (s >= 0) {
+					inserted++;
+					splits += s;
+					nodesCreated += s;
+				}
+				continue;
+			}
+			if (keys.length < l.keyCount + end - i) {
+				keys = new Object[l.keyCount + end - i];
+				pointers = new Object[keys.length];
+			}
+			int count = 0;
+			int a = 0;
+			for (; i < end; i++) { // merge the run into the entries of l, placing it after equal keys as insert does
+				k = batch[i].getKey();
+				P p = batch[i].getValue();
+				for (; a < l.keyCount && l.keys[a].compareTo(k) <= 0; a++, count++) {
+					keys[count] = l.keys[a];
+					pointers[count] = l.pointers[a];
+				}
+				if (!contains(keys, pointers, count, k, p)) {
+					keys[count] = k;
+					pointers[count] = p;
+					count++;
+					inserted++;
+				}
+			}
+			for (; a < l.keyCount; a++, count++) {
+				keys[count] = l.keys[a];
+				pointers[count] = l.pointers[a];
+			}
+			int pieces = (count + degree - 2) / (degree - 1); // the number of leaf nodes needed
+			LeafNode<K, P> successor = l.successor();
+			fill(l, keys, pointers, 0, count / pieces);
+			for (int j = 1; j < pieces; j++) {
+				LeafNode<K, P> lp = pool().leafNode();
+				fill(lp, keys, pointers, (int) ((long) count * j / pieces), (int) ((long) count * (j + 1) / pieces));
+				l.setSuccessor(lp);
+				int s = insertInParent(l, separate(l, lp), lp);
+				splits += s;
+				nodesCreated += 1 + s;
+				l = lp;
+			}
+			l.setSuccessor(successor);
+			if (pieces > 1) {
+				splits++;
+				metrics.split();
+			}
+		}
+		metrics.end(Operation.INSERT_ALL, start);
+		return new BatchStats(batch.length, inserted, descents, splits, nodesCreated);
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are among the first {@code count} entries in the
+	 * specified arrays, which are sorted by key.
+	 * 
+	 * @param keys
+	 *            keys
+	 * @param pointers
+	 *            pointers
+	 * @param count
+	 *            the number of entries
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are among the entries; {@code false} otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>> boolean contains(Object[] keys, Object[] pointers, int count, K k, Object p) {
+		for (int i = count - 1; i >= 0 && ((K) keys[i]).compareTo(k) == 0; i--)
+			if (pointers[i].equals(p))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Replaces the entries of the specified {@code LeafNode} with the specified range of entries, keeping its
+	 * successor.
+	 * 
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @param keys
+	 *            keys
+	 * @param pointers
+	 *            pointers
+	 * @param begin
+	 *            the beginning index of the entries, inclusive
+	 * @param end
+	 *            the ending index of the entries, exclusive
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>, P> void fill(LeafNode<K, P> l, Object[] keys, Object[] pointers, int begin,
+			int end) {
+		System.arraycopy(keys, begin, l.keys, 0, end - begin);
+		System.arraycopy(pointers, begin, l.pointers, 0, end - begin);
+		for (int i = end - begin; i < l.keyCount; i++) {
+			l.keys[i] = null;
+			l.pointers[i] = null;
 		}
+		l.keyCount = end - begin;
+	}
+
+	/**
+	 * Returns the key that separates the specified adjacent {@code LeafNode}s, as chosen by the {@code Separator} of
+	 * this {@code BPlusTree} from the last key of the first {@code LeafNode} and the first key of the second.
+	 * 
+	 * @param l
+	 *            a non-empty {@code LeafNode}
+	 * @param r
+	 *            the non-empty successor of the {@code LeafNode}
+	 * @return the key that separates the specified {@code LeafNode}s
+	 */
+	K separate(LeafNode<K, P> l, LeafNode<K, P> r) {
+		return separator.separate(l.keys[l.keyCount - 1], r.keys[0]);
 	}
 
 	/**
@@ -125,30 +592,84 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *            the key between the {@code Node}s
 	 * @param np
 	 *            a new {@code Node}
+	 * @return the number of {@code NonLeafNode}s split
 	 */
-	void insertInParent(Node<K, P> n, K k, Node<K, P> np) {
+	int insertInParent(Node<K, P> n, K k, Node<K, P> np) {
 		if (n == root) { // if n is the root of the tree
-			root = new NonLeafNode<K, P>(degree, n, k, np); // create a new root node containing n, k, np
-			return;
+			NonLeafNode<K, P> r = pool().nonLeafNode(); // create a new root node containing n, k, np
+			r.pointers[0] = n;
+			r.keys[0] = k;
+			r.pointers[1] = np;
+			r.keyCount = 1;
+			n.setParent(r);
+			np.setParent(r);
+			root = r;
+			return 0;
 		}
 		NonLeafNode<K, P> p = n.parent(); // find the parent p of n
 		if (!p.isFull()) { // if parent node p has room for a new entry
 			p.insertAfter(k, np, n); // insert k and np right after n
-		} else { // if p is full and thus needs to be split
-			NonLeafNode<K, P> t = new NonLeafNode<K, P>(degree + 1); // crate a temporary node
-			t.copy(p, 0, p.keyCount()); // copy everything of p to the temporary node
-			t.insertAfter(k, np, n); // insert k and np after n
-			p.clear(); // clear p
-			NonLeafNode<K, P> pp = new NonLeafNode<K, P>(degree); // create a new node pp
-			int m = (int) Math.ceil(degree / 2.0); // compute the split point
-			p.copy(t, 0, m - 1); // copy the first half to parent node p
-			pp.copy(t, m, degree); // copy the second half to new node pp
-			insertInParent(p, t.keys[m - 1], pp); // use the middle key as the separating key
+			return 0;
 		}
+		// if p is full and thus needs to be split
+		metrics.split();
+		NonLeafNode<K, P> pp = pool().nonLeafNode(); // create a new node pp
+		K separator = split(p, n, k, np, pp); // move the second half to pp
+		return 1 + insertInParent(p, separator, pp); // use the middle key as the separating key
 	}
 
 	/**
-	 * Removes the specified key and the pointer from this {@code BPlusTree}.
+	 * Splits the specified full {@code NonLeafNode} in place while inserting the specified key and {@code Node} right
+	 * after the specified child. Of the resulting {@code degree + 1} children, the first {@code ceil(degree / 2)}
+	 * remain in the {@code NonLeafNode} and the others move to the specified empty {@code NonLeafNode}; the key between
+	 * the two halves is returned rather than kept.
+	 * 
+	 * @param p
+	 *            a full {@code NonLeafNode}
+	 * @param n
+	 *            the child of the {@code NonLeafNode} after which the key and the {@code Node} belong
+	 * @param k
+	 *            the key to insert
+	 * @param np
+	 *            the {@code Node} to insert
+	 * @param pp
+	 *            an empty {@code NonLeafNode} that receives the second half
+	 * @return the key between the two halves
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>, P> K split(NonLeafNode<K, P> p, Node<K, P> n, K k, Node<K, P> np,
+			NonLeafNode<K, P> pp) {
+		int c = 0; // k and np become key c and child c + 1 of the combined sequence
+		while (p.pointers[c] != n)
+			c++;
+		int keys = p.keyCount;
+		int m = (keys + 2) / 2; // the number of children that remain in p
+		for (int v = keys; v >= m; v--)
+			pp.keys[v - m] = v < c ? p.keys[v] : v == c ? k : p.keys[v - 1];
+		for (int v = keys + 1; v >= m; v--) {
+			Node<K, P> child = (Node<K, P>) (v <= c ? p.pointers[v] : v == c + 1 ? np : p.pointers[v - 1]);
+			pp.pointers[v - m] = child;
+			child.setParent(pp);
+		}
+		K separator = m - 1 < c ? p.keys[m - 1] : m - 1 == c ? k : p.keys[m - 2];
+		for (int v = m - 2; v >= c; v--) // from right to left so that no key is overwritten before it moves
+			p.keys[v] = v == c ? k : p.keys[v - 1];
+		for (int v = m - 1; v > c; v--)
+			p.pointers[v] = v == c + 1 ? np : p.pointers[v - 1];
+		if (c + 1 < m)
+			np.setParent(p);
+		for (int v = m - 1; v < keys; v++)
+			p.keys[v] = null;
+		for (int v = m; v <= keys; v++)
+			p.pointers[v] = null;
+		p.keyCount = m - 1;
+		pp.keyCount = keys + 1 - m;
+		return separator;
+	}
+
+	/**
+	 * Removes the specified key and the pointer from this {@code BPlusTree}. If the {@code LeafNode} that contained them
+	 * becomes under-utilized, it is merged with, or borrows from, a sibling and the same is repeated for its ancestors.
 	 * 
 	 * @param k
 	 *            the key to delete
@@ -156,338 +677,563 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *            the pointer to delete
 	 */
 	public void delete(K k, P p) {
-		
-		// Finding the Leaf Node l that contains the key k.
-		LeafNode<K, P> N;
-		System.out.println("Inside delete method to find entry.");
-		// Implemented find(K k, P p) method in LeafNode.java.
-		N = find(k, p); 
-		System.out.println("Calling delete_entry Method.");
-		// Creating method for the deleting the Entry of Node whose key value is k and pointer value is p.
-		if(N.contains(k, p))
-		{
-			delete_entry(N,k,p);
+		if (root == null)
+			return;
+		long start = metrics.start();
+		Node<K, P> n = remove(descend(k), k, p);
+		while (n != null && n != root && n.isUnderUtilized(degree)) {
+			NonLeafNode<K, P> parent = n.parent();
+			rebalance(parent);
+			n = parent;
 		}
-		
+		collapse();
+		metrics.end(Operation.DELETE, start);
+	}
+
+	/**
+	 * Removes the entries whose keys fall in the specified closed range from this {@code BPlusTree}.
+	 * 
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @return the number of entries removed
+	 */
+	public long deleteRange(K from, K to) {
+		return deleteRange(from, to, Inclusivity.CLOSED);
 	}
 
-	private LeafNode<K, P> find(K k, P p) {
-		// TODO Auto-generated method stub
-		System.out.println("Before Calling Node Class.");
-		return root.find(k,p);
+	/**
+	 * Removes the entries whose keys fall in the specified range from this {@code BPlusTree}. Subtrees that lie
+	 * entirely within the range are unlinked from their parents as a whole, so only the {@code Node}s on the paths to
+	 * the two ends of the range are visited besides the {@code LeafNode}s counted. The {@code Node}s on these paths are
+	 * rebalanced once, bottom up, after all entries have been removed.
+	 * 
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return the number of entries removed
+	 */
+	public long deleteRange(K from, K to, Inclusivity inclusivity) {
+		if (root == null)
+			return 0;
+		long start = metrics.start();
+		RangeDeletion d = new RangeDeletion(from, to, inclusivity);
+		long removed;
+		if (d.covers(null, null)) { // the whole tree
+			removed = size(root);
+			root = null;
+		} else {
+			removed = d.remove(root, null, null, 0);
+			rebalance(d.touched);
+		}
+		metrics.end(Operation.DELETE_RANGE, start);
+		return removed;
 	}
 
+	/**
+	 * Removes the specified entries from this {@code BPlusTree}. As in {@link #insertAll(Collection)}, the entries are
+	 * sorted by key and those belonging to the same {@code LeafNode} are removed after a single descent. Under-utilized
+	 * {@code Node}s are rebalanced once, bottom up, after all entries have been removed.
+	 * 
+	 * @param entries
+	 *            the entries to remove
+	 * @return the number of entries removed
+	 */
 	@SuppressWarnings("unchecked")
-	private void delete_entry(Node<K, P> N, K k, P p) {
-		// TODO Auto-generated method stub
-		System.out.println("Entry to be Deleted :: " + k + "  " + " From Node :: " + N);
-//		if(N != null)
-//		{
-		NonLeafNode<K,P> parentNode = N.parent;
-		System.out.println("Parent N Val :: " + parentNode );
-		System.out.println("K value :: " + k + " Pointer Value :: " + p);
-			N.delete(k,p);
-//		// Checking if the LeafNode l is the root node or not.
-//		for(int i=0; i< N.keys.length-1;i++)
-//		{
-//			System.out.println("For Index :: " + i + " Keys value ::" + N.keys[i].toString() + " Pointer Value :: " + N.pointers[i]);
-//		}
-		
-		//System.out.println("LeafNode l's pointers count : " + N.pointers.length);
-		System.out.println("Checking if the LeafNode l is the root node or not. Value of Key :: " + k + " Node :: " + N);
-		if( N == root )
-		{
-			System.out.println("If L is root");
-			// If N has only one child.
-			if( N.pointerCount() == 1)
-			{
-				System.out.println("If N has only One Child.");
-				// root = ((LeafNode) N).successor();
-				root = (Node<K, P>) N.pointers[0];
-				N.clear();
+	public long deleteAll(Collection<? extends Map.Entry<K, P>> entries) {
+		if (root == null)
+			return 0;
+		long start = metrics.start();
+		Map.Entry<K, P>[] batch = toArray(entries);
+		Arrays.sort(batch, BPlusTree.<K, P>byKey());
+		List<Set<NonLeafNode<K, P>>> touched = new ArrayList<Set<NonLeafNode<K, P>>>();
+		long removed = 0;
+		for (int i = 0; i < batch.length;) {
+			K k = batch[i].getKey();
+			K fence = null; // the smallest separating key to the right of the leaf node
+			Node<K, P> n = root;
+			while (n instanceof NonLeafNode) {
+				int j = search.lowerBound(n.keys, n.keyCount, k);
+				if (j < n.keyCount)
+					fence = n.keys[j];
+				n = (Node<K, P>) n.pointers[j];
 			}
-			return;
+			metrics.descent();
+			LeafNode<K, P> l = (LeafNode<K, P>) n;
+			int end = i;
+			if (l.find(k) == l) // keys below the fence belong to l
+				while (end < batch.length && (fence == null || batch[end].getKey().compareTo(fence) < 0))
+					end++;
+			if (end == i) { // the key equals the fence and its entries may span several leaf nodes
+				l = remove(l.find(k), k, batch[i++].getValue());
+				if (l != null) {
+					removed++;
+					touch(touched, l);
+				}
+				continue;
+			}
+			int count = 0;
+			for (int a = 0; a < l.keyCount; a++) { // keep the entries of l that are not in the run
+				for (; i < end && batch[i].getKey().compareTo(l.keys[a]) < 0; i++)
+					;
+				boolean found = false;
+				for (int b = i; b < end && !found && batch[b].getKey().compareTo(l.keys[a]) == 0; b++)
+					found = l.pointers[a].equals(batch[b].getValue());
+				if (!found) {
+					l.keys[count] = l.keys[a];
+					l.pointers[count] = l.pointers[a];
+					count++;
+				}
+			}
+			if (count < l.keyCount) {
+				removed += l.keyCount - count;
+				for (int a = count; a < l.keyCount; a++) {
+					l.keys[a] = null;
+					l.pointers[a] = null;
+				}
+				l.keyCount = count;
+				touch(touched, l);
+			}
+			i = end;
 		}
-		// If N is underUtilized.
-		else if( N.isUnderUtilized(degree) )
-		{
-
-//			System.out.println("N is an instance of LeafNode.");
-			Node<K, P> Ndash=  null;
-			int flag = 0;
-//			System.out.println("PointerCount of N :: " + N.pointerCount());
-//			int deg =(int) Math.ceil((degree-1) / 2) ;
-//			if(N.pointerCount() < deg)
-//			{
-				System.out.println("Its under Utilized.");
-//				// Checking that If Parent has more than one chile than only do merge. Otherwise, There is no mean to merge.
-//				if(((LeafNode) N).parent.childCount() > 1)
-//				{
-					System.out.println("Inside If of Line 215.");
-//					for(int i=0; i< N.pointers.length; i++)
-//					{
-					
-					System.out.println("Before for Loop Node N :: " + N + " Parent :: " + parentNode);
-						for(int i =0; i<parentNode.pointers.length ;i++ )
-						{
-							// Finding the index of Node N at Parent Pointer.
-							if(N.parent.pointers[i] == N)
-							{
-								index = i;
-								System.out.println("Index of Node at Parent :: " + index);
-								// If N is the index as 0 then we only can assign Ndash who is the successor of N.
-								if(index == 0)
-								{
-									System.out.println("Choosing Ndash as Successor of N.");
-									Ndash = successor(N,index);
-									indexOfNdash = 1;
-								}
-								else	// If N is the middle index in the parent node.
-								{
-									// Assigning the Ndash as Predecessor of N to merge N with Ndash.
-									Ndash = Predecessor(N,index);
-									indexOfNdash = index - 1;
-									System.out.println("Choosing Ndash as Predecessor of N.");
-									// But, If Ndash is full in the Left side, Checking that If Ndash is available in successor.
-									if(Ndash.isFull())
-									{
-										System.out.println("If Ndash is full Choosing Ndash as Successor of N After Checking Predecessor.");
-										
-										if(N.parent.pointers[index+1] != null)
-										{
-											Ndash = successor(N,index);
-											indexOfNdash = index + 1;
-										}
-										else  // If both successor and Predecessor are full then assigning a flag to 1;
-										{
-											flag  = 1;
-											System.out.println("Now we have to call redistribution.");
-										}
-									}
-								}
-							}
-						}
-						//System.out.println("K Kdash = N.parent.keys[index] :: index val :: " + index + "Kdash Val :: " + Kdash );
-						System.out.println("Parent N :: " + N.parent + " Index :" + index);
-						System.out.println("Node N :: " + N + " Node Ndash :: " + Ndash);
-						
-						// Checking that N is mergable with the Ndash and Ndash is full in Predecessor or successor.
-						if(N.mergeable(Ndash) && flag != 1)  //  && !(Ndash.isFull())
-						{
-							if(successor(Ndash, indexOfNdash) == N)
-							{
-								K Kdash = N.parent.keys[index-1];
-								int indexOfKdash = N.parent.findIndexL(Kdash);
-								System.out.println("Inside Merge where Ndash is on Left.");
-								merge(Ndash, Kdash, N);
-							}
-							else
-							{
-								K Kdash = N.parent.keys[index];
-								int indexOfKdash = N.parent.findIndexL(Kdash);
-								System.out.println("Inside Merge where Ndash is on Right.");
-								merge(N, Kdash, Ndash);
-							}
-						}
-						else
-						{
-							System.out.println("If N is not mergable with Ndash then in else part of if.");
-							// Redistribution Scenario
-							if(successor(Ndash, indexOfNdash) == N)
-							{
-								K Kdash = N.parent.keys[index-1];
-								int indexOfKdash = N.parent.findIndexL(Kdash);
-
-								if(N instanceof NonLeafNode)
-								{
-									((NonLeafNode<K,P>)N).insert(Kdash, 0, (Node<K, P>) Ndash.pointers[Ndash.keyCount], 0);
-									
-									K temp_key = Ndash.keys[Ndash.keyCount];
-									
-									((NonLeafNode<K,P>)Ndash).delete(Ndash.keys[Ndash.keyCount],Ndash.pointers[Ndash.keyCount]);
-									
-									N.parent.keys[indexOfKdash] = temp_key;
-								}
-								else
-								{
-									System.out.println("Before Insert Node N Val :: " + N + " Node Ndash Val :: " + Ndash);
-									((LeafNode<K,P>)N).insert( 0, Ndash.keys[Ndash.keyCount - 1], (P) Ndash.pointers[Ndash.keyCount - 1]); // write keycount - 1 from keycount
-									System.out.println("After Insert Node N Val :: " + N + " Node Ndash Val :: " + Ndash);
-									K temp_key = Ndash.keys[Ndash.keyCount - 1];
-									System.out.println("Temp_key :: " + temp_key);
-									
-									((LeafNode<K,P>)Ndash).delete(Ndash.keys[Ndash.keyCount - 1], Ndash.pointers[Ndash.keyCount - 1]);
-									
-									System.out.println("After Delete Node N Val :: " + N + " Node Ndash Val :: " + Ndash);
-									System.out.println("Index Of Kdash :: " + indexOfKdash + " Parent :: " + N.parent);
-									N.parent.keys[indexOfKdash+1] = temp_key;   // did +1 in indexOfKdash
-									
-								}
-								
-							}
-							else
-							{
-								K Kdash = N.parent.keys[index];
-								int indexOfKdash = N.parent.findIndexL(Kdash);
-
-								if(successor(N, index) == Ndash)
-								{
-									if(N instanceof NonLeafNode)
-									{
-										((NonLeafNode<K,P>)Ndash).insert(Kdash, 0, (Node<K, P>) N.pointers[N.keyCount], 0);
-										
-										K temp_key = N.keys[N.keyCount];
-										
-										((NonLeafNode<K,P>)N).delete(N.keys[N.keyCount],N.pointers[N.keyCount]);
-										
-										N.parent.keys[indexOfKdash] = temp_key;	
-									}
-									else
-									{
-										System.out.println("N data of Keycount to be added :: " + N.keys[N.keyCount] + "N data of POinters to be added :: " + (P) N.pointers[N.keyCount]);
-										
-										System.out.println("Before Insert data of Both Node N :: " + N + " data of Ndash :: " + Ndash);
-										
-										if(N.pointerCount() == 0)
-										{
-											
-										} 
-										else
-										{
-											((LeafNode<K,P>)Ndash).insert( 0, N.keys[N.keyCount], (P) N.pointers[N.keyCount]);
-										}
-									
-										System.out.println("After Insert data of Both Node N :: " + N + " data of Ndash :: " + Ndash);
-										
-										K temp_key = N.keys[N.keyCount];
-										
-										System.out.println("Temperory Key :: " + temp_key);
-										((NonLeafNode<K,P>)N).delete(N.keys[N.keyCount], N.pointers[N.keyCount]);
-										
-										N.parent.keys[indexOfKdash] = temp_key;
-										
-									}
-								}
-							}
-						}		
+		rebalance(touched);
+		metrics.end(Operation.DELETE_ALL, start);
+		return removed;
+	}
+
+	/**
+	 * Removes the specified key and pointer from the specified {@code LeafNode} or, since the entries of a key may span
+	 * several {@code LeafNode}s, from one of its successors.
+	 * 
+	 * @param l
+	 *            the {@code LeafNode} responsible for the specified key
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the {@code LeafNode} from which the key and pointer have been removed; {@code null} if they are not
+	 *         contained in this {@code BPlusTree}
+	 */
+	LeafNode<K, P> remove(LeafNode<K, P> l, K k, P p) {
+		for (; l != null; l = l.successor()) {
+			int i = search.lowerBound(l.keys, l.keyCount, k);
+			for (; i < l.keyCount && l.keys[i].compareTo(k) == 0; i++)
+				if (l.pointers[i].equals(p)) {
+					l.delete(i);
+					return l;
+				}
+			if (i < l.keyCount)
+				return null;
 		}
-		
-//		}
-		
-	}
-
-	@SuppressWarnings("unchecked") // changed from LeafNode to Node
-	// Finding the Predecessor of the Node.
-	private Node<K, P> Predecessor(Node<K, P> n, int index) {
-		// TODO Auto-generated method stub
-		if(n.parent.pointers[index-1] != null)
-		{
-			return (Node<K, P>) n.parent.pointers[index-1];
+		return null;
+	}
+
+	/**
+	 * Registers the ancestors of the specified {@code LeafNode} as {@code NonLeafNode}s to rebalance, indexed by depth.
+	 * 
+	 * @param touched
+	 *            the {@code NonLeafNode}s to rebalance, indexed by depth
+	 * @param l
+	 *            a {@code LeafNode} from which entries have been removed
+	 */
+	void touch(List<Set<NonLeafNode<K, P>>> touched, LeafNode<K, P> l) {
+		int depth = 0;
+		for (Node<K, P> n = l.parent(); n != null; n = n.parent())
+			depth++;
+		for (NonLeafNode<K, P> n = l.parent(); n != null; n = n.parent()) {
+			depth--;
+			while (touched.size() <= depth)
+				touched.add(new LinkedHashSet<NonLeafNode<K, P>>());
+			if (!touched.get(depth).add(n))
+				return; // the remaining ancestors have already been registered
+		}
+	}
+
+	/**
+	 * Rebalances the specified {@code NonLeafNode}s from the deepest to the root and then removes unnecessary roots.
+	 * 
+	 * @param touched
+	 *            the {@code NonLeafNode}s to rebalance, indexed by depth
+	 */
+	void rebalance(List<Set<NonLeafNode<K, P>>> touched) {
+		for (int depth = touched.size() - 1; depth >= 0; depth--)
+			for (NonLeafNode<K, P> n : touched.get(depth))
+				rebalance(n);
+		collapse();
+	}
+
+	/**
+	 * Merges or redistributes the under-utilized children of the specified {@code NonLeafNode} with their siblings
+	 * until no child is under-utilized or only one child remains. When two {@code NonLeafNode}s are combined, their
+	 * children are rebalanced in turn since under-utilized children that had no sibling may now have one.
+	 * 
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 */
+	void rebalance(NonLeafNode<K, P> n) {
+		int i = 0;
+		while (i <= n.keyCount && n.keyCount > 0) {
+			if (!n.pointer(i).isUnderUtilized(degree)) {
+				i++;
+				continue;
+			}
+			int j = i < n.keyCount ? i : i - 1; // combine children j and j + 1
+			combine(n, j);
+			i = j; // the combined children may be under-utilized again once their own children have been rebalanced
 		}
-		return null;		
 	}
 
+	/**
+	 * Combines the specified child of the specified {@code NonLeafNode} with the next child. The two children are merged
+	 * if their entries fit in one {@code Node} and redistributed evenly otherwise.
+	 * 
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 * @param j
+	 *            the index of a child of the {@code NonLeafNode} other than the last
+	 */
 	@SuppressWarnings("unchecked")
-	// Finding the Successor of the Node.
-	private Node<K, P> successor(Node<K, P> n,int index) {
-		// TODO Auto-generated method stub
-		if(n.parent.pointers[index+1] != null)
-		{
-			return (Node<K, P>) n.parent.pointers[index+1];
+	void combine(NonLeafNode<K, P> n, int j) {
+		Node<K, P> x = n.pointer(j);
+		Node<K, P> y = n.pointer(j + 1);
+		if (x instanceof LeafNode) {
+			LeafNode<K, P> l = (LeafNode<K, P>) x;
+			LeafNode<K, P> r = (LeafNode<K, P>) y;
+			if (l.mergeable(r)) {
+				l.append(r, 0, r.keyCount - 1);
+				l.setSuccessor(r.successor());
+				n.delete(j, j + 1);
+				pool().release(r);
+				metrics.merge();
+				return;
+			}
+			int count = l.keyCount + r.keyCount;
+			Object[] keys = scratchKeys();
+			Object[] pointers = scratchPointers;
+			System.arraycopy(l.keys, 0, keys, 0, l.keyCount);
+			System.arraycopy(l.pointers, 0, pointers, 0, l.keyCount);
+			System.arraycopy(r.keys, 0, keys, l.keyCount, r.keyCount);
+			System.arraycopy(r.pointers, 0, pointers, l.keyCount, r.keyCount);
+			fill(l, keys, pointers, 0, count / 2);
+			fill(r, keys, pointers, count / 2, count);
+			Arrays.fill(keys, 0, count, null);
+			Arrays.fill(pointers, 0, count, null);
+			n.keys[j] = separate(l, r);
+			metrics.redistribution();
+			return;
 		}
-		return null;
+		NonLeafNode<K, P> l = (NonLeafNode<K, P>) x;
+		NonLeafNode<K, P> r = (NonLeafNode<K, P>) y;
+		int count = l.keyCount + r.keyCount + 2; // the number of children
+		Object[] keys = scratchKeys();
+		Object[] children = scratchPointers;
+		System.arraycopy(l.keys, 0, keys, 0, l.keyCount);
+		keys[l.keyCount] = n.keys[j]; // the separating key moves down
+		System.arraycopy(r.keys, 0, keys, l.keyCount + 1, r.keyCount);
+		System.arraycopy(l.pointers, 0, children, 0, l.keyCount + 1);
+		System.arraycopy(r.pointers, 0, children, l.keyCount + 1, r.keyCount + 1);
+		boolean merge = l.mergeable(r);
+		int m = merge ? count : (count + 1) / 2; // the number of children that remain in l
+		fill(l, keys, children, 0, m);
+		if (merge) {
+			n.delete(j, j + 1);
+			pool().release(r);
+			metrics.merge();
+		} else {
+			fill(r, keys, children, m, count);
+			n.keys[j] = (K) keys[m - 1]; // the key between the halves moves up
+			metrics.redistribution();
+		}
+		Arrays.fill(keys, 0, count - 1, null);
+		Arrays.fill(children, 0, count, null);
+		if (!merge)
+			rebalance(r);
+		rebalance(l);
 	}
-	
-	
+
+	/**
+	 * Returns the scratch array for keys, allocating both scratch arrays on first use. Each can hold the entries of two
+	 * {@code Node}s.
+	 * 
+	 * @return the scratch array for keys
+	 */
+	Object[] scratchKeys() {
+		if (scratchKeys == null) {
+			scratchKeys = new Object[2 * degree];
+			scratchPointers = new Object[2 * degree];
+		}
+		return scratchKeys;
+	}
+
+	/**
+	 * Replaces the keys and children of the specified {@code NonLeafNode} with the specified range of children and the
+	 * keys between them.
+	 * 
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 * @param keys
+	 *            keys
+	 * @param children
+	 *            children
+	 * @param begin
+	 *            the beginning index of the children, inclusive
+	 * @param end
+	 *            the ending index of the children, exclusive
+	 */
 	@SuppressWarnings("unchecked")
-	// Merging the Nodes.
-	private void merge(Node<K,P> N, K Kdash, Node<K,P> Ndash)
-	{
-	
-		
-		if (!(N instanceof LeafNode))
-		{
-			System.out.println("N is the instance of the NonLeaf Node.");
-		//	Ndash.append(N.parent, Kdash, Kdash);
-//			int indexOfKdash = N.parent.findIndexL(Kdash);
-//			P pointerValofKdash = (P) N.parent.pointers[indexOfKdash];
-//			Ndash.append(N.parent, indexOfKdash ,indexOfKdash);
-			System.out.println("Kdash Val :: " + Kdash + " Parent :: " + N.parent + " Ndash val :: " + Ndash + " N val ::" + N);
-			
-				insertAfter(Kdash, Ndash, N);
-				
-			System.out.println(" Non Leaf InserAfter Node N :: " + N + " Ndash :: " + Ndash );
-			
-			
+	static <K extends Comparable<K>, P> void fill(NonLeafNode<K, P> n, Object[] keys, Object[] children, int begin,
+			int end) {
+		n.clear();
+		System.arraycopy(keys, begin, n.keys, 0, end - begin - 1);
+		System.arraycopy(children, begin, n.pointers, 0, end - begin);
+		n.keyCount = end - begin - 1;
+		for (int i = 0; i <= n.keyCount; i++)
+			((Node<K, P>) n.pointers[i]).setParent(n);
+	}
+
+	/**
+	 * Removes roots that have a single child and, if the tree has become empty, the root itself.
+	 */
+	void collapse() {
+		while (root instanceof NonLeafNode && root.keyCount == 0) {
+			Node<K, P> r = root;
+			root = ((NonLeafNode<K, P>) root).pointer(0);
+			root.setParent(null);
+			pool().release(r);
 		}
-		else
-		{
-			System.out.println("IN Merge val of N :: " + N + " Parent N :: " + N.parent);
-			System.out.println("N is the instance of the Leaf Node. N Keycount :: " + N.keyCount + "After Ndash Value of Key :: " + N.keys[0] + " Pointers :: " + N.pointers[0] + "Value of Key :: " + N.keys[1] + " Pointers :: " + N.pointers[1]);
-			System.out.println("Before append Ndash Value of Key :: " + Ndash.keys[0] + " Pointers :: " + Ndash.pointers[0] + "Value of Key :: " + Ndash.keys[1] + " Pointers :: " + Ndash.pointers[1]);
-			System.out.println("Before append N Value of Key :: " + N.keys[0] + " Pointers :: " + N.pointers[0] + "Value of Key :: " + N.keys[1] + " Pointers :: " + N.pointers[1]);
-			
-			N.append(Ndash, 0, Ndash.keyCount-1);
-			
-			System.out.println("After append Ndash Value of Key :: " + Ndash.keys[0] + " Pointers :: " + Ndash.pointers[0] + "Value of Key :: " + Ndash.keys[1] + " Pointers :: " + Ndash.pointers[1]);
-//			Ndash.pointers.length = N.pointers.length - 1;
-			//N.append(Ndash, 0, Ndash.keyCount-1);
-			System.out.println("After append N Value of Key :: " + N.keys[0] + " Pointers :: " + N.pointers[0] + "Value of Key :: " + N.keys[1] + " Pointers :: " + N.pointers[1]);
-
-//			Ndash.pointers.length = Ndash.pointers.length -1 ;
-			if(Ndash == successor(N, index)){
-				System.out.println("Ndash is successor of N.");
-				System.out.println("Successor of Ndash Node :: " + ((LeafNode<K,P>)Ndash).successor());
-				((LeafNode<K,P>)N).setSuccessor(((LeafNode<K,P>)Ndash).successor());
-				System.out.println("After setting Ndash successor to N - Successor of N :: " + ((LeafNode<K,P>)N).successor());
-			}
-			else{
-				System.out.println("N is successor of Ndash.");
-				((LeafNode<K,P>)Ndash).setSuccessor(((LeafNode<K,P>)N).successor());
+		if (root != null && root.keyCount == 0) {
+			pool().release(root);
+			root = null;
+		}
+	}
+
+	/**
+	 * Returns the number of entries in the specified subtree.
+	 * 
+	 * @param n
+	 *            the root of a subtree
+	 * @return the number of entries in the specified subtree
+	 */
+	static long size(Node<?, ?> n) {
+		if (n instanceof LeafNode)
+			return n.keyCount;
+		long size = 0;
+		for (int i = 0; i <= n.keyCount; i++)
+			size += size((Node<?, ?>) n.pointers[i]);
+		return size;
+	}
+
+	/**
+	 * Copies the specified entries into a new array.
+	 * 
+	 * @param entries
+	 *            entries
+	 * @return a new array containing the specified entries
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <K extends Comparable<K>, P> Map.Entry<K, P>[] toArray(Collection<? extends Map.Entry<K, P>> entries) {
+		return entries.toArray(new Map.Entry[entries.size()]); // generic arrays cannot be created directly
+	}
+
+	/**
+	 * Returns a {@code Comparator} that orders entries by key.
+	 * 
+	 * @return a {@code Comparator} that orders entries by key
+	 */
+	static <K extends Comparable<K>, P> Comparator<Map.Entry<K, P>> byKey() {
+		return new Comparator<Map.Entry<K, P>>() {
+
+			@Override
+			public int compare(Map.Entry<K, P> e1, Map.Entry<K, P> e2) {
+				return e1.getKey().compareTo(e2.getKey());
 			}
-//			Ndash.pointers[Ndash.keyCount] = N.pointers[N.keyCount];
-			//N.pointers[N.keyCount] = Ndash.pointers[Ndash.keyCount];
+
+		};
+	}
+
+	/**
+	 * A {@code RangeDeletion} removes the entries in a range from the subtrees it visits and records the
+	 * {@code NonLeafNode}s it visits for rebalancing.
+	 */
+	class RangeDeletion {
+
+		/**
+		 * The lower bound of the range ({@code null} if the range has no lower bound).
+		 */
+		final K from;
+
+		/**
+		 * The upper bound of the range ({@code null} if the range has no upper bound).
+		 */
+		final K to;
+
+		/**
+		 * The {@code Inclusivity} of the bounds.
+		 */
+		final Inclusivity inclusivity;
+
+		/**
+		 * The visited {@code NonLeafNode}s, indexed by depth.
+		 */
+		final List<Set<NonLeafNode<K, P>>> touched = new ArrayList<Set<NonLeafNode<K, P>>>();
+
+		/**
+		 * The last {@code LeafNode} kept before the current position ({@code null} if there is none).
+		 */
+		LeafNode<K, P> tail = null;
+
+		/**
+		 * A flag indicating whether or not a {@code LeafNode} has been visited.
+		 */
+		boolean visited = false;
+
+		/**
+		 * Constructs a {@code RangeDeletion}.
+		 * 
+		 * @param from
+		 *            the lower bound of the range ({@code null} if the range has no lower bound)
+		 * @param to
+		 *            the upper bound of the range ({@code null} if the range has no upper bound)
+		 * @param inclusivity
+		 *            the {@code Inclusivity} of the bounds
+		 */
+		RangeDeletion(K from, K to, Inclusivity inclusivity) {
+			this.from = from;
+			this.to = to;
+			this.inclusivity = inclusivity;
 		}
-		
-		System.out.println("Index of Parent :: " + N.parent.findIndexL(Kdash) );
-		System.out.println("Value of Kdash :: " + Kdash + " Value of Parent of N :: " + N.parent +" Pointer of N to be deleted :: " +  (P) Ndash);
-		N = Ndash;
-		System.out.println("IN Merge Before Delete val of N :: " + N + " Parent N :: " + N.parent);
-		delete_entry(N.parent,Kdash,(P) N);
-		N.clear();
-	}
-
-	// Implementing the insertAfter Method again and using it.
-	private void insertAfter(K kdash, Node<K, P> ndash, Node<K, P> n) {
-		// TODO Auto-generated method stub
-		System.out.println("Inside Manual Insert After Method");
-		((NonLeafNode<K,P>)n).keys[n.keyCount] = kdash;
-		System.out.println("Kdash Val :: " + kdash + " Parent :: " + n.parent + " Ndash val :: " + ndash + " N val ::" + n);
-		
-		// Creating the child of Ndash as ndashChild
-		Node<K,P> ndashChild = null;
-		int count = 0;
-		for(int i=0;i<ndash.pointers.length ; i++)
-		{
-			if(ndash.pointers[i] != null)
-			{
-				ndashChild = (Node<K,P>)ndash.pointers[i];
-				break;
+
+		/**
+		 * Determines whether or not the specified key is at or above the lower bound of the range.
+		 * 
+		 * @param k
+		 *            a key
+		 * @return {@code true} if the specified key is at or above the lower bound of the range; {@code false}
+		 *         otherwise
+		 */
+		boolean afterFrom(K k) {
+			return from == null || (inclusivity.includesFrom() ? k.compareTo(from) >= 0 : k.compareTo(from) > 0);
+		}
+
+		/**
+		 * Determines whether or not the specified key is at or below the upper bound of the range.
+		 * 
+		 * @param k
+		 *            a key
+		 * @return {@code true} if the specified key is at or below the upper bound of the range; {@code false}
+		 *         otherwise
+		 */
+		boolean beforeTo(K k) {
+			return to == null || (inclusivity.includesTo() ? k.compareTo(to) <= 0 : k.compareTo(to) < 0);
+		}
+
+		/**
+		 * Determines whether or not the range covers a subtree whose keys lie between the specified bounds.
+		 * 
+		 * @param lo
+		 *            the smallest possible key in the subtree ({@code null} if unbounded)
+		 * @param hi
+		 *            the largest possible key in the subtree ({@code null} if unbounded)
+		 * @return {@code true} if the range covers the subtree; {@code false} otherwise
+		 */
+		boolean covers(K lo, K hi) {
+			return (from == null || lo != null && afterFrom(lo)) && (to == null || hi != null && beforeTo(hi));
+		}
+
+		/**
+		 * Removes the entries in the range from the specified subtree, which is not covered by the range.
+		 * 
+		 * @param n
+		 *            the root of a subtree
+		 * @param lo
+		 *            the smallest possible key in the subtree ({@code null} if unbounded)
+		 * @param hi
+		 *            the largest possible key in the subtree ({@code null} if unbounded)
+		 * @param depth
+		 *            the depth of the subtree
+		 * @return the number of entries removed
+		 */
+		@SuppressWarnings("unchecked")
+		long remove(Node<K, P> n, K lo, K hi, int depth) {
+			if (n instanceof LeafNode) {
+				LeafNode<K, P> l = (LeafNode<K, P>) n;
+				int count = 0;
+				for (int i = 0; i < l.keyCount; i++)
+					if (!afterFrom(l.keys[i]) || !beforeTo(l.keys[i])) {
+						l.keys[count] = l.keys[i];
+						l.pointers[count] = l.pointers[i];
+						count++;
+					}
+				long removed = l.keyCount - count;
+				for (int i = count; i < l.keyCount; i++) {
+					l.keys[i] = null;
+					l.pointers[i] = null;
+				}
+				l.keyCount = count;
+				if (tail != null)
+					tail.setSuccessor(l);
+				tail = l;
+				visited = true;
+				return removed;
 			}
-			count++;
+			NonLeafNode<K, P> p = (NonLeafNode<K, P>) n;
+			while (touched.size() <= depth)
+				touched.add(new LinkedHashSet<NonLeafNode<K, P>>());
+			touched.get(depth).add(p);
+			int first = 0; // the first child that may contain keys in the range
+			while (first < p.keyCount && !afterFrom(p.keys[first]))
+				first++;
+			int last = p.keyCount; // the last child that may contain keys in the range
+			while (last > 0 && !beforeTo(p.keys[last - 1]))
+				last--;
+			if (!visited && first > 0) // the rightmost leaf node of the preceding subtree precedes the range
+				tail = rightmost(p.pointer(first - 1));
+			long removed = 0;
+			Object[] keys = new Object[p.keyCount];
+			Object[] children = new Object[p.keyCount + 1];
+			int count = 0; // the number of children kept
+			for (int i = 0; i <= p.keyCount; i++) {
+				K clo = i == 0 ? lo : p.keys[i - 1];
+				K chi = i == p.keyCount ? hi : p.keys[i];
+				Node<K, P> c = p.pointer(i);
+				if (i >= first && i <= last) {
+					if (covers(clo, chi)) { // drop the whole subtree
+						removed += size(c);
+						LeafNode<K, P> r = rightmost(c);
+						if (tail != null)
+							tail.setSuccessor(r.successor());
+						visited = true;
+						continue;
+					}
+					removed += remove(c, clo, chi, depth + 1);
+				}
+				if (count > 0)
+					keys[count - 1] = p.keys[i - 1]; // the key immediately to the left of the kept child
+				children[count++] = c;
+			}
+			if (count <= p.keyCount)
+				fill(p, keys, children, 0, count);
+			return removed;
 		}
-		
-		ndashChild.pointers[degree - 1] = null;
-		// Increamenting the KeyCount.
-		n.keyCount = n.keyCount + 1;
-		System.out.println("Ndash Child is :: " + ndashChild);
-		
-		// pointing ndashChile from the n's last pointer.
-		n.pointers[n.keyCount] = ndashChild;
-		// Setting parent of ndashChile as n.
-		ndashChild.setParent((NonLeafNode<K, P>) n);
-		System.out.println("Kdash Val :: " + kdash + " Parent :: " + n.parent + " Ndash val :: " + ndash + " N val ::" + n);
-		
-	}
-	
+
+	}
+
+	/**
+	 * Returns the rightmost {@code LeafNode} in the specified subtree.
+	 * 
+	 * @param n
+	 *            the root of a subtree
+	 * @return the rightmost {@code LeafNode} in the specified subtree
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>, P> LeafNode<K, P> rightmost(Node<K, P> n) {
+		while (n instanceof NonLeafNode)
+			n = (Node<K, P>) n.pointers[n.keyCount];
+		return (LeafNode<K, P>) n;
+	}
+
 }
@@ -0,0 +1,131 @@
+package bptree;
+
+/**
+ * A {@code BatchStats} reports the work done by {@link BPlusTree#insertAll(java.util.Collection)} and compares it with
+ * inserting the same entries one at a time, which takes one descent per entry and one split per {@code Node}
+ * created.
+ */
+public class BatchStats {
+
+	/**
+	 * The number of entries in the batch.
+	 */
+	protected final long entries;
+
+	/**
+	 * The number of entries actually inserted (duplicate key-pointer entries are skipped).
+	 */
+	protected final long inserted;
+
+	/**
+	 * The number of descents from the root.
+	 */
+	protected final long descents;
+
+	/**
+	 * The number of splits of overfull {@code Node}s.
+	 */
+	protected final long splits;
+
+	/**
+	 * The number of {@code Node}s created by the splits.
+	 */
+	protected final long nodesCreated;
+
+	/**
+	 * Constructs a {@code BatchStats}.
+	 *
+	 * @param entries
+	 *            the number of entries in the batch
+	 * @param inserted
+	 *            the number of entries actually inserted
+	 * @param descents
+	 *            the number of descents from the root
+	 * @param splits
+	 *            the number of splits of overfull {@code Node}s
+	 * @param nodesCreated
+	 *            the number of {@code Node}s created by the splits
+	 */
+	public BatchStats(long entries, long inserted, long descents, long splits, long nodesCreated) {
+		this.entries = entries;
+		this.inserted = inserted;
+		this.descents = descents;
+		this.splits = splits;
+		this.nodesCreated = nodesCreated;
+	}
+
+	/**
+	 * Returns the number of entries in the batch.
+	 *
+	 * @return the number of entries in the batch
+	 */
+	public long entries() {
+		return entries;
+	}
+
+	/**
+	 * Returns the number of entries actually inserted.
+	 *
+	 * @return the number of entries actually inserted
+	 */
+	public long inserted() {
+		return inserted;
+	}
+
+	/**
+	 * Returns the number of descents from the root.
+	 *
+	 * @return the number of descents from the root
+	 */
+	public long descents() {
+		return descents;
+	}
+
+	/**
+	 * Returns the number of splits of overfull {@code Node}s.
+	 *
+	 * @return the number of splits of overfull {@code Node}s
+	 */
+	public long splits() {
+		return splits;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s created by the splits.
+	 *
+	 * @return the number of {@code Node}s created by the splits
+	 */
+	public long nodesCreated() {
+		return nodesCreated;
+	}
+
+	/**
+	 * Returns the number of descents saved compared with inserting the entries one at a time.
+	 *
+	 * @return the number of descents saved compared with inserting the entries one at a time
+	 */
+	public long descentsSaved() {
+		return entries - descents;
+	}
+
+	/**
+	 * Returns the number of splits saved compared with inserting the entries one at a time, which splits a
+	 * {@code Node} each time a {@code Node} is created.
+	 *
+	 * @return the number of splits saved compared with inserting the entries one at a time
+	 */
+	public long splitsSaved() {
+		return nodesCreated - splits;
+	}
+
+	/**
+	 * Returns a string representation of this {@code BatchStats}.
+	 */
+	@Override
+	public String toString() {
+		return "entries: " + entries + ", inserted: " + inserted + ", descents: " + descents + " (saved "
+				+ descentsSaved() + "), splits: " + splits + " (saved " + splitsSaved() + "), nodes created: "
+				+ nodesCreated;
+	}
+
+}
@@ -0,0 +1,27 @@
+package bptree;
+
+/**
+ * The {@code BinarySearch} class performs a branch-free binary search. Each step halves the remaining range by a
+ * conditional move rather than a branch, so the number of steps depends only on the number of keys and the CPU never
+ * mispredicts which half to continue with.
+ *
+ * @param <K>
+ *            the type of keys
+ */
+public class BinarySearch<K extends Comparable<K>> extends SearchStrategy<K> {
+
+	@Override
+	protected int bound(K[] keys, int count, K key, int threshold) {
+		if (count == 0)
+			return 0;
+		int base = 0;
+		int n = count;
+		while (n > 1) {
+			int half = n >>> 1;
+			base = compare(keys[base + half], key) < threshold ? base + half : base;
+			n -= half;
+		}
+		return compare(keys[base], key) < threshold ? base + 1 : base;
+	}
+
+}
@@ -0,0 +1,305 @@
+package bptree;
+
+import java.util.ArrayList;
+
+/**
+ * The {@code BulkLoader} class builds a {@code BPlusTree} bottom-up from entries added in non-decreasing key order.
+ * {@code LeafNode}s are packed from left to right up to a fill factor and chained as they fill up; each new
+ * {@code Node} is appended to the rightmost {@code NonLeafNode} of the level above, which is itself replaced by a new
+ * {@code NonLeafNode} when it has received its share of children. Thus every entry is handled in amortized constant
+ * time without descents from the root or splits. Only the rightmost {@code Node} of each level may end up
+ * under-utilized, which {@link #build()} repairs by redistributing with (or merging into) its left neighbor.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BulkLoader<K extends Comparable<K>, P> {
+
+	/**
+	 * The degree of the {@code BPlusTree} to build.
+	 */
+	protected int degree;
+
+	/**
+	 * The {@code SearchStrategy} of the {@code BPlusTree} to build.
+	 */
+	protected SearchStrategy<K> search;
+
+	/**
+	 * The number of keys that each {@code LeafNode} receives before a new {@code LeafNode} is started.
+	 */
+	protected int leafFill;
+
+	/**
+	 * The number of children that each {@code NonLeafNode} receives before a new {@code NonLeafNode} is started.
+	 */
+	protected int nonLeafFill;
+
+	/**
+	 * The rightmost {@code Node} at each level (the {@code LeafNode}s are at level 0).
+	 */
+	protected ArrayList<Node<K, P>> rightmost = new ArrayList<Node<K, P>>();
+
+	/**
+	 * The left neighbor of the rightmost {@code Node} at each level ({@code null} if there is none).
+	 */
+	protected ArrayList<Node<K, P>> previous = new ArrayList<Node<K, P>>();
+
+	/**
+	 * The number of entries added so far.
+	 */
+	protected long size = 0;
+
+	/**
+	 * A flag indicating whether or not {@link #build()} has been called.
+	 */
+	protected boolean built = false;
+
+	/**
+	 * Constructs a {@code BulkLoader} for a {@code BPlusTree} that searches within its {@code Node}s using a
+	 * branch-free binary search.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the {@code BPlusTree} can have
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill (at least half of each {@code Node} is always filled)
+	 * @throws IllegalArgumentException
+	 *             if the degree is smaller than 3 or the fill factor is not in (0, 1]
+	 */
+	public BulkLoader(int degree, double fillFactor) {
+		this(degree, fillFactor, SearchStrategy.<K>binary());
+	}
+
+	/**
+	 * Constructs a {@code BulkLoader}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the {@code BPlusTree} can have
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill (at least half of each {@code Node} is always filled)
+	 * @param search
+	 *            the {@code SearchStrategy} of the {@code BPlusTree}
+	 * @throws IllegalArgumentException
+	 *             if the degree is smaller than 3 or the fill factor is not in (0, 1]
+	 */
+	public BulkLoader(int degree, double fillFactor, SearchStrategy<K> search) {
+		if (degree < 3)
+			throw new IllegalArgumentException("degree must be at least 3: " + degree);
+		if (!(fillFactor > 0 && fillFactor <= 1))
+			throw new IllegalArgumentException("fill factor must be in (0, 1]: " + fillFactor);
+		this.degree = degree;
+		this.search = search;
+		this.leafFill = Math.max(minKeys(degree), (int) Math.round((degree - 1) * fillFactor));
+		this.nonLeafFill = Math.max(minChildren(degree), (int) Math.round(degree * fillFactor));
+	}
+
+	/**
+	 * Returns the minimum number of keys that each non-root {@code LeafNode} of the specified degree must have.
+	 *
+	 * @param degree
+	 *            the degree of a {@code BPlusTree}
+	 * @return the minimum number of keys that each non-root {@code LeafNode} of the specified degree must have
+	 */
+	static int minKeys(int degree) {
+		return degree / 2; // ceil((degree - 1) / 2)
+	}
+
+	/**
+	 * Returns the minimum number of children that each non-root {@code NonLeafNode} of the specified degree must have.
+	 *
+	 * @param degree
+	 *            the degree of a {@code BPlusTree}
+	 * @return the minimum number of children that each non-root {@code NonLeafNode} of the specified degree must have
+	 */
+	static int minChildren(int degree) {
+		return (degree + 1) / 2; // ceil(degree / 2)
+	}
+
+	/**
+	 * Returns the number of entries added so far.
+	 *
+	 * @return the number of entries added so far
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Adds the specified key and pointer. Keys must be added in non-decreasing order and no key-pointer entry may be
+	 * added twice.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @throws IllegalArgumentException
+	 *             if the key is smaller than the previously added key
+	 * @throws IllegalStateException
+	 *             if {@link #build()} has already been called
+	 */
+	@SuppressWarnings("unchecked")
+	public void add(K k, P p) {
+		if (built)
+			throw new IllegalStateException("the tree has already been built");
+		LeafNode<K, P> l = rightmost.isEmpty() ? null : (LeafNode<K, P>) rightmost.get(0);
+		if (l == null) {
+			l = new LeafNode<K, P>(degree);
+			rightmost.add(l);
+			previous.add(null);
+		} else if (k.compareTo(l.keys[l.keyCount - 1]) < 0)
+			throw new IllegalArgumentException("keys must be added in non-decreasing order: " + k + " after "
+					+ l.keys[l.keyCount - 1]);
+		else if (l.keyCount >= leafFill) {
+			LeafNode<K, P> n = new LeafNode<K, P>(degree);
+			l.setSuccessor(n);
+			previous.set(0, l);
+			rightmost.set(0, n);
+			append(1, k, n);
+			l = n;
+		}
+		l.keys[l.keyCount] = k;
+		l.pointers[l.keyCount] = p;
+		l.keyCount++;
+		size++;
+	}
+
+	/**
+	 * Appends the specified separating key and {@code Node} to the rightmost {@code NonLeafNode} at the specified
+	 * level, starting a new {@code NonLeafNode} (or a new root) if necessary.
+	 *
+	 * @param level
+	 *            the level of the {@code NonLeafNode}
+	 * @param k
+	 *            the key separating the specified {@code Node} from its left neighbor
+	 * @param n
+	 *            the {@code Node} to append
+	 */
+	void append(int level, K k, Node<K, P> n) {
+		if (level == rightmost.size()) { // the left neighbor of n is the root
+			rightmost.add(new NonLeafNode<K, P>(degree, previous.get(level - 1), k, n));
+			previous.add(null);
+			return;
+		}
+		NonLeafNode<K, P> p = (NonLeafNode<K, P>) rightmost.get(level);
+		if (p.keyCount + 1 < nonLeafFill) {
+			p.keys[p.keyCount] = k;
+			p.pointers[p.keyCount + 1] = n;
+			n.setParent(p);
+			p.keyCount++;
+		} else { // k moves up to separate p from the new NonLeafNode
+			NonLeafNode<K, P> pn = new NonLeafNode<K, P>(degree);
+			pn.pointers[0] = n;
+			n.setParent(pn);
+			previous.set(level, p);
+			rightmost.set(level, pn);
+			append(level + 1, k, pn);
+		}
+	}
+
+	/**
+	 * Builds the {@code BPlusTree} containing all of the added entries. No more entries can be added afterwards.
+	 *
+	 * @return a {@code BPlusTree} containing all of the added entries
+	 */
+	@SuppressWarnings("unchecked")
+	public BPlusTree<K, P> build() {
+		built = true;
+		BPlusTree<K, P> tree = new BPlusTree<K, P>(degree, search);
+		if (rightmost.isEmpty())
+			return tree;
+		for (int level = 0; level < rightmost.size() - 1; level++)
+			repair(level);
+		Node<K, P> root = rightmost.get(rightmost.size() - 1);
+		while (root instanceof NonLeafNode && root.keyCount == 0)
+			root = (Node<K, P>) root.pointers[0];
+		root.setParent(null);
+		tree.root = root;
+		return tree;
+	}
+
+	/**
+	 * Makes the rightmost {@code Node} at the specified level have at least the minimum number of entries by
+	 * redistributing with, or merging into, its left neighbor.
+	 *
+	 * @param level
+	 *            a level below the root
+	 */
+	@SuppressWarnings("unchecked")
+	void repair(int level) {
+		Node<K, P> n = rightmost.get(level);
+		Node<K, P> left = previous.get(level);
+		boolean leaf = level == 0;
+		int count = leaf ? n.keyCount : n.keyCount + 1;
+		if (count >= (leaf ? minKeys(degree) : minChildren(degree)) || left == null)
+			return;
+		// find the ancestor a holding the key that separates n from its left neighbor
+		Node<K, P> c = n;
+		NonLeafNode<K, P> a = n.parent;
+		while (a.pointers[0] == c) {
+			c = a;
+			a = a.parent;
+		}
+		int i = a.keyCount - 1; // n and its ancestors are the rightmost nodes
+		int leftCount = leaf ? left.keyCount : left.keyCount + 1;
+		int capacity = leaf ? degree - 1 : degree;
+		if (leftCount + count > capacity) { // redistribute
+			int m = (leftCount + count) / 2 - count; // the number of entries to move to n
+			if (leaf) {
+				System.arraycopy(n.keys, 0, n.keys, m, n.keyCount);
+				System.arraycopy(n.pointers, 0, n.pointers, m, n.keyCount);
+				System.arraycopy(left.keys, left.keyCount - m, n.keys, 0, m);
+				System.arraycopy(left.pointers, left.keyCount - m, n.pointers, 0, m);
+				clear(left, left.keyCount - m, left.keyCount, left.keyCount - m, left.keyCount);
+				left.keyCount -= m;
+				n.keyCount += m;
+				a.keys[i] = n.keys[0];
+			} else {
+				System.arraycopy(n.keys, 0, n.keys, m, n.keyCount);
+				System.arraycopy(n.pointers, 0, n.pointers, m, n.keyCount + 1);
+				n.keys[m - 1] = a.keys[i];
+				System.arraycopy(left.keys, left.keyCount - m + 1, n.keys, 0, m - 1);
+				System.arraycopy(left.pointers, left.keyCount - m + 1, n.pointers, 0, m);
+				for (int j = 0; j < m; j++)
+					((Node<K, P>) n.pointers[j]).setParent((NonLeafNode<K, P>) n);
+				a.keys[i] = left.keys[left.keyCount - m];
+				clear(left, left.keyCount - m, left.keyCount, left.keyCount - m + 1, left.keyCount + 1);
+				left.keyCount -= m;
+				n.keyCount += m;
+			}
+		} else { // merge n into its left neighbor
+			if (leaf) {
+				System.arraycopy(n.keys, 0, left.keys, left.keyCount, n.keyCount);
+				System.arraycopy(n.pointers, 0, left.pointers, left.keyCount, n.keyCount);
+				left.keyCount += n.keyCount;
+				((LeafNode<K, P>) left).setSuccessor(null);
+			} else {
+				left.keys[left.keyCount] = a.keys[i];
+				System.arraycopy(n.keys, 0, left.keys, left.keyCount + 1, n.keyCount);
+				System.arraycopy(n.pointers, 0, left.pointers, left.keyCount + 1, n.keyCount + 1);
+				for (int j = 0; j <= n.keyCount; j++)
+					((Node<K, P>) n.pointers[j]).setParent((NonLeafNode<K, P>) left);
+				left.keyCount += n.keyCount + 1;
+			}
+			rightmost.set(level, left);
+			// remove n together with its ancestors below a, each of which has n as its only descendant
+			for (int l = level + 1; rightmost.get(l) != a; l++)
+				rightmost.set(l, previous.get(l));
+			a.keys[i] = null;
+			a.pointers[i + 1] = null;
+			a.keyCount--;
+		}
+	}
+
+	/**
+	 * Clears the specified keys and pointers of the specified {@code Node}.
+	 */
+	static void clear(Node<?, ?> n, int keyBegin, int keyEnd, int pointerBegin, int pointerEnd) {
+		for (int j = keyBegin; j < keyEnd; j++)
+			n.keys[j] = null;
+		for (int j = pointerBegin; j < pointerEnd; j++)
+			n.pointers[j] = null;
+	}
+
+}
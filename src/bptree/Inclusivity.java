@@ -0,0 +1,69 @@
+package bptree;
+
+/**
+ * The {@code Inclusivity} enum specifies which bounds of a key range belong to the range.
+ */
+public enum Inclusivity {
+
+	/**
+	 * Both bounds belong to the range.
+	 */
+	CLOSED(true, true),
+
+	/**
+	 * Neither bound belongs to the range.
+	 */
+	OPEN(false, false),
+
+	/**
+	 * The lower bound belongs to the range, but the upper bound does not.
+	 */
+	CLOSED_OPEN(true, false),
+
+	/**
+	 * The upper bound belongs to the range, but the lower bound does not.
+	 */
+	OPEN_CLOSED(false, true);
+
+	/**
+	 * A flag indicating whether or not the lower bound belongs to the range.
+	 */
+	private final boolean includesFrom;
+
+	/**
+	 * A flag indicating whether or not the upper bound belongs to the range.
+	 */
+	private final boolean includesTo;
+
+	/**
+	 * Constructs an {@code Inclusivity}.
+	 *
+	 * @param includesFrom
+	 *            a flag indicating whether or not the lower bound belongs to the range
+	 * @param includesTo
+	 *            a flag indicating whether or not the upper bound belongs to the range
+	 */
+	Inclusivity(boolean includesFrom, boolean includesTo) {
+		this.includesFrom = includesFrom;
+		this.includesTo = includesTo;
+	}
+
+	/**
+	 * Determines whether or not the lower bound belongs to the range.
+	 *
+	 * @return {@code true} if the lower bound belongs to the range; {@code false} otherwise
+	 */
+	public boolean includesFrom() {
+		return includesFrom;
+	}
+
+	/**
+	 * Determines whether or not the upper bound belongs to the range.
+	 *
+	 * @return {@code true} if the upper bound belongs to the range; {@code false} otherwise
+	 */
+	public boolean includesTo() {
+		return includesTo;
+	}
+
+}
@@ -0,0 +1,60 @@
+package bptree;
+
+/**
+ * The {@code InterpolationSearch} class estimates the position of a numeric key from the smallest and largest keys of
+ * the remaining range. On uniformly distributed keys this needs O(log log n) comparisons. To bound the cost on skewed
+ * keys, a step that fails to halve the remaining range is followed by a bisection step, so that the search never takes
+ * more than about twice the comparisons of a binary search. The keys must be {@code Number}s (see
+ * {@link SearchStrategy#interpolation()}).
+ *
+ * @param <K>
+ *            the type of keys
+ */
+public class InterpolationSearch<K extends Comparable<K>> extends SearchStrategy<K> {
+
+	@Override
+	protected int bound(K[] keys, int count, K key, int threshold) {
+		if (count == 0 || compare(keys[0], key) >= threshold)
+			return 0;
+		if (compare(keys[count - 1], key) < threshold)
+			return count;
+		// keys[low] is before the bound and keys[high] is not
+		int low = 0;
+		int high = count - 1;
+		double x = value(key);
+		boolean bisect = false;
+		while (high - low > 1) {
+			int width = high - low;
+			int middle;
+			if (bisect)
+				middle = (low + high) >>> 1;
+			else {
+				double l = value(keys[low]);
+				double h = value(keys[high]);
+				middle = h > l ? low + (int) ((x - l) / (h - l) * width) : (low + high) >>> 1;
+				if (middle <= low)
+					middle = low + 1;
+				else if (middle >= high)
+					middle = high - 1;
+			}
+			if (compare(keys[middle], key) < threshold)
+				low = middle;
+			else
+				high = middle;
+			bisect = !bisect && 2 * (high - low) > width;
+		}
+		return high;
+	}
+
+	/**
+	 * Returns the numeric value of the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the numeric value of the specified key
+	 */
+	static double value(Object key) {
+		return ((Number) key).doubleValue();
+	}
+
+}
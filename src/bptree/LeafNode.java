@@ -110,11 +110,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
 	 */
 	protected int findIndexL(K key) {
-		for (int i = keyCount - 1; i >= 0; i--) {
-			if (keys[i].compareTo(key) < 0)
-				return i;
-		}
-		return -1;
+		return lowerBound(key) - 1;
 	}
 
 	/**
@@ -183,7 +179,9 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	}
 
 	/**
-	 * Finds, starting from this {@code LeafNode}, the {@code LeafNode} that is responsible for the specified key.
+	 * Finds, starting from this {@code LeafNode}, the {@code LeafNode} that is responsible for the specified key. Since
+	 * keys equal to a separating key are looked for in the left subtree, the successor is responsible for the key if
+	 * all keys of this {@code LeafNode} are smaller than the key and the successor starts with the key.
 	 * 
 	 * @param k
 	 *            a key
@@ -191,8 +189,10 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public LeafNode<K, P> find(K k) {
-		if (keyCount > 0 && keys[keyCount - 1].compareTo(k) < 0 && successor() != null)
-			return successor();
+		LeafNode<K, P> s = successor();
+		if (keyCount > 0 && keys[keyCount - 1].compareTo(k) < 0 && s != null && s.keyCount > 0
+				&& s.keys[0].compareTo(k) <= 0)
+			return s;
 		else
 			return this;
 	}
@@ -204,53 +204,28 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 *            a key
 	 * @param p
 	 *            a pointer
-	 * @return the {@code LeafNode} containing the specified key and pointer
+	 * @return the {@code LeafNode} containing the specified key and pointer; {@code null} if this {@code LeafNode} does
+	 *         not contain them
 	 */
 	public LeafNode<K, P> find(K k, P p) {
-		System.out.println("Inside find method of LeafNode.java");
 		for (int i = 0; i < keyCount; i++)
 			if (keys[i].compareTo(k) == 0 && pointers[i].equals(p))
 				return this;
 		return null;
-		
-//	LeafNode<K,P> temp = find(k);
-//		
-//		if(temp.contains(k, p))
-//			return temp;
-//		
-//		else
-//		{
-//			for(int i = 0; i <= temp.parent.pointers.length ; i++)
-//			{
-//				LeafNode<K,P> lf = (LeafNode<K,P>) temp.parent.pointer(i);
-//				
-//				if(lf != null && lf.contains(k, p) )
-//				{
-//					return (LeafNode<K, P>) temp.parent.pointer(i);
-//				}
-//			}
-//			return null;
-//		}
 	}
 
 	/**
 	 * Determines whether or not this {@code LeafNode} is under-utilized and thus some action such as merging or
 	 * redistribution is needed.
 	 * 
+	 * @param degree
+	 *            the degree of the B+-tree
 	 * @return {@code true} if this {@code LeafNode} is under-utilized and thus some action such as merging or
 	 *         redistribution is needed; {@code false} otherwise
 	 */
 	@Override
 	public boolean isUnderUtilized(int degree) {
-		System.out.println("Inside UnderUtilized of LeafNode.");
-		float degree1 = (float) degree;
-		System.out.println("BPluse Tree Degree :: " + degree1);
-		int deg =(int) Math.ceil((degree1 - 1) /2) ;
-		System.out.println("UnderUtilize Degree :: Pointer Count :: " +this.pointerCount() + " Degree Limit :: " + deg);
-		if(this.pointerCount() < deg)
-			return true;
-		return false;
-		//throw new UnsupportedOperationException();
+		return keyCount < degree / 2; // the split point of BPlusTree leaves at least this many keys in each half
 	}
 
 	/**
@@ -263,16 +238,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean mergeable(Node<K, P> other) {
-		
-		int keyOfCurrentNode = this.keyCount;
-		int otherNode = other.keyCount;
-		
-		System.out.println("Current Node N's keyCount :: " + this.keyCount + " Ndash's KeyCount :: " + otherNode + "Keys array Length :: " + keys.length);
-		if(keyOfCurrentNode + otherNode <= keys.length)
-			return true;
-		return false;
-		
-		//throw new UnsupportedOperationException();
+		return keyCount + other.keyCount <= keys.length;
 	}
 /*
 	 * Returns the number of children that this {@code NonLeafNode} has.
@@ -0,0 +1,20 @@
+package bptree;
+
+/**
+ * The {@code LinearSearch} class scans keys from left to right. It needs the fewest instructions per comparison and
+ * thus suits small degrees.
+ *
+ * @param <K>
+ *            the type of keys
+ */
+public class LinearSearch<K extends Comparable<K>> extends SearchStrategy<K> {
+
+	@Override
+	protected int bound(K[] keys, int count, K key, int threshold) {
+		int i = 0;
+		while (i < count && compare(keys[i], key) < threshold)
+			i++;
+		return i;
+	}
+
+}
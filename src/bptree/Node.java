@@ -63,7 +63,9 @@ public abstract class Node<K extends Comparable<K>, P> {
 		pointers = new Object[node.pointers.length];
 		for (int i = 0; i < node.pointers.length; i++) {
 			Object pointer = node.pointers[i];
-			if (pointer instanceof LeafNode)
+			if (pointer instanceof LeafNode && this instanceof LeafNode)
+				pointers[i] = null; // the successor is relinked by BPlusTree(BPlusTree) instead of being copied
+			else if (pointer instanceof LeafNode)
 				pointers[i] = new LeafNode(this instanceof NonLeafNode ? (NonLeafNode) this : null, (LeafNode) pointer);
 			else if (pointer instanceof NonLeafNode)
 				pointers[i] = new NonLeafNode((NonLeafNode) this, (NonLeafNode) pointer); // copy construct the node.
@@ -167,6 +169,47 @@ public abstract class Node<K extends Comparable<K>, P> {
 		return keyCount >= keys.length;
 	}
 
+	/**
+	 * Returns the number of keys in this {@code Node} that are smaller than the specified key using a binary search.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the number of keys in this {@code Node} that are smaller than the specified key
+	 */
+	protected int lowerBound(K key) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(key) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code Node} that are smaller than or equal to the specified key using a binary
+	 * search.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the number of keys in this {@code Node} that are smaller than or equal to the specified key
+	 */
+	protected int upperBound(K key) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(key) <= 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
 	/**
 	 * Finds, starting from this {@code Node}, the {@code LeafNode} that is responsible for the specified key.
 	 * 
@@ -0,0 +1,156 @@
+package bptree;
+
+/**
+ * A {@code NodePool} recycles the {@code Node}s that a {@code BPlusTree} removes when it merges {@code Node}s or
+ * shrinks its root, so that later splits can reuse them instead of allocating new {@code Node}s. The pool holds at
+ * most a fixed number of {@code LeafNode}s and of {@code NonLeafNode}s; {@code Node}s released beyond that are left
+ * to the garbage collector. A {@code NodePool} is not thread-safe and belongs to a single {@code BPlusTree}.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class NodePool<K extends Comparable<K>, P> {
+
+	/**
+	 * The default number of {@code LeafNode}s, and of {@code NonLeafNode}s, that a {@code NodePool} holds.
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * The degree of the {@code Node}s.
+	 */
+	protected final int degree;
+
+	/**
+	 * The pooled {@code LeafNode}s.
+	 */
+	protected final Object[] leafNodes;
+
+	/**
+	 * The pooled {@code NonLeafNode}s.
+	 */
+	protected final Object[] nonLeafNodes;
+
+	/**
+	 * The number of pooled {@code LeafNode}s.
+	 */
+	protected int leafCount;
+
+	/**
+	 * The number of pooled {@code NonLeafNode}s.
+	 */
+	protected int nonLeafCount;
+
+	/**
+	 * The number of {@code Node}s handed out from the pool.
+	 */
+	protected long reused;
+
+	/**
+	 * The number of {@code Node}s allocated because the pool was empty.
+	 */
+	protected long allocated;
+
+	/**
+	 * Constructs a {@code NodePool}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code Node}s
+	 * @param capacity
+	 *            the maximum number of {@code LeafNode}s, and of {@code NonLeafNode}s, to hold (0 disables pooling)
+	 */
+	public NodePool(int degree, int capacity) {
+		this.degree = degree;
+		this.leafNodes = new Object[capacity];
+		this.nonLeafNodes = new Object[capacity];
+	}
+
+	/**
+	 * Returns an empty {@code LeafNode}, reusing a released one if possible.
+	 *
+	 * @return an empty {@code LeafNode}
+	 */
+	@SuppressWarnings("unchecked")
+	public LeafNode<K, P> leafNode() {
+		if (leafCount == 0) {
+			allocated++;
+			return new LeafNode<K, P>(degree);
+		}
+		reused++;
+		LeafNode<K, P> l = (LeafNode<K, P>) leafNodes[--leafCount];
+		leafNodes[leafCount] = null;
+		return l;
+	}
+
+	/**
+	 * Returns an empty {@code NonLeafNode}, reusing a released one if possible.
+	 *
+	 * @return an empty {@code NonLeafNode}
+	 */
+	@SuppressWarnings("unchecked")
+	public NonLeafNode<K, P> nonLeafNode() {
+		if (nonLeafCount == 0) {
+			allocated++;
+			return new NonLeafNode<K, P>(degree);
+		}
+		reused++;
+		NonLeafNode<K, P> n = (NonLeafNode<K, P>) nonLeafNodes[--nonLeafCount];
+		nonLeafNodes[nonLeafCount] = null;
+		return n;
+	}
+
+	/**
+	 * Clears the specified {@code Node}, which must no longer be part of any tree, and keeps it for reuse if the pool
+	 * has room.
+	 *
+	 * @param n
+	 *            a {@code Node} removed from its tree
+	 */
+	public void release(Node<K, P> n) {
+		if (n.keys.length != degree - 1)
+			return;
+		if (n instanceof LeafNode ? leafCount == leafNodes.length : nonLeafCount == nonLeafNodes.length)
+			return;
+		n.clear();
+		n.setParent(null);
+		if (n instanceof LeafNode)
+			leafNodes[leafCount++] = n;
+		else
+			nonLeafNodes[nonLeafCount++] = n;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s currently held by this {@code NodePool}.
+	 *
+	 * @return the number of {@code Node}s currently held by this {@code NodePool}
+	 */
+	public int size() {
+		return leafCount + nonLeafCount;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s handed out from this {@code NodePool} rather than allocated.
+	 *
+	 * @return the number of {@code Node}s handed out from this {@code NodePool} rather than allocated
+	 */
+	public long reused() {
+		return reused;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s allocated because this {@code NodePool} was empty.
+	 *
+	 * @return the number of {@code Node}s allocated because this {@code NodePool} was empty
+	 */
+	public long allocated() {
+		return allocated;
+	}
+
+	@Override
+	public String toString() {
+		return "NodePool[size=" + size() + ", reused=" + reused + ", allocated=" + allocated + "]";
+	}
+
+}
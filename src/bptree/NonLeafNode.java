@@ -82,14 +82,11 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	public void insertAfter(K key, Node<K, P> node, Node<K, P> child) {
 		int i = keyCount;
-		System.out.println("Value of I :: " + i);
 		while (pointers[i] != child) {
-			System.out.println("Keys :: " + i + " "+ keys[i - 1]);
 			keys[i] = keys[i - 1];
 			pointers[i + 1] = pointers[i];
 			i--;
 		}
-		System.out.println("After While");
 		keys[i] = key;
 		pointers[i + 1] = node;
 		node.setParent(this);
@@ -231,43 +228,38 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	@SuppressWarnings("unchecked")
 	@Override
 	public LeafNode<K, P> find(K k) {
-		int i = 0;
-		for (; i < keyCount && k.compareTo(keys[i]) > 0; i++)
-			;
-		return ((Node<K, P>) pointers[i]).find(k);
+		return ((Node<K, P>) pointers[lowerBound(k)]).find(k);
 	}
 
-	
+	/**
+	 * Finds, starting from this {@code NonLeafNode}, the {@code LeafNode} containing the specified key and pointer.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the {@code LeafNode} containing the specified key and pointer; {@code null} if the {@code LeafNode}
+	 *         responsible for the key does not contain them
+	 */
 	@SuppressWarnings("unchecked")
 	@Override
 	public LeafNode<K, P> find(K k, P p) {
-		// TODO Auto-generated method stub
-		System.out.println("Inside find method of NonLeafNode.java");
-		int i = 0;
-		for (; i < keyCount && k.compareTo(keys[i]) > 0; i++)
-			;
-		return ((Node<K, P>) pointers[i]).find(k);
-		}
+		return ((Node<K, P>) pointers[lowerBound(k)]).find(k, p);
+	}
 	
 	
 	/**
 	 * Determines whether or not this {@code NonLeafNode} is under-utilized and thus some action such as merging or
 	 * redistribution is needed.
 	 * 
+	 * @param degree
+	 *            the degree of the B+-tree
 	 * @return {@code true} if this {@code NonLeafNode} is under-utilized and thus some action such as merging or
 	 *         redistribution is needed; {@code false} otherwise
 	 */
 	@Override
 	public boolean isUnderUtilized(int degree) {
-		System.out.println("Inside UnderUtilized of NonLeafNode.");
-		float degree1 = (float) degree;
-		System.out.println("BPluse Tree Degree :: " + degree1);
-		int deg =(int) Math.ceil((degree1 ) /2) ;
-		System.out.println("UnderUtilize Degree :: Pointer Count :: " +this.pointerCount() + " Degree Limit :: " + deg);
-		if(this.pointerCount() < deg)
-			return true;
-		return false;
-		//throw new UnsupportedOperationException();
+		return keyCount + 1 < (degree + 1) / 2; // fewer than half of the children
 	}
 
 	/**
@@ -280,22 +272,18 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean mergeable(Node<K, P> other) {
-		int keyOfCurrentNode = this.keyCount;
-		int otherNode = other.keyCount;
-		
-		System.out.println("Current Node N's keyCount :: " + this.keyCount + " Ndash's KeyCount :: " + otherNode + "Keys array Length :: " + keys.length);
-		if(keyOfCurrentNode + otherNode <= keys.length)
-			return true;
-		return false;
-		// throw new UnsupportedException();
+		return keyCount + other.keyCount < keys.length; // the separating key moves down into the merged node
 	}
 
+	/**
+	 * Returns the largest index i such that keys[i] < the given key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
+	 */
 	protected int findIndexL(K key) {
-		for (int i = keyCount - 1; i >= 0; i--) {
-			if (keys[i].compareTo(key) < 0)
-				return i;
-		}
-		return -1;
+		return lowerBound(key) - 1;
 	}
 
 
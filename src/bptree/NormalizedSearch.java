@@ -0,0 +1,51 @@
+package bptree;
+
+import bptree.codec.BinaryKey;
+
+/**
+ * The {@code NormalizedSearch} class performs a branch-free binary search on {@code BinaryKey}s. The 8-byte prefix of
+ * the search key is loaded once, and each step compares it with the prefix of a stored key as an unsigned
+ * {@code long}; the remaining bytes are compared only if the prefixes are equal. As the keys are cast to the final
+ * {@code BinaryKey} class, no step goes through a virtual {@code compareTo} call, however many key types the
+ * application uses elsewhere.
+ *
+ * @param <K>
+ *            the type of keys, which must be {@code BinaryKey}
+ */
+public class NormalizedSearch<K extends Comparable<K>> extends SearchStrategy<K> {
+
+	@Override
+	protected int bound(K[] keys, int count, K key, int threshold) {
+		if (count == 0)
+			return 0;
+		BinaryKey k = (BinaryKey) (Object) key;
+		long prefix = k.prefix();
+		int base = 0;
+		int n = count;
+		while (n > 1) {
+			int half = n >>> 1;
+			base = compare((BinaryKey) (Object) keys[base + half], k, prefix) < threshold ? base + half : base;
+			n -= half;
+		}
+		return compare((BinaryKey) (Object) keys[base], k, prefix) < threshold ? base + 1 : base;
+	}
+
+	/**
+	 * Compares two {@code BinaryKey}s while counting the comparison.
+	 *
+	 * @param a
+	 *            a {@code BinaryKey}
+	 * @param b
+	 *            a {@code BinaryKey}
+	 * @param prefix
+	 *            the prefix of {@code b}
+	 * @return {@code a.compareTo(b)}
+	 */
+	int compare(BinaryKey a, BinaryKey b, long prefix) {
+		if (counting)
+			comparisons.increment();
+		long p = a.prefix();
+		return p != prefix ? Long.compareUnsigned(p, prefix) : a.compareTo(b);
+	}
+
+}
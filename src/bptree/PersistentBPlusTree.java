@@ -0,0 +1,803 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import bptree.metrics.TreeMetrics.Operation;
+
+/**
+ * The {@code PersistentBPlusTree} class implements B+-trees whose {@code Node}s are never changed once they have
+ * become part of the tree. Each insertion or deletion copies only the {@code Node}s on the path from the root to the
+ * affected {@code LeafNode} (and the siblings involved in merges and redistributions) and shares all other
+ * {@code Node}s with the previous version. Consequently, {@link #snapshot()} takes O(1) time, and a snapshot remains
+ * readable, unaffected, while the tree it was taken from keeps changing.
+ * <p>
+ * Since a {@code Node} can be shared by many versions, the {@code Node}s of a {@code PersistentBPlusTree} have neither
+ * parents nor successors. {@link #find(Comparable)} and {@link #range(Comparable, Comparable, Inclusivity)} move from
+ * one {@code LeafNode} to the next by means of the path from the root instead. Splits use the {@link Separator} of
+ * the tree, and its {@code TreeMetrics} receive the same events as those of a {@code BPlusTree}.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class PersistentBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * The key separating the two halves of the most recently split {@code Node}.
+	 */
+	private K splitKey;
+
+	/**
+	 * The right half of the most recently split {@code Node} ({@code null} if the last insertion into a subtree did
+	 * not split its root).
+	 */
+	private Node<K, P> splitNode;
+
+	/**
+	 * The number of {@code Node}s split so far.
+	 */
+	private long splits;
+
+	/**
+	 * Constructs a {@code PersistentBPlusTree} that searches within its {@code Node}s using a branch-free binary
+	 * search.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code PersistentBPlusTree} can have
+	 */
+	public PersistentBPlusTree(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Constructs a {@code PersistentBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code PersistentBPlusTree} can have
+	 * @param search
+	 *            the {@code SearchStrategy} that locates keys within the {@code Node}s of the
+	 *            {@code PersistentBPlusTree}
+	 */
+	public PersistentBPlusTree(int degree, SearchStrategy<K> search) {
+		super(degree, search);
+	}
+
+	/**
+	 * Constructs a {@code PersistentBPlusTree} that shares the specified root {@code Node}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code PersistentBPlusTree} can have
+	 * @param search
+	 *            the {@code SearchStrategy} that locates keys within the {@code Node}s of the
+	 *            {@code PersistentBPlusTree}
+	 * @param root
+	 *            the root {@code Node} ({@code null} if the tree is empty)
+	 */
+	protected PersistentBPlusTree(int degree, SearchStrategy<K> search, Node<K, P> root) {
+		super(degree, search);
+		this.root = root;
+	}
+
+	/**
+	 * Returns a snapshot of this {@code PersistentBPlusTree} in O(1) time. The snapshot shares all {@code Node}s with
+	 * this {@code PersistentBPlusTree}; changes made to either of them afterwards are not visible in the other.
+	 *
+	 * @return a snapshot of this {@code PersistentBPlusTree}
+	 */
+	public PersistentBPlusTree<K, P> snapshot() {
+		PersistentBPlusTree<K, P> snapshot = new PersistentBPlusTree<K, P>(degree, search, root);
+		snapshot.separator = separator;
+		snapshot.metrics = metrics;
+		return snapshot;
+	}
+
+	/**
+	 * Finds the {@code LeafNode} in this {@code PersistentBPlusTree} that must be responsible for the specified key.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the {@code LeafNode} in this {@code PersistentBPlusTree} that must be responsible for the specified key
+	 */
+	@Override
+	public LeafNode<K, P> find(K k) {
+		long start = metrics.start();
+		PathCursor<K, P> c = new PathCursor<K, P>(this, k, null, Inclusivity.CLOSED);
+		metrics.end(Operation.FIND, start);
+		return c.leaf != null ? c.leaf : c.last;
+	}
+
+	/**
+	 * Determines whether or not this {@code PersistentBPlusTree} contains the specified key and pointer.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if this {@code PersistentBPlusTree} contains the specified key and pointer; {@code false}
+	 *         otherwise
+	 */
+	@Override
+	public boolean contains(K k, P p) {
+		RangeCursor<K, P> c = range(k, k, Inclusivity.CLOSED);
+		while (c.next())
+			if (c.pointer().equals(p))
+				return true;
+		return false;
+	}
+
+	@Override
+	public RangeCursor<K, P> range(K from, K to, Inclusivity inclusivity) {
+		return new PathCursor<K, P>(this, from, to, inclusivity);
+	}
+
+	/**
+	 * Returns a {@code RangeSpliterator} over the entries of this {@code PersistentBPlusTree} whose keys fall in the
+	 * specified range. It splits along the children of {@code NonLeafNode}s like the {@code RangeSpliterator} of a
+	 * {@code BPlusTree} but moves from one {@code LeafNode} to the next by means of the path from the root.
+	 *
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return a {@code RangeSpliterator} over the entries of this {@code PersistentBPlusTree} whose keys fall in the
+	 *         specified range
+	 */
+	@Override
+	public RangeSpliterator<K, P> spliterator(K from, K to, Inclusivity inclusivity) {
+		return new PathSpliterator<K, P>(this, new PathCursor<K, P>(this, from, to, inclusivity));
+	}
+
+	/**
+	 * Inserts the specified key and the pointer into this {@code PersistentBPlusTree} by copying the path from the
+	 * root to the affected {@code LeafNode}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 */
+	@Override
+	public void insert(K k, P p) {
+		long start = metrics.start();
+		add(k, p);
+		metrics.end(Operation.INSERT, start);
+	}
+
+	/**
+	 * Inserts the specified key and the pointer into this {@code PersistentBPlusTree} unless they are already
+	 * contained in it.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @return {@code true} if the key and pointer have been inserted; {@code false} if they were already contained
+	 */
+	boolean add(K k, P p) {
+		if (root == null) {
+			LeafNode<K, P> l = new LeafNode<K, P>(degree);
+			l.keys[0] = k;
+			l.pointers[0] = p;
+			l.keyCount = 1;
+			root = l;
+			return true;
+		}
+		metrics.descent();
+		splitNode = null;
+		Node<K, P> n = insert(root, k, p);
+		if (n == null) // no duplicate key-pointer entries are allowed in the tree
+			return false;
+		if (splitNode != null)
+			n = nonLeafNode(new Object[] { splitKey }, new Object[] { n, splitNode }, 0, 2);
+		splitNode = null;
+		root = n;
+		return true;
+	}
+
+	/**
+	 * Inserts the specified entries into this {@code PersistentBPlusTree} one at a time since the {@code LeafNode}s of
+	 * a {@code PersistentBPlusTree} may be shared with snapshots and thus cannot be filled in place.
+	 *
+	 * @param entries
+	 *            the entries to insert
+	 * @return a {@code BatchStats} reporting one descent per entry and no saved splits
+	 */
+	@Override
+	public BatchStats insertAll(Collection<? extends Map.Entry<K, P>> entries) {
+		long start = metrics.start();
+		long inserted = 0;
+		long before = splits;
+		for (Map.Entry<K, P> e : entries)
+			if (add(e.getKey(), e.getValue()))
+				inserted++;
+		metrics.end(Operation.INSERT_ALL, start);
+		return new BatchStats(entries.size(), inserted, entries.size(), splits - before, splits - before);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into a copy of the specified subtree unless the subtree already contains
+	 * them. If the copy of the root of the subtree has to be split, its right half and the separating key are left in
+	 * {@code splitNode} and {@code splitKey}.
+	 *
+	 * @param n
+	 *            the root of a subtree
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @return the copy of the root of the subtree (the left half if it has been split); {@code null} if the subtree
+	 *         already contains the specified key and pointer
+	 */
+	@SuppressWarnings("unchecked")
+	Node<K, P> insert(Node<K, P> n, K k, P p) {
+		if (n instanceof LeafNode) {
+			if (contains(n, k, p))
+				return null;
+			int i = search.upperBound(n.keys, n.keyCount, k);
+			Object[] keys = insert(n.keys, n.keyCount, i, k);
+			Object[] pointers = insert(n.pointers, n.keyCount, i, p);
+			int count = n.keyCount + 1;
+			if (count < degree)
+				return leafNode(keys, pointers, 0, count);
+			int m = (int) Math.ceil(degree / 2.0); // the same split point as BPlusTree
+			split();
+			splitNode = leafNode(keys, pointers, m, count);
+			splitKey = separator.separate(keyAt(keys, m - 1), keyAt(keys, m));
+			return leafNode(keys, pointers, 0, m);
+		}
+		int i = search.lowerBound(n.keys, n.keyCount, k);
+		// the entries of a key may continue in the children after the one that the key is inserted into
+		for (int j = i; j < n.keyCount && n.keys[j].compareTo(k) == 0; j++)
+			if (contains((Node<K, P>) n.pointers[j + 1], k, p))
+				return null;
+		Node<K, P> c = insert((Node<K, P>) n.pointers[i], k, p);
+		if (c == null)
+			return null;
+		Object[] children = n.pointers.clone();
+		children[i] = c;
+		if (splitNode == null)
+			return nonLeafNode(n.keys, children, 0, n.keyCount + 1);
+		Object[] keys = insert(n.keys, n.keyCount, i, splitKey);
+		children = insert(children, n.keyCount + 1, i + 1, splitNode);
+		int count = n.keyCount + 2; // the number of children
+		if (count <= degree) {
+			splitNode = null;
+			return nonLeafNode(keys, children, 0, count);
+		}
+		int m = (int) Math.ceil(degree / 2.0); // the number of children that remain in the left half
+		split();
+		splitNode = nonLeafNode(keys, children, m, count);
+		splitKey = keyAt(keys, m - 1);
+		return nonLeafNode(keys, children, 0, m);
+	}
+
+	/**
+	 * Determines whether or not the specified subtree contains the specified key and pointer.
+	 *
+	 * @param n
+	 *            the root of a subtree
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified subtree contains the specified key and pointer; {@code false} otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	boolean contains(Node<K, P> n, K k, P p) {
+		if (n instanceof LeafNode) {
+			for (int i = search.lowerBound(n.keys, n.keyCount, k); i < n.keyCount
+					&& n.keys[i].compareTo(k) == 0; i++)
+				if (n.pointers[i].equals(p))
+					return true;
+			return false;
+		}
+		// the entries of a key may span several children
+		for (int i = search.lowerBound(n.keys, n.keyCount, k); i <= n.keyCount; i++) {
+			if (contains((Node<K, P>) n.pointers[i], k, p))
+				return true;
+			if (i == n.keyCount || n.keys[i].compareTo(k) > 0)
+				break;
+		}
+		return false;
+	}
+
+	/**
+	 * Counts a split of a {@code Node}.
+	 */
+	void split() {
+		splits++;
+		metrics.split();
+	}
+
+	/**
+	 * Removes the specified key and the pointer from this {@code PersistentBPlusTree} by copying the path from the
+	 * root to the affected {@code LeafNode}. Under-utilized {@code Node}s are merged with, or borrow from, a sibling.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 */
+	@Override
+	public void delete(K k, P p) {
+		if (root == null)
+			return;
+		long start = metrics.start();
+		remove(k, p);
+		metrics.end(Operation.DELETE, start);
+	}
+
+	/**
+	 * Removes the specified key and the pointer from this {@code PersistentBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 * @return {@code true} if the key and pointer have been removed; {@code false} if they were not contained
+	 */
+	boolean remove(K k, P p) {
+		if (root == null)
+			return false;
+		metrics.descent();
+		Node<K, P> n = delete(root, k, p);
+		if (n == null) // not found
+			return false;
+		if (n instanceof NonLeafNode && n.keyCount == 0) {
+			@SuppressWarnings("unchecked")
+			Node<K, P> child = (Node<K, P>) n.pointers[0]; // the only child becomes the root
+			n = child;
+		} else if (n instanceof LeafNode && n.keyCount == 0)
+			n = null;
+		root = n;
+		return true;
+	}
+
+	/**
+	 * Removes the entries whose keys fall in the specified range from this {@code PersistentBPlusTree} one at a time
+	 * since its {@code Node}s may be shared with snapshots and thus cannot be unlinked in place.
+	 *
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return the number of entries removed
+	 */
+	@Override
+	public long deleteRange(K from, K to, Inclusivity inclusivity) {
+		long start = metrics.start();
+		long removed = 0;
+		List<Map.Entry<K, P>> entries = new ArrayList<Map.Entry<K, P>>();
+		for (RangeCursor<K, P> c = range(from, to, inclusivity); c.next();)
+			entries.add(new AbstractMap.SimpleImmutableEntry<K, P>(c.key(), c.pointer()));
+		for (Map.Entry<K, P> e : entries)
+			if (remove(e.getKey(), e.getValue()))
+				removed++;
+		metrics.end(Operation.DELETE_RANGE, start);
+		return removed;
+	}
+
+	/**
+	 * Removes the specified entries from this {@code PersistentBPlusTree} one at a time since its {@code Node}s may be
+	 * shared with snapshots and thus cannot be changed in place.
+	 *
+	 * @param entries
+	 *            the entries to remove
+	 * @return the number of entries removed
+	 */
+	@Override
+	public long deleteAll(Collection<? extends Map.Entry<K, P>> entries) {
+		long start = metrics.start();
+		long removed = 0;
+		for (Map.Entry<K, P> e : entries)
+			if (remove(e.getKey(), e.getValue()))
+				removed++;
+		metrics.end(Operation.DELETE_ALL, start);
+		return removed;
+	}
+
+	/**
+	 * Removes the specified key and pointer from a copy of the specified subtree.
+	 *
+	 * @param n
+	 *            the root of a subtree
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 * @return the copy of the root of the subtree, which may be under-utilized; {@code null} if the subtree does not
+	 *         contain the specified key and pointer
+	 */
+	@SuppressWarnings("unchecked")
+	Node<K, P> delete(Node<K, P> n, K k, P p) {
+		if (n instanceof LeafNode) {
+			for (int i = search.lowerBound(n.keys, n.keyCount, k); i < n.keyCount
+					&& n.keys[i].compareTo(k) == 0; i++)
+				if (n.pointers[i].equals(p)) {
+					Object[] keys = remove(n.keys, n.keyCount, i);
+					Object[] pointers = remove(n.pointers, n.keyCount, i);
+					return leafNode(keys, pointers, 0, n.keyCount - 1);
+				}
+			return null;
+		}
+		// the entries of a key may span several children
+		for (int i = search.lowerBound(n.keys, n.keyCount, k); i <= n.keyCount; i++) {
+			Node<K, P> c = delete((Node<K, P>) n.pointers[i], k, p);
+			if (c != null)
+				return rebalance((NonLeafNode<K, P>) n, i, c);
+			if (i == n.keyCount || n.keys[i].compareTo(k) > 0)
+				break;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a copy of the specified {@code NonLeafNode} in which the specified child is replaced with the specified
+	 * {@code Node}. If the {@code Node} is under-utilized, it is merged with, or borrows from, a sibling.
+	 *
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of a child
+	 * @param c
+	 *            the {@code Node} replacing the child
+	 * @return a copy of the specified {@code NonLeafNode} in which the specified child is replaced
+	 */
+	Node<K, P> rebalance(NonLeafNode<K, P> n, int i, Node<K, P> c) {
+		boolean leaf = c instanceof LeafNode;
+		Object[] children = n.pointers.clone();
+		children[i] = c;
+		if ((leaf ? c.keyCount : c.keyCount + 1) >= (leaf ? degree / 2 : (degree + 1) / 2) || n.keyCount == 0)
+			return nonLeafNode(n.keys, children, 0, n.keyCount + 1);
+		int li = i > 0 ? i - 1 : i; // the index of the left one of c and its sibling
+		@SuppressWarnings("unchecked")
+		Node<K, P> left = (Node<K, P>) children[li];
+		@SuppressWarnings("unchecked")
+		Node<K, P> right = (Node<K, P>) children[li + 1];
+		Object[] keys;
+		Object[] pointers;
+		int count; // the number of entries (leaf nodes) or children (non-leaf nodes)
+		if (leaf) {
+			count = left.keyCount + right.keyCount;
+			keys = concat(left.keys, left.keyCount, null, right.keys, right.keyCount);
+			pointers = concat(left.pointers, left.keyCount, null, right.pointers, right.keyCount);
+		} else { // the separating key moves down between the keys of the siblings
+			count = left.keyCount + right.keyCount + 2;
+			keys = concat(left.keys, left.keyCount, n.keys[li], right.keys, right.keyCount);
+			pointers = concat(left.pointers, left.keyCount + 1, null, right.pointers, right.keyCount + 1);
+		}
+		Object[] parentKeys;
+		int parentCount = n.keyCount + 1;
+		if (count <= (leaf ? degree - 1 : degree)) { // merge
+			children[li] = leaf ? leafNode(keys, pointers, 0, count) : nonLeafNode(keys, pointers, 0, count);
+			parentKeys = remove(n.keys, n.keyCount, li);
+			children = remove(children, parentCount, li + 1);
+			parentCount--;
+			metrics.merge();
+		} else { // redistribute
+			int m = count / 2;
+			parentKeys = n.keys.clone();
+			if (leaf) {
+				children[li] = leafNode(keys, pointers, 0, m);
+				children[li + 1] = leafNode(keys, pointers, m, count);
+				parentKeys[li] = separator.separate(keyAt(keys, m - 1), keyAt(keys, m));
+			} else {
+				children[li] = nonLeafNode(keys, pointers, 0, m);
+				children[li + 1] = nonLeafNode(keys, pointers, m, count);
+				parentKeys[li] = keys[m - 1];
+			}
+			metrics.redistribution();
+		}
+		return nonLeafNode(parentKeys, children, 0, parentCount);
+	}
+
+	/**
+	 * Returns a new {@code LeafNode} containing the specified range of the specified keys and pointers.
+	 */
+	LeafNode<K, P> leafNode(Object[] keys, Object[] pointers, int begin, int end) {
+		LeafNode<K, P> l = new LeafNode<K, P>(degree);
+		System.arraycopy(keys, begin, l.keys, 0, end - begin);
+		System.arraycopy(pointers, begin, l.pointers, 0, end - begin);
+		l.keyCount = end - begin;
+		return l;
+	}
+
+	/**
+	 * Returns a new {@code NonLeafNode} containing the children from {@code begin} (inclusive) to {@code end}
+	 * (exclusive) and the keys between them.
+	 */
+	NonLeafNode<K, P> nonLeafNode(Object[] keys, Object[] children, int begin, int end) {
+		NonLeafNode<K, P> n = new NonLeafNode<K, P>(degree);
+		System.arraycopy(keys, begin, n.keys, 0, end - begin - 1);
+		System.arraycopy(children, begin, n.pointers, 0, end - begin);
+		n.keyCount = end - begin - 1;
+		return n;
+	}
+
+	/**
+	 * Returns the key at the specified index of the specified array.
+	 */
+	@SuppressWarnings("unchecked")
+	K keyAt(Object[] keys, int i) {
+		return (K) keys[i];
+	}
+
+	/**
+	 * Returns a copy of the first {@code count} elements of the specified array with the specified element inserted at
+	 * the specified index.
+	 */
+	static Object[] insert(Object[] a, int count, int i, Object e) {
+		Object[] b = new Object[count + 1];
+		System.arraycopy(a, 0, b, 0, i);
+		b[i] = e;
+		System.arraycopy(a, i, b, i + 1, count - i);
+		return b;
+	}
+
+	/**
+	 * Returns a copy of the first {@code count} elements of the specified array without the element at the specified
+	 * index.
+	 */
+	static Object[] remove(Object[] a, int count, int i) {
+		Object[] b = new Object[count - 1];
+		System.arraycopy(a, 0, b, 0, i);
+		System.arraycopy(a, i + 1, b, i, count - i - 1);
+		return b;
+	}
+
+	/**
+	 * Returns the concatenation of the first {@code countA} elements of {@code a}, the specified middle element (if not
+	 * {@code null}), and the first {@code countB} elements of {@code b}.
+	 */
+	static Object[] concat(Object[] a, int countA, Object middle, Object[] b, int countB) {
+		int m = middle == null ? 0 : 1;
+		Object[] c = new Object[countA + m + countB];
+		System.arraycopy(a, 0, c, 0, countA);
+		if (middle != null)
+			c[countA] = middle;
+		System.arraycopy(b, 0, c, countA + m, countB);
+		return c;
+	}
+
+	/**
+	 * A {@code PathCursor} is a {@code RangeCursor} that moves from one {@code LeafNode} to the next by means of the
+	 * path from the root rather than successor links.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <P>
+	 *            the type of pointers
+	 */
+	static class PathCursor<K extends Comparable<K>, P> extends RangeCursor<K, P> {
+
+		/**
+		 * The {@code NonLeafNode}s on the path from the root to the current {@code LeafNode}.
+		 */
+		final Node<?, ?>[] path;
+
+		/**
+		 * The index of the child taken at each {@code NonLeafNode} on the path.
+		 */
+		final int[] indexes;
+
+		/**
+		 * The last {@code LeafNode} visited while positioning this {@code PathCursor}.
+		 */
+		LeafNode<K, P> last;
+
+		/**
+		 * Constructs a {@code PathCursor} positioned before the first entry in the specified range.
+		 *
+		 * @param tree
+		 *            a {@code PersistentBPlusTree}
+		 * @param from
+		 *            the lower bound of the range ({@code null} if the range has no lower bound)
+		 * @param to
+		 *            the upper bound of the range ({@code null} if the range has no upper bound)
+		 * @param inclusivity
+		 *            the {@code Inclusivity} of the bounds
+		 */
+		@SuppressWarnings("unchecked")
+		PathCursor(BPlusTree<K, P> tree, K from, K to, Inclusivity inclusivity) {
+			super(null, 0, to, inclusivity.includesTo());
+			tree.metrics.descent();
+			int height = 0;
+			for (Node<K, P> n = tree.root; n instanceof NonLeafNode; n = (Node<K, P>) n.pointers[0])
+				height++;
+			path = new Node<?, ?>[height];
+			indexes = new int[height];
+			Node<K, P> n = tree.root;
+			for (int d = 0; d < height; d++) {
+				path[d] = n;
+				indexes[d] = from == null ? 0 : tree.search.lowerBound(n.keys, n.keyCount, from);
+				n = (Node<K, P>) n.pointers[indexes[d]];
+			}
+			LeafNode<K, P> l = (LeafNode<K, P>) n;
+			int i = 0;
+			for (; l != null; l = successor(l)) { // entries of the lower bound may continue in the successors
+				last = l;
+				if (from == null)
+					i = 0;
+				else if (inclusivity.includesFrom())
+					i = tree.search.lowerBound(l.keys, l.keyCount, from);
+				else
+					i = tree.search.upperBound(l.keys, l.keyCount, from);
+				if (i < l.keyCount)
+					break;
+			}
+			this.leaf = l;
+			this.index = i - 1;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected LeafNode<K, P> successor(LeafNode<K, P> l) {
+			int d = path.length - 1;
+			while (d >= 0 && indexes[d] >= path[d].keyCount)
+				d--;
+			if (d < 0)
+				return null;
+			Node<K, P> n = (Node<K, P>) path[d].pointers[++indexes[d]];
+			for (d++; d < path.length; d++) {
+				path[d] = n;
+				indexes[d] = 0;
+				n = (Node<K, P>) n.pointers[0];
+			}
+			return (LeafNode<K, P>) n;
+		}
+
+	}
+
+	/**
+	 * A {@code PathSpliterator} is a {@code RangeSpliterator} that moves from one {@code LeafNode} to the next by means
+	 * of the path from the root rather than successor links. Its remaining entries are those of children
+	 * {@code indexes[depth]} through {@code hi} of {@code path[depth]}; {@link #trySplit()} hands the first half of
+	 * these children over to a new {@code PathSpliterator}.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <P>
+	 *            the type of pointers
+	 */
+	static class PathSpliterator<K extends Comparable<K>, P> extends RangeSpliterator<K, P> {
+
+		/**
+		 * The {@code NonLeafNode}s on the path from the root to the current {@code LeafNode}.
+		 */
+		final Node<?, ?>[] path;
+
+		/**
+		 * The index of the child taken at each {@code NonLeafNode} on the path.
+		 */
+		final int[] indexes;
+
+		/**
+		 * The depth of the {@code NonLeafNode} whose children this {@code PathSpliterator} covers ({@code path.length}
+		 * once it covers a single {@code LeafNode}).
+		 */
+		int depth;
+
+		/**
+		 * The degree of the tree.
+		 */
+		final int degree;
+
+		/**
+		 * Constructs a {@code PathSpliterator} positioned where the specified {@code PathCursor} is.
+		 *
+		 * @param tree
+		 *            a {@code PersistentBPlusTree}
+		 * @param c
+		 *            a {@code PathCursor} that has not been moved yet
+		 */
+		PathSpliterator(BPlusTree<K, P> tree, PathCursor<K, P> c) {
+			super(c.leaf, c.index + 1, c.to, c.includesTo, 0);
+			this.path = c.path;
+			this.indexes = c.indexes;
+			this.degree = tree.degree;
+			this.depth = 0;
+			if (leaf != null && path.length > 0) {
+				hi = bound(0);
+				estimate = estimate((NonLeafNode<?, ?>) path[0], hi - indexes[0] + 1, degree);
+			} else {
+				depth = path.length;
+				estimate = leaf == null ? 0 : leaf.keyCount;
+			}
+		}
+
+		/**
+		 * Constructs a {@code PathSpliterator} that covers the first children covered by the specified
+		 * {@code PathSpliterator}.
+		 *
+		 * @param s
+		 *            the {@code PathSpliterator} whose current entry becomes the first entry
+		 * @param hi
+		 *            the index of the last child to cover
+		 * @param estimate
+		 *            the estimated number of entries
+		 */
+		PathSpliterator(PathSpliterator<K, P> s, int hi, long estimate) {
+			super(s.leaf, s.index + 1, s.to, s.includesTo, estimate);
+			this.path = s.path.clone();
+			this.indexes = s.indexes.clone();
+			this.degree = s.degree;
+			this.depth = s.depth;
+			this.hi = hi;
+		}
+
+		/**
+		 * Returns the index of the last child of the {@code NonLeafNode} at the specified depth of the path that may
+		 * contain entries in the range.
+		 *
+		 * @param d
+		 *            a depth
+		 * @return the index of the last child that may contain entries in the range
+		 */
+		@SuppressWarnings("unchecked")
+		int bound(int d) {
+			Node<K, P> n = (Node<K, P>) path[d];
+			return to == null ? n.keyCount : Math.max(indexes[d], n.upperBound(to));
+		}
+
+		@Override
+		protected LeafNode<K, P> successor(LeafNode<K, P> l) {
+			int d = path.length - 1;
+			while (d >= depth && indexes[d] >= (d == depth ? hi : path[d].keyCount))
+				d--;
+			if (d < depth)
+				return null;
+			indexes[d]++;
+			return leftmost(d);
+		}
+
+		/**
+		 * Returns the leftmost {@code LeafNode} in the current child of the {@code NonLeafNode} at the specified depth
+		 * of the path, extending the path down to it.
+		 *
+		 * @param d
+		 *            a depth
+		 * @return the leftmost {@code LeafNode} in the current child of the {@code NonLeafNode} at the specified depth
+		 */
+		@SuppressWarnings("unchecked")
+		LeafNode<K, P> leftmost(int d) {
+			Node<K, P> n = (Node<K, P>) path[d].pointers[indexes[d]];
+			for (d++; d < path.length; d++) {
+				path[d] = n;
+				indexes[d] = 0;
+				n = (Node<K, P>) n.pointers[0];
+			}
+			return (LeafNode<K, P>) n;
+		}
+
+		@Override
+		public RangeSpliterator<K, P> trySplit() {
+			if (started || leaf == null)
+				return null;
+			while (depth < path.length && indexes[depth] == hi) // descend into the only child
+				if (++depth < path.length)
+					hi = bound(depth);
+			if (depth == path.length)
+				return null;
+			int lo = indexes[depth];
+			int middle = (lo + hi + 1) >>> 1;
+			long prefixEstimate = estimate * (middle - lo) / (hi - lo + 1);
+			PathSpliterator<K, P> prefix = new PathSpliterator<K, P>(this, middle - 1, prefixEstimate);
+			indexes[depth] = middle;
+			leaf = leftmost(depth);
+			index = -1;
+			estimate -= prefixEstimate;
+			return prefix;
+		}
+
+	}
+
+}
@@ -0,0 +1,190 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@code RangeCursor} scans the entries of a {@code BPlusTree} whose keys fall in a key range. The first
+ * {@code LeafNode} is found with a single descent from the root; the scan then follows the chain of successors, so
+ * no further descents take place however large the range is. Moving the cursor with {@link #next()} and reading the
+ * current entry with {@link #key()} and {@link #pointer()} allocates no objects.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class RangeCursor<K extends Comparable<K>, P> {
+
+	/**
+	 * The {@code LeafNode} containing the current entry ({@code null} once the scan has finished).
+	 */
+	protected LeafNode<K, P> leaf;
+
+	/**
+	 * The index of the current entry in the current {@code LeafNode}.
+	 */
+	protected int index;
+
+	/**
+	 * The upper bound of the range ({@code null} if the range has no upper bound).
+	 */
+	protected K to;
+
+	/**
+	 * A flag indicating whether or not the upper bound belongs to the range.
+	 */
+	protected boolean includesTo;
+
+	/**
+	 * Constructs a {@code RangeCursor} positioned before the first entry in the specified range.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 */
+	public RangeCursor(BPlusTree<K, P> tree, K from, K to, Inclusivity inclusivity) {
+		this.to = to;
+		this.includesTo = inclusivity.includesTo();
+		LeafNode<K, P> l = tree.root == null ? null : from == null ? tree.leftmost() : tree.find(from);
+		int i = 0;
+		for (; l != null; l = successor(l)) { // entries of the lower bound may continue in the successors
+			if (from == null)
+				i = 0;
+			else if (inclusivity.includesFrom())
+				i = tree.search.lowerBound(l.keys, l.keyCount, from);
+			else
+				i = tree.search.upperBound(l.keys, l.keyCount, from);
+			if (i < l.keyCount)
+				break;
+		}
+		this.leaf = l;
+		this.index = i - 1;
+	}
+
+	/**
+	 * Constructs a {@code RangeCursor} positioned before the specified entry.
+	 *
+	 * @param leaf
+	 *            the {@code LeafNode} containing the entry ({@code null} if there are no entries to scan)
+	 * @param index
+	 *            the index of the entry in the {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param includesTo
+	 *            a flag indicating whether or not the upper bound belongs to the range
+	 */
+	protected RangeCursor(LeafNode<K, P> leaf, int index, K to, boolean includesTo) {
+		this.leaf = leaf;
+		this.index = index - 1;
+		this.to = to;
+		this.includesTo = includesTo;
+	}
+
+	/**
+	 * Returns the successor of the specified {@code LeafNode}.
+	 *
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @return the successor of the specified {@code LeafNode}; {@code null} if there is none
+	 */
+	protected LeafNode<K, P> successor(LeafNode<K, P> l) {
+		return l.successor();
+	}
+
+	/**
+	 * Moves this {@code RangeCursor} to the next entry in the range.
+	 *
+	 * @return {@code true} if this {@code RangeCursor} is now at an entry in the range; {@code false} if there are no
+	 *         more entries in the range
+	 */
+	public boolean next() {
+		if (leaf == null)
+			return false;
+		while (++index >= leaf.keyCount) {
+			leaf = successor(leaf);
+			index = -1;
+			if (leaf == null)
+				return false;
+		}
+		if (to != null) {
+			int c = leaf.keys[index].compareTo(to);
+			if (c > 0 || c == 0 && !includesTo) {
+				leaf = null;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the key of the current entry.
+	 *
+	 * @return the key of the current entry
+	 */
+	public K key() {
+		return leaf.keys[index];
+	}
+
+	/**
+	 * Returns the pointer of the current entry.
+	 *
+	 * @return the pointer of the current entry
+	 */
+	@SuppressWarnings("unchecked")
+	public P pointer() {
+		return (P) leaf.pointers[index];
+	}
+
+	/**
+	 * Performs the specified action on each remaining entry in the range.
+	 *
+	 * @param action
+	 *            the action to perform on the key and pointer of each entry
+	 */
+	public void forEachRemaining(BiConsumer<? super K, ? super P> action) {
+		while (next())
+			action.accept(key(), pointer());
+	}
+
+	/**
+	 * Returns a sequential {@code Spliterator} over the remaining entries in the range.
+	 *
+	 * @return a sequential {@code Spliterator} over the remaining entries in the range
+	 */
+	public Spliterator<Map.Entry<K, P>> spliterator() {
+		return new Spliterators.AbstractSpliterator<Map.Entry<K, P>>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			@Override
+			public boolean tryAdvance(Consumer<? super Map.Entry<K, P>> action) {
+				if (!next())
+					return false;
+				action.accept(new AbstractMap.SimpleImmutableEntry<K, P>(key(), pointer()));
+				return true;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a sequential {@code Stream} over the remaining entries in the range.
+	 *
+	 * @return a sequential {@code Stream} over the remaining entries in the range
+	 */
+	public Stream<Map.Entry<K, P>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+}
@@ -0,0 +1,241 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@code RangeSpliterator} is a {@code RangeCursor} that can be split for parallel processing. Its remaining entries
+ * are those of children {@code lo} through {@code hi} of a {@code NonLeafNode} (starting at the current entry within
+ * child {@code lo}). {@link #trySplit()} hands the first half of these children over to a new
+ * {@code RangeSpliterator}, which stops at the leftmost {@code LeafNode} of the second half. Once a
+ * {@code RangeSpliterator} covers a single child, it descends into that child. Since splitting proceeds from the root
+ * downward, large subtrees are split before small ones and the resulting chunks have similar sizes.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class RangeSpliterator<K extends Comparable<K>, P> extends RangeCursor<K, P>
+		implements Spliterator<Map.Entry<K, P>> {
+
+	/**
+	 * The {@code NonLeafNode} whose children contain the remaining entries ({@code null} if no more splits are
+	 * possible).
+	 */
+	protected NonLeafNode<K, P> node;
+
+	/**
+	 * The index of the child containing the current entry.
+	 */
+	protected int lo;
+
+	/**
+	 * The index of the last child containing remaining entries.
+	 */
+	protected int hi;
+
+	/**
+	 * The {@code LeafNode} at which this {@code RangeSpliterator} stops ({@code null} if it scans to the end of the
+	 * range).
+	 */
+	protected LeafNode<K, P> fence = null;
+
+	/**
+	 * The estimated number of remaining entries.
+	 */
+	protected long estimate;
+
+	/**
+	 * A flag indicating whether or not this {@code RangeSpliterator} has started scanning.
+	 */
+	protected boolean started = false;
+
+	/**
+	 * Constructs a {@code RangeSpliterator} over the entries of the specified {@code BPlusTree} whose keys fall in the
+	 * specified range.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 */
+	public RangeSpliterator(BPlusTree<K, P> tree, K from, K to, Inclusivity inclusivity) {
+		super(tree, from, to, inclusivity);
+		if (leaf != null && tree.root instanceof NonLeafNode) {
+			node = (NonLeafNode<K, P>) tree.root;
+			narrow();
+			estimate = estimate(node, hi - lo + 1, tree.degree);
+		} else
+			estimate = leaf == null ? 0 : leaf.keyCount;
+	}
+
+	/**
+	 * Constructs a {@code RangeSpliterator} that covers the specified children of the specified {@code NonLeafNode}.
+	 *
+	 * @param s
+	 *            the {@code RangeSpliterator} whose current entry becomes the first entry
+	 * @param hi
+	 *            the index of the last child to cover
+	 * @param fence
+	 *            the {@code LeafNode} at which to stop
+	 * @param estimate
+	 *            the estimated number of entries
+	 */
+	protected RangeSpliterator(RangeSpliterator<K, P> s, int hi, LeafNode<K, P> fence, long estimate) {
+		super(s.leaf, s.index + 1, s.to, s.includesTo);
+		this.node = s.node;
+		this.lo = s.lo;
+		this.hi = hi;
+		this.fence = fence;
+		this.estimate = estimate;
+	}
+
+	/**
+	 * Constructs a {@code RangeSpliterator} positioned before the specified entry that cannot be split unless a
+	 * subclass overrides {@link #trySplit()}.
+	 *
+	 * @param leaf
+	 *            the {@code LeafNode} containing the entry ({@code null} if there are no entries to scan)
+	 * @param index
+	 *            the index of the entry in the {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param includesTo
+	 *            a flag indicating whether or not the upper bound belongs to the range
+	 * @param estimate
+	 *            the estimated number of entries
+	 */
+	protected RangeSpliterator(LeafNode<K, P> leaf, int index, K to, boolean includesTo, long estimate) {
+		super(leaf, index, to, includesTo);
+		this.estimate = estimate;
+	}
+
+	/**
+	 * Sets {@code lo} and {@code hi} to the children of {@code node} containing the current entry and the last entry
+	 * in the range.
+	 */
+	void narrow() {
+		Node<K, P> c = leaf;
+		while (c.parent != node)
+			c = c.parent;
+		lo = 0;
+		while (node.pointers[lo] != c)
+			lo++;
+		hi = to == null ? node.keyCount : Math.max(lo, node.upperBound(to));
+	}
+
+	/**
+	 * Estimates the number of entries in the specified number of subtrees rooted at children of the specified
+	 * {@code NonLeafNode}, assuming that {@code Node}s are about 70% full as after random insertions.
+	 *
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 * @param children
+	 *            the number of children of the {@code NonLeafNode}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @return the estimated number of entries
+	 */
+	static long estimate(NonLeafNode<?, ?> n, int children, int degree) {
+		double estimate = children * Math.max(1, 0.7 * (degree - 1));
+		for (Node<?, ?> c = n.pointer(0); c instanceof NonLeafNode; c = ((NonLeafNode<?, ?>) c).pointer(0))
+			estimate *= Math.max(2, 0.7 * degree);
+		return (long) Math.min(estimate, Long.MAX_VALUE);
+	}
+
+	@Override
+	protected LeafNode<K, P> successor(LeafNode<K, P> l) {
+		LeafNode<K, P> s = l.successor();
+		return s == fence ? null : s;
+	}
+
+	@Override
+	public boolean next() {
+		started = true;
+		return super.next();
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Map.Entry<K, P>> action) {
+		if (!next())
+			return false;
+		action.accept(new AbstractMap.SimpleImmutableEntry<K, P>(key(), pointer()));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super Map.Entry<K, P>> action) {
+		while (next())
+			action.accept(new AbstractMap.SimpleImmutableEntry<K, P>(key(), pointer()));
+	}
+
+	/**
+	 * Splits off the entries in the first half of the children covered by this {@code RangeSpliterator}.
+	 *
+	 * @return a {@code RangeSpliterator} over the entries in the first half of the children covered by this
+	 *         {@code RangeSpliterator}; {@code null} if this {@code RangeSpliterator} cannot be split
+	 */
+	@Override
+	public RangeSpliterator<K, P> trySplit() {
+		if (started || leaf == null)
+			return null;
+		while (node != null && lo == hi) { // descend into the only child
+			Node<K, P> c = node.pointer(lo);
+			node = c instanceof NonLeafNode ? (NonLeafNode<K, P>) c : null;
+			if (node != null)
+				narrow();
+		}
+		if (node == null)
+			return null;
+		int middle = (lo + hi + 1) >>> 1;
+		long prefixEstimate = estimate * (middle - lo) / (hi - lo + 1);
+		RangeSpliterator<K, P> prefix = new RangeSpliterator<K, P>(this, middle - 1, leftmost(node.pointer(middle)),
+				prefixEstimate);
+		leaf = leftmost(node.pointer(middle));
+		index = -1;
+		lo = middle;
+		estimate -= prefixEstimate;
+		return prefix;
+	}
+
+	/**
+	 * Returns the leftmost {@code LeafNode} in the subtree rooted at the specified {@code Node}.
+	 *
+	 * @param n
+	 *            a {@code Node}
+	 * @return the leftmost {@code LeafNode} in the subtree rooted at the specified {@code Node}
+	 */
+	static <K extends Comparable<K>, P> LeafNode<K, P> leftmost(Node<K, P> n) {
+		while (n instanceof NonLeafNode)
+			n = ((NonLeafNode<K, P>) n).pointer(0);
+		return (LeafNode<K, P>) n;
+	}
+
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return Spliterator.ORDERED | Spliterator.NONNULL;
+	}
+
+	/**
+	 * Returns this {@code RangeSpliterator}, which can be split for parallel processing.
+	 *
+	 * @return this {@code RangeSpliterator}
+	 */
+	@Override
+	public Spliterator<Map.Entry<K, P>> spliterator() {
+		return this;
+	}
+
+}
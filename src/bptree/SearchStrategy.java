@@ -0,0 +1,155 @@
+package bptree;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import bptree.codec.BinaryKey;
+
+/**
+ * A {@code SearchStrategy} locates a key among the sorted keys of a {@code Node}. Each {@code BPlusTree} uses its own
+ * {@code SearchStrategy}, which can also count the key comparisons it performs so that strategies can be compared by
+ * the number of comparisons per lookup as well as by time. Comparisons are only counted once counting has been turned
+ * on, which a {@code RecordingTreeMetrics} does when it registers the {@code SearchStrategy}, so that lookups do not
+ * pay for a shared counter otherwise.
+ *
+ * @param <K>
+ *            the type of keys
+ */
+public abstract class SearchStrategy<K extends Comparable<K>> {
+
+	/**
+	 * The number of key comparisons counted by this {@code SearchStrategy}. A {@code LongAdder} so that concurrent
+	 * readers of a tree do not lose counts.
+	 */
+	protected final LongAdder comparisons = new LongAdder();
+
+	/**
+	 * A flag indicating whether this {@code SearchStrategy} counts key comparisons. Volatile since it is turned on and
+	 * off while concurrent readers search.
+	 */
+	protected volatile boolean counting = false;
+
+	/**
+	 * Returns a {@code SearchStrategy} that scans keys from left to right.
+	 *
+	 * @return a {@code SearchStrategy} that scans keys from left to right
+	 */
+	public static <K extends Comparable<K>> SearchStrategy<K> linear() {
+		return new LinearSearch<K>();
+	}
+
+	/**
+	 * Returns a {@code SearchStrategy} that performs a branch-free binary search.
+	 *
+	 * @return a {@code SearchStrategy} that performs a branch-free binary search
+	 */
+	public static <K extends Comparable<K>> SearchStrategy<K> binary() {
+		return new BinarySearch<K>();
+	}
+
+	/**
+	 * Returns a {@code SearchStrategy} that performs an interpolation search on numeric keys.
+	 *
+	 * @return a {@code SearchStrategy} that performs an interpolation search on numeric keys
+	 */
+	public static <K extends Number & Comparable<K>> SearchStrategy<K> interpolation() {
+		return new InterpolationSearch<K>();
+	}
+
+	/**
+	 * Returns a {@code SearchStrategy} that performs a branch-free binary search on {@code BinaryKey}s, comparing their
+	 * 8-byte prefixes inline.
+	 *
+	 * @return a {@code SearchStrategy} that performs a branch-free binary search on {@code BinaryKey}s
+	 */
+	public static SearchStrategy<BinaryKey> normalized() {
+		return new NormalizedSearch<BinaryKey>();
+	}
+
+	/**
+	 * Returns the number of keys that are smaller than the specified key.
+	 *
+	 * @param keys
+	 *            sorted keys
+	 * @param count
+	 *            the number of keys
+	 * @param key
+	 *            a key
+	 * @return the number of keys that are smaller than the specified key
+	 */
+	public int lowerBound(K[] keys, int count, K key) {
+		return bound(keys, count, key, 0);
+	}
+
+	/**
+	 * Returns the number of keys that are smaller than or equal to the specified key.
+	 *
+	 * @param keys
+	 *            sorted keys
+	 * @param count
+	 *            the number of keys
+	 * @param key
+	 *            a key
+	 * @return the number of keys that are smaller than or equal to the specified key
+	 */
+	public int upperBound(K[] keys, int count, K key) {
+		return bound(keys, count, key, 1);
+	}
+
+	/**
+	 * Returns the number of keys {@code keys[i]} such that {@code compare(keys[i], key) < threshold}. A threshold of 0
+	 * yields the lower bound and a threshold of 1 yields the upper bound of the key.
+	 *
+	 * @param keys
+	 *            sorted keys
+	 * @param count
+	 *            the number of keys
+	 * @param key
+	 *            a key
+	 * @param threshold
+	 *            0 or 1
+	 * @return the number of keys {@code keys[i]} such that {@code compare(keys[i], key) < threshold}
+	 */
+	protected abstract int bound(K[] keys, int count, K key, int threshold);
+
+	/**
+	 * Compares two keys while counting the comparison.
+	 *
+	 * @param a
+	 *            a key
+	 * @param b
+	 *            a key
+	 * @return {@code a.compareTo(b)}
+	 */
+	protected int compare(K a, K b) {
+		if (counting)
+			comparisons.increment();
+		return a.compareTo(b);
+	}
+
+	/**
+	 * Turns the counting of key comparisons on or off.
+	 *
+	 * @param counting
+	 *            {@code true} to count key comparisons; {@code false} otherwise
+	 */
+	public void countComparisons(boolean counting) {
+		this.counting = counting;
+	}
+
+	/**
+	 * Returns the number of key comparisons counted by this {@code SearchStrategy}.
+	 *
+	 * @return the number of key comparisons counted by this {@code SearchStrategy}
+	 */
+	public long comparisons() {
+		return comparisons.sum();
+	}
+
+	/**
+	 * Resets the number of key comparisons to 0.
+	 */
+	public void resetComparisons() {
+		comparisons.reset();
+	}
+
+}
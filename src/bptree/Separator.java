@@ -0,0 +1,47 @@
+package bptree;
+
+/**
+ * A {@code Separator} chooses the key that is promoted into the parent when a {@code LeafNode} is split. The separator
+ * of a last key {@code left} of the left half and a first key {@code right} of the right half may be any key
+ * {@code s} such that {@code left < s <= right}: searches for keys up to {@code s} go left and the others go right,
+ * so every key of either half is still found. Shorter separators make {@code NonLeafNode}s smaller and cheaper to
+ * search; in trees whose nodes are bounded by bytes rather than by the number of keys (e.g.,
+ * {@link bptree.page.PagedBPlusTree}), they also raise the fan-out of inner nodes and thus may lower the tree.
+ *
+ * @param <K>
+ *            the type of keys
+ */
+public interface Separator<K extends Comparable<K>> {
+
+	/**
+	 * Returns a {@code Separator} that promotes the first key of the right half, which is what a {@code BPlusTree}
+	 * does by default.
+	 *
+	 * @return a {@code Separator} that promotes the first key of the right half
+	 */
+	static <K extends Comparable<K>> Separator<K> first() {
+		return (left, right) -> right;
+	}
+
+	/**
+	 * Returns a {@code Separator} that promotes the shortest prefix of the first key of the right half that is greater
+	 * than the last key of the left half.
+	 *
+	 * @return a {@code Separator} that promotes the shortest separating prefix
+	 */
+	static Separator<String> shortestPrefix() {
+		return ShortestPrefixSeparator.INSTANCE;
+	}
+
+	/**
+	 * Returns a key between the specified keys.
+	 *
+	 * @param left
+	 *            the last key of the left half
+	 * @param right
+	 *            the first key of the right half, which is not smaller than {@code left}
+	 * @return a key {@code s} such that {@code left < s <= right}; {@code right} if {@code left} equals {@code right}
+	 */
+	K separate(K left, K right);
+
+}
@@ -0,0 +1,32 @@
+package bptree;
+
+/**
+ * The {@code ShortestPrefixSeparator} class implements suffix truncation of {@code String} separators. Given the last
+ * key of the left half and the first key of the right half, it promotes the first key of the right half cut right
+ * after the first character in which the two keys differ, which is the shortest prefix of that key greater than the
+ * last key of the left half. A surrogate pair is never cut in two so that separators remain well-formed UTF-16 and
+ * can be encoded by {@link bptree.codec.StringCodec}.
+ */
+public class ShortestPrefixSeparator implements Separator<String> {
+
+	/**
+	 * The shared instance of {@code ShortestPrefixSeparator}.
+	 */
+	public static final ShortestPrefixSeparator INSTANCE = new ShortestPrefixSeparator();
+
+	@Override
+	public String separate(String left, String right) {
+		int n = Math.min(left.length(), right.length());
+		int i = 0;
+		while (i < n && left.charAt(i) == right.charAt(i))
+			i++;
+		if (i == right.length()) // the keys are equal, or left is greater, which the caller rules out
+			return right;
+		int end = i + 1;
+		if (Character.isHighSurrogate(right.charAt(i)) && end < right.length()
+				&& Character.isLowSurrogate(right.charAt(end)))
+			end++;
+		return end == right.length() ? right : right.substring(0, end);
+	}
+
+}
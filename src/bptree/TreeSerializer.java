@@ -0,0 +1,630 @@
+package bptree;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import bptree.codec.Codec;
+
+/**
+ * The {@code TreeSerializer} class saves whole {@code BPlusTree}s in a compact, versioned binary format and loads them
+ * back. Both directions stream through NIO channels with a bounded buffer, so a tree can be shipped through a file,
+ * a pipe or a socket. Loading never calls {@link BPlusTree#insert(Comparable, Object)}: the {@code LeafNode}s are
+ * rebuilt from their runs and the {@code NonLeafNode}s either from the optional inner-node section, which restores the
+ * exact shape of the tree, or bottom-up by a {@link BulkLoader}.
+ * <p>
+ * The format consists of a header:
+ *
+ * <pre>
+ * offset 0:  int   MAGIC
+ * offset 4:  int   VERSION
+ * offset 8:  int   the degree
+ * offset 12: int   flags ({@link #INNER_NODES})
+ * offset 16: long  the number of entries
+ * offset 24: long  the number of leaf runs
+ * offset 32: the names of the key and pointer codecs, each as a 2-byte length followed by UTF-8 bytes
+ * </pre>
+ *
+ * one run per {@code LeafNode} from left to right (an int number of entries, an int number of bytes, then the key and
+ * pointer of each entry encoded by the codecs), the inner-node section if the flag is set (for each level from the
+ * bottom up, an int number of {@code NonLeafNode}s, then for each of them an int number of children, an int number
+ * of bytes and the encoded separating keys), and a trailer holding the CRC-32 of all preceding bytes.
+ */
+public class TreeSerializer {
+
+	/**
+	 * The magic number identifying serialized trees.
+	 */
+	public static final int MAGIC = 0x42505453; // "BPTS"
+
+	/**
+	 * The version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The flag indicating that the inner-node section is present.
+	 */
+	public static final int INNER_NODES = 1;
+
+	/**
+	 * The size of the buffer through which trees are written and read.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Writes the specified {@code BPlusTree} to the specified channel.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param innerNodes
+	 *            a flag indicating whether or not to write the inner-node section
+	 * @param channel
+	 *            the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K extends Comparable<K>, P> long write(BPlusTree<K, P> tree, Codec<K> keyCodec,
+			Codec<P> pointerCodec, boolean innerNodes, WritableByteChannel channel) throws IOException {
+		List<List<NonLeafNode<K, P>>> levels = levels(tree);
+		List<LeafNode<K, P>> leaves = leaves(tree, levels);
+		long entries = 0;
+		for (LeafNode<K, P> l : leaves)
+			entries += l.keyCount;
+		Output out = new Output(channel);
+		byte[] keyName = keyCodec.name().getBytes(StandardCharsets.UTF_8);
+		byte[] pointerName = pointerCodec.name().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer b = out.reserve(36 + keyName.length + pointerName.length);
+		b.putInt(MAGIC).putInt(VERSION).putInt(tree.degree).putInt(innerNodes ? INNER_NODES : 0);
+		b.putLong(entries).putLong(leaves.size());
+		b.putShort((short) keyName.length).put(keyName);
+		b.putShort((short) pointerName.length).put(pointerName);
+		for (LeafNode<K, P> l : leaves) {
+			int length = 0;
+			for (int i = 0; i < l.keyCount; i++)
+				length += keyCodec.size(l.keys[i]) + pointerCodec.size((P) l.pointers[i]);
+			b = out.reserve(8 + length);
+			int o = b.position();
+			b.putInt(o, l.keyCount);
+			b.putInt(o + 4, length);
+			o += 8;
+			for (int i = 0; i < l.keyCount; i++) {
+				keyCodec.write(b, o, l.keys[i]);
+				o += keyCodec.size(l.keys[i]);
+				pointerCodec.write(b, o, (P) l.pointers[i]);
+				o += pointerCodec.size((P) l.pointers[i]);
+			}
+			b.position(o);
+		}
+		if (innerNodes) {
+			for (int level = levels.size() - 1; level >= 0; level--) {
+				List<NonLeafNode<K, P>> nodes = levels.get(level);
+				out.reserve(4).putInt(nodes.size());
+				for (NonLeafNode<K, P> n : nodes) {
+					int length = 0;
+					for (int i = 0; i < n.keyCount; i++)
+						length += keyCodec.size(n.keys[i]);
+					b = out.reserve(8 + length);
+					int o = b.position();
+					b.putInt(o, n.keyCount + 1);
+					b.putInt(o + 4, length);
+					o += 8;
+					for (int i = 0; i < n.keyCount; i++) {
+						keyCodec.write(b, o, n.keys[i]);
+						o += keyCodec.size(n.keys[i]);
+					}
+					b.position(o);
+				}
+			}
+		}
+		out.reserve(4).putInt(out.checksum());
+		return out.close();
+	}
+
+	/**
+	 * Returns the {@code NonLeafNode}s of the specified {@code BPlusTree} level by level from the root, each level from
+	 * left to right.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @return the {@code NonLeafNode}s of the specified {@code BPlusTree} level by level from the root
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>, P> List<List<NonLeafNode<K, P>>> levels(BPlusTree<K, P> tree) {
+		List<List<NonLeafNode<K, P>>> levels = new ArrayList<List<NonLeafNode<K, P>>>();
+		List<NonLeafNode<K, P>> level = new ArrayList<NonLeafNode<K, P>>();
+		if (tree.root instanceof NonLeafNode)
+			level.add((NonLeafNode<K, P>) tree.root);
+		while (!level.isEmpty()) {
+			levels.add(level);
+			List<NonLeafNode<K, P>> next = new ArrayList<NonLeafNode<K, P>>();
+			for (NonLeafNode<K, P> n : level)
+				for (int i = 0; i <= n.keyCount; i++)
+					if (n.pointers[i] instanceof NonLeafNode)
+						next.add((NonLeafNode<K, P>) n.pointers[i]);
+			level = next;
+		}
+		return levels;
+	}
+
+	/**
+	 * Returns the {@code LeafNode}s of the specified {@code BPlusTree} from left to right. They are collected from the
+	 * lowest level of {@code NonLeafNode}s rather than the chain of successors, which the {@code Node}s of a
+	 * {@code PersistentBPlusTree} do not have.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param levels
+	 *            the {@code NonLeafNode}s of the specified {@code BPlusTree} level by level from the root
+	 * @return the {@code LeafNode}s of the specified {@code BPlusTree} from left to right
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<K>, P> List<LeafNode<K, P>> leaves(BPlusTree<K, P> tree,
+			List<List<NonLeafNode<K, P>>> levels) {
+		List<LeafNode<K, P>> leaves = new ArrayList<LeafNode<K, P>>();
+		if (levels.isEmpty()) {
+			if (tree.root != null)
+				leaves.add((LeafNode<K, P>) tree.root);
+		} else
+			for (NonLeafNode<K, P> n : levels.get(levels.size() - 1))
+				for (int i = 0; i <= n.keyCount; i++)
+					leaves.add((LeafNode<K, P>) n.pointers[i]);
+		return leaves;
+	}
+
+	/**
+	 * Reads a {@code BPlusTree} that searches within its {@code Node}s using a branch-free binary search from the
+	 * specified channel.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the {@code BPlusTree} read
+	 * @throws IOException
+	 *             if an I/O error occurs or the data is not a valid serialized tree
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	public static <K extends Comparable<K>, P> BPlusTree<K, P> read(ReadableByteChannel channel, Codec<K> keyCodec,
+			Codec<P> pointerCodec) throws IOException {
+		return read(channel, keyCodec, pointerCodec, SearchStrategy.<K>binary());
+	}
+
+	/**
+	 * Reads a {@code BPlusTree} from the specified channel. If the inner-node section is present, the tree is restored
+	 * with its exact shape; otherwise its {@code NonLeafNode}s are rebuilt bottom-up by a {@code BulkLoader} that fills
+	 * the {@code LeafNode}s as much as the saved tree did.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param search
+	 *            the {@code SearchStrategy} of the {@code BPlusTree}
+	 * @return the {@code BPlusTree} read
+	 * @throws IOException
+	 *             if an I/O error occurs or the data is not a valid serialized tree
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	public static <K extends Comparable<K>, P> BPlusTree<K, P> read(ReadableByteChannel channel, Codec<K> keyCodec,
+			Codec<P> pointerCodec, SearchStrategy<K> search) throws IOException {
+		return read(channel, keyCodec, pointerCodec, search, null);
+	}
+
+	/**
+	 * Reads the entries of a serialized tree from the specified channel into the specified {@code BulkLoader}, which
+	 * determines the degree and the fill factor of the resulting {@code BPlusTree}. The inner-node section, if any, is
+	 * checked but not used.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param loader
+	 *            a {@code BulkLoader} to which no entries have been added
+	 * @return the {@code BPlusTree} built by the {@code BulkLoader}
+	 * @throws IOException
+	 *             if an I/O error occurs or the data is not a valid serialized tree
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	public static <K extends Comparable<K>, P> BPlusTree<K, P> read(ReadableByteChannel channel, Codec<K> keyCodec,
+			Codec<P> pointerCodec, BulkLoader<K, P> loader) throws IOException {
+		return read(channel, keyCodec, pointerCodec, loader.search, loader);
+	}
+
+	/**
+	 * Reads a {@code BPlusTree} from the specified channel.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param search
+	 *            the {@code SearchStrategy} of the {@code BPlusTree}
+	 * @param loader
+	 *            the {@code BulkLoader} that receives the entries ({@code null} to restore the saved tree)
+	 * @return the {@code BPlusTree} read
+	 * @throws IOException
+	 *             if an I/O error occurs or the data is not a valid serialized tree
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	static <K extends Comparable<K>, P> BPlusTree<K, P> read(ReadableByteChannel channel, Codec<K> keyCodec,
+			Codec<P> pointerCodec, SearchStrategy<K> search, BulkLoader<K, P> loader) throws IOException {
+		Input in = new Input(channel);
+		ByteBuffer b = in.need(32);
+		if (b.getInt() != MAGIC)
+			throw new IOException("not a serialized tree");
+		int version = b.getInt();
+		if (version != VERSION)
+			throw new IOException("unsupported serialized tree version: " + version);
+		int degree = b.getInt();
+		int flags = b.getInt();
+		long entries = b.getLong();
+		long leaves = b.getLong();
+		if (degree < 3 || entries < 0 || leaves < 0 || leaves > entries + 1)
+			throw new IOException("corrupt serialized tree header");
+		String keyCodecName = in.name();
+		String pointerCodecName = in.name();
+		if (!keyCodecName.equals(keyCodec.name()) || !pointerCodecName.equals(pointerCodec.name()))
+			throw new IllegalArgumentException(
+					"the tree has been written with codecs " + keyCodecName + " and " + pointerCodecName);
+		boolean restore = loader == null && (flags & INNER_NODES) != 0;
+		if (loader == null && !restore)
+			loader = new BulkLoader<K, P>(degree,
+					entries == 0 ? 1 : Math.min(1, (double) entries / (leaves * (degree - 1))), search);
+		List<Node<K, P>> level = new ArrayList<Node<K, P>>();
+		LeafNode<K, P> previous = null;
+		long count = 0;
+		for (long r = 0; r < leaves; r++) {
+			b = in.need(8);
+			int n = b.getInt();
+			int length = b.getInt();
+			if (n < 0 || n > degree - 1 || length < 0)
+				throw new IOException("corrupt leaf run");
+			b = in.need(length);
+			int o = b.position(), end = o + length, limit = b.limit();
+			LeafNode<K, P> l = restore ? new LeafNode<K, P>(degree) : null;
+			b.limit(end); // keeps a corrupt length from reaching into the next run
+			try {
+				for (int i = 0; i < n; i++) {
+					K k = keyCodec.read(b, o);
+					o += keyCodec.size(b, o);
+					P p = pointerCodec.read(b, o);
+					o += pointerCodec.size(b, o);
+					if (l == null)
+						loader.add(k, p);
+					else {
+						l.keys[i] = k;
+						l.pointers[i] = p;
+					}
+				}
+			} catch (RuntimeException e) { // a corrupt encoding or keys out of order
+				throw new IOException("corrupt leaf run", e);
+			} finally {
+				b.limit(limit);
+			}
+			if (o != end)
+				throw new IOException("corrupt leaf run");
+			b.position(end);
+			count += n;
+			if (l != null) {
+				l.keyCount = n;
+				if (previous != null)
+					previous.setSuccessor(l);
+				level.add(previous = l);
+			}
+		}
+		if (count != entries)
+			throw new IOException("corrupt serialized tree: " + count + " entries instead of " + entries);
+		if ((flags & INNER_NODES) != 0)
+			while (level.size() > 1 || !restore && in.hasMore()) {
+				List<Node<K, P>> parents = readLevel(in, keyCodec, degree, restore ? level : null);
+				if (restore)
+					level = parents;
+			}
+		int checksum = in.checksum();
+		if (in.need(4).getInt() != checksum)
+			throw new IOException("corrupt serialized tree: checksum mismatch");
+		if (!restore)
+			return loader.build();
+		BPlusTree<K, P> tree = new BPlusTree<K, P>(degree, search);
+		if (!level.isEmpty()) {
+			tree.root = level.get(0);
+			tree.root.setParent(null);
+		}
+		return tree;
+	}
+
+	/**
+	 * Reads one level of the inner-node section.
+	 *
+	 * @param in
+	 *            the {@code Input} to read from
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param degree
+	 *            the degree of the tree
+	 * @param children
+	 *            the {@code Node}s of the level below ({@code null} to only check the level)
+	 * @return the {@code NonLeafNode}s of the level ({@code null} if the level is only checked)
+	 * @throws IOException
+	 *             if an I/O error occurs or the level is corrupt
+	 */
+	static <K extends Comparable<K>, P> List<Node<K, P>> readLevel(Input in, Codec<K> keyCodec, int degree,
+			List<Node<K, P>> children) throws IOException {
+		int nodes = in.need(4).getInt();
+		if (nodes <= 0)
+			throw new IOException("corrupt inner-node section");
+		List<Node<K, P>> parents = children == null ? null : new ArrayList<Node<K, P>>(nodes);
+		int child = 0;
+		for (int j = 0; j < nodes; j++) {
+			ByteBuffer b = in.need(8);
+			int n = b.getInt();
+			int length = b.getInt();
+			if (n < 2 || n > degree || length < 0 || children != null && child + n > children.size())
+				throw new IOException("corrupt inner-node section");
+			b = in.need(length);
+			int o = b.position(), end = o + length, limit = b.limit();
+			NonLeafNode<K, P> p = children == null ? null : new NonLeafNode<K, P>(degree);
+			b.limit(end);
+			try {
+				for (int i = 0; i < n - 1; i++) {
+					if (p != null)
+						p.keys[i] = keyCodec.read(b, o);
+					o += keyCodec.size(b, o);
+				}
+			} catch (RuntimeException e) {
+				throw new IOException("corrupt inner-node section", e);
+			} finally {
+				b.limit(limit);
+			}
+			if (o != end)
+				throw new IOException("corrupt inner-node section");
+			b.position(end);
+			if (p != null) {
+				for (int i = 0; i < n; i++) {
+					Node<K, P> c = children.get(child++);
+					p.pointers[i] = c;
+					c.setParent(p);
+				}
+				p.keyCount = n - 1;
+				parents.add(p);
+			}
+		}
+		if (children != null && child != children.size())
+			throw new IOException("corrupt inner-node section");
+		return parents;
+	}
+
+	/**
+	 * An {@code Output} buffers the bytes written to a channel and computes their checksum.
+	 */
+	static class Output {
+
+		/**
+		 * The channel to write to.
+		 */
+		final WritableByteChannel channel;
+
+		/**
+		 * The buffer.
+		 */
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/**
+		 * The checksum of the bytes written so far.
+		 */
+		final CRC32 crc = new CRC32();
+
+		/**
+		 * The number of bytes handed to the channel so far.
+		 */
+		long written;
+
+		/**
+		 * Constructs an {@code Output}.
+		 *
+		 * @param channel
+		 *            the channel to write to
+		 */
+		Output(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Makes room for the specified number of bytes in the buffer.
+		 *
+		 * @param n
+		 *            a number of bytes
+		 * @return the buffer, with at least {@code n} bytes remaining
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		ByteBuffer reserve(int n) throws IOException {
+			if (buffer.remaining() < n) {
+				flush();
+				if (buffer.capacity() < n)
+					buffer = ByteBuffer.allocate(n);
+			}
+			return buffer;
+		}
+
+		/**
+		 * Hands the buffered bytes to the channel.
+		 *
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+			written += buffer.limit();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		/**
+		 * Returns the checksum of the bytes written so far.
+		 *
+		 * @return the checksum of the bytes written so far
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		int checksum() throws IOException {
+			flush();
+			return (int) crc.getValue();
+		}
+
+		/**
+		 * Hands the remaining bytes to the channel, which is left open.
+		 *
+		 * @return the number of bytes written in total
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		long close() throws IOException {
+			flush();
+			return written;
+		}
+
+	}
+
+	/**
+	 * An {@code Input} buffers the bytes read from a channel and computes the checksum of the bytes consumed.
+	 */
+	static class Input {
+
+		/**
+		 * The channel to read from.
+		 */
+		final ReadableByteChannel channel;
+
+		/**
+		 * The buffer, ready to be read.
+		 */
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/**
+		 * The position in the buffer up to which the checksum has been computed.
+		 */
+		int checked;
+
+		/**
+		 * The checksum of the bytes consumed so far.
+		 */
+		final CRC32 crc = new CRC32();
+
+		/**
+		 * Constructs an {@code Input}.
+		 *
+		 * @param channel
+		 *            the channel to read from
+		 */
+		Input(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		/**
+		 * Reads from the channel until the buffer has the specified number of bytes remaining, growing it if needed.
+		 *
+		 * @param n
+		 *            a number of bytes
+		 * @return the buffer, with at least {@code n} bytes remaining
+		 * @throws IOException
+		 *             if an I/O error occurs or the channel ends first
+		 */
+		ByteBuffer need(int n) throws IOException {
+			if (buffer.remaining() >= n)
+				return buffer;
+			update();
+			if (buffer.capacity() < n)
+				buffer = ByteBuffer.allocate(Math.max(n, 2 * buffer.capacity())).put(buffer);
+			else
+				buffer.compact();
+			while (buffer.position() < n)
+				if (channel.read(buffer) < 0)
+					throw new EOFException("truncated serialized tree");
+			buffer.flip();
+			checked = 0;
+			return buffer;
+		}
+
+		/**
+		 * Determines whether or not more bytes than the trailer remain.
+		 *
+		 * @return {@code true} if more bytes than the trailer remain; {@code false} otherwise
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		boolean hasMore() throws IOException {
+			if (buffer.remaining() > 4)
+				return true;
+			update();
+			buffer.compact();
+			while (buffer.position() <= 4 && channel.read(buffer) >= 0)
+				;
+			buffer.flip();
+			checked = 0;
+			return buffer.remaining() > 4;
+		}
+
+		/**
+		 * Reads a name written as a 2-byte length followed by UTF-8 bytes.
+		 *
+		 * @return the name
+		 * @throws IOException
+		 *             if an I/O error occurs or the channel ends first
+		 */
+		String name() throws IOException {
+			byte[] bytes = new byte[need(2).getShort() & 0xFFFF];
+			need(bytes.length).get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Adds the bytes consumed since the last update to the checksum.
+		 */
+		void update() {
+			crc.update(buffer.array(), buffer.arrayOffset() + checked, buffer.position() - checked);
+			checked = buffer.position();
+		}
+
+		/**
+		 * Returns the checksum of the bytes consumed so far.
+		 *
+		 * @return the checksum of the bytes consumed so far
+		 */
+		int checksum() {
+			update();
+			return (int) crc.getValue();
+		}
+
+	}
+
+}
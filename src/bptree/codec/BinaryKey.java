@@ -0,0 +1,220 @@
+package bptree.codec;
+
+import java.util.Arrays;
+
+/**
+ * A {@code BinaryKey} is a key normalized into bytes by an {@link OrderedCodec} so that keys compare as their bytes
+ * compare, unsigned and lexicographically, whatever their original type. The first 8 bytes are also kept as a
+ * {@code long} prefix, so most comparisons are a single unsigned {@code long} comparison and the remaining bytes are
+ * compared only when the prefixes tie. As {@code BinaryKey} is final, calls to {@link #compareTo(BinaryKey)} are
+ * monomorphic and can be inlined.
+ */
+public final class BinaryKey implements Comparable<BinaryKey> {
+
+	/**
+	 * The first 8 bytes of this {@code BinaryKey} as a big-endian {@code long}, padded with zeros.
+	 */
+	private final long prefix;
+
+	/**
+	 * The bytes of this {@code BinaryKey} packed 8 at a time into big-endian {@code long}s, the last one padded with
+	 * zeros, so that 8 bytes are compared at a time.
+	 */
+	private final long[] words;
+
+	/**
+	 * The number of bytes of this {@code BinaryKey}.
+	 */
+	private final int length;
+
+	/**
+	 * Constructs a {@code BinaryKey}.
+	 *
+	 * @param bytes
+	 *            the bytes of the {@code BinaryKey}
+	 */
+	public BinaryKey(byte[] bytes) {
+		this(bytes, bytes.length);
+	}
+
+	/**
+	 * Constructs a {@code BinaryKey} from the first bytes of the specified array.
+	 *
+	 * @param bytes
+	 *            a byte array
+	 * @param length
+	 *            the number of bytes of the {@code BinaryKey}
+	 */
+	BinaryKey(byte[] bytes, int length) {
+		this.length = length;
+		this.words = new long[(length + 7) >>> 3];
+		for (int i = 0; i < words.length; i++)
+			words[i] = getLong(bytes, 8 * i, length);
+		this.prefix = words.length > 0 ? words[0] : 0;
+	}
+
+	/**
+	 * Returns the first 8 bytes of this {@code BinaryKey} as a big-endian {@code long}, padded with zeros.
+	 *
+	 * @return the first 8 bytes of this {@code BinaryKey} as a big-endian {@code long}
+	 */
+	public long prefix() {
+		return prefix;
+	}
+
+	/**
+	 * Returns 8 bytes of this {@code BinaryKey} as a big-endian {@code long}, padded with zeros.
+	 *
+	 * @param i
+	 *            the index of the {@code long}, i.e., of its first byte divided by 8
+	 * @return the bytes from {@code 8 * i} to {@code 8 * i + 7} as a big-endian {@code long}
+	 */
+	public long word(int i) {
+		return words[i];
+	}
+
+	/**
+	 * Returns a copy of the bytes of this {@code BinaryKey}.
+	 *
+	 * @return a copy of the bytes of this {@code BinaryKey}
+	 */
+	public byte[] bytes() {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (words[i >>> 3] >>> (56 - 8 * (i & 7)));
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of bytes of this {@code BinaryKey}.
+	 *
+	 * @return the number of bytes of this {@code BinaryKey}
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Compares this {@code BinaryKey} with the specified {@code BinaryKey} by their prefixes and, if the prefixes are
+	 * equal, by their remaining bytes, 8 at a time.
+	 */
+	@Override
+	public int compareTo(BinaryKey other) {
+		if (prefix != other.prefix)
+			return Long.compareUnsigned(prefix, other.prefix);
+		// equal words mean equal bytes, with the bytes past the end of the shorter key being zeros
+		long[] w = other.words;
+		int n = Math.min(words.length, w.length);
+		for (int i = 1; i < n; i++)
+			if (words[i] != w[i])
+				return Long.compareUnsigned(words[i], w[i]);
+		return length - other.length;
+	}
+
+	/**
+	 * Returns up to 8 bytes of the specified array from the specified index on as a big-endian {@code long}, padded
+	 * with zeros.
+	 *
+	 * @param bytes
+	 *            a byte array
+	 * @param from
+	 *            the index of the first byte
+	 * @param end
+	 *            the index of the end of the bytes
+	 * @return the bytes as a big-endian {@code long}
+	 */
+	static long getLong(byte[] bytes, int from, int end) {
+		long value = 0;
+		int n = Math.min(8, end - from);
+		for (int i = 0; i < n; i++)
+			value |= (bytes[from + i] & 0xFFL) << (56 - 8 * i);
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof BinaryKey))
+			return false;
+		BinaryKey other = (BinaryKey) o;
+		return length == other.length && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words) * 31 + length;
+	}
+
+	/**
+	 * Returns the bytes of this {@code BinaryKey} in hexadecimal.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder(2 * length);
+		for (byte x : bytes())
+			b.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+		return b.toString();
+	}
+
+	/**
+	 * A {@code Builder} accumulates the bytes of a {@code BinaryKey}.
+	 */
+	public static final class Builder {
+
+		/**
+		 * The bytes accumulated so far, followed by free space.
+		 */
+		private byte[] buffer = new byte[64];
+
+		/**
+		 * The number of bytes accumulated so far.
+		 */
+		private int length = 0;
+
+		/**
+		 * Appends a byte.
+		 *
+		 * @param b
+		 *            a byte (only the lowest 8 bits are used)
+		 * @return this {@code Builder}
+		 */
+		public Builder put(int b) {
+			if (length == buffer.length)
+				buffer = Arrays.copyOf(buffer, 2 * length);
+			buffer[length++] = (byte) b;
+			return this;
+		}
+
+		/**
+		 * Appends an {@code int} in big-endian order.
+		 *
+		 * @param v
+		 *            an {@code int}
+		 * @return this {@code Builder}
+		 */
+		public Builder putInt(int v) {
+			return put(v >>> 24).put(v >>> 16).put(v >>> 8).put(v);
+		}
+
+		/**
+		 * Appends a {@code long} in big-endian order.
+		 *
+		 * @param v
+		 *            a {@code long}
+		 * @return this {@code Builder}
+		 */
+		public Builder putLong(long v) {
+			return putInt((int) (v >>> 32)).putInt((int) v);
+		}
+
+		/**
+		 * Returns a {@code BinaryKey} consisting of the bytes accumulated so far.
+		 *
+		 * @return a {@code BinaryKey} consisting of the bytes accumulated so far
+		 */
+		public BinaryKey build() {
+			return new BinaryKey(buffer, length);
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code BinaryKeyCodec} class encodes {@code BinaryKey}s as a 4-byte length followed by their bytes. Stored
+ * {@code BinaryKey}s are compared with search keys 8 bytes at a time without being materialized.
+ */
+public class BinaryKeyCodec implements Codec<BinaryKey> {
+
+	/**
+	 * The shared instance of {@code BinaryKeyCodec}.
+	 */
+	public static final BinaryKeyCodec INSTANCE = new BinaryKeyCodec();
+
+	@Override
+	public String name() {
+		return "binary";
+	}
+
+	@Override
+	public int size(BinaryKey value) {
+		return 4 + value.length();
+	}
+
+	@Override
+	public int size(ByteBuffer buffer, int offset) {
+		return 4 + buffer.getInt(offset);
+	}
+
+	@Override
+	public void write(ByteBuffer buffer, int offset, BinaryKey value) {
+		byte[] bytes = value.bytes();
+		buffer.putInt(offset, bytes.length);
+		for (int i = 0; i < bytes.length; i++)
+			buffer.put(offset + 4 + i, bytes[i]);
+	}
+
+	@Override
+	public BinaryKey read(ByteBuffer buffer, int offset) {
+		byte[] bytes = new byte[buffer.getInt(offset)];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(offset + 4 + i);
+		return new BinaryKey(bytes);
+	}
+
+	@Override
+	public int compare(ByteBuffer buffer, int offset, BinaryKey value) {
+		int length = buffer.getInt(offset);
+		int n = Math.min(length, value.length());
+		boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+		int i = 0;
+		for (; i + 8 <= n; i += 8) {
+			long x = buffer.getLong(offset + 4 + i);
+			if (!bigEndian)
+				x = Long.reverseBytes(x);
+			long y = value.word(i >>> 3);
+			if (x != y)
+				return Long.compareUnsigned(x, y);
+		}
+		for (; i < n; i++) {
+			int c = (buffer.get(offset + 4 + i) & 0xFF) - (int) (value.word(i >>> 3) >>> (56 - 8 * (i & 7)) & 0xFF);
+			if (c != 0)
+				return c;
+		}
+		return length - value.length();
+	}
+
+}
@@ -0,0 +1,84 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code Codec} converts values to and from a binary representation kept in a {@code ByteBuffer}. All methods use
+ * absolute offsets so that the position and the limit of the buffer are never changed, which allows a single buffer
+ * (e.g., a page of a file) to be shared by many readers.
+ *
+ * @param <T>
+ *            the type of values
+ */
+public interface Codec<T> {
+
+	/**
+	 * Returns the name of this {@code Codec}. The name is recorded in file headers so that a file can only be opened
+	 * with the {@code Codec}s it was written with.
+	 *
+	 * @return the name of this {@code Codec}
+	 */
+	String name();
+
+	/**
+	 * Returns the number of bytes needed to encode the specified value.
+	 *
+	 * @param value
+	 *            a value
+	 * @return the number of bytes needed to encode the specified value
+	 */
+	int size(T value);
+
+	/**
+	 * Returns the number of bytes occupied by the value encoded at the specified offset.
+	 *
+	 * @param buffer
+	 *            a {@code ByteBuffer}
+	 * @param offset
+	 *            the offset of an encoded value
+	 * @return the number of bytes occupied by the value encoded at the specified offset
+	 */
+	int size(ByteBuffer buffer, int offset);
+
+	/**
+	 * Encodes the specified value at the specified offset.
+	 *
+	 * @param buffer
+	 *            a {@code ByteBuffer}
+	 * @param offset
+	 *            the offset at which the value is encoded
+	 * @param value
+	 *            the value to encode
+	 */
+	void write(ByteBuffer buffer, int offset, T value);
+
+	/**
+	 * Decodes the value encoded at the specified offset.
+	 *
+	 * @param buffer
+	 *            a {@code ByteBuffer}
+	 * @param offset
+	 *            the offset of an encoded value
+	 * @return the decoded value
+	 */
+	T read(ByteBuffer buffer, int offset);
+
+	/**
+	 * Compares the value encoded at the specified offset with the specified value. The default implementation decodes
+	 * the stored value; {@code Codec}s for key types override this method to compare without decoding.
+	 *
+	 * @param buffer
+	 *            a {@code ByteBuffer}
+	 * @param offset
+	 *            the offset of an encoded value
+	 * @param value
+	 *            a value
+	 * @return a negative integer, zero, or a positive integer as the stored value is less than, equal to, or greater
+	 *         than the specified value
+	 */
+	@SuppressWarnings("unchecked")
+	default int compare(ByteBuffer buffer, int offset, T value) {
+		return ((Comparable<T>) read(buffer, offset)).compareTo(value);
+	}
+
+}
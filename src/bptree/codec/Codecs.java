@@ -0,0 +1,52 @@
+package bptree.codec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code Codecs} class keeps track of the {@code Codec}s that can be named in file headers.
+ */
+public final class Codecs {
+
+	/**
+	 * The registered {@code Codec}s indexed by their names.
+	 */
+	private static final Map<String, Codec<?>> codecs = new ConcurrentHashMap<String, Codec<?>>();
+
+	static {
+		register(IntegerCodec.INSTANCE);
+		register(LongCodec.INSTANCE);
+		register(StringCodec.INSTANCE);
+		register(BinaryKeyCodec.INSTANCE);
+	}
+
+	private Codecs() {
+	}
+
+	/**
+	 * Registers the specified {@code Codec} under its name.
+	 *
+	 * @param codec
+	 *            a {@code Codec}
+	 */
+	public static void register(Codec<?> codec) {
+		codecs.put(codec.name(), codec);
+	}
+
+	/**
+	 * Returns the {@code Codec} registered under the specified name.
+	 *
+	 * @param name
+	 *            the name of a {@code Codec}
+	 * @return the {@code Codec} registered under the specified name
+	 * @throws IllegalArgumentException
+	 *             if no {@code Codec} is registered under the specified name
+	 */
+	public static Codec<?> forName(String name) {
+		Codec<?> codec = codecs.get(name);
+		if (codec == null)
+			throw new IllegalArgumentException("unknown codec: " + name);
+		return codec;
+	}
+
+}
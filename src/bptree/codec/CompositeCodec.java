@@ -0,0 +1,44 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code CompositeCodec} class normalizes composite keys, given as arrays of component values, by concatenating
+ * the self-delimiting encodings of their components. Composite keys are therefore ordered by their first components,
+ * then by their second components, and so on.
+ */
+public class CompositeCodec implements OrderedCodec<Object[]> {
+
+	/**
+	 * The {@code OrderedCodec}s of the components.
+	 */
+	protected final OrderedCodec<?>[] components;
+
+	/**
+	 * Constructs a {@code CompositeCodec}.
+	 *
+	 * @param components
+	 *            the {@code OrderedCodec}s of the components, from the most significant to the least significant
+	 */
+	public CompositeCodec(OrderedCodec<?>... components) {
+		this.components = components.clone();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void write(BinaryKey.Builder out, Object[] value) {
+		if (value.length != components.length)
+			throw new IllegalArgumentException("expected " + components.length + " components: " + value.length);
+		for (int i = 0; i < components.length; i++)
+			((OrderedCodec<Object>) components[i]).write(out, value[i]);
+	}
+
+	@Override
+	public Object[] read(ByteBuffer in) {
+		Object[] value = new Object[components.length];
+		for (int i = 0; i < components.length; i++)
+			value[i] = components[i].read(in);
+		return value;
+	}
+
+}
@@ -0,0 +1,45 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code IntegerCodec} class encodes {@code Integer}s into 4 bytes.
+ */
+public class IntegerCodec implements Codec<Integer> {
+
+	/**
+	 * The shared instance of {@code IntegerCodec}.
+	 */
+	public static final IntegerCodec INSTANCE = new IntegerCodec();
+
+	@Override
+	public String name() {
+		return "int";
+	}
+
+	@Override
+	public int size(Integer value) {
+		return 4;
+	}
+
+	@Override
+	public int size(ByteBuffer buffer, int offset) {
+		return 4;
+	}
+
+	@Override
+	public void write(ByteBuffer buffer, int offset, Integer value) {
+		buffer.putInt(offset, value);
+	}
+
+	@Override
+	public Integer read(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset);
+	}
+
+	@Override
+	public int compare(ByteBuffer buffer, int offset, Integer value) {
+		return Integer.compare(buffer.getInt(offset), value);
+	}
+
+}
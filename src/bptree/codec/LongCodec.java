@@ -0,0 +1,45 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code LongCodec} class encodes {@code Long}s into 8 bytes.
+ */
+public class LongCodec implements Codec<Long> {
+
+	/**
+	 * The shared instance of {@code LongCodec}.
+	 */
+	public static final LongCodec INSTANCE = new LongCodec();
+
+	@Override
+	public String name() {
+		return "long";
+	}
+
+	@Override
+	public int size(Long value) {
+		return 8;
+	}
+
+	@Override
+	public int size(ByteBuffer buffer, int offset) {
+		return 8;
+	}
+
+	@Override
+	public void write(ByteBuffer buffer, int offset, Long value) {
+		buffer.putLong(offset, value);
+	}
+
+	@Override
+	public Long read(ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset);
+	}
+
+	@Override
+	public int compare(ByteBuffer buffer, int offset, Long value) {
+		return Long.compare(buffer.getLong(offset), value);
+	}
+
+}
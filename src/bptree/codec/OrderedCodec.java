@@ -0,0 +1,100 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An {@code OrderedCodec} normalizes values into {@code BinaryKey}s whose unsigned lexicographic byte order is the
+ * natural order of the values, so that a {@code BPlusTree<BinaryKey, P>} orders its keys exactly as a
+ * {@code BPlusTree<T, P>} would while comparing them with a single monomorphic byte comparison. The encodings are
+ * self-delimiting, which allows the encodings of several values to be concatenated into a composite key that is ordered
+ * by its first component, then by its second, and so on.
+ *
+ * @param <T>
+ *            the type of values
+ */
+public interface OrderedCodec<T> {
+
+	/**
+	 * Returns an {@code OrderedCodec} for {@code Integer}s.
+	 *
+	 * @return an {@code OrderedCodec} for {@code Integer}s
+	 */
+	static OrderedCodec<Integer> integers() {
+		return OrderedIntegerCodec.INSTANCE;
+	}
+
+	/**
+	 * Returns an {@code OrderedCodec} for {@code Long}s.
+	 *
+	 * @return an {@code OrderedCodec} for {@code Long}s
+	 */
+	static OrderedCodec<Long> longs() {
+		return OrderedLongCodec.INSTANCE;
+	}
+
+	/**
+	 * Returns an {@code OrderedCodec} for {@code String}s.
+	 *
+	 * @return an {@code OrderedCodec} for {@code String}s
+	 */
+	static OrderedCodec<String> strings() {
+		return OrderedStringCodec.INSTANCE;
+	}
+
+	/**
+	 * Returns an {@code OrderedCodec} for composite keys, given as arrays holding one value for each of the specified
+	 * {@code OrderedCodec}s.
+	 *
+	 * @param components
+	 *            the {@code OrderedCodec}s of the components, from the most significant to the least significant
+	 * @return an {@code OrderedCodec} for composite keys
+	 */
+	static OrderedCodec<Object[]> composite(OrderedCodec<?>... components) {
+		return new CompositeCodec(components);
+	}
+
+	/**
+	 * Appends the encoding of the specified value.
+	 *
+	 * @param out
+	 *            the {@code BinaryKey.Builder} receiving the encoding
+	 * @param value
+	 *            a value
+	 */
+	void write(BinaryKey.Builder out, T value);
+
+	/**
+	 * Decodes a value from the current position of the specified {@code ByteBuffer} and moves the position past its
+	 * encoding.
+	 *
+	 * @param in
+	 *            a {@code ByteBuffer}
+	 * @return the decoded value
+	 */
+	T read(ByteBuffer in);
+
+	/**
+	 * Normalizes the specified value into a {@code BinaryKey}.
+	 *
+	 * @param value
+	 *            a value
+	 * @return a {@code BinaryKey} ordered as the specified value
+	 */
+	default BinaryKey encode(T value) {
+		BinaryKey.Builder out = new BinaryKey.Builder();
+		write(out, value);
+		return out.build();
+	}
+
+	/**
+	 * Decodes the value that the specified {@code BinaryKey} was normalized from.
+	 *
+	 * @param key
+	 *            a {@code BinaryKey} produced by this {@code OrderedCodec}
+	 * @return the value that the specified {@code BinaryKey} was normalized from
+	 */
+	default T decode(BinaryKey key) {
+		return read(ByteBuffer.wrap(key.bytes()));
+	}
+
+}
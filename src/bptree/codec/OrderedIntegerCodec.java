@@ -0,0 +1,26 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code OrderedIntegerCodec} class normalizes {@code Integer}s into 4 big-endian bytes whose sign bit is flipped,
+ * so that negative values precede positive ones in unsigned byte order.
+ */
+public class OrderedIntegerCodec implements OrderedCodec<Integer> {
+
+	/**
+	 * The shared instance of {@code OrderedIntegerCodec}.
+	 */
+	public static final OrderedIntegerCodec INSTANCE = new OrderedIntegerCodec();
+
+	@Override
+	public void write(BinaryKey.Builder out, Integer value) {
+		out.putInt(value ^ Integer.MIN_VALUE);
+	}
+
+	@Override
+	public Integer read(ByteBuffer in) {
+		return in.getInt() ^ Integer.MIN_VALUE;
+	}
+
+}
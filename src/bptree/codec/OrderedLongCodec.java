@@ -0,0 +1,26 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code OrderedLongCodec} class normalizes {@code Long}s into 8 big-endian bytes whose sign bit is flipped, so
+ * that negative values precede positive ones in unsigned byte order.
+ */
+public class OrderedLongCodec implements OrderedCodec<Long> {
+
+	/**
+	 * The shared instance of {@code OrderedLongCodec}.
+	 */
+	public static final OrderedLongCodec INSTANCE = new OrderedLongCodec();
+
+	@Override
+	public void write(BinaryKey.Builder out, Long value) {
+		out.putLong(value ^ Long.MIN_VALUE);
+	}
+
+	@Override
+	public Long read(ByteBuffer in) {
+		return in.getLong() ^ Long.MIN_VALUE;
+	}
+
+}
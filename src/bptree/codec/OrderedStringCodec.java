@@ -0,0 +1,55 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code OrderedStringCodec} class normalizes {@code String}s so that their unsigned byte order is the order of
+ * {@link String#compareTo(String)}, i.e., that of their UTF-16 chars. Each char {@code c} is encoded as
+ * <ul>
+ * <li>1 byte {@code c + 1} if {@code c < 0x7F},</li>
+ * <li>2 bytes {@code 0x80 | (c - 0x7F) >> 8}, {@code c - 0x7F} if {@code c < 0x407F}, and</li>
+ * <li>3 bytes {@code 0xC0}, {@code (c - 0x407F) >> 8}, {@code c - 0x407F} otherwise,</li>
+ * </ul>
+ * and the {@code String} is terminated by a 0 byte. As the first byte of every char is greater than 0 and determines
+ * the length of the char, a {@code String} precedes every longer {@code String} that it is a prefix of, and ASCII
+ * {@code String}s take 1 byte per char so that 8 chars fit in the prefix of a {@code BinaryKey}.
+ */
+public class OrderedStringCodec implements OrderedCodec<String> {
+
+	/**
+	 * The shared instance of {@code OrderedStringCodec}.
+	 */
+	public static final OrderedStringCodec INSTANCE = new OrderedStringCodec();
+
+	@Override
+	public void write(BinaryKey.Builder out, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			int c = value.charAt(i);
+			if (c < 0x7F)
+				out.put(c + 1);
+			else if (c < 0x407F) {
+				c -= 0x7F;
+				out.put(0x80 | c >> 8).put(c);
+			} else {
+				c -= 0x407F;
+				out.put(0xC0).put(c >> 8).put(c);
+			}
+		}
+		out.put(0);
+	}
+
+	@Override
+	public String read(ByteBuffer in) {
+		StringBuilder b = new StringBuilder();
+		for (int c = in.get() & 0xFF; c != 0; c = in.get() & 0xFF) {
+			if (c < 0x80)
+				b.append((char) (c - 1));
+			else if (c < 0xC0)
+				b.append((char) (((c & 0x3F) << 8 | in.get() & 0xFF) + 0x7F));
+			else
+				b.append((char) (((in.get() & 0xFF) << 8 | in.get() & 0xFF) + 0x407F));
+		}
+		return b.toString();
+	}
+
+}
@@ -0,0 +1,118 @@
+package bptree.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code StringCodec} class encodes {@code String}s as a 4-byte length followed by the UTF-8 bytes of the
+ * {@code String}. Stored {@code String}s are compared with search keys by decoding the UTF-8 bytes on the fly so that
+ * the order is exactly that of {@link String#compareTo(String)} and no {@code String} is materialized.
+ */
+public class StringCodec implements Codec<String> {
+
+	/**
+	 * The shared instance of {@code StringCodec}.
+	 */
+	public static final StringCodec INSTANCE = new StringCodec();
+
+	@Override
+	public String name() {
+		return "string";
+	}
+
+	@Override
+	public int size(String value) {
+		return 4 + utf8Length(value);
+	}
+
+	@Override
+	public int size(ByteBuffer buffer, int offset) {
+		return 4 + buffer.getInt(offset);
+	}
+
+	@Override
+	public void write(ByteBuffer buffer, int offset, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(offset, bytes.length);
+		for (int i = 0; i < bytes.length; i++)
+			buffer.put(offset + 4 + i, bytes[i]);
+	}
+
+	@Override
+	public String read(ByteBuffer buffer, int offset) {
+		byte[] bytes = new byte[buffer.getInt(offset)];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(offset + 4 + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public int compare(ByteBuffer buffer, int offset, String value) {
+		int i = offset + 4;
+		int end = i + buffer.getInt(offset);
+		int j = 0;
+		int n = value.length();
+		while (i < end && j < n) {
+			int b = buffer.get(i) & 0xFF;
+			int cp;
+			if (b < 0x80) {
+				cp = b;
+				i += 1;
+			} else if (b < 0xE0) {
+				cp = (b & 0x1F) << 6 | buffer.get(i + 1) & 0x3F;
+				i += 2;
+			} else if (b < 0xF0) {
+				cp = (b & 0x0F) << 12 | (buffer.get(i + 1) & 0x3F) << 6 | buffer.get(i + 2) & 0x3F;
+				i += 3;
+			} else {
+				cp = (b & 0x07) << 18 | (buffer.get(i + 1) & 0x3F) << 12 | (buffer.get(i + 2) & 0x3F) << 6
+						| buffer.get(i + 3) & 0x3F;
+				i += 4;
+			}
+			if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				int c = cp - value.charAt(j++);
+				if (c != 0)
+					return c;
+			} else { // compare the surrogate pair one char at a time, as String.compareTo does
+				int c = Character.highSurrogate(cp) - value.charAt(j++);
+				if (c != 0)
+					return c;
+				if (j == n)
+					return 1;
+				c = Character.lowSurrogate(cp) - value.charAt(j++);
+				if (c != 0)
+					return c;
+			}
+		}
+		if (i < end)
+			return 1;
+		return j < n ? -1 : 0;
+	}
+
+	/**
+	 * Returns the number of bytes in the UTF-8 encoding of the specified {@code String}.
+	 *
+	 * @param s
+	 *            a {@code String}
+	 * @return the number of bytes in the UTF-8 encoding of the specified {@code String}
+	 */
+	static int utf8Length(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80)
+				length += 1;
+			else if (c < 0x800)
+				length += 2;
+			else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c))
+				length += 1; // unpaired surrogates are encoded as '?'
+			else
+				length += 3;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,414 @@
+package bptree.concurrent;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code BLinkTree} class implements the concurrent B-link trees of Lehman and Yao, which map each key to a single
+ * pointer. Every {@code BLinkNode} has a high key, which bounds the keys in its subtree from above, and a right link
+ * to its right sibling. A split first creates the new right sibling and then publishes the shrunken node together
+ * with a link to the new sibling, so a reader that arrives at a {@code BLinkNode} after its split simply follows the
+ * right link when the search key is not smaller than the high key.
+ * <p>
+ * The keys and pointers of each {@code BLinkNode} are kept in an immutable {@code Contents} object that writers
+ * replace as a whole. Readers therefore never acquire locks and always see consistent nodes. Writers lock only the
+ * {@code BLinkNode} they change: while moving right they hold at most two locks, and while posting a separating key
+ * into the parent they hold the child until the parent is locked. Locks are acquired bottom-up and left-to-right,
+ * which rules out deadlocks. Like the original B-link tree, this tree does not merge under-utilized
+ * {@code BLinkNode}s after deletions.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BLinkTree<K extends Comparable<K>, P> {
+
+	/**
+	 * The immutable keys and pointers of a {@code BLinkNode}.
+	 */
+	static final class Contents {
+
+		/**
+		 * The keys.
+		 */
+		final Object[] keys;
+
+		/**
+		 * The pointers of a leaf node or the child {@code BLinkNode}s of a non-leaf node (one more than the keys).
+		 */
+		final Object[] pointers;
+
+		/**
+		 * The high key ({@code null} for the rightmost {@code BLinkNode} of each level).
+		 */
+		final Object high;
+
+		/**
+		 * The right sibling ({@code null} for the rightmost {@code BLinkNode} of each level).
+		 */
+		final BLinkNode right;
+
+		/**
+		 * Constructs a {@code Contents}.
+		 */
+		Contents(Object[] keys, Object[] pointers, Object high, BLinkNode right) {
+			this.keys = keys;
+			this.pointers = pointers;
+			this.high = high;
+			this.right = right;
+		}
+
+	}
+
+	/**
+	 * A node of a {@code BLinkTree}.
+	 */
+	static final class BLinkNode {
+
+		/**
+		 * The lock that writers hold while changing this {@code BLinkNode}.
+		 */
+		final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * The level of this {@code BLinkNode} (0 for leaf nodes).
+		 */
+		final int level;
+
+		/**
+		 * The current contents of this {@code BLinkNode}.
+		 */
+		volatile Contents contents;
+
+		/**
+		 * Constructs a {@code BLinkNode}.
+		 */
+		BLinkNode(int level, Contents contents) {
+			this.level = level;
+			this.contents = contents;
+		}
+
+	}
+
+	/**
+	 * The maximum number of pointers that each {@code BLinkNode} of this {@code BLinkTree} can have.
+	 */
+	protected final int degree;
+
+	/**
+	 * The root of this {@code BLinkTree}.
+	 */
+	protected volatile BLinkNode root;
+
+	/**
+	 * The lock that is held while a new root is installed.
+	 */
+	protected final ReentrantLock rootLock = new ReentrantLock();
+
+	/**
+	 * The number of keys in this {@code BLinkTree}.
+	 */
+	protected final LongAdder size = new LongAdder();
+
+	/**
+	 * Constructs a {@code BLinkTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code BLinkNode} of this {@code BLinkTree} can have
+	 * @throws IllegalArgumentException
+	 *             if the degree is smaller than 3
+	 */
+	public BLinkTree(int degree) {
+		if (degree < 3)
+			throw new IllegalArgumentException("degree must be at least 3: " + degree);
+		this.degree = degree;
+		this.root = new BLinkNode(0, new Contents(new Object[0], new Object[0], null, null));
+	}
+
+	/**
+	 * Returns the degree of this {@code BLinkTree}.
+	 *
+	 * @return the degree of this {@code BLinkTree}
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code BLinkTree}.
+	 *
+	 * @return the number of keys in this {@code BLinkTree}
+	 */
+	public long size() {
+		return size.sum();
+	}
+
+	/**
+	 * Returns the number of levels of this {@code BLinkTree}.
+	 *
+	 * @return the number of levels of this {@code BLinkTree}
+	 */
+	public int height() {
+		return root.level + 1;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key without acquiring any locks.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the pointer associated with the specified key; {@code null} if there is no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P find(K k) {
+		BLinkNode n = root;
+		while (true) {
+			Contents c = n.contents;
+			if (c.high != null && k.compareTo((K) c.high) >= 0)
+				n = c.right;
+			else if (n.level > 0)
+				n = (BLinkNode) c.pointers[upperBound(c.keys, k)];
+			else {
+				int i = upperBound(c.keys, k) - 1;
+				return i >= 0 && k.compareTo((K) c.keys[i]) == 0 ? (P) c.pointers[i] : null;
+			}
+		}
+	}
+
+	/**
+	 * Associates the specified pointer with the specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the pointer previously associated with the specified key; {@code null} if there was no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P insert(K k, P p) {
+		if (k == null || p == null)
+			throw new NullPointerException();
+		ArrayList<BLinkNode> stack = new ArrayList<BLinkNode>();
+		BLinkNode n = descend(k, 0, stack);
+		n.lock.lock();
+		n = moveRight(n, k);
+		Contents c = n.contents;
+		int i = upperBound(c.keys, k);
+		if (i > 0 && k.compareTo((K) c.keys[i - 1]) == 0) { // replace the pointer
+			Object[] pointers = c.pointers.clone();
+			pointers[i - 1] = p;
+			n.contents = new Contents(c.keys, pointers, c.high, c.right);
+			n.lock.unlock();
+			return (P) c.pointers[i - 1];
+		}
+		size.increment();
+		Object[] keys = insert(c.keys, i, k);
+		Object[] pointers = insert(c.pointers, i, p);
+		while (true) {
+			if (n.level == 0 ? keys.length < degree : pointers.length <= degree) { // n has room
+				n.contents = new Contents(keys, pointers, c.high, c.right);
+				n.lock.unlock();
+				return null;
+			}
+			// split n, publishing the new right sibling before linking it
+			int m = keys.length / 2;
+			Object separator = keys[m];
+			BLinkNode r;
+			if (n.level == 0) {
+				r = new BLinkNode(0, new Contents(copy(keys, m, keys.length), copy(pointers, m, pointers.length),
+						c.high, c.right));
+				n.contents = new Contents(copy(keys, 0, m), copy(pointers, 0, m), separator, r);
+			} else { // the middle key moves up
+				r = new BLinkNode(n.level, new Contents(copy(keys, m + 1, keys.length),
+						copy(pointers, m + 1, pointers.length), c.high, c.right));
+				n.contents = new Contents(copy(keys, 0, m), copy(pointers, 0, m + 1), separator, r);
+			}
+			BLinkNode parent = parent(n, (K) separator, stack);
+			if (parent == null) { // n was the root and a new root has been installed
+				n.lock.unlock();
+				return null;
+			}
+			parent = moveRight(parent, (K) separator);
+			n.lock.unlock();
+			n = parent;
+			c = n.contents;
+			i = upperBound(c.keys, (K) separator);
+			keys = insert(c.keys, i, separator);
+			pointers = insert(c.pointers, i + 1, r);
+		}
+	}
+
+	/**
+	 * Removes the specified key and its pointer. {@code BLinkNode}s are not merged, even if they become empty.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the pointer that was associated with the specified key; {@code null} if there was no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P delete(K k) {
+		BLinkNode n = descend(k, 0, null);
+		n.lock.lock();
+		try {
+			n = moveRight(n, k);
+			Contents c = n.contents;
+			int i = upperBound(c.keys, k) - 1;
+			if (i < 0 || k.compareTo((K) c.keys[i]) != 0)
+				return null;
+			n.contents = new Contents(remove(c.keys, i), remove(c.pointers, i), c.high, c.right);
+			size.decrement();
+			return (P) c.pointers[i];
+		} finally {
+			n.lock.unlock();
+		}
+	}
+
+	/**
+	 * Descends from the root to the {@code BLinkNode} at the specified level that may contain the specified key
+	 * without acquiring any locks.
+	 *
+	 * @param k
+	 *            a key
+	 * @param level
+	 *            a level
+	 * @param stack
+	 *            the list to which the rightmost {@code BLinkNode} visited at each higher level is added ({@code null}
+	 *            if not needed)
+	 * @return the {@code BLinkNode} at the specified level that may contain the specified key
+	 */
+	@SuppressWarnings("unchecked")
+	BLinkNode descend(K k, int level, ArrayList<BLinkNode> stack) {
+		BLinkNode n = root;
+		while (true) {
+			Contents c = n.contents;
+			if (c.high != null && k.compareTo((K) c.high) >= 0)
+				n = c.right;
+			else if (n.level > level) {
+				if (stack != null)
+					stack.add(n);
+				n = (BLinkNode) c.pointers[upperBound(c.keys, k)];
+			} else
+				return n;
+		}
+	}
+
+	/**
+	 * Moves right from the specified locked {@code BLinkNode} to the {@code BLinkNode} that covers the specified key,
+	 * locking each right sibling before unlocking its left sibling.
+	 *
+	 * @param n
+	 *            a locked {@code BLinkNode}
+	 * @param k
+	 *            a key
+	 * @return the locked {@code BLinkNode} that covers the specified key
+	 */
+	@SuppressWarnings("unchecked")
+	BLinkNode moveRight(BLinkNode n, K k) {
+		while (true) {
+			Contents c = n.contents;
+			if (c.high == null || k.compareTo((K) c.high) < 0)
+				return n;
+			BLinkNode r = c.right;
+			r.lock.lock();
+			n.lock.unlock();
+			n = r;
+		}
+	}
+
+	/**
+	 * Locks and returns a {@code BLinkNode} one level above the specified locked {@code BLinkNode} from which the
+	 * parent of the new right sibling of the specified {@code BLinkNode} can be reached by moving right. If the
+	 * specified {@code BLinkNode} is the root, a new root is installed instead and {@code null} is returned. If the
+	 * root has been split at the level of the specified {@code BLinkNode} but the new root is not installed yet, this
+	 * method waits for the new root.
+	 *
+	 * @param n
+	 *            a locked {@code BLinkNode} that has just been split
+	 * @param separator
+	 *            the key separating the specified {@code BLinkNode} from its new right sibling
+	 * @param stack
+	 *            the {@code BLinkNode}s visited while descending
+	 * @return a locked {@code BLinkNode} one level above the specified {@code BLinkNode}; {@code null} if a new root
+	 *         has been installed
+	 */
+	BLinkNode parent(BLinkNode n, K separator, ArrayList<BLinkNode> stack) {
+		BLinkNode parent = null;
+		if (!stack.isEmpty()) {
+			parent = stack.remove(stack.size() - 1);
+		} else {
+			rootLock.lock();
+			try {
+				if (root == n) {
+					Contents c = n.contents;
+					root = new BLinkNode(n.level + 1,
+							new Contents(new Object[] { separator }, new Object[] { n, c.right }, null, null));
+					return null;
+				}
+			} finally {
+				rootLock.unlock();
+			}
+			// the tree has grown since the descent began, but the writer that split the root at the level of n may
+			// not have installed the new root yet, in which case the descent stops too low
+			while ((parent = descend(separator, n.level + 1, null)).level <= n.level)
+				Thread.yield();
+		}
+		parent.lock.lock();
+		return parent;
+	}
+
+	/**
+	 * Returns the number of keys that are smaller than or equal to the specified key.
+	 *
+	 * @param keys
+	 *            sorted keys
+	 * @param k
+	 *            a key
+	 * @return the number of keys that are smaller than or equal to the specified key
+	 */
+	@SuppressWarnings("unchecked")
+	int upperBound(Object[] keys, K k) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (((K) keys[middle]).compareTo(k) <= 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns a copy of the specified array with the specified element inserted at the specified index.
+	 */
+	static Object[] insert(Object[] a, int i, Object e) {
+		Object[] b = new Object[a.length + 1];
+		System.arraycopy(a, 0, b, 0, i);
+		b[i] = e;
+		System.arraycopy(a, i, b, i + 1, a.length - i);
+		return b;
+	}
+
+	/**
+	 * Returns a copy of the specified array without the element at the specified index.
+	 */
+	static Object[] remove(Object[] a, int i) {
+		Object[] b = new Object[a.length - 1];
+		System.arraycopy(a, 0, b, 0, i);
+		System.arraycopy(a, i + 1, b, i, a.length - i - 1);
+		return b;
+	}
+
+	/**
+	 * Returns a copy of the specified range of the specified array.
+	 */
+	static Object[] copy(Object[] a, int begin, int end) {
+		Object[] b = new Object[end - begin];
+		System.arraycopy(a, begin, b, 0, end - begin);
+		return b;
+	}
+
+}
@@ -0,0 +1,324 @@
+package bptree.concurrent;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import bptree.Inclusivity;
+import bptree.LeafNode;
+import bptree.PersistentBPlusTree;
+import bptree.RangeCursor;
+
+/**
+ * The {@code MvccBPlusTree} class implements B+-trees that give readers snapshot isolation while a writer keeps
+ * changing the tree. Each insertion or deletion produces a new version of an underlying {@code PersistentBPlusTree},
+ * which shares all untouched {@code Node}s with the previous version, and publishes it under the next epoch. A reader
+ * pins an epoch by opening a {@link Snapshot} and sees the tree exactly as of that epoch through
+ * {@link Snapshot#find(Comparable)} and {@link Snapshot#range(Comparable, Comparable, Inclusivity)}, no matter how
+ * long it takes. Since the {@code Node}s of a version are never changed, readers take no locks, never block the
+ * writer, and never observe a half-finished split.
+ * <p>
+ * A version other than the latest one is retired as soon as no reader pins its epoch. Retiring a version drops the
+ * last reference that this {@code MvccBPlusTree} holds to it, after which the garbage collector reclaims the
+ * {@code Node}s that no retained version shares.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class MvccBPlusTree<K extends Comparable<K>, P> {
+
+	/**
+	 * A version of an {@code MvccBPlusTree}.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <P>
+	 *            the type of pointers
+	 */
+	static final class Version<K extends Comparable<K>, P> {
+
+		/**
+		 * The epoch of this {@code Version}.
+		 */
+		final long epoch;
+
+		/**
+		 * The tree as of the epoch.
+		 */
+		final PersistentBPlusTree<K, P> tree;
+
+		/**
+		 * The number of readers pinning this {@code Version} (-1 once this {@code Version} has been retired).
+		 */
+		final AtomicInteger pins = new AtomicInteger();
+
+		/**
+		 * Constructs a {@code Version}.
+		 */
+		Version(long epoch, PersistentBPlusTree<K, P> tree) {
+			this.epoch = epoch;
+			this.tree = tree;
+		}
+
+		/**
+		 * Pins this {@code Version} unless it has been retired.
+		 *
+		 * @return {@code true} if this {@code Version} has been pinned; {@code false} if it has been retired
+		 */
+		boolean pin() {
+			while (true) {
+				int p = pins.get();
+				if (p < 0)
+					return false;
+				if (pins.compareAndSet(p, p + 1))
+					return true;
+			}
+		}
+
+	}
+
+	/**
+	 * A {@code Snapshot} gives read access to an {@code MvccBPlusTree} as of a pinned epoch. It must be closed to
+	 * unpin the epoch.
+	 */
+	public final class Snapshot implements AutoCloseable {
+
+		/**
+		 * The pinned {@code Version}.
+		 */
+		private final Version<K, P> version;
+
+		/**
+		 * A flag indicating whether or not this {@code Snapshot} has been closed.
+		 */
+		private boolean closed = false;
+
+		/**
+		 * Constructs a {@code Snapshot}.
+		 *
+		 * @param version
+		 *            a pinned {@code Version}
+		 */
+		Snapshot(Version<K, P> version) {
+			this.version = version;
+		}
+
+		/**
+		 * Returns the epoch of this {@code Snapshot}.
+		 *
+		 * @return the epoch of this {@code Snapshot}
+		 */
+		public long epoch() {
+			return version.epoch;
+		}
+
+		/**
+		 * Finds the {@code LeafNode} that is responsible for the specified key as of the epoch of this
+		 * {@code Snapshot}.
+		 *
+		 * @param k
+		 *            the search key
+		 * @return the {@code LeafNode} that is responsible for the specified key; {@code null} if the tree was empty
+		 */
+		public LeafNode<K, P> find(K k) {
+			return tree().find(k);
+		}
+
+		/**
+		 * Determines whether or not the tree contained the specified key and pointer as of the epoch of this
+		 * {@code Snapshot}.
+		 *
+		 * @param k
+		 *            a key
+		 * @param p
+		 *            a pointer
+		 * @return {@code true} if the tree contained the specified key and pointer; {@code false} otherwise
+		 */
+		public boolean contains(K k, P p) {
+			return tree().contains(k, p);
+		}
+
+		/**
+		 * Returns a {@code RangeCursor} over the entries whose keys fall in the specified range as of the epoch of this
+		 * {@code Snapshot}. The {@code RangeCursor} must not be used after this {@code Snapshot} has been closed.
+		 *
+		 * @param from
+		 *            the lower bound of the range ({@code null} if the range has no lower bound)
+		 * @param to
+		 *            the upper bound of the range ({@code null} if the range has no upper bound)
+		 * @param inclusivity
+		 *            the {@code Inclusivity} of the bounds
+		 * @return a {@code RangeCursor} over the entries whose keys fall in the specified range
+		 */
+		public RangeCursor<K, P> range(K from, K to, Inclusivity inclusivity) {
+			return tree().range(from, to, inclusivity);
+		}
+
+		/**
+		 * Returns the tree as of the epoch of this {@code Snapshot}.
+		 *
+		 * @return the tree as of the epoch of this {@code Snapshot}
+		 * @throws IllegalStateException
+		 *             if this {@code Snapshot} has been closed
+		 */
+		PersistentBPlusTree<K, P> tree() {
+			if (closed)
+				throw new IllegalStateException("snapshot of epoch " + version.epoch + " has been closed");
+			return version.tree;
+		}
+
+		/**
+		 * Unpins the epoch of this {@code Snapshot}.
+		 */
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			if (version.pins.decrementAndGet() == 0 && version != latest)
+				retire(version);
+		}
+
+	}
+
+	/**
+	 * The tree that the writer changes.
+	 */
+	protected final PersistentBPlusTree<K, P> tree;
+
+	/**
+	 * The lock that serializes writers.
+	 */
+	protected final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * The latest {@code Version}.
+	 */
+	protected volatile Version<K, P> latest;
+
+	/**
+	 * The {@code Version}s that are either the latest or pinned by readers, indexed by epoch.
+	 */
+	protected final ConcurrentSkipListMap<Long, Version<K, P>> versions = new ConcurrentSkipListMap<Long, Version<K, P>>();
+
+	/**
+	 * Constructs an {@code MvccBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the {@code MvccBPlusTree} can have
+	 */
+	public MvccBPlusTree(int degree) {
+		tree = new PersistentBPlusTree<K, P>(degree);
+		latest = new Version<K, P>(0, tree.snapshot());
+		versions.put(0L, latest);
+	}
+
+	/**
+	 * Returns the latest epoch of this {@code MvccBPlusTree}.
+	 *
+	 * @return the latest epoch of this {@code MvccBPlusTree}
+	 */
+	public long epoch() {
+		return latest.epoch;
+	}
+
+	/**
+	 * Returns the number of versions that this {@code MvccBPlusTree} retains because they are the latest or pinned.
+	 *
+	 * @return the number of versions that this {@code MvccBPlusTree} retains
+	 */
+	public int retainedVersions() {
+		return versions.size();
+	}
+
+	/**
+	 * Inserts the specified key and pointer and publishes the result as a new epoch.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 */
+	public void insert(K k, P p) {
+		writeLock.lock();
+		try {
+			tree.insert(k, p);
+			publish();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the specified key and pointer and publishes the result as a new epoch.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 */
+	public void delete(K k, P p) {
+		writeLock.lock();
+		try {
+			tree.delete(k, p);
+			publish();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Publishes the current state of the tree as the next epoch and retires the previous epoch unless it is pinned.
+	 */
+	void publish() {
+		Version<K, P> previous = latest;
+		Version<K, P> v = new Version<K, P>(previous.epoch + 1, tree.snapshot());
+		versions.put(v.epoch, v);
+		latest = v;
+		if (previous.pins.get() == 0)
+			retire(previous);
+	}
+
+	/**
+	 * Retires the specified {@code Version} if no reader pins it.
+	 *
+	 * @param v
+	 *            a {@code Version} other than the latest one
+	 */
+	void retire(Version<K, P> v) {
+		if (v.pins.compareAndSet(0, -1))
+			versions.remove(v.epoch, v);
+	}
+
+	/**
+	 * Pins the latest epoch.
+	 *
+	 * @return a {@code Snapshot} of the latest epoch, which must be closed to unpin the epoch
+	 */
+	public Snapshot snapshot() {
+		while (true) {
+			Version<K, P> v = latest;
+			if (v.pin()) // fails only if v has been superseded and retired meanwhile
+				return new Snapshot(v);
+		}
+	}
+
+	/**
+	 * Pins the specified epoch, which must be the latest epoch or pinned by another reader.
+	 *
+	 * @param epoch
+	 *            an epoch
+	 * @return a {@code Snapshot} of the specified epoch, which must be closed to unpin the epoch
+	 * @throws IllegalArgumentException
+	 *             if the specified epoch has been retired
+	 */
+	public Snapshot snapshot(long epoch) {
+		Version<K, P> v = versions.get(epoch);
+		if (v == null || !v.pin())
+			throw new IllegalArgumentException("epoch " + epoch + " has been retired");
+		return new Snapshot(v);
+	}
+
+}
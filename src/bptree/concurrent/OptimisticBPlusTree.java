@@ -0,0 +1,514 @@
+package bptree.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The {@code OptimisticBPlusTree} class implements B+-trees that map each key to a single pointer and synchronize
+ * threads by optimistic lock coupling (Leis et al.). Every {@code OptimisticNode} carries a version word, here the
+ * state of a {@code StampedLock}, which changes whenever the {@code OptimisticNode} is write-locked. Readers descend
+ * without writing to shared memory: they record the version of each {@code OptimisticNode}, read its contents, and
+ * validate the version of the parent after obtaining the version of the child. A failed validation means that a writer
+ * intervened, in which case the operation restarts from the root. Consequently, readers never contend on the cache
+ * line of the root as they would with a read-write lock.
+ * <p>
+ * Writers descend in the same way and upgrade the version of only the {@code OptimisticNode}s they modify into write
+ * locks: the leaf node for a plain insertion or deletion, and additionally the parent (and sibling) for a split (or
+ * merge). Full non-leaf nodes are split eagerly on the way down, so that a split never propagates upward. Under-utilized
+ * leaf nodes are merged with a sibling when the locks involved can be taken without waiting; non-leaf nodes are not
+ * merged, but a root with a single child is removed.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class OptimisticBPlusTree<K extends Comparable<K>, P> {
+
+	/**
+	 * A node of an {@code OptimisticBPlusTree}.
+	 */
+	static class OptimisticNode {
+
+		/**
+		 * The lock whose state serves as the version of this {@code OptimisticNode}.
+		 */
+		final StampedLock lock = new StampedLock();
+
+		/**
+		 * A flag indicating whether or not this {@code OptimisticNode} has been removed from the tree.
+		 */
+		volatile boolean obsolete = false;
+
+		/**
+		 * The number of keys in this {@code OptimisticNode}.
+		 */
+		int count = 0;
+
+		/**
+		 * The keys of this {@code OptimisticNode}.
+		 */
+		final Object[] keys;
+
+		/**
+		 * Constructs an {@code OptimisticNode}.
+		 */
+		OptimisticNode(int degree) {
+			keys = new Object[degree - 1];
+		}
+
+		/**
+		 * Returns the version of this {@code OptimisticNode}.
+		 *
+		 * @return the version of this {@code OptimisticNode}; 0 if it is write-locked or obsolete
+		 */
+		long version() {
+			long v = lock.tryOptimisticRead();
+			return obsolete ? 0 : v;
+		}
+
+	}
+
+	/**
+	 * A leaf node of an {@code OptimisticBPlusTree}.
+	 */
+	static final class OptimisticLeaf extends OptimisticNode {
+
+		/**
+		 * The pointers of this {@code OptimisticLeaf}.
+		 */
+		final Object[] pointers;
+
+		/**
+		 * Constructs an {@code OptimisticLeaf}.
+		 */
+		OptimisticLeaf(int degree) {
+			super(degree);
+			pointers = new Object[degree - 1];
+		}
+
+	}
+
+	/**
+	 * A non-leaf node of an {@code OptimisticBPlusTree}.
+	 */
+	static final class OptimisticInner extends OptimisticNode {
+
+		/**
+		 * The children of this {@code OptimisticInner}.
+		 */
+		final OptimisticNode[] children;
+
+		/**
+		 * Constructs an {@code OptimisticInner}.
+		 */
+		OptimisticInner(int degree) {
+			super(degree);
+			children = new OptimisticNode[degree];
+		}
+
+	}
+
+	/**
+	 * Indicates that a validation has failed and the operation must restart.
+	 */
+	static final int RESTART = -1;
+
+	/**
+	 * The maximum number of pointers that each {@code OptimisticNode} of this {@code OptimisticBPlusTree} can have.
+	 */
+	protected final int degree;
+
+	/**
+	 * The root of this {@code OptimisticBPlusTree}.
+	 */
+	protected volatile OptimisticNode root;
+
+	/**
+	 * The number of keys in this {@code OptimisticBPlusTree}.
+	 */
+	protected final LongAdder size = new LongAdder();
+
+	/**
+	 * The number of times that operations have restarted from the root after failed validations, failed lock
+	 * upgrades, or splits.
+	 */
+	protected final LongAdder restarts = new LongAdder();
+
+	/**
+	 * Constructs an {@code OptimisticBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code OptimisticNode} of this {@code OptimisticBPlusTree} can
+	 *            have
+	 * @throws IllegalArgumentException
+	 *             if the degree is smaller than 4
+	 */
+	public OptimisticBPlusTree(int degree) {
+		if (degree < 4)
+			throw new IllegalArgumentException("degree must be at least 4: " + degree);
+		this.degree = degree;
+		this.root = new OptimisticLeaf(degree);
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OptimisticBPlusTree}.
+	 *
+	 * @return the number of keys in this {@code OptimisticBPlusTree}
+	 */
+	public long size() {
+		return size.sum();
+	}
+
+	/**
+	 * Returns the number of times that operations on this {@code OptimisticBPlusTree} have restarted from the root.
+	 *
+	 * @return the number of times that operations on this {@code OptimisticBPlusTree} have restarted from the root
+	 */
+	public long restarts() {
+		return restarts.sum();
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key without acquiring any locks.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the pointer associated with the specified key; {@code null} if there is no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P find(K k) {
+		for (int attempt = 0;; backoff(++attempt)) {
+			OptimisticNode n = root;
+			long v = n.version();
+			if (root != n) // the root has changed before its version was obtained
+				v = 0;
+			while (v != 0 && n instanceof OptimisticInner) {
+				OptimisticInner in = (OptimisticInner) n;
+				int i = upperBound(in, k);
+				OptimisticNode child = i == RESTART ? null : in.children[i];
+				if (child == null)
+					break;
+				long cv = child.version();
+				if (!in.lock.validate(v))
+					break;
+				n = child;
+				v = cv;
+			}
+			if (v != 0 && n instanceof OptimisticLeaf) {
+				OptimisticLeaf l = (OptimisticLeaf) n;
+				int i = upperBound(l, k) - 1;
+				Object key = i >= 0 ? l.keys[i] : null;
+				Object p = key != null && k.compareTo((K) key) == 0 ? l.pointers[i] : null;
+				if (l.lock.validate(v))
+					return (P) p;
+			}
+		}
+	}
+
+	/**
+	 * Associates the specified pointer with the specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the pointer previously associated with the specified key; {@code null} if there was no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P insert(K k, P p) {
+		if (k == null || p == null)
+			throw new NullPointerException();
+		restart: for (int attempt = 0;; backoff(++attempt)) {
+			OptimisticNode n = root;
+			long v = n.version();
+			if (root != n) // the root has changed before its version was obtained
+				v = 0;
+			OptimisticInner parent = null;
+			long pv = 0;
+			while (v != 0) {
+				if (n.count == n.keys.length) { // split n, which is full, before descending further
+					split(parent, pv, n, v);
+					continue restart;
+				}
+				if (n instanceof OptimisticLeaf) {
+					long w = n.lock.tryConvertToWriteLock(v);
+					if (w == 0)
+						break;
+					OptimisticLeaf l = (OptimisticLeaf) n;
+					int i = upperBound(l, k);
+					try {
+						if (i > 0 && k.compareTo((K) l.keys[i - 1]) == 0) { // replace the pointer
+							Object previous = l.pointers[i - 1];
+							l.pointers[i - 1] = p;
+							return (P) previous;
+						}
+						System.arraycopy(l.keys, i, l.keys, i + 1, l.count - i);
+						System.arraycopy(l.pointers, i, l.pointers, i + 1, l.count - i);
+						l.keys[i] = k;
+						l.pointers[i] = p;
+						l.count++;
+						size.increment();
+						return null;
+					} finally {
+						l.lock.unlockWrite(w);
+					}
+				}
+				OptimisticInner in = (OptimisticInner) n;
+				int i = upperBound(in, k);
+				OptimisticNode child = i == RESTART ? null : in.children[i];
+				if (child == null)
+					break;
+				long cv = child.version();
+				if (!in.lock.validate(v))
+					break;
+				parent = in;
+				pv = v;
+				n = child;
+				v = cv;
+			}
+		}
+	}
+
+	/**
+	 * Splits the specified full {@code OptimisticNode} if the versions of the {@code OptimisticNode} and its parent can
+	 * be upgraded into write locks. Since full parents are split before their children, the parent has room for the
+	 * new separating key.
+	 *
+	 * @param parent
+	 *            the parent of the {@code OptimisticNode} ({@code null} if the {@code OptimisticNode} is the root)
+	 * @param pv
+	 *            the version of the parent
+	 * @param n
+	 *            a full {@code OptimisticNode}
+	 * @param v
+	 *            the version of the {@code OptimisticNode}
+	 */
+	void split(OptimisticInner parent, long pv, OptimisticNode n, long v) {
+		long pw = 0;
+		if (parent != null && (pw = parent.lock.tryConvertToWriteLock(pv)) == 0)
+			return;
+		long w = n.lock.tryConvertToWriteLock(v);
+		if (w == 0) {
+			if (parent != null)
+				parent.lock.unlockWrite(pw);
+			return;
+		}
+		try {
+			if (parent == null && root != n) // another thread has grown the tree
+				return;
+			int m = n.count / 2;
+			Object separator = n.keys[m];
+			OptimisticNode r;
+			if (n instanceof OptimisticLeaf) {
+				OptimisticLeaf l = (OptimisticLeaf) n;
+				OptimisticLeaf rl = new OptimisticLeaf(degree);
+				rl.count = l.count - m;
+				System.arraycopy(l.keys, m, rl.keys, 0, rl.count);
+				System.arraycopy(l.pointers, m, rl.pointers, 0, rl.count);
+				clear(l.keys, m, l.count);
+				clear(l.pointers, m, l.count);
+				r = rl;
+			} else { // the middle key moves up
+				OptimisticInner in = (OptimisticInner) n;
+				OptimisticInner ri = new OptimisticInner(degree);
+				ri.count = in.count - m - 1;
+				System.arraycopy(in.keys, m + 1, ri.keys, 0, ri.count);
+				System.arraycopy(in.children, m + 1, ri.children, 0, ri.count + 1);
+				clear(in.keys, m, in.count);
+				clear(in.children, m + 1, in.count + 1);
+				r = ri;
+			}
+			n.count = m;
+			if (parent == null) {
+				OptimisticInner newRoot = new OptimisticInner(degree);
+				newRoot.keys[0] = separator;
+				newRoot.children[0] = n;
+				newRoot.children[1] = r;
+				newRoot.count = 1;
+				root = newRoot;
+			} else {
+				int i = 0;
+				while (parent.children[i] != n)
+					i++;
+				System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+				System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+				parent.keys[i] = separator;
+				parent.children[i + 1] = r;
+				parent.count++;
+			}
+		} finally {
+			n.lock.unlockWrite(w);
+			if (parent != null)
+				parent.lock.unlockWrite(pw);
+		}
+	}
+
+	/**
+	 * Removes the specified key and its pointer. If the leaf node becomes less than half full, it is merged with a
+	 * sibling provided that the parent and the sibling can be write-locked without waiting.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the pointer that was associated with the specified key; {@code null} if there was no such pointer
+	 */
+	@SuppressWarnings("unchecked")
+	public P delete(K k) {
+		restart: for (int attempt = 0;; backoff(++attempt)) {
+			OptimisticNode n = root;
+			long v = n.version();
+			if (root != n) // the root has changed before its version was obtained
+				v = 0;
+			OptimisticInner parent = null;
+			long pv = 0;
+			int index = 0; // the index of n in its parent
+			while (v != 0) {
+				if (n instanceof OptimisticLeaf) {
+					OptimisticLeaf l = (OptimisticLeaf) n;
+					int i = upperBound(l, k) - 1;
+					Object key = i >= 0 ? l.keys[i] : null;
+					if (key == null || k.compareTo((K) key) != 0) {
+						if (!l.lock.validate(v))
+							break;
+						return null;
+					}
+					long w = l.lock.tryConvertToWriteLock(v);
+					if (w == 0)
+						break;
+					Object p = l.pointers[i];
+					System.arraycopy(l.keys, i + 1, l.keys, i, l.count - i - 1);
+					System.arraycopy(l.pointers, i + 1, l.pointers, i, l.count - i - 1);
+					l.count--;
+					l.keys[l.count] = null;
+					l.pointers[l.count] = null;
+					size.decrement();
+					if (parent != null && l.count < (degree - 1) / 2)
+						merge(parent, pv, l, index);
+					l.lock.unlockWrite(w);
+					return (P) p;
+				}
+				OptimisticInner in = (OptimisticInner) n;
+				int i = upperBound(in, k);
+				OptimisticNode child = i == RESTART ? null : in.children[i];
+				if (child == null)
+					break;
+				long cv = child.version();
+				if (!in.lock.validate(v))
+					break;
+				parent = in;
+				pv = v;
+				index = i;
+				n = child;
+				v = cv;
+			}
+		}
+	}
+
+	/**
+	 * Merges the specified write-locked leaf node with a sibling if the parent and the sibling can be write-locked
+	 * without waiting and the entries of both fit into one leaf node. A root that is left with a single child is
+	 * replaced by that child.
+	 *
+	 * @param parent
+	 *            the parent of the leaf node
+	 * @param pv
+	 *            the version of the parent
+	 * @param l
+	 *            a write-locked leaf node
+	 * @param i
+	 *            the index of the leaf node in the parent
+	 */
+	void merge(OptimisticInner parent, long pv, OptimisticLeaf l, int i) {
+		long pw = parent.lock.tryConvertToWriteLock(pv);
+		if (pw == 0)
+			return;
+		try {
+			if (parent.count == 0) // the leaf node has no sibling
+				return;
+			boolean right = i < parent.count;
+			OptimisticLeaf s = (OptimisticLeaf) parent.children[right ? i + 1 : i - 1];
+			long sw = s.lock.tryWriteLock();
+			if (sw == 0)
+				return;
+			try {
+				if (l.count + s.count > l.keys.length)
+					return;
+				OptimisticLeaf left = right ? l : s;
+				OptimisticLeaf removed = right ? s : l;
+				System.arraycopy(removed.keys, 0, left.keys, left.count, removed.count);
+				System.arraycopy(removed.pointers, 0, left.pointers, left.count, removed.count);
+				left.count += removed.count;
+				clear(removed.keys, 0, removed.count);
+				clear(removed.pointers, 0, removed.count);
+				removed.count = 0;
+				removed.obsolete = true;
+				int j = right ? i : i - 1; // the index of the separating key
+				System.arraycopy(parent.keys, j + 1, parent.keys, j, parent.count - j - 1);
+				System.arraycopy(parent.children, j + 2, parent.children, j + 1, parent.count - j - 1);
+				parent.count--;
+				parent.keys[parent.count] = null;
+				parent.children[parent.count + 1] = null;
+				if (parent.count == 0 && root == parent) {
+					parent.obsolete = true;
+					root = left;
+				}
+			} finally {
+				s.lock.unlockWrite(sw);
+			}
+		} finally {
+			parent.lock.unlockWrite(pw);
+		}
+	}
+
+	/**
+	 * Records a restart and yields the processor after repeated restarts, which otherwise would spin while a writer that
+	 * holds a lock is descheduled.
+	 *
+	 * @param attempt
+	 *            the number of restarts of the current operation
+	 */
+	void backoff(int attempt) {
+		restarts.increment();
+		if (attempt > 4)
+			Thread.yield();
+	}
+
+	/**
+	 * Returns the number of keys in the specified {@code OptimisticNode} that are smaller than or equal to the
+	 * specified key. Since the {@code OptimisticNode} may be changed concurrently, the result is meaningful only if the
+	 * version of the {@code OptimisticNode} is validated afterwards.
+	 *
+	 * @param n
+	 *            an {@code OptimisticNode}
+	 * @param k
+	 *            a key
+	 * @return the number of keys in the specified {@code OptimisticNode} that are smaller than or equal to the
+	 *         specified key; {@link #RESTART} if an inconsistent state has been observed
+	 */
+	@SuppressWarnings("unchecked")
+	int upperBound(OptimisticNode n, K k) {
+		Object[] keys = n.keys;
+		int low = 0;
+		int high = Math.min(n.count, keys.length);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			Object key = keys[middle];
+			if (key == null)
+				return RESTART;
+			if (((K) key).compareTo(k) <= 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Clears the specified range of the specified array.
+	 */
+	static void clear(Object[] a, int begin, int end) {
+		for (int i = begin; i < end; i++)
+			a[i] = null;
+	}
+
+}
@@ -0,0 +1,159 @@
+package bptree.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code LatencyHistogram} counts latencies in nanoseconds using log-linear buckets: values below 16 have a bucket
+ * each and every power-of-two range above is divided into 8 buckets, so a percentile is reported within 12.5% of the
+ * actual value while the histogram occupies a fixed 496 counters. Latencies can be recorded concurrently.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of sub-buckets per power of two (as a power of two).
+	 */
+	static final int SUB_BUCKET_BITS = 3;
+
+	/**
+	 * The number of values below which each value has its own bucket.
+	 */
+	static final int LINEAR = 1 << (SUB_BUCKET_BITS + 1);
+
+	/**
+	 * The number of buckets.
+	 */
+	static final int BUCKETS = LINEAR + (63 - SUB_BUCKET_BITS) * (1 << SUB_BUCKET_BITS);
+
+	/**
+	 * The counts of the buckets.
+	 */
+	protected final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * The number of recorded values.
+	 */
+	protected final LongAdder count = new LongAdder();
+
+	/**
+	 * The sum of the recorded values.
+	 */
+	protected final LongAdder sum = new LongAdder();
+
+	/**
+	 * The largest recorded value.
+	 */
+	protected final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records the specified latency.
+	 *
+	 * @param nanos
+	 *            a latency in nanoseconds (negative values are recorded as 0)
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		counts.incrementAndGet(bucket(nanos));
+		count.increment();
+		sum.add(nanos);
+		if (nanos > max.get())
+			max.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * Returns the bucket of the specified value.
+	 *
+	 * @param value
+	 *            a non-negative value
+	 * @return the bucket of the specified value
+	 */
+	static int bucket(long value) {
+		if (value < LINEAR)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value); // at least SUB_BUCKET_BITS + 1
+		int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+		return LINEAR + ((exponent - SUB_BUCKET_BITS - 1) << SUB_BUCKET_BITS) + sub;
+	}
+
+	/**
+	 * Returns the largest value that falls in the specified bucket.
+	 *
+	 * @param bucket
+	 *            a bucket
+	 * @return the largest value that falls in the specified bucket
+	 */
+	static long highest(int bucket) {
+		if (bucket < LINEAR)
+			return bucket;
+		int exponent = ((bucket - LINEAR) >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS + 1;
+		if (exponent == 63)
+			return Long.MAX_VALUE; // the buckets of the largest power of two would overflow
+		long sub = (bucket - LINEAR) & ((1 << SUB_BUCKET_BITS) - 1);
+		long lowest = (1L << exponent) + (sub << (exponent - SUB_BUCKET_BITS));
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return the number of recorded latencies
+	 */
+	public long count() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the mean of the recorded latencies.
+	 *
+	 * @return the mean of the recorded latencies in nanoseconds; 0 if no latency has been recorded
+	 */
+	public double mean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Returns the largest recorded latency.
+	 *
+	 * @return the largest recorded latency in nanoseconds
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the specified percentile of the recorded latencies.
+	 *
+	 * @param percentile
+	 *            a percentile between 0 and 100
+	 * @return an upper bound of the specified percentile in nanoseconds, within 12.5% of it; 0 if no latency has been
+	 *         recorded
+	 */
+	public long percentile(double percentile) {
+		long n = count.sum();
+		if (n == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(highest(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Clears this {@code LatencyHistogram}.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+}
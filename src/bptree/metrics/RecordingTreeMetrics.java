@@ -0,0 +1,189 @@
+package bptree.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import bptree.SearchStrategy;
+
+/**
+ * A {@code RecordingTreeMetrics} counts descents, key comparisons, splits, merges and redistributions and keeps a
+ * {@code LatencyHistogram} per {@code Operation}. Counters are {@code LongAdder}s, so one {@code RecordingTreeMetrics}
+ * can be shared by trees used from different threads.
+ */
+public class RecordingTreeMetrics extends TreeMetrics {
+
+	/**
+	 * The number of descents from the root.
+	 */
+	protected final LongAdder descents = new LongAdder();
+
+	/**
+	 * The number of splits.
+	 */
+	protected final LongAdder splits = new LongAdder();
+
+	/**
+	 * The number of merges.
+	 */
+	protected final LongAdder merges = new LongAdder();
+
+	/**
+	 * The number of redistributions.
+	 */
+	protected final LongAdder redistributions = new LongAdder();
+
+	/**
+	 * The {@code SearchStrategy}s whose key comparisons are reported.
+	 */
+	protected final List<SearchStrategy<?>> searches = new CopyOnWriteArrayList<SearchStrategy<?>>();
+
+	/**
+	 * The {@code LatencyHistogram}s indexed by the ordinals of {@code Operation}s.
+	 */
+	protected final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+
+	/**
+	 * The number of key comparisons counted at the last reset.
+	 */
+	protected long comparisonsAtReset = 0;
+
+	/**
+	 * Constructs a {@code RecordingTreeMetrics}.
+	 */
+	public RecordingTreeMetrics() {
+		for (int i = 0; i < histograms.length; i++)
+			histograms[i] = new LatencyHistogram();
+	}
+
+	@Override
+	public void register(SearchStrategy<?> search) {
+		search.countComparisons(true);
+		if (!searches.contains(search)) {
+			searches.add(search);
+			comparisonsAtReset += search.comparisons();
+		}
+	}
+
+	@Override
+	public void descent() {
+		descents.increment();
+	}
+
+	@Override
+	public void split() {
+		splits.increment();
+	}
+
+	@Override
+	public void merge() {
+		merges.increment();
+	}
+
+	@Override
+	public void redistribution() {
+		redistributions.increment();
+	}
+
+	@Override
+	public long start() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public void end(Operation operation, long start) {
+		histograms[operation.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Returns the number of descents from the root.
+	 *
+	 * @return the number of descents from the root
+	 */
+	public long descents() {
+		return descents.sum();
+	}
+
+	/**
+	 * Returns the number of key comparisons performed by the registered {@code SearchStrategy}s.
+	 *
+	 * @return the number of key comparisons performed by the registered {@code SearchStrategy}s
+	 */
+	public long comparisons() {
+		long comparisons = 0;
+		for (SearchStrategy<?> search : searches)
+			comparisons += search.comparisons();
+		return comparisons - comparisonsAtReset;
+	}
+
+	/**
+	 * Returns the number of splits.
+	 *
+	 * @return the number of splits
+	 */
+	public long splits() {
+		return splits.sum();
+	}
+
+	/**
+	 * Returns the number of merges.
+	 *
+	 * @return the number of merges
+	 */
+	public long merges() {
+		return merges.sum();
+	}
+
+	/**
+	 * Returns the number of redistributions.
+	 *
+	 * @return the number of redistributions
+	 */
+	public long redistributions() {
+		return redistributions.sum();
+	}
+
+	/**
+	 * Returns the {@code LatencyHistogram} of the specified {@code Operation}.
+	 *
+	 * @param operation
+	 *            an {@code Operation}
+	 * @return the {@code LatencyHistogram} of the specified {@code Operation}
+	 */
+	public LatencyHistogram histogram(Operation operation) {
+		return histograms[operation.ordinal()];
+	}
+
+	/**
+	 * Clears all counters and {@code LatencyHistogram}s.
+	 */
+	public void reset() {
+		descents.reset();
+		splits.reset();
+		merges.reset();
+		redistributions.reset();
+		comparisonsAtReset += comparisons();
+		for (LatencyHistogram h : histograms)
+			h.reset();
+	}
+
+	/**
+	 * Returns a report of the counters and the latencies of the {@code Operation}s performed so far.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append(String.format("descents: %d, comparisons: %d, splits: %d, merges: %d, redistributions: %d%n",
+				descents(), comparisons(), splits(), merges(), redistributions()));
+		b.append(String.format("%-14s %12s %10s %10s %10s %10s %12s%n", "operation", "count", "mean (ns)", "p50",
+				"p99", "p99.9", "max"));
+		for (Operation o : Operation.values()) {
+			LatencyHistogram h = histogram(o);
+			if (h.count() > 0)
+				b.append(String.format("%-14s %12d %10.0f %10d %10d %10d %12d%n", o, h.count(), h.mean(),
+						h.percentile(50), h.percentile(99), h.percentile(99.9), h.max()));
+		}
+		return b.toString();
+	}
+
+}
@@ -0,0 +1,116 @@
+package bptree.metrics;
+
+import bptree.SearchStrategy;
+
+/**
+ * A {@code TreeMetrics} receives the events of a B+-tree: descents from the root, splits, merges and redistributions
+ * of {@code Node}s, and the start and end of each operation. The events are reported from the hot paths of the tree,
+ * so this base class ignores all of them. Its methods are empty and {@link #start()} does not even read the clock, so
+ * once the JIT compiler has inlined them into a tree that uses {@link #NONE}, they cost nothing. See
+ * {@link RecordingTreeMetrics} for counters and per-operation latency histograms.
+ */
+public class TreeMetrics {
+
+	/**
+	 * The operations whose latencies are measured.
+	 */
+	public enum Operation {
+
+		/**
+		 * Finding the {@code LeafNode} responsible for a key.
+		 */
+		FIND,
+
+		/**
+		 * Inserting an entry.
+		 */
+		INSERT,
+
+		/**
+		 * Deleting an entry.
+		 */
+		DELETE,
+
+		/**
+		 * Inserting a batch of entries.
+		 */
+		INSERT_ALL,
+
+		/**
+		 * Deleting the entries in a range.
+		 */
+		DELETE_RANGE,
+
+		/**
+		 * Deleting a batch of entries.
+		 */
+		DELETE_ALL
+
+	}
+
+	/**
+	 * The {@code TreeMetrics} that ignores all events.
+	 */
+	public static final TreeMetrics NONE = new TreeMetrics();
+
+	/**
+	 * Constructs a {@code TreeMetrics}.
+	 */
+	protected TreeMetrics() {
+	}
+
+	/**
+	 * Registers the {@code SearchStrategy} of a tree, which counts the key comparisons performed within its
+	 * {@code Node}s once a {@code TreeMetrics} that reports them turns counting on.
+	 *
+	 * @param search
+	 *            the {@code SearchStrategy} of a tree
+	 */
+	public void register(SearchStrategy<?> search) {
+	}
+
+	/**
+	 * Reports a descent from the root to a {@code LeafNode}.
+	 */
+	public void descent() {
+	}
+
+	/**
+	 * Reports the split of an overfull {@code Node}.
+	 */
+	public void split() {
+	}
+
+	/**
+	 * Reports the merge of two {@code Node}s.
+	 */
+	public void merge() {
+	}
+
+	/**
+	 * Reports the redistribution of entries between two {@code Node}s.
+	 */
+	public void redistribution() {
+	}
+
+	/**
+	 * Reports the start of an operation.
+	 *
+	 * @return the start time of the operation to pass to {@link #end(Operation, long)}
+	 */
+	public long start() {
+		return 0;
+	}
+
+	/**
+	 * Reports the end of an operation.
+	 *
+	 * @param operation
+	 *            the operation
+	 * @param start
+	 *            the start time of the operation returned by {@link #start()}
+	 */
+	public void end(Operation operation, long start) {
+	}
+
+}
@@ -0,0 +1,353 @@
+package bptree.page;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The {@code BufferPool} class caches the pages of a {@code PageFile} in a fixed number of in-memory frames. Pages are
+ * faulted in on demand, unpinned pages are evicted according to the CLOCK policy, and modified pages are written back
+ * to the file when they are evicted or when the {@code BufferPool} is flushed.
+ */
+public class BufferPool implements PageStore {
+
+	/**
+	 * The file whose pages are cached.
+	 */
+	protected final PageFile file;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected final int pageSize;
+
+	/**
+	 * The frames of this {@code BufferPool}.
+	 */
+	protected final ByteBuffer[] frames;
+
+	/**
+	 * The number of the page held in each frame; -1 if the frame is empty.
+	 */
+	protected final long[] pageIds;
+
+	/**
+	 * The number of pins on each frame.
+	 */
+	protected final int[] pinCounts;
+
+	/**
+	 * Indicates whether or not each frame has been modified since it was read.
+	 */
+	protected final boolean[] dirty;
+
+	/**
+	 * The reference bit of each frame, which gives a recently used frame a second chance before eviction.
+	 */
+	protected final boolean[] referenced;
+
+	/**
+	 * Maps page numbers to frames.
+	 */
+	protected final PageTable table;
+
+	/**
+	 * The position of the clock hand.
+	 */
+	protected int hand = 0;
+
+	/**
+	 * The number of pages allocated so far.
+	 */
+	protected long pageCount;
+
+	/**
+	 * The number of pins served from a frame without reading the file.
+	 */
+	protected long hits = 0;
+
+	/**
+	 * The number of pages read from the file.
+	 */
+	protected long reads = 0;
+
+	/**
+	 * The number of pages written to the file.
+	 */
+	protected long writes = 0;
+
+	/**
+	 * Constructs a {@code BufferPool}.
+	 *
+	 * @param file
+	 *            the file whose pages are cached
+	 * @param capacity
+	 *            the number of frames
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if there are fewer than 8 frames or the frames would take more than {@code Integer.MAX_VALUE} bytes
+	 */
+	public BufferPool(PageFile file, int capacity) throws IOException {
+		if (capacity < 8)
+			throw new IllegalArgumentException("a buffer pool needs at least 8 frames");
+		if ((long) capacity * file.pageSize() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException(
+					capacity + " frames of " + file.pageSize() + " bytes exceed the 2 GB limit of a direct buffer");
+		this.file = file;
+		this.pageSize = file.pageSize();
+		this.frames = new ByteBuffer[capacity];
+		ByteBuffer memory = ByteBuffer.allocateDirect(capacity * pageSize);
+		for (int i = 0; i < capacity; i++) {
+			memory.limit((i + 1) * pageSize).position(i * pageSize);
+			frames[i] = memory.slice();
+		}
+		this.pageIds = new long[capacity];
+		Arrays.fill(pageIds, -1);
+		this.pinCounts = new int[capacity];
+		this.dirty = new boolean[capacity];
+		this.referenced = new boolean[capacity];
+		this.table = new PageTable(capacity);
+		this.pageCount = file.pageCount();
+	}
+
+	@Override
+	public int pageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public long pageCount() {
+		return pageCount;
+	}
+
+	@Override
+	public long allocate() throws IOException {
+		long pageId = pageCount++;
+		int frame = victim();
+		ByteBuffer buffer = frames[frame];
+		for (int i = 0; i < pageSize; i += 8)
+			buffer.putLong(i, 0L);
+		install(frame, pageId);
+		dirty[frame] = true;
+		return pageId;
+	}
+
+	@Override
+	public ByteBuffer pin(long pageId) throws IOException {
+		int frame = table.get(pageId);
+		if (frame >= 0) {
+			hits++;
+		} else {
+			if (pageId < 0 || pageId >= pageCount)
+				throw new IllegalArgumentException("page " + pageId + " has not been allocated");
+			frame = victim();
+			file.read(pageId, frames[frame]);
+			reads++;
+			install(frame, pageId);
+		}
+		pinCounts[frame]++;
+		referenced[frame] = true;
+		return frames[frame];
+	}
+
+	@Override
+	public void unpin(long pageId, boolean dirty) {
+		int frame = table.get(pageId);
+		if (frame < 0 || pinCounts[frame] == 0)
+			throw new IllegalStateException("page " + pageId + " is not pinned");
+		pinCounts[frame]--;
+		if (dirty)
+			this.dirty[frame] = true;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		for (int i = 0; i < frames.length; i++)
+			if (dirty[i])
+				writeBack(i);
+		file.sync();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		file.close();
+	}
+
+	/**
+	 * Returns the number of pins served without reading the file.
+	 *
+	 * @return the number of pins served without reading the file
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of pages read from the file.
+	 *
+	 * @return the number of pages read from the file
+	 */
+	public long reads() {
+		return reads;
+	}
+
+	/**
+	 * Returns the number of pages written to the file.
+	 *
+	 * @return the number of pages written to the file
+	 */
+	public long writes() {
+		return writes;
+	}
+
+	/**
+	 * Finds a frame that can receive a new page, writing back the page it currently holds if needed.
+	 *
+	 * @return the index of a frame that can receive a new page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int victim() throws IOException {
+		for (int i = 0; i < 2 * frames.length; i++) {
+			int frame = hand;
+			hand = (hand + 1) % frames.length;
+			if (pageIds[frame] < 0)
+				return frame;
+			if (pinCounts[frame] > 0)
+				continue;
+			if (referenced[frame]) { // second chance
+				referenced[frame] = false;
+				continue;
+			}
+			if (dirty[frame])
+				writeBack(frame);
+			table.remove(pageIds[frame]);
+			pageIds[frame] = -1;
+			return frame;
+		}
+		throw new IllegalStateException("all " + frames.length + " frames of the buffer pool are pinned");
+	}
+
+	/**
+	 * Registers the specified page as the content of the specified frame.
+	 *
+	 * @param frame
+	 *            the index of a frame
+	 * @param pageId
+	 *            the number of a page
+	 */
+	protected void install(int frame, long pageId) {
+		pageIds[frame] = pageId;
+		pinCounts[frame] = 0;
+		dirty[frame] = false;
+		referenced[frame] = true;
+		table.put(pageId, frame);
+	}
+
+	/**
+	 * Writes the specified frame back to the file.
+	 *
+	 * @param frame
+	 *            the index of a frame
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void writeBack(int frame) throws IOException {
+		file.write(pageIds[frame], frames[frame]);
+		dirty[frame] = false;
+		writes++;
+	}
+
+	/**
+	 * A {@code PageTable} maps page numbers to frame indices using open addressing so that no {@code Long} is boxed on
+	 * the lookup path.
+	 */
+	static final class PageTable {
+
+		/**
+		 * The page numbers; -1 marks an empty slot.
+		 */
+		final long[] keys;
+
+		/**
+		 * The frame indices.
+		 */
+		final int[] values;
+
+		/**
+		 * {@code keys.length - 1}.
+		 */
+		final int mask;
+
+		/**
+		 * Constructs a {@code PageTable}.
+		 *
+		 * @param capacity
+		 *            the maximum number of entries
+		 */
+		PageTable(int capacity) {
+			int size = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1;
+			keys = new long[size];
+			values = new int[size];
+			mask = size - 1;
+			Arrays.fill(keys, -1);
+		}
+
+		/**
+		 * Returns the slot at which the probe sequence for the specified key starts.
+		 */
+		int slot(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+
+		/**
+		 * Returns the frame index associated with the specified page number; -1 if there is none.
+		 */
+		int get(long key) {
+			for (int i = slot(key);; i = (i + 1) & mask) {
+				if (keys[i] == key)
+					return values[i];
+				if (keys[i] < 0)
+					return -1;
+			}
+		}
+
+		/**
+		 * Associates the specified frame index with the specified page number.
+		 */
+		void put(long key, int value) {
+			int i = slot(key);
+			while (keys[i] >= 0 && keys[i] != key)
+				i = (i + 1) & mask;
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		/**
+		 * Removes the entry for the specified page number, shifting later entries of the probe sequence back.
+		 */
+		void remove(long key) {
+			int i = slot(key);
+			while (keys[i] != key) {
+				if (keys[i] < 0)
+					return;
+				i = (i + 1) & mask;
+			}
+			keys[i] = -1;
+			for (int j = (i + 1) & mask; keys[j] >= 0; j = (j + 1) & mask) {
+				int home = slot(keys[j]);
+				if (((j - home) & mask) >= ((j - i) & mask)) { // the entry at j may move to the hole at i
+					keys[i] = keys[j];
+					values[i] = values[j];
+					keys[j] = -1;
+					i = j;
+				}
+			}
+		}
+
+	}
+
+}
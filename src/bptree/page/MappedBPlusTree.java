@@ -0,0 +1,600 @@
+package bptree.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.codec.Codec;
+
+/**
+ * The {@code MappedBPlusTree} class implements read-only B+-trees that are searched directly in a memory-mapped tree
+ * file. {@link #write(BPlusTree, Path, int, Codec, Codec)} packs the entries of a {@code BPlusTree} bottom-up into
+ * full pages in the format of {@link PagedBPlusTree}, with the leaves in key order at the beginning of the file.
+ * {@link #open(Path, Codec, Codec)} maps the file with {@code FileChannel.map} and reads only the metadata page, so
+ * opening is nearly instant however large the file is. Lookups then binary-search the slots of the mapped pages with
+ * {@link Codec#compare(ByteBuffer, int, Object)} and decode only the pointer they return, so no nodes are ever
+ * materialized on the heap and all processes that map the same file share its pages in the page cache.
+ * <p>
+ * A {@code MappedBPlusTree} holds no mutable state besides the mappings, so it can be searched by any number of
+ * threads at once. Since a single mapping cannot exceed 2 GB, the file is mapped in windows of whole pages.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class MappedBPlusTree<K extends Comparable<K>, P> implements Closeable {
+
+	/**
+	 * The maximum number of bytes in each mapped window.
+	 */
+	static final int WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for pointers.
+	 */
+	protected final Codec<P> pointerCodec;
+
+	/**
+	 * The size of each page.
+	 */
+	protected final int pageSize;
+
+	/**
+	 * The number of pages in each mapped window.
+	 */
+	protected final int pagesPerWindow;
+
+	/**
+	 * The mapped windows of the file ({@code null} once closed).
+	 */
+	protected ByteBuffer[] windows;
+
+	/**
+	 * The root page.
+	 */
+	protected final long root;
+
+	/**
+	 * The number of levels of this {@code MappedBPlusTree}; 1 if the root is a leaf.
+	 */
+	protected final int height;
+
+	/**
+	 * The number of entries in this {@code MappedBPlusTree}.
+	 */
+	protected final long size;
+
+	/**
+	 * Constructs a {@code MappedBPlusTree}.
+	 *
+	 * @param windows
+	 *            the mapped windows of the file
+	 * @param pageSize
+	 *            the size of each page
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @throws IOException
+	 *             if the file is not a tree file
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	protected MappedBPlusTree(ByteBuffer[] windows, int pageSize, Codec<K> keyCodec, Codec<P> pointerCodec)
+			throws IOException {
+		this.windows = windows;
+		this.pageSize = pageSize;
+		this.pagesPerWindow = WINDOW_SIZE / pageSize;
+		this.keyCodec = keyCodec;
+		this.pointerCodec = pointerCodec;
+		ByteBuffer meta = windows[0];
+		if (meta.getInt(4) != PagedBPlusTree.VERSION)
+			throw new IOException("unsupported B+-tree file version: " + meta.getInt(4));
+		this.height = meta.getInt(12);
+		this.root = meta.getLong(16);
+		this.size = meta.getLong(24);
+		int offset = 32;
+		String keyCodecName = PagedBPlusTree.getName(meta, offset);
+		offset += 2 + meta.getShort(offset);
+		String pointerCodecName = PagedBPlusTree.getName(meta, offset);
+		if (!keyCodecName.equals(keyCodec.name()) || !pointerCodecName.equals(pointerCodec.name()))
+			throw new IllegalArgumentException("the tree has been written with codecs " + keyCodecName + " and "
+					+ pointerCodecName);
+	}
+
+	/**
+	 * Maps the specified tree file read-only.
+	 *
+	 * @param file
+	 *            a tree file written by {@link #write(BPlusTree, Path, int, Codec, Codec)} or by a
+	 *            {@code PagedBPlusTree}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return a {@code MappedBPlusTree} over the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a tree file
+	 * @throws IllegalArgumentException
+	 *             if the tree has been written with other codecs
+	 */
+	public static <K extends Comparable<K>, P> MappedBPlusTree<K, P> open(Path file, Codec<K> keyCodec,
+			Codec<P> pointerCodec) throws IOException {
+		int pageSize = PagedBPlusTree.pageSize(file);
+		if (pageSize < 512 || pageSize > 65536)
+			throw new IOException("invalid page size: " + pageSize);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size() / pageSize * pageSize;
+			if (length == 0)
+				throw new IOException(file + " is truncated");
+			long windowSize = (long) (WINDOW_SIZE / pageSize) * pageSize;
+			ByteBuffer[] windows = new ByteBuffer[(int) ((length + windowSize - 1) / windowSize)];
+			for (int i = 0; i < windows.length; i++) {
+				long position = i * windowSize;
+				windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(windowSize, length - position));
+			} // the mappings remain valid once the channel is closed
+			return new MappedBPlusTree<K, P>(windows, pageSize, keyCodec, pointerCodec);
+		}
+	}
+
+	/**
+	 * Writes the entries of the specified {@code BPlusTree} to a new tree file in the format of
+	 * {@link PagedBPlusTree}. The leaves are filled up and written in key order, and then each level of inner pages
+	 * is built from the first keys of the pages below, so each page is written exactly once.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param file
+	 *            the tree file to write (replaced if it exists)
+	 * @param pageSize
+	 *            the size of each page in bytes
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the number of pages written
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if the page size is not between 512 and 65536 bytes or an entry does not fit in a page
+	 */
+	public static <K extends Comparable<K>, P> long write(BPlusTree<K, P> tree, Path file, int pageSize,
+			Codec<K> keyCodec, Codec<P> pointerCodec) throws IOException {
+		if (pageSize < 512 || pageSize > 65536)
+			throw new IllegalArgumentException("the page size must be between 512 and 65536 bytes");
+		int maxRecordLength = (pageSize - NodePage.HEADER) / 4 - 4;
+		ByteBuffer page = ByteBuffer.allocate(pageSize);
+		byte[] scratch = new byte[pageSize];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			long pageId = 1;
+			List<byte[]> firstKeys = new ArrayList<byte[]>(); // the first key of each page of the current level
+			clear(page);
+			NodePage.init(page, pageSize, NodePage.LEAF, -1);
+			long size = 0;
+			RangeCursor<K, P> c = tree.range(null, null, Inclusivity.CLOSED);
+			while (c.next()) {
+				int keyLength = keyCodec.size(c.key());
+				int length = keyLength + pointerCodec.size(c.pointer());
+				if (length > maxRecordLength || keyLength + 8 > maxRecordLength)
+					throw new IllegalArgumentException("the entry needs " + length + " bytes but pages of " + pageSize
+							+ " bytes can hold entries of at most " + maxRecordLength + " bytes");
+				int count = NodePage.count(page);
+				int offset = NodePage.insert(page, pageSize, count, length, scratch);
+				if (offset < 0) {
+					NodePage.setLink(page, pageId + 1);
+					write(channel, page, pageSize, pageId++);
+					clear(page);
+					NodePage.init(page, pageSize, NodePage.LEAF, -1);
+					count = 0;
+					offset = NodePage.insert(page, pageSize, 0, length, scratch);
+				}
+				keyCodec.write(page, offset, c.key());
+				pointerCodec.write(page, offset + keyLength, c.pointer());
+				if (count == 0)
+					firstKeys.add(Arrays.copyOfRange(page.array(), offset, offset + keyLength));
+				size++;
+			}
+			if (firstKeys.isEmpty())
+				firstKeys.add(new byte[0]);
+			write(channel, page, pageSize, pageId++);
+			int height = 1;
+			long levelStart = 1;
+			while (firstKeys.size() > 1) { // builds the next level up
+				List<byte[]> parentKeys = new ArrayList<byte[]>();
+				long parentStart = pageId;
+				clear(page);
+				NodePage.init(page, pageSize, NodePage.INNER, levelStart);
+				parentKeys.add(firstKeys.get(0));
+				for (int i = 1; i < firstKeys.size(); i++) {
+					byte[] key = firstKeys.get(i);
+					int offset = NodePage.insert(page, pageSize, NodePage.count(page), key.length + 8, scratch);
+					if (offset < 0) { // the child becomes the leftmost child of a new page
+						write(channel, page, pageSize, pageId++);
+						clear(page);
+						NodePage.init(page, pageSize, NodePage.INNER, levelStart + i);
+						parentKeys.add(key);
+					} else
+						PagedBPlusTree.writeInner(page, offset, key, levelStart + i);
+				}
+				write(channel, page, pageSize, pageId++);
+				firstKeys = parentKeys;
+				levelStart = parentStart;
+				height++;
+			}
+			clear(page);
+			page.putInt(0, PagedBPlusTree.MAGIC);
+			page.putInt(4, PagedBPlusTree.VERSION);
+			page.putInt(8, pageSize);
+			page.putInt(12, height);
+			page.putLong(16, levelStart);
+			page.putLong(24, size);
+			int offset = PagedBPlusTree.putName(page, 32, keyCodec.name());
+			PagedBPlusTree.putName(page, offset, pointerCodec.name());
+			write(channel, page, pageSize, PagedBPlusTree.META_PAGE);
+			channel.force(true);
+			return pageId;
+		}
+	}
+
+	/**
+	 * Fills the specified page with zeros.
+	 *
+	 * @param page
+	 *            a page backed by an array
+	 */
+	static void clear(ByteBuffer page) {
+		Arrays.fill(page.array(), page.arrayOffset(), page.arrayOffset() + page.capacity(), (byte) 0);
+	}
+
+	/**
+	 * Writes the specified page to the specified channel.
+	 *
+	 * @param channel
+	 *            a {@code FileChannel}
+	 * @param page
+	 *            a page
+	 * @param pageSize
+	 *            the size of the page
+	 * @param pageId
+	 *            the number of the page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static void write(FileChannel channel, ByteBuffer page, int pageSize, long pageId) throws IOException {
+		page.clear();
+		while (page.hasRemaining())
+			channel.write(page, pageId * pageSize + page.position());
+		page.clear();
+	}
+
+	/**
+	 * Returns the number of entries in this {@code MappedBPlusTree}.
+	 *
+	 * @return the number of entries in this {@code MappedBPlusTree}
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of levels in this {@code MappedBPlusTree}.
+	 *
+	 * @return the number of levels in this {@code MappedBPlusTree}; 1 if the root is a leaf
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the size of each page.
+	 *
+	 * @return the size of each page
+	 */
+	public int pageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the mapped window that holds the specified page.
+	 *
+	 * @param pageId
+	 *            the number of a page
+	 * @return the mapped window that holds the specified page
+	 */
+	ByteBuffer window(long pageId) {
+		return windows[(int) (pageId / pagesPerWindow)];
+	}
+
+	/**
+	 * Returns the offset of the specified page in its mapped window.
+	 *
+	 * @param pageId
+	 *            the number of a page
+	 * @return the offset of the specified page in its mapped window
+	 */
+	int base(long pageId) {
+		return (int) (pageId % pagesPerWindow) * pageSize;
+	}
+
+	/**
+	 * Returns the offset in its mapped window of the specified record of a page.
+	 *
+	 * @param window
+	 *            the mapped window of the page
+	 * @param base
+	 *            the offset of the page in the window
+	 * @param i
+	 *            the index of a record
+	 * @return the offset in the window of the specified record
+	 */
+	static int offset(ByteBuffer window, int base, int i) {
+		return base + (window.getInt(base + NodePage.HEADER + 4 * i) >>> 16);
+	}
+
+	/**
+	 * Returns the child page that the specified record of an inner page points to.
+	 *
+	 * @param window
+	 *            the mapped window of the page
+	 * @param base
+	 *            the offset of the page in the window
+	 * @param i
+	 *            the index of a record
+	 * @return the child page that the specified record points to
+	 */
+	static long child(ByteBuffer window, int base, int i) {
+		int slot = window.getInt(base + NodePage.HEADER + 4 * i);
+		return window.getLong(base + (slot >>> 16) + (slot & 0xFFFF) - 8);
+	}
+
+	/**
+	 * Returns the first pointer associated with the specified key.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the first pointer associated with the specified key; {@code null} if there is no such pointer
+	 */
+	public P get(K k) {
+		for (long pageId = descend(k); pageId >= 0;) {
+			ByteBuffer window = window(pageId);
+			int base = base(pageId);
+			int count = window.getInt(base + NodePage.COUNT);
+			int i = bound(window, base, count, k, false);
+			if (i < count) {
+				int offset = offset(window, base, i);
+				if (keyCodec.compare(window, offset, k) != 0)
+					return null;
+				return pointerCodec.read(window, offset + keyCodec.size(window, offset));
+			}
+			pageId = window.getLong(base + NodePage.LINK); // all keys in this leaf are smaller than k
+		}
+		return null;
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are contained in this {@code MappedBPlusTree}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are contained in this {@code MappedBPlusTree};
+	 *         {@code false} otherwise
+	 */
+	public boolean contains(K k, P p) {
+		Cursor c = cursor(k, k, Inclusivity.CLOSED);
+		while (c.next())
+			if (p.equals(c.pointer()))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns a {@code Cursor} over the entries of this {@code MappedBPlusTree} whose keys fall in the specified range.
+	 *
+	 * @param from
+	 *            the lower bound of the range ({@code null} if the range has no lower bound)
+	 * @param to
+	 *            the upper bound of the range ({@code null} if the range has no upper bound)
+	 * @param inclusivity
+	 *            the {@code Inclusivity} of the bounds
+	 * @return a {@code Cursor} over the entries of this {@code MappedBPlusTree} whose keys fall in the specified range
+	 */
+	public Cursor cursor(K from, K to, Inclusivity inclusivity) {
+		return new Cursor(from, to, inclusivity);
+	}
+
+	/**
+	 * Descends from the root to the leaf that must be responsible for the specified key. Keys equal to a separator
+	 * are looked for in the left subtree, as {@code PagedBPlusTree} does.
+	 *
+	 * @param k
+	 *            the search key ({@code null} for the leftmost leaf)
+	 * @return the leaf page that must be responsible for the specified key
+	 */
+	protected long descend(K k) {
+		long pageId = root;
+		for (int level = 0; level < height - 1; level++) {
+			ByteBuffer window = window(pageId);
+			int base = base(pageId);
+			int i = k == null ? 0 : bound(window, base, window.getInt(base + NodePage.COUNT), k, false);
+			pageId = i == 0 ? window.getLong(base + NodePage.LINK) : child(window, base, i - 1);
+		}
+		return pageId;
+	}
+
+	/**
+	 * Returns the number of keys in the specified page that are smaller than (or equal to) the specified key.
+	 *
+	 * @param window
+	 *            the mapped window of a page
+	 * @param base
+	 *            the offset of the page in the window
+	 * @param count
+	 *            the number of records in the page
+	 * @param k
+	 *            a key
+	 * @param inclusive
+	 *            {@code true} to also count the keys equal to the specified key
+	 * @return the number of keys in the specified page that are smaller than (or equal to) the specified key
+	 */
+	protected int bound(ByteBuffer window, int base, int count, K k, boolean inclusive) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int c = keyCodec.compare(window, offset(window, base, mid), k);
+			if (c < 0 || inclusive && c == 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Drops the mappings of this {@code MappedBPlusTree}. The memory is unmapped once the mappings are garbage
+	 * collected.
+	 */
+	@Override
+	public void close() {
+		windows = null;
+	}
+
+	/**
+	 * A {@code Cursor} scans the entries of a {@code MappedBPlusTree} whose keys fall in a key range, following the
+	 * links between leaves. Moving the cursor allocates no objects; only {@link #key()} and {@link #pointer()} decode.
+	 */
+	public class Cursor {
+
+		/**
+		 * The current leaf page (-1 once the scan has finished).
+		 */
+		protected long pageId;
+
+		/**
+		 * The mapped window of the current leaf page.
+		 */
+		protected ByteBuffer window;
+
+		/**
+		 * The offset of the current leaf page in its window.
+		 */
+		protected int base;
+
+		/**
+		 * The number of records in the current leaf page.
+		 */
+		protected int count;
+
+		/**
+		 * The index of the current entry in the current leaf page.
+		 */
+		protected int index;
+
+		/**
+		 * The offset of the current entry in the window.
+		 */
+		protected int offset;
+
+		/**
+		 * The upper bound of the range ({@code null} if the range has no upper bound).
+		 */
+		protected final K to;
+
+		/**
+		 * A flag indicating whether or not the upper bound belongs to the range.
+		 */
+		protected final boolean includesTo;
+
+		/**
+		 * Constructs a {@code Cursor} positioned before the first entry in the specified range.
+		 *
+		 * @param from
+		 *            the lower bound of the range ({@code null} if the range has no lower bound)
+		 * @param to
+		 *            the upper bound of the range ({@code null} if the range has no upper bound)
+		 * @param inclusivity
+		 *            the {@code Inclusivity} of the bounds
+		 */
+		protected Cursor(K from, K to, Inclusivity inclusivity) {
+			this.to = to;
+			this.includesTo = inclusivity.includesTo();
+			for (pageId = descend(from); pageId >= 0; pageId = window.getLong(base + NodePage.LINK)) {
+				window = window(pageId);
+				base = base(pageId);
+				count = window.getInt(base + NodePage.COUNT);
+				index = from == null ? 0 : bound(window, base, count, from, !inclusivity.includesFrom());
+				if (index < count)
+					break; // entries of the lower bound may continue in the successors
+			}
+			index--;
+		}
+
+		/**
+		 * Moves this {@code Cursor} to the next entry in the range.
+		 *
+		 * @return {@code true} if this {@code Cursor} is now at an entry in the range; {@code false} if there are no
+		 *         more entries in the range
+		 */
+		public boolean next() {
+			if (pageId < 0)
+				return false;
+			while (++index >= count) {
+				pageId = window.getLong(base + NodePage.LINK);
+				if (pageId < 0)
+					return false;
+				window = window(pageId);
+				base = base(pageId);
+				count = window.getInt(base + NodePage.COUNT);
+				index = -1;
+			}
+			offset = offset(window, base, index);
+			if (to != null) {
+				int c = keyCodec.compare(window, offset, to);
+				if (c > 0 || c == 0 && !includesTo) {
+					pageId = -1;
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the key of the current entry.
+		 *
+		 * @return the key of the current entry
+		 */
+		public K key() {
+			return keyCodec.read(window, offset);
+		}
+
+		/**
+		 * Returns the pointer of the current entry.
+		 *
+		 * @return the pointer of the current entry
+		 */
+		public P pointer() {
+			return pointerCodec.read(window, offset + keyCodec.size(window, offset));
+		}
+
+	}
+
+}
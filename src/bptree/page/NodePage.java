@@ -0,0 +1,290 @@
+package bptree.page;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code NodePage} class defines the slotted layout of the pages that hold the nodes of a {@code PagedBPlusTree}.
+ * A page starts with a header, which is followed by an array of slots growing towards the end of the page. Records
+ * are allocated from the end of the page towards the slots. Each slot packs the offset and the length of a record
+ * into an {@code int}, so pages can be at most 64 KB long.
+ *
+ * <pre>
+ * offset  0: byte  type (LEAF or INNER)
+ * offset  4: int   the number of slots
+ * offset  8: long  the link (leaf: the successor page, -1 if none; inner: the leftmost child page)
+ * offset 16: int   the offset of the lowest record
+ * offset 20: int   the number of bytes occupied by removed records
+ * offset 24: int[] the slots
+ * </pre>
+ *
+ * A record of a leaf page consists of a key followed by a pointer. A record of an inner page consists of a key
+ * followed by the 8-byte number of the child page to the right of the key.
+ */
+public final class NodePage {
+
+	/**
+	 * The type of leaf pages.
+	 */
+	public static final byte LEAF = 1;
+
+	/**
+	 * The type of inner pages.
+	 */
+	public static final byte INNER = 2;
+
+	/**
+	 * The offset of the type.
+	 */
+	static final int TYPE = 0;
+
+	/**
+	 * The offset of the number of slots.
+	 */
+	static final int COUNT = 4;
+
+	/**
+	 * The offset of the link.
+	 */
+	static final int LINK = 8;
+
+	/**
+	 * The offset of the offset of the lowest record.
+	 */
+	static final int HEAP = 16;
+
+	/**
+	 * The offset of the number of bytes occupied by removed records.
+	 */
+	static final int GARBAGE = 20;
+
+	/**
+	 * The size of the header, which is also the offset of the first slot.
+	 */
+	public static final int HEADER = 24;
+
+	private NodePage() {
+	}
+
+	/**
+	 * Initializes the specified page as an empty node.
+	 *
+	 * @param page
+	 *            a page
+	 * @param pageSize
+	 *            the size of the page
+	 * @param type
+	 *            {@link #LEAF} or {@link #INNER}
+	 * @param link
+	 *            the successor page of a leaf or the leftmost child page of an inner node
+	 */
+	public static void init(ByteBuffer page, int pageSize, byte type, long link) {
+		page.put(TYPE, type);
+		page.putInt(COUNT, 0);
+		page.putLong(LINK, link);
+		page.putInt(HEAP, pageSize);
+		page.putInt(GARBAGE, 0);
+	}
+
+	/**
+	 * Determines whether or not the specified page holds a leaf node.
+	 *
+	 * @param page
+	 *            a page
+	 * @return {@code true} if the specified page holds a leaf node; {@code false} otherwise
+	 */
+	public static boolean isLeaf(ByteBuffer page) {
+		return page.get(TYPE) == LEAF;
+	}
+
+	/**
+	 * Returns the number of records in the specified page.
+	 *
+	 * @param page
+	 *            a page
+	 * @return the number of records in the specified page
+	 */
+	public static int count(ByteBuffer page) {
+		return page.getInt(COUNT);
+	}
+
+	/**
+	 * Returns the link of the specified page.
+	 *
+	 * @param page
+	 *            a page
+	 * @return the successor page of a leaf or the leftmost child page of an inner node
+	 */
+	public static long link(ByteBuffer page) {
+		return page.getLong(LINK);
+	}
+
+	/**
+	 * Sets the link of the specified page.
+	 *
+	 * @param page
+	 *            a page
+	 * @param link
+	 *            the successor page of a leaf or the leftmost child page of an inner node
+	 */
+	public static void setLink(ByteBuffer page, long link) {
+		page.putLong(LINK, link);
+	}
+
+	/**
+	 * Returns the offset of the specified record.
+	 *
+	 * @param page
+	 *            a page
+	 * @param i
+	 *            the index of a record
+	 * @return the offset of the specified record
+	 */
+	public static int offset(ByteBuffer page, int i) {
+		return page.getInt(HEADER + 4 * i) >>> 16;
+	}
+
+	/**
+	 * Returns the length of the specified record.
+	 *
+	 * @param page
+	 *            a page
+	 * @param i
+	 *            the index of a record
+	 * @return the length of the specified record
+	 */
+	public static int length(ByteBuffer page, int i) {
+		return page.getInt(HEADER + 4 * i) & 0xFFFF;
+	}
+
+	/**
+	 * Returns the child page that the specified record of an inner page points to.
+	 *
+	 * @param page
+	 *            an inner page
+	 * @param i
+	 *            the index of a record
+	 * @return the child page that the specified record points to
+	 */
+	public static long child(ByteBuffer page, int i) {
+		return page.getLong(offset(page, i) + length(page, i) - 8);
+	}
+
+	/**
+	 * Returns the number of contiguous free bytes between the slots and the records.
+	 *
+	 * @param page
+	 *            a page
+	 * @return the number of contiguous free bytes between the slots and the records
+	 */
+	public static int freeSpace(ByteBuffer page) {
+		return page.getInt(HEAP) - HEADER - 4 * count(page);
+	}
+
+	/**
+	 * Returns the number of bytes that are free after compaction.
+	 *
+	 * @param page
+	 *            a page
+	 * @return the number of bytes that are free after compaction
+	 */
+	public static int reclaimableSpace(ByteBuffer page) {
+		return freeSpace(page) + page.getInt(GARBAGE);
+	}
+
+	/**
+	 * Allocates a record of the specified length at the specified slot, compacting the page if needed. The caller is
+	 * responsible for writing the content of the record.
+	 *
+	 * @param page
+	 *            a page
+	 * @param pageSize
+	 *            the size of the page
+	 * @param i
+	 *            the index of the new record
+	 * @param length
+	 *            the length of the new record
+	 * @param scratch
+	 *            a byte array of at least {@code pageSize} bytes used for compaction
+	 * @return the offset of the new record; -1 if the page has no room for the record
+	 */
+	public static int insert(ByteBuffer page, int pageSize, int i, int length, byte[] scratch) {
+		if (reclaimableSpace(page) < length + 4)
+			return -1;
+		if (freeSpace(page) < length + 4)
+			compact(page, pageSize, scratch);
+		int count = count(page);
+		int offset = page.getInt(HEAP) - length;
+		page.putInt(HEAP, offset);
+		for (int j = count; j > i; j--)
+			page.putInt(HEADER + 4 * j, page.getInt(HEADER + 4 * (j - 1)));
+		page.putInt(HEADER + 4 * i, offset << 16 | length);
+		page.putInt(COUNT, count + 1);
+		return offset;
+	}
+
+	/**
+	 * Removes the specified record. The space of the record is reclaimed by a later compaction.
+	 *
+	 * @param page
+	 *            a page
+	 * @param i
+	 *            the index of a record
+	 */
+	public static void remove(ByteBuffer page, int i) {
+		int count = count(page);
+		page.putInt(GARBAGE, page.getInt(GARBAGE) + length(page, i));
+		for (int j = i; j < count - 1; j++)
+			page.putInt(HEADER + 4 * j, page.getInt(HEADER + 4 * (j + 1)));
+		page.putInt(COUNT, count - 1);
+	}
+
+	/**
+	 * Moves all records to the end of the specified page so that the space of removed records becomes contiguous.
+	 *
+	 * @param page
+	 *            a page
+	 * @param pageSize
+	 *            the size of the page
+	 * @param scratch
+	 *            a byte array of at least {@code pageSize} bytes
+	 */
+	public static void compact(ByteBuffer page, int pageSize, byte[] scratch) {
+		int count = count(page);
+		int heap = pageSize;
+		ByteBuffer view = page.duplicate();
+		for (int i = 0; i < count; i++) {
+			int length = length(page, i);
+			heap -= length;
+			view.limit(offset(page, i) + length).position(offset(page, i));
+			view.get(scratch, heap, length);
+			page.putInt(HEADER + 4 * i, heap << 16 | length);
+		}
+		view.limit(pageSize).position(heap);
+		view.put(scratch, heap, pageSize - heap);
+		page.putInt(HEAP, heap);
+		page.putInt(GARBAGE, 0);
+	}
+
+	/**
+	 * Copies bytes from one {@code ByteBuffer} to another.
+	 *
+	 * @param source
+	 *            the source {@code ByteBuffer}
+	 * @param sourceOffset
+	 *            the offset of the first byte to copy
+	 * @param target
+	 *            the target {@code ByteBuffer}
+	 * @param targetOffset
+	 *            the offset at which the first byte is stored
+	 * @param length
+	 *            the number of bytes to copy
+	 */
+	public static void copy(ByteBuffer source, int sourceOffset, ByteBuffer target, int targetOffset, int length) {
+		int i = 0;
+		for (; i + 8 <= length; i += 8)
+			target.putLong(targetOffset + i, source.getLong(sourceOffset + i));
+		for (; i < length; i++)
+			target.put(targetOffset + i, source.get(sourceOffset + i));
+	}
+
+}
@@ -0,0 +1,168 @@
+package bptree.page;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code OffHeapPageStore} class keeps pages in the main memory but outside the Java heap, in arenas of direct
+ * {@code ByteBuffer}s that are allocated as the store grows. A {@code PagedBPlusTree} on an {@code OffHeapPageStore}
+ * is an in-memory B+-tree whose nodes are slotted pages laid out by {@link NodePage}, whose keys and pointers are
+ * encoded into the pages by {@code Codec}s, and whose nodes refer to each other by page numbers, which are offsets
+ * into the arenas. The heap therefore holds a handful of objects however many entries the tree contains, and the
+ * garbage collector never traces the nodes.
+ * <p>
+ * Page {@code i} lives at offset {@code (i % pagesPerArena) * pageSize} of arena {@code i / pagesPerArena}. Pinning
+ * returns a view of the page; the views of recently pinned pages are kept in a small direct-mapped cache so that the
+ * pages near the root, which every operation visits, are pinned without allocating. Pages are never freed before the
+ * store is closed, as {@code PagedBPlusTree} does not release pages. Direct memory is bounded by
+ * {@code -XX:MaxDirectMemorySize}.
+ */
+public class OffHeapPageStore implements PageStore {
+
+	/**
+	 * The default size of each arena in bytes.
+	 */
+	public static final int DEFAULT_ARENA_SIZE = 1 << 26;
+
+	/**
+	 * The number of entries of the cache of page views.
+	 */
+	static final int VIEWS = 1024;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected final int pageSize;
+
+	/**
+	 * The number of pages in each arena.
+	 */
+	protected final int pagesPerArena;
+
+	/**
+	 * The arenas holding the pages.
+	 */
+	protected List<ByteBuffer> arenas = new ArrayList<ByteBuffer>();
+
+	/**
+	 * The number of pages allocated so far.
+	 */
+	protected long pageCount;
+
+	/**
+	 * The cached views of pages.
+	 */
+	protected final ByteBuffer[] views = new ByteBuffer[VIEWS];
+
+	/**
+	 * The number of the page of each cached view; -1 if the entry is empty.
+	 */
+	protected final long[] viewIds = new long[VIEWS];
+
+	/**
+	 * Constructs an {@code OffHeapPageStore} with arenas of the default size.
+	 *
+	 * @param pageSize
+	 *            the size of each page in bytes
+	 */
+	public OffHeapPageStore(int pageSize) {
+		this(pageSize, DEFAULT_ARENA_SIZE);
+	}
+
+	/**
+	 * Constructs an {@code OffHeapPageStore}.
+	 *
+	 * @param pageSize
+	 *            the size of each page in bytes
+	 * @param arenaSize
+	 *            the size of each arena in bytes (rounded down to a multiple of the page size)
+	 * @throws IllegalArgumentException
+	 *             if the page size is not positive or an arena cannot hold a page
+	 */
+	public OffHeapPageStore(int pageSize, int arenaSize) {
+		if (pageSize <= 0 || arenaSize < pageSize)
+			throw new IllegalArgumentException("page size: " + pageSize + ", arena size: " + arenaSize);
+		this.pageSize = pageSize;
+		this.pagesPerArena = arenaSize / pageSize;
+		Arrays.fill(viewIds, -1);
+	}
+
+	@Override
+	public int pageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public long pageCount() {
+		return pageCount;
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory held by this {@code OffHeapPageStore}.
+	 *
+	 * @return the number of bytes of direct memory held by this {@code OffHeapPageStore}
+	 */
+	public long capacity() {
+		return (long) arenas.size() * pagesPerArena * pageSize;
+	}
+
+	@Override
+	public long allocate() throws IOException {
+		check();
+		long pageId = pageCount;
+		if (pageId / pagesPerArena == arenas.size())
+			arenas.add(ByteBuffer.allocateDirect(pagesPerArena * pageSize)); // zero-filled
+		pageCount++;
+		return pageId;
+	}
+
+	@Override
+	public ByteBuffer pin(long pageId) throws IOException {
+		check();
+		if (pageId < 0 || pageId >= pageCount)
+			throw new IllegalArgumentException("page " + pageId + " has not been allocated");
+		int v = (int) (pageId % VIEWS);
+		if (viewIds[v] == pageId)
+			return views[v];
+		ByteBuffer view = arenas.get((int) (pageId / pagesPerArena)).duplicate();
+		int offset = (int) (pageId % pagesPerArena) * pageSize;
+		view.limit(offset + pageSize).position(offset);
+		view = view.slice();
+		views[v] = view;
+		viewIds[v] = pageId;
+		return view;
+	}
+
+	@Override
+	public void unpin(long pageId, boolean dirty) {
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 * Releases the arenas, whose memory is returned once they are garbage collected.
+	 */
+	@Override
+	public void close() {
+		arenas = null;
+		Arrays.fill(views, null);
+		Arrays.fill(viewIds, -1);
+	}
+
+	/**
+	 * Throws an exception if this {@code OffHeapPageStore} has been closed.
+	 *
+	 * @throws IOException
+	 *             if this {@code OffHeapPageStore} has been closed
+	 */
+	void check() throws IOException {
+		if (arenas == null)
+			throw new IOException("the page store has been closed");
+	}
+
+}
@@ -0,0 +1,117 @@
+package bptree.page;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@code PageFile} reads and writes fixed-size pages of a local file. Page {@code i} occupies the bytes from
+ * {@code i * pageSize} to {@code (i + 1) * pageSize - 1}.
+ */
+public class PageFile implements Closeable {
+
+	/**
+	 * The channel to the file.
+	 */
+	protected final FileChannel channel;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected final int pageSize;
+
+	/**
+	 * Opens a {@code PageFile}, creating the file if it does not exist.
+	 *
+	 * @param path
+	 *            the path to the file
+	 * @param pageSize
+	 *            the size of each page in bytes
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public PageFile(Path path, int pageSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Returns the size of each page in bytes.
+	 *
+	 * @return the size of each page in bytes
+	 */
+	public int pageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the number of pages in the file.
+	 *
+	 * @return the number of pages in the file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public long pageCount() throws IOException {
+		return channel.size() / pageSize;
+	}
+
+	/**
+	 * Reads the specified page into the specified {@code ByteBuffer}.
+	 *
+	 * @param pageId
+	 *            the number of a page
+	 * @param buffer
+	 *            a {@code ByteBuffer} with room for a page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void read(long pageId, ByteBuffer buffer) throws IOException {
+		buffer.clear().limit(pageSize);
+		long position = pageId * pageSize;
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position + buffer.position());
+			if (n < 0)
+				throw new EOFException("page " + pageId + " is beyond the end of the file");
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the specified {@code ByteBuffer} to the specified page.
+	 *
+	 * @param pageId
+	 *            the number of a page
+	 * @param buffer
+	 *            a {@code ByteBuffer} holding a page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(long pageId, ByteBuffer buffer) throws IOException {
+		buffer.clear().limit(pageSize);
+		long position = pageId * pageSize;
+		while (buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+		buffer.clear();
+	}
+
+	/**
+	 * Forces the contents of the file to the storage device.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void sync() throws IOException {
+		channel.force(true);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,67 @@
+package bptree.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code PageStore} manages fixed-size pages identified by consecutive page numbers starting at 0. A page must be
+ * pinned before it is accessed and unpinned once the access is over so that the {@code PageStore} knows which pages
+ * are in use and which pages have been modified.
+ */
+public interface PageStore extends Closeable {
+
+	/**
+	 * Returns the size of each page in bytes.
+	 *
+	 * @return the size of each page in bytes
+	 */
+	int pageSize();
+
+	/**
+	 * Returns the number of pages that have been allocated.
+	 *
+	 * @return the number of pages that have been allocated
+	 */
+	long pageCount();
+
+	/**
+	 * Allocates a new page filled with zeros. The new page is not pinned.
+	 *
+	 * @return the number of the new page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	long allocate() throws IOException;
+
+	/**
+	 * Pins the specified page. The returned {@code ByteBuffer} holds the page from index 0 to index
+	 * {@code pageSize() - 1} and remains valid until the page is unpinned.
+	 *
+	 * @param pageId
+	 *            the number of a page
+	 * @return a {@code ByteBuffer} holding the page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	ByteBuffer pin(long pageId) throws IOException;
+
+	/**
+	 * Unpins the specified page.
+	 *
+	 * @param pageId
+	 *            the number of a page pinned earlier
+	 * @param dirty
+	 *            {@code true} if the page has been modified while pinned
+	 */
+	void unpin(long pageId, boolean dirty);
+
+	/**
+	 * Writes all modified pages to the underlying storage.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	void flush() throws IOException;
+
+}
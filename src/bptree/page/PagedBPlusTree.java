@@ -0,0 +1,845 @@
+package bptree.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import bptree.Separator;
+import bptree.codec.Codec;
+
+/**
+ * The {@code PagedBPlusTree} class implements B+-trees whose nodes are stored in the fixed-size pages of a
+ * {@code PageStore} rather than in the main memory. Each node occupies one page laid out by {@link NodePage}, and
+ * nodes refer to their children and successors by page numbers. When the {@code PageStore} is a {@code BufferPool},
+ * nodes are faulted in on demand and a lookup reads at most one page per level of the tree, so trees much larger
+ * than the main memory can be searched efficiently. On an {@link OffHeapPageStore}, a {@code PagedBPlusTree} is an
+ * in-memory tree whose nodes live outside the Java heap.
+ * <p>
+ * Like {@code BPlusTree}, a {@code PagedBPlusTree} may contain several pointers for the same key but never the same
+ * key-pointer entry twice. Because keys and pointers are encoded by {@code Codec}s, the number of entries per node
+ * depends on their encoded sizes rather than on a fixed degree. Deletions leave under-utilized pages in place, as most
+ * disk-based B+-trees do, since merging pages costs extra writes but rarely saves reads.
+ * <p>
+ * Page 0 holds the metadata of the tree:
+ *
+ * <pre>
+ * offset  0: int   MAGIC
+ * offset  4: int   VERSION
+ * offset  8: int   the page size
+ * offset 12: int   the height of the tree
+ * offset 16: long  the root page
+ * offset 24: long  the number of entries
+ * offset 32: the names of the key and pointer codecs, each as a 2-byte length followed by UTF-8 bytes
+ * </pre>
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class PagedBPlusTree<K extends Comparable<K>, P> implements Closeable {
+
+	/**
+	 * The magic number at the beginning of a tree file.
+	 */
+	public static final int MAGIC = 0x42505450; // "BPTP"
+
+	/**
+	 * The version of the tree file format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The page that holds the metadata of the tree.
+	 */
+	static final long META_PAGE = 0;
+
+	/**
+	 * The {@code PageStore} holding the nodes of this {@code PagedBPlusTree}.
+	 */
+	protected final PageStore store;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for pointers.
+	 */
+	protected final Codec<P> pointerCodec;
+
+	/**
+	 * The size of each page.
+	 */
+	protected final int pageSize;
+
+	/**
+	 * The {@code Separator} that chooses the key promoted when a leaf is split.
+	 */
+	protected Separator<K> separator = Separator.first();
+
+	/**
+	 * The maximum length of a record so that any full page can be split into two pages.
+	 */
+	protected final int maxRecordLength;
+
+	/**
+	 * The root page.
+	 */
+	protected long root;
+
+	/**
+	 * The number of levels in this {@code PagedBPlusTree}; 1 if the root is a leaf.
+	 */
+	protected int height;
+
+	/**
+	 * The number of entries in this {@code PagedBPlusTree}.
+	 */
+	protected long size;
+
+	/**
+	 * The pages visited by the most recent descent, from the root to a leaf.
+	 */
+	protected long[] path = new long[8];
+
+	/**
+	 * The index of the child chosen at each page of {@link #path}.
+	 */
+	protected int[] childIndexes = new int[8];
+
+	/**
+	 * A byte array used for compacting pages.
+	 */
+	protected final byte[] scratch;
+
+	/**
+	 * A buffer used for redistributing the records of a page being split.
+	 */
+	protected final ByteBuffer work;
+
+	/**
+	 * The offsets of the records in {@link #work}.
+	 */
+	protected final int[] workOffsets;
+
+	/**
+	 * The lengths of the records in {@link #work}.
+	 */
+	protected final int[] workLengths;
+
+	/**
+	 * Constructs a {@code PagedBPlusTree} on a {@code PageStore} whose metadata page is already initialized.
+	 *
+	 * @param store
+	 *            a {@code PageStore}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected PagedBPlusTree(PageStore store, Codec<K> keyCodec, Codec<P> pointerCodec) throws IOException {
+		this.store = store;
+		this.keyCodec = keyCodec;
+		this.pointerCodec = pointerCodec;
+		this.pageSize = store.pageSize();
+		this.maxRecordLength = (pageSize - NodePage.HEADER) / 4 - 4;
+		this.scratch = new byte[pageSize];
+		this.work = ByteBuffer.allocate(2 * pageSize);
+		this.workOffsets = new int[pageSize / 4 + 2];
+		this.workLengths = new int[pageSize / 4 + 2];
+		readMeta();
+	}
+
+	/**
+	 * Creates an empty {@code PagedBPlusTree} on the specified {@code PageStore}, which must not contain any page.
+	 *
+	 * @param store
+	 *            an empty {@code PageStore}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the new {@code PagedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static <K extends Comparable<K>, P> PagedBPlusTree<K, P> create(PageStore store, Codec<K> keyCodec,
+			Codec<P> pointerCodec) throws IOException {
+		if (store.pageCount() != 0)
+			throw new IllegalArgumentException("the page store already contains pages");
+		if (store.pageSize() < 512 || store.pageSize() > 65536)
+			throw new IllegalArgumentException("the page size must be between 512 and 65536 bytes");
+		long meta = store.allocate();
+		long leaf = store.allocate();
+		ByteBuffer page = store.pin(leaf);
+		NodePage.init(page, store.pageSize(), NodePage.LEAF, -1);
+		store.unpin(leaf, true);
+		page = store.pin(meta);
+		page.putInt(0, MAGIC);
+		page.putInt(4, VERSION);
+		page.putInt(8, store.pageSize());
+		page.putInt(12, 1);
+		page.putLong(16, leaf);
+		page.putLong(24, 0);
+		int offset = putName(page, 32, keyCodec.name());
+		putName(page, offset, pointerCodec.name());
+		store.unpin(meta, true);
+		return new PagedBPlusTree<K, P>(store, keyCodec, pointerCodec);
+	}
+
+	/**
+	 * Opens the {@code PagedBPlusTree} stored in the specified {@code PageStore}.
+	 *
+	 * @param store
+	 *            a {@code PageStore} containing a {@code PagedBPlusTree}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the {@code PagedBPlusTree} stored in the specified {@code PageStore}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static <K extends Comparable<K>, P> PagedBPlusTree<K, P> open(PageStore store, Codec<K> keyCodec,
+			Codec<P> pointerCodec) throws IOException {
+		return new PagedBPlusTree<K, P>(store, keyCodec, pointerCodec);
+	}
+
+	/**
+	 * Creates an empty {@code PagedBPlusTree} in a new file cached by a {@code BufferPool}.
+	 *
+	 * @param file
+	 *            the path to a file that does not exist yet
+	 * @param pageSize
+	 *            the size of each page in bytes
+	 * @param frames
+	 *            the number of frames of the {@code BufferPool}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the new {@code PagedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static <K extends Comparable<K>, P> PagedBPlusTree<K, P> create(Path file, int pageSize, int frames,
+			Codec<K> keyCodec, Codec<P> pointerCodec) throws IOException {
+		if (Files.exists(file))
+			throw new IllegalArgumentException(file + " already exists");
+		return create(new BufferPool(new PageFile(file, pageSize), frames), keyCodec, pointerCodec);
+	}
+
+	/**
+	 * Opens the {@code PagedBPlusTree} stored in the specified file through a {@code BufferPool}.
+	 *
+	 * @param file
+	 *            the path to a file created by {@link #create(Path, int, int, Codec, Codec)}
+	 * @param frames
+	 *            the number of frames of the {@code BufferPool}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @return the {@code PagedBPlusTree} stored in the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static <K extends Comparable<K>, P> PagedBPlusTree<K, P> open(Path file, int frames, Codec<K> keyCodec,
+			Codec<P> pointerCodec) throws IOException {
+		return open(new BufferPool(new PageFile(file, pageSize(file)), frames), keyCodec, pointerCodec);
+	}
+
+	/**
+	 * Reads the page size recorded in the specified tree file.
+	 *
+	 * @param file
+	 *            the path to a tree file
+	 * @return the page size recorded in the specified tree file
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a tree file
+	 */
+	static int pageSize(Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(12);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (header.hasRemaining())
+				if (channel.read(header) < 0)
+					break;
+		}
+		if (header.hasRemaining() || header.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a B+-tree file");
+		return header.getInt(8);
+	}
+
+	/**
+	 * Returns the {@code PageStore} holding the nodes of this {@code PagedBPlusTree}.
+	 *
+	 * @return the {@code PageStore} holding the nodes of this {@code PagedBPlusTree}
+	 */
+	public PageStore store() {
+		return store;
+	}
+
+	/**
+	 * Returns the {@code Separator} of this {@code PagedBPlusTree}.
+	 *
+	 * @return the {@code Separator} of this {@code PagedBPlusTree}
+	 */
+	public Separator<K> separator() {
+		return separator;
+	}
+
+	/**
+	 * Sets the {@code Separator} that chooses the key promoted when a leaf of this {@code PagedBPlusTree} is split.
+	 * Shorter separators let inner pages hold more keys. The separator is not recorded in the file, as the keys
+	 * already in inner pages remain valid whichever {@code Separator} is used later.
+	 *
+	 * @param separator
+	 *            a {@code Separator}
+	 */
+	public void setSeparator(Separator<K> separator) {
+		this.separator = separator;
+	}
+
+	/**
+	 * Returns the number of entries in this {@code PagedBPlusTree}.
+	 *
+	 * @return the number of entries in this {@code PagedBPlusTree}
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of levels in this {@code PagedBPlusTree}.
+	 *
+	 * @return the number of levels in this {@code PagedBPlusTree}; 1 if the root is a leaf
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the first pointer associated with the specified key.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the first pointer associated with the specified key; {@code null} if there is no such pointer
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public P get(K k) throws IOException {
+		long pageId = descend(k);
+		while (pageId >= 0) {
+			ByteBuffer page = store.pin(pageId);
+			long next;
+			try {
+				int count = NodePage.count(page);
+				int i = lowerBound(page, count, k);
+				if (i < count) {
+					int offset = NodePage.offset(page, i);
+					if (keyCodec.compare(page, offset, k) != 0)
+						return null;
+					return pointerCodec.read(page, offset + keyCodec.size(page, offset));
+				}
+				next = NodePage.link(page); // all keys in this leaf are smaller than k
+			} finally {
+				store.unpin(pageId, false);
+			}
+			pageId = next;
+		}
+		return null;
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are contained in this {@code PagedBPlusTree}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are contained in this {@code PagedBPlusTree};
+	 *         {@code false} otherwise
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public boolean contains(K k, P p) throws IOException {
+		return locate(k, p, false);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code PagedBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insert(K k, P p) throws IOException {
+		int keyLength = keyCodec.size(k);
+		int length = keyLength + pointerCodec.size(p);
+		if (length > maxRecordLength || keyLength + 8 > maxRecordLength)
+			throw new IllegalArgumentException("the entry needs " + length + " bytes but pages of " + pageSize
+					+ " bytes can hold entries of at most " + maxRecordLength + " bytes");
+		if (locate(k, p, false)) // no duplicate key-pointer entries are allowed in the tree
+			return;
+		long leaf = path[height - 1]; // the leaf that locate descended to
+		ByteBuffer page = store.pin(leaf);
+		try {
+			int i = upperBound(page, NodePage.count(page), k);
+			int offset = NodePage.insert(page, pageSize, i, length, scratch);
+			if (offset >= 0) {
+				keyCodec.write(page, offset, k);
+				pointerCodec.write(page, offset + keyLength, p);
+			} else
+				splitLeaf(leaf, page, i, k, p, keyLength, length);
+			size++;
+		} finally {
+			store.unpin(leaf, true);
+		}
+	}
+
+	/**
+	 * Removes the specified key and pointer from this {@code PagedBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void delete(K k, P p) throws IOException {
+		if (locate(k, p, true))
+			size--;
+	}
+
+	/**
+	 * Writes the metadata and all modified pages of this {@code PagedBPlusTree} to the {@code PageStore}.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void flush() throws IOException {
+		writeMeta();
+		store.flush();
+	}
+
+	/**
+	 * Flushes and closes this {@code PagedBPlusTree} and its {@code PageStore}.
+	 */
+	@Override
+	public void close() throws IOException {
+		writeMeta();
+		store.close();
+	}
+
+	/**
+	 * Descends from the root to the leaf that must be responsible for the specified key, recording the visited pages
+	 * in {@link #path} and the chosen children in {@link #childIndexes}. Keys equal to a separator are looked for in
+	 * the left subtree, as {@code NonLeafNode.find} does.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the leaf page that must be responsible for the specified key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected long descend(K k) throws IOException {
+		if (path.length < height) {
+			path = new long[height * 2];
+			childIndexes = new int[height * 2];
+		}
+		long pageId = root;
+		for (int level = 0; level < height - 1; level++) {
+			path[level] = pageId;
+			ByteBuffer page = store.pin(pageId);
+			int i = lowerBound(page, NodePage.count(page), k);
+			childIndexes[level] = i;
+			long child = i == 0 ? NodePage.link(page) : NodePage.child(page, i - 1);
+			store.unpin(pageId, false);
+			pageId = child;
+		}
+		path[height - 1] = pageId;
+		return pageId;
+	}
+
+	/**
+	 * Finds the specified entry, starting from the leftmost leaf that may contain the key, and optionally removes it.
+	 * The descent to that leaf is recorded in {@link #path} and {@link #childIndexes} as by
+	 * {@link #descend(Comparable)}, so that an insertion can reuse it.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @param remove
+	 *            {@code true} if the entry must be removed once found
+	 * @return {@code true} if the entry has been found; {@code false} otherwise
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected boolean locate(K k, P p, boolean remove) throws IOException {
+		long pageId = descend(k);
+		while (pageId >= 0) {
+			ByteBuffer page = store.pin(pageId);
+			boolean found = false;
+			long next = -1;
+			try {
+				int count = NodePage.count(page);
+				int i = lowerBound(page, count, k);
+				for (; i < count; i++) {
+					int offset = NodePage.offset(page, i);
+					if (keyCodec.compare(page, offset, k) != 0)
+						return false;
+					if (p.equals(pointerCodec.read(page, offset + keyCodec.size(page, offset)))) {
+						if (remove)
+							NodePage.remove(page, i);
+						found = true;
+						return true;
+					}
+				}
+				next = NodePage.link(page); // the key may continue in the successor
+			} finally {
+				store.unpin(pageId, found && remove);
+			}
+			pageId = next;
+		}
+		return false;
+	}
+
+	/**
+	 * Splits the specified full leaf while inserting the specified key and pointer.
+	 *
+	 * @param leaf
+	 *            the number of the leaf page
+	 * @param page
+	 *            the pinned leaf page
+	 * @param i
+	 *            the index at which the entry is inserted
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param keyLength
+	 *            the encoded length of the key
+	 * @param length
+	 *            the encoded length of the entry
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void splitLeaf(long leaf, ByteBuffer page, int i, K k, P p, int keyLength, int length)
+			throws IOException {
+		int count = gather(page, i, length);
+		keyCodec.write(work, workOffsets[i], k);
+		pointerCodec.write(work, workOffsets[i] + keyLength, p);
+		int m = splitPoint(count);
+		long sibling = store.allocate();
+		ByteBuffer siblingPage = store.pin(sibling);
+		try {
+			NodePage.init(siblingPage, pageSize, NodePage.LEAF, NodePage.link(page));
+			NodePage.init(page, pageSize, NodePage.LEAF, sibling);
+			scatter(page, 0, m);
+			scatter(siblingPage, m, count);
+		} finally {
+			store.unpin(sibling, true);
+		}
+		insertInParent(height - 1, leaf, separate(m), sibling);
+	}
+
+	/**
+	 * Returns the encoded key that separates the records of {@link #work} before the specified index from the others,
+	 * as chosen by the {@code Separator} of this {@code PagedBPlusTree}.
+	 *
+	 * @param m
+	 *            the index of the first record of the right half of a leaf being split
+	 * @return the encoded separating key
+	 */
+	protected byte[] separate(int m) {
+		K right = keyCodec.read(work, workOffsets[m]);
+		K s = separator.separate(keyCodec.read(work, workOffsets[m - 1]), right);
+		byte[] separator = new byte[keyCodec.size(s)];
+		if (s == right) { // copy the encoded key rather than encoding it again
+			work.position(workOffsets[m]);
+			work.get(separator);
+		} else
+			keyCodec.write(ByteBuffer.wrap(separator), 0, s);
+		return separator;
+	}
+
+	/**
+	 * Inserts a separating key and a pointer to a new page into the parent of the specified page.
+	 *
+	 * @param level
+	 *            the level of the page in {@link #path}
+	 * @param pageId
+	 *            a page that has just been split
+	 * @param separator
+	 *            the encoded key between the page and the new page
+	 * @param sibling
+	 *            the new page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insertInParent(int level, long pageId, byte[] separator, long sibling) throws IOException {
+		int length = separator.length + 8;
+		if (level == 0) { // if the page is the root of the tree
+			long newRoot = store.allocate();
+			ByteBuffer page = store.pin(newRoot);
+			NodePage.init(page, pageSize, NodePage.INNER, pageId);
+			writeInner(page, NodePage.insert(page, pageSize, 0, length, scratch), separator, sibling);
+			store.unpin(newRoot, true);
+			root = newRoot;
+			height++;
+			return;
+		}
+		long parent = path[level - 1];
+		int i = childIndexes[level - 1]; // the new record goes right after the page that has been split
+		ByteBuffer page = store.pin(parent);
+		byte[] up;
+		long newPage;
+		try {
+			int offset = NodePage.insert(page, pageSize, i, length, scratch);
+			if (offset >= 0) {
+				writeInner(page, offset, separator, sibling);
+				return;
+			}
+			int count = gather(page, i, length);
+			writeInner(work, workOffsets[i], separator, sibling);
+			int m = splitPoint(count);
+			if (m == count - 1)
+				m--; // keep at least one record for the new page
+			newPage = store.allocate();
+			ByteBuffer newPageBuffer = store.pin(newPage);
+			try {
+				int middle = workOffsets[m];
+				NodePage.init(newPageBuffer, pageSize, NodePage.INNER, work.getLong(middle + workLengths[m] - 8));
+				NodePage.init(page, pageSize, NodePage.INNER, NodePage.link(page));
+				scatter(page, 0, m);
+				scatter(newPageBuffer, m + 1, count);
+			} finally {
+				store.unpin(newPage, true);
+			}
+			up = new byte[workLengths[m] - 8]; // the middle key moves up
+			work.position(workOffsets[m]);
+			work.get(up);
+		} finally {
+			store.unpin(parent, true);
+		}
+		insertInParent(level - 1, parent, up, newPage);
+	}
+
+	/**
+	 * Copies the records of the specified page into {@link #work}, leaving room for a new record.
+	 *
+	 * @param page
+	 *            a page
+	 * @param i
+	 *            the index of the new record
+	 * @param length
+	 *            the length of the new record
+	 * @return the number of records in {@link #work}, including the new record
+	 */
+	protected int gather(ByteBuffer page, int i, int length) {
+		int count = NodePage.count(page);
+		int offset = 0;
+		int w = 0;
+		for (int j = 0; j <= count; j++) {
+			if (j == i) {
+				workOffsets[w] = offset;
+				workLengths[w++] = length;
+				offset += length;
+			}
+			if (j < count) {
+				int l = NodePage.length(page, j);
+				NodePage.copy(page, NodePage.offset(page, j), work, offset, l);
+				workOffsets[w] = offset;
+				workLengths[w++] = l;
+				offset += l;
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * Returns the index of the first record of {@link #work} that goes to the right half so that both halves occupy
+	 * about the same number of bytes.
+	 *
+	 * @param count
+	 *            the number of records in {@link #work}
+	 * @return the index of the first record of the right half
+	 */
+	protected int splitPoint(int count) {
+		int total = 0;
+		for (int j = 0; j < count; j++)
+			total += workLengths[j] + 4;
+		int left = 0;
+		for (int j = 0; j < count - 1; j++) {
+			left += workLengths[j] + 4;
+			if (left >= total / 2)
+				return j + 1;
+		}
+		return count - 1;
+	}
+
+	/**
+	 * Appends the specified records of {@link #work} to the specified page.
+	 *
+	 * @param page
+	 *            a page with enough room
+	 * @param begin
+	 *            the index of the first record, inclusive
+	 * @param end
+	 *            the index of the last record, exclusive
+	 */
+	protected void scatter(ByteBuffer page, int begin, int end) {
+		for (int j = begin; j < end; j++) {
+			int offset = NodePage.insert(page, pageSize, j - begin, workLengths[j], scratch);
+			NodePage.copy(work, workOffsets[j], page, offset, workLengths[j]);
+		}
+	}
+
+	/**
+	 * Writes a record of an inner page.
+	 *
+	 * @param page
+	 *            a page
+	 * @param offset
+	 *            the offset of the record
+	 * @param key
+	 *            the encoded key
+	 * @param child
+	 *            the child page to the right of the key
+	 */
+	protected static void writeInner(ByteBuffer page, int offset, byte[] key, long child) {
+		for (int j = 0; j < key.length; j++)
+			page.put(offset + j, key[j]);
+		page.putLong(offset + key.length, child);
+	}
+
+	/**
+	 * Returns the number of keys in the specified page that are smaller than the specified key.
+	 *
+	 * @param page
+	 *            a page
+	 * @param count
+	 *            the number of records in the page
+	 * @param k
+	 *            a key
+	 * @return the number of keys in the specified page that are smaller than the specified key
+	 */
+	protected int lowerBound(ByteBuffer page, int count, K k) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keyCodec.compare(page, NodePage.offset(page, mid), k) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of keys in the specified page that are smaller than or equal to the specified key.
+	 *
+	 * @param page
+	 *            a page
+	 * @param count
+	 *            the number of records in the page
+	 * @param k
+	 *            a key
+	 * @return the number of keys in the specified page that are smaller than or equal to the specified key
+	 */
+	protected int upperBound(ByteBuffer page, int count, K k) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keyCodec.compare(page, NodePage.offset(page, mid), k) <= 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Reads the metadata of this {@code PagedBPlusTree} from the metadata page.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void readMeta() throws IOException {
+		ByteBuffer page = store.pin(META_PAGE);
+		try {
+			if (page.getInt(0) != MAGIC)
+				throw new IOException("the page store does not contain a B+-tree");
+			if (page.getInt(4) != VERSION)
+				throw new IOException("unsupported B+-tree file version: " + page.getInt(4));
+			if (page.getInt(8) != pageSize)
+				throw new IOException("the tree has been written with pages of " + page.getInt(8) + " bytes");
+			height = page.getInt(12);
+			root = page.getLong(16);
+			size = page.getLong(24);
+			int offset = 32;
+			String keyCodecName = getName(page, offset);
+			offset += 2 + page.getShort(offset);
+			String pointerCodecName = getName(page, offset);
+			if (!keyCodecName.equals(keyCodec.name()) || !pointerCodecName.equals(pointerCodec.name()))
+				throw new IllegalArgumentException("the tree has been written with codecs " + keyCodecName + " and "
+						+ pointerCodecName);
+		} finally {
+			store.unpin(META_PAGE, false);
+		}
+	}
+
+	/**
+	 * Writes the root, the height, and the size of this {@code PagedBPlusTree} to the metadata page.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void writeMeta() throws IOException {
+		ByteBuffer page = store.pin(META_PAGE);
+		page.putInt(12, height);
+		page.putLong(16, root);
+		page.putLong(24, size);
+		store.unpin(META_PAGE, true);
+	}
+
+	/**
+	 * Writes a name as a 2-byte length followed by its UTF-8 bytes.
+	 *
+	 * @return the offset right after the name
+	 */
+	static int putName(ByteBuffer page, int offset, String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		page.putShort(offset, (short) bytes.length);
+		for (int i = 0; i < bytes.length; i++)
+			page.put(offset + 2 + i, bytes[i]);
+		return offset + 2 + bytes.length;
+	}
+
+	/**
+	 * Reads a name written by {@link #putName(ByteBuffer, int, String)}.
+	 */
+	static String getName(ByteBuffer page, int offset) {
+		byte[] bytes = new byte[page.getShort(offset)];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = page.get(offset + 2 + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
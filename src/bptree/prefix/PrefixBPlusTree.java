@@ -0,0 +1,369 @@
+package bptree.prefix;
+
+import bptree.Separator;
+
+/**
+ * The {@code PrefixBPlusTree} class implements B+-trees whose keys are {@code String}s that often share long prefixes
+ * (e.g., URLs or tenant-scoped identifiers). It has the same semantics as {@code BPlusTree<String, P>} (several
+ * pointers may share a key, but the same key-pointer entry is never stored twice), but each of its nodes stores the
+ * prefix shared by its keys once and each key as the {@code char[]} suffix following that prefix. A key thus costs
+ * neither a {@code String} object nor the characters of the prefix, and a probe within a node compares only the
+ * characters after the prefix. When a leaf is split, the shortest prefix of its new sibling's first key that still
+ * separates the two leaves is promoted, so inner nodes hold short separators.
+ *
+ * @param <P>
+ *            the type of pointers
+ */
+public class PrefixBPlusTree<P> {
+
+	/**
+	 * The maximum number of pointers that each {@code PrefixNode} of this {@code PrefixBPlusTree} can have.
+	 */
+	protected final int degree;
+
+	/**
+	 * The root node of this {@code PrefixBPlusTree}.
+	 */
+	protected PrefixNode<P> root;
+
+	/**
+	 * The number of entries in this {@code PrefixBPlusTree}.
+	 */
+	protected long size = 0;
+
+	/**
+	 * Scratch suffixes used while splitting a full {@code PrefixNonLeafNode}.
+	 */
+	private final char[][] splitSuffixes;
+
+	/**
+	 * Scratch children used while splitting a full {@code PrefixNonLeafNode}.
+	 */
+	private final PrefixNode<P>[] splitChildren;
+
+	/**
+	 * Constructs a {@code PrefixBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code PrefixNode} of this {@code PrefixBPlusTree} can have.
+	 */
+	@SuppressWarnings("unchecked")
+	public PrefixBPlusTree(int degree) {
+		if (degree < 3)
+			throw new IllegalArgumentException("the degree must be at least 3");
+		this.degree = degree;
+		this.splitSuffixes = new char[degree][];
+		this.splitChildren = (PrefixNode<P>[]) new PrefixNode<?>[degree + 1];
+	}
+
+	/**
+	 * Returns the degree of this {@code PrefixBPlusTree}.
+	 *
+	 * @return the degree of this {@code PrefixBPlusTree}
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the root {@code PrefixNode} of this {@code PrefixBPlusTree}.
+	 *
+	 * @return the root {@code PrefixNode} of this {@code PrefixBPlusTree}
+	 */
+	public PrefixNode<P> root() {
+		return root;
+	}
+
+	/**
+	 * Returns the number of entries in this {@code PrefixBPlusTree}.
+	 *
+	 * @return the number of entries in this {@code PrefixBPlusTree}
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Finds the {@code PrefixLeafNode} in this {@code PrefixBPlusTree} that must be responsible for the specified key.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the {@code PrefixLeafNode} in this {@code PrefixBPlusTree} that must be responsible for the specified
+	 *         key; {@code null} if this {@code PrefixBPlusTree} is empty
+	 */
+	public PrefixLeafNode<P> find(String k) {
+		return root == null ? null : root.find(k);
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are contained in this {@code PrefixBPlusTree}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are contained in this {@code PrefixBPlusTree};
+	 *         {@code false} otherwise
+	 */
+	public boolean contains(String k, P p) {
+		return root != null && leafOf(root.find(k), k, p) != null;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code PrefixBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 */
+	public void insert(String k, P p) {
+		PrefixLeafNode<P> l;
+		if (root == null) { // if the tree is empty
+			l = new PrefixLeafNode<P>(degree);
+			root = l;
+		} else {
+			l = root.find(k);
+			if (leafOf(l, k, p) != null) // no duplicate key-pointer entries are allowed in the tree
+				return;
+		}
+		int i = l.lowerBound(k);
+		if (!l.isFull()) {
+			l.insert(i, k, p);
+		} else { // split l in place; only the new leaf is allocated
+			PrefixLeafNode<P> lp = new PrefixLeafNode<P>(degree);
+			int m = (degree + 1) / 2; // l keeps the first m of the degree entries
+			if (i < m) {
+				l.moveTo(lp, m - 1, l.keyCount);
+				l.insert(i, k, p);
+			} else {
+				l.moveTo(lp, m, l.keyCount);
+				lp.insert(i - m, k, p);
+			}
+			l.compress(); // each half may share a longer prefix than the whole
+			lp.compress();
+			lp.successor = l.successor;
+			l.successor = lp;
+			insertInParent(l, Separator.shortestPrefix().separate(l.key(l.keyCount - 1), lp.key(0)), lp);
+		}
+		size++;
+	}
+
+	/**
+	 * Inserts a pointer to the specified new {@code PrefixNode} into the parent of the specified {@code PrefixNode}.
+	 *
+	 * @param n
+	 *            a {@code PrefixNode}
+	 * @param k
+	 *            the key between the {@code PrefixNode}s
+	 * @param np
+	 *            a new {@code PrefixNode}
+	 */
+	void insertInParent(PrefixNode<P> n, String k, PrefixNode<P> np) {
+		if (n == root) {
+			root = new PrefixNonLeafNode<P>(degree, n, k, np);
+			return;
+		}
+		PrefixNonLeafNode<P> p = n.parent;
+		int ci = p.indexOf(n);
+		if (!p.isFull()) {
+			p.insert(ci, k, np);
+			return;
+		}
+		// lay out the degree suffixes and degree + 1 children of the overfull node, then split them
+		char[] suffix = p.encode(k);
+		System.arraycopy(p.suffixes, 0, splitSuffixes, 0, ci);
+		splitSuffixes[ci] = suffix;
+		System.arraycopy(p.suffixes, ci, splitSuffixes, ci + 1, p.keyCount - ci);
+		System.arraycopy(p.children, 0, splitChildren, 0, ci + 1);
+		splitChildren[ci + 1] = np;
+		System.arraycopy(p.children, ci + 1, splitChildren, ci + 2, p.keyCount - ci);
+		int m = (degree + 1) / 2; // p keeps m children; the key between the halves moves up
+		PrefixNonLeafNode<P> pp = new PrefixNonLeafNode<P>(degree);
+		pp.prefix = p.prefix;
+		String up = new String(PrefixNode.join(p.prefix, 0, splitSuffixes[m - 1]));
+		System.arraycopy(splitSuffixes, 0, p.suffixes, 0, m - 1);
+		System.arraycopy(splitChildren, 0, p.children, 0, m);
+		for (int j = m - 1; j < p.suffixes.length; j++)
+			p.suffixes[j] = null;
+		for (int j = m; j < p.children.length; j++)
+			p.children[j] = null;
+		p.keyCount = m - 1;
+		System.arraycopy(splitSuffixes, m, pp.suffixes, 0, degree - m);
+		System.arraycopy(splitChildren, m, pp.children, 0, degree + 1 - m);
+		pp.keyCount = degree - m;
+		for (int j = 0; j < splitSuffixes.length; j++)
+			splitSuffixes[j] = null;
+		for (int j = 0; j < m; j++)
+			p.children[j].parent = p;
+		for (int j = 0; j <= pp.keyCount; j++)
+			pp.children[j].parent = pp;
+		p.compress();
+		pp.compress();
+		insertInParent(p, up, pp);
+	}
+
+	/**
+	 * Removes the specified key and pointer from this {@code PrefixBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 */
+	public void delete(String k, P p) {
+		if (root == null)
+			return;
+		PrefixLeafNode<P> l = leafOf(root.find(k), k, p);
+		if (l == null)
+			return;
+		l.delete(l.indexOf(k, p));
+		size--;
+		if (l != root && l.keyCount < degree / 2) // fewer than ceil((degree - 1) / 2) entries
+			rebalance(l);
+	}
+
+	/**
+	 * Returns the {@code PrefixLeafNode} containing the specified key and pointer, starting from the specified
+	 * {@code PrefixLeafNode} and following successors while they may contain the key.
+	 *
+	 * @param l
+	 *            the leftmost {@code PrefixLeafNode} that may contain the key
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the {@code PrefixLeafNode} containing the specified key and pointer; {@code null} if there is none
+	 */
+	PrefixLeafNode<P> leafOf(PrefixLeafNode<P> l, String k, P p) {
+		for (; l != null; l = l.successor) {
+			if (l.indexOf(k, p) >= 0)
+				return l;
+			if (l.keyCount > 0 && l.compare(l.keyCount - 1, k) > 0)
+				return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Merges or redistributes the specified under-utilized {@code PrefixLeafNode} with a sibling.
+	 *
+	 * @param l
+	 *            an under-utilized {@code PrefixLeafNode}
+	 */
+	void rebalance(PrefixLeafNode<P> l) {
+		PrefixNonLeafNode<P> p = l.parent;
+		int i = p.indexOf(l);
+		if (i > 0) {
+			PrefixLeafNode<P> left = (PrefixLeafNode<P>) p.children[i - 1];
+			if (left.keyCount + l.keyCount <= degree - 1) { // merge l into its left sibling
+				l.moveTo(left, 0, l.keyCount);
+				left.successor = l.successor;
+				p.delete(i - 1);
+				rebalance(p);
+			} else { // borrow the last entry of the left sibling
+				int last = left.keyCount - 1;
+				l.insert(0, left.key(last), left.pointer(last));
+				left.delete(last);
+				p.setKey(i - 1, l.key(0));
+			}
+		} else {
+			PrefixLeafNode<P> right = (PrefixLeafNode<P>) p.children[i + 1];
+			if (l.keyCount + right.keyCount <= degree - 1) { // merge the right sibling into l
+				right.moveTo(l, 0, right.keyCount);
+				l.successor = right.successor;
+				p.delete(i);
+				rebalance(p);
+			} else { // borrow the first entry of the right sibling
+				l.insert(l.keyCount, right.key(0), right.pointer(0));
+				right.delete(0);
+				p.setKey(i, right.key(0));
+			}
+		}
+	}
+
+	/**
+	 * Merges or redistributes the specified {@code PrefixNonLeafNode} with a sibling if it is under-utilized, and
+	 * shrinks the tree if the root is left with a single child.
+	 *
+	 * @param n
+	 *            a {@code PrefixNonLeafNode} that has just lost a child
+	 */
+	void rebalance(PrefixNonLeafNode<P> n) {
+		if (n == root) {
+			if (n.keyCount == 0) {
+				root = n.children[0];
+				root.parent = null;
+			}
+			return;
+		}
+		if (n.childCount() >= (degree + 1) / 2)
+			return;
+		PrefixNonLeafNode<P> p = n.parent;
+		int i = p.indexOf(n);
+		if (i > 0) {
+			PrefixNonLeafNode<P> left = (PrefixNonLeafNode<P>) p.children[i - 1];
+			if (left.childCount() + n.childCount() <= degree) { // merge n into its left sibling
+				append(left, p.key(i - 1), n);
+				p.delete(i - 1);
+				rebalance(p);
+			} else { // rotate the last child of the left sibling through the parent
+				PrefixNode<P> child = left.children[left.keyCount];
+				char[] suffix = n.encode(p.key(i - 1));
+				System.arraycopy(n.suffixes, 0, n.suffixes, 1, n.keyCount);
+				System.arraycopy(n.children, 0, n.children, 1, n.keyCount + 1);
+				n.suffixes[0] = suffix;
+				n.children[0] = child;
+				child.parent = n;
+				n.keyCount++;
+				p.setKey(i - 1, left.key(left.keyCount - 1));
+				left.suffixes[left.keyCount - 1] = null;
+				left.children[left.keyCount] = null;
+				left.keyCount--;
+			}
+		} else {
+			PrefixNonLeafNode<P> right = (PrefixNonLeafNode<P>) p.children[i + 1];
+			if (n.childCount() + right.childCount() <= degree) { // merge the right sibling into n
+				append(n, p.key(i), right);
+				p.delete(i);
+				rebalance(p);
+			} else { // rotate the first child of the right sibling through the parent
+				char[] suffix = n.encode(p.key(i));
+				n.suffixes[n.keyCount] = suffix;
+				n.children[n.keyCount + 1] = right.children[0];
+				right.children[0].parent = n;
+				n.keyCount++;
+				p.setKey(i, right.key(0));
+				System.arraycopy(right.suffixes, 1, right.suffixes, 0, right.keyCount - 1);
+				System.arraycopy(right.children, 1, right.children, 0, right.keyCount);
+				right.suffixes[right.keyCount - 1] = null;
+				right.children[right.keyCount] = null;
+				right.keyCount--;
+			}
+		}
+	}
+
+	/**
+	 * Appends the separating key and all keys and children of one {@code PrefixNonLeafNode} to another.
+	 *
+	 * @param target
+	 *            the {@code PrefixNonLeafNode} receiving the keys and children
+	 * @param k
+	 *            the key between the {@code PrefixNonLeafNode}s
+	 * @param source
+	 *            the {@code PrefixNonLeafNode} whose keys and children are moved
+	 */
+	private static <P> void append(PrefixNonLeafNode<P> target, String k, PrefixNonLeafNode<P> source) {
+		char[] suffix = target.encode(k);
+		target.suffixes[target.keyCount] = suffix;
+		target.keyCount++;
+		target.alignPrefix(source);
+		for (int j = 0; j < source.keyCount; j++)
+			target.suffixes[target.keyCount + j] = target.suffixOf(source, j);
+		System.arraycopy(source.children, 0, target.children, target.keyCount, source.keyCount + 1);
+		for (int j = 0; j <= source.keyCount; j++)
+			source.children[j].parent = target;
+		target.keyCount += source.keyCount;
+	}
+
+}
@@ -0,0 +1,165 @@
+package bptree.prefix;
+
+/**
+ * The {@code PrefixLeafNode} class implements leaf nodes in a {@code PrefixBPlusTree}. Pointers are kept in an array
+ * parallel to the suffixes, and {@code PrefixLeafNode}s are chained so each {@code PrefixLeafNode} except the last one
+ * has a successor.
+ *
+ * @param <P>
+ *            the type of pointers
+ */
+public class PrefixLeafNode<P> extends PrefixNode<P> {
+
+	/**
+	 * The pointers that this {@code PrefixLeafNode} maintains.
+	 */
+	protected final Object[] pointers;
+
+	/**
+	 * The successor of this {@code PrefixLeafNode}.
+	 */
+	protected PrefixLeafNode<P> successor = null;
+
+	/**
+	 * Constructs a {@code PrefixLeafNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code PrefixLeafNode}
+	 */
+	public PrefixLeafNode(int degree) {
+		super(degree);
+		pointers = new Object[degree - 1];
+	}
+
+	/**
+	 * Returns the pointer at the specified index.
+	 *
+	 * @param i
+	 *            the index of the pointer
+	 * @return the pointer at the specified index
+	 */
+	@SuppressWarnings("unchecked")
+	public P pointer(int i) {
+		return (P) pointers[i];
+	}
+
+	/**
+	 * Returns the successor of this {@code PrefixLeafNode}.
+	 *
+	 * @return the successor of this {@code PrefixLeafNode}
+	 */
+	public PrefixLeafNode<P> successor() {
+		return successor;
+	}
+
+	/**
+	 * Inserts the specified key and pointer at the specified index.
+	 *
+	 * @param i
+	 *            the index at which the key and pointer are inserted
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	public void insert(int i, String k, P p) {
+		char[] suffix = encode(k);
+		System.arraycopy(suffixes, i, suffixes, i + 1, keyCount - i);
+		System.arraycopy(pointers, i, pointers, i + 1, keyCount - i);
+		suffixes[i] = suffix;
+		pointers[i] = p;
+		keyCount++;
+	}
+
+	/**
+	 * Removes the key and pointer at the specified index.
+	 *
+	 * @param i
+	 *            the index at which the key and pointer are deleted
+	 */
+	public void delete(int i) {
+		System.arraycopy(suffixes, i + 1, suffixes, i, keyCount - i - 1);
+		System.arraycopy(pointers, i + 1, pointers, i, keyCount - i - 1);
+		keyCount--;
+		suffixes[keyCount] = null;
+		pointers[keyCount] = null;
+	}
+
+	/**
+	 * Determines whether or not the specified key and pointer are contained in this {@code PrefixLeafNode}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the specified key and pointer are contained in this {@code PrefixLeafNode};
+	 *         {@code false} otherwise
+	 */
+	public boolean contains(String k, P p) {
+		return indexOf(k, p) >= 0;
+	}
+
+	/**
+	 * Returns the index of the specified key and pointer in this {@code PrefixLeafNode}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return the index of the specified key and pointer; -1 if they are not contained in this
+	 *         {@code PrefixLeafNode}
+	 */
+	public int indexOf(String k, P p) {
+		for (int i = lowerBound(k); i < keyCount && compare(i, k) == 0; i++)
+			if (pointers[i].equals(p))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Moves the specified entries of this {@code PrefixLeafNode} to the end of the specified {@code PrefixLeafNode},
+	 * whose prefix is shortened if needed.
+	 *
+	 * @param target
+	 *            the {@code PrefixLeafNode} receiving the entries
+	 * @param beginIndex
+	 *            the index of the first entry to move, inclusive
+	 * @param endIndex
+	 *            the index of the last entry to move, exclusive
+	 */
+	void moveTo(PrefixLeafNode<P> target, int beginIndex, int endIndex) {
+		target.alignPrefix(this);
+		for (int i = beginIndex; i < endIndex; i++) {
+			target.suffixes[target.keyCount] = target.suffixOf(this, i);
+			target.pointers[target.keyCount] = pointers[i];
+			target.keyCount++;
+		}
+		int n = endIndex - beginIndex;
+		System.arraycopy(suffixes, endIndex, suffixes, beginIndex, keyCount - endIndex);
+		System.arraycopy(pointers, endIndex, pointers, beginIndex, keyCount - endIndex);
+		for (int i = keyCount - n; i < keyCount; i++) {
+			suffixes[i] = null;
+			pointers[i] = null;
+		}
+		keyCount -= n;
+	}
+
+	/**
+	 * Finds, starting from this {@code PrefixLeafNode}, the {@code PrefixLeafNode} that is responsible for the
+	 * specified key. The successor is responsible for the key if all keys of this {@code PrefixLeafNode} are smaller
+	 * than the key and the successor starts with the key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code PrefixLeafNode} that is responsible for the specified key
+	 */
+	@Override
+	public PrefixLeafNode<P> find(String k) {
+		PrefixLeafNode<P> l = this;
+		while ((l.keyCount == 0 || l.compare(l.keyCount - 1, k) < 0) && l.successor != null
+				&& l.successor.keyCount > 0 && l.successor.compare(0, k) <= 0)
+			l = l.successor;
+		return l;
+	}
+
+}
@@ -0,0 +1,315 @@
+package bptree.prefix;
+
+import java.util.Arrays;
+
+/**
+ * The {@code PrefixNode} class implements nodes that constitute a {@code PrefixBPlusTree}. The longest prefix that the
+ * keys of a {@code PrefixNode} share is stored once, and each key is stored as the {@code char[]} suffix following that
+ * prefix. A search key is compared with the prefix once per node, after which every probe of the binary search compares
+ * only suffixes, starting right after the prefix.
+ * <p>
+ * Prefixes and suffixes are never modified once created, so {@code PrefixNode}s may share them. A prefix only has to be
+ * common to the keys of its {@code PrefixNode}: it is shortened when a key that does not start with it is added, and it
+ * is extended again by {@link #compress()} when a {@code PrefixNode} is split.
+ *
+ * @param <P>
+ *            the type of pointers
+ */
+public abstract class PrefixNode<P> {
+
+	/**
+	 * The empty prefix or suffix.
+	 */
+	static final char[] EMPTY = new char[0];
+
+	/**
+	 * The number of keys that this {@code PrefixNode} currently maintains.
+	 */
+	protected int keyCount;
+
+	/**
+	 * The prefix shared by the keys of this {@code PrefixNode}.
+	 */
+	protected char[] prefix = EMPTY;
+
+	/**
+	 * The suffixes that follow the prefix in the keys of this {@code PrefixNode}.
+	 */
+	protected final char[][] suffixes;
+
+	/**
+	 * The parent {@code PrefixNode} of this {@code PrefixNode}.
+	 */
+	protected PrefixNonLeafNode<P> parent = null;
+
+	/**
+	 * Constructs a {@code PrefixNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code PrefixNode}
+	 */
+	public PrefixNode(int degree) {
+		suffixes = new char[degree - 1][];
+	}
+
+	/**
+	 * Returns the parent {@code PrefixNode} of this {@code PrefixNode}.
+	 *
+	 * @return the parent {@code PrefixNode} of this {@code PrefixNode}
+	 */
+	public PrefixNonLeafNode<P> parent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code PrefixNode}.
+	 *
+	 * @return the number of keys in this {@code PrefixNode}
+	 */
+	public int keyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Returns the prefix shared by the keys of this {@code PrefixNode}.
+	 *
+	 * @return the prefix shared by the keys of this {@code PrefixNode}
+	 */
+	public String prefix() {
+		return new String(prefix);
+	}
+
+	/**
+	 * Returns the key at the specified index.
+	 *
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index
+	 */
+	public String key(int i) {
+		return new String(join(prefix, 0, suffixes[i]));
+	}
+
+	/**
+	 * Determines whether or not this {@code PrefixNode} is full and thus cannot contain more keys.
+	 *
+	 * @return {@code true} if this {@code PrefixNode} is full and thus cannot contain more keys; {@code false}
+	 *         otherwise
+	 */
+	public boolean isFull() {
+		return keyCount >= suffixes.length;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code PrefixNode} that are smaller than the specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the number of keys in this {@code PrefixNode} that are smaller than the specified key
+	 */
+	public int lowerBound(String k) {
+		int c = matchPrefix(k);
+		if (c != 0) // the key sorts before or after all keys sharing the prefix
+			return c < 0 ? 0 : keyCount;
+		int from = prefix.length;
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(suffixes[mid], k, from) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Compares the key at the specified index with the specified key.
+	 *
+	 * @param i
+	 *            the index of a key
+	 * @param k
+	 *            a key
+	 * @return a negative integer, zero, or a positive integer as the key at the specified index is less than, equal
+	 *         to, or greater than the specified key
+	 */
+	public int compare(int i, String k) {
+		int c = matchPrefix(k);
+		return c != 0 ? -c : compare(suffixes[i], k, prefix.length);
+	}
+
+	/**
+	 * Compares the specified key with the prefix of this {@code PrefixNode}.
+	 *
+	 * @param k
+	 *            a key
+	 * @return 0 if the key starts with the prefix; otherwise, a negative or positive integer as the key is smaller or
+	 *         greater than every key starting with the prefix
+	 */
+	int matchPrefix(String k) {
+		int n = prefix.length;
+		int m = Math.min(n, k.length());
+		for (int j = 0; j < m; j++) {
+			int c = k.charAt(j) - prefix[j];
+			if (c != 0)
+				return c;
+		}
+		return m < n ? -1 : 0; // a proper prefix of the prefix is smaller than the keys
+	}
+
+	/**
+	 * Compares a suffix with the specified key from the specified index on.
+	 *
+	 * @param suffix
+	 *            a suffix
+	 * @param k
+	 *            a key
+	 * @param from
+	 *            the index of the first character of the key to compare
+	 * @return a negative integer, zero, or a positive integer as the suffix is less than, equal to, or greater than
+	 *         {@code k.substring(from)}
+	 */
+	static int compare(char[] suffix, String k, int from) {
+		int length = k.length() - from;
+		int n = Math.min(suffix.length, length);
+		for (int j = 0; j < n; j++) {
+			int c = suffix[j] - k.charAt(from + j);
+			if (c != 0)
+				return c;
+		}
+		return suffix.length - length;
+	}
+
+	/**
+	 * Returns the suffix of the specified key, shortening the prefix of this {@code PrefixNode} first if the key does
+	 * not start with it.
+	 *
+	 * @param k
+	 *            a key that is about to be stored in this {@code PrefixNode}
+	 * @return the suffix of the specified key
+	 */
+	char[] encode(String k) {
+		int m = Math.min(prefix.length, k.length());
+		int j = 0;
+		while (j < m && k.charAt(j) == prefix[j])
+			j++;
+		if (j < prefix.length)
+			shrinkPrefix(j);
+		char[] suffix = new char[k.length() - j];
+		k.getChars(j, k.length(), suffix, 0);
+		return suffix;
+	}
+
+	/**
+	 * Shortens the prefix of this {@code PrefixNode}, moving the removed characters into every suffix.
+	 *
+	 * @param length
+	 *            the new length of the prefix
+	 */
+	void shrinkPrefix(int length) {
+		for (int i = 0; i < keyCount; i++)
+			suffixes[i] = join(prefix, length, suffixes[i]);
+		prefix = Arrays.copyOf(prefix, length);
+	}
+
+	/**
+	 * Extends the prefix of this {@code PrefixNode} to the longest prefix shared by its keys. As the keys are sorted,
+	 * this is the prefix shared by the first and the last key.
+	 */
+	void compress() {
+		if (keyCount == 0) {
+			prefix = EMPTY;
+			return;
+		}
+		char[] first = suffixes[0];
+		char[] last = suffixes[keyCount - 1];
+		int m = Math.min(first.length, last.length);
+		int e = 0;
+		while (e < m && first[e] == last[e])
+			e++;
+		if (e == 0)
+			return;
+		char[] p = Arrays.copyOf(prefix, prefix.length + e);
+		System.arraycopy(first, 0, p, prefix.length, e);
+		prefix = p;
+		for (int i = 0; i < keyCount; i++)
+			suffixes[i] = Arrays.copyOfRange(suffixes[i], e, suffixes[i].length);
+	}
+
+	/**
+	 * Shortens the prefix of this {@code PrefixNode} so that it is also a prefix of the prefix of the specified
+	 * {@code PrefixNode}, whose suffixes can then be moved here by {@link #suffixOf(PrefixNode, int)}.
+	 *
+	 * @param source
+	 *            the {@code PrefixNode} whose keys are about to be moved into this {@code PrefixNode}
+	 */
+	void alignPrefix(PrefixNode<P> source) {
+		if (keyCount == 0) {
+			prefix = source.prefix;
+			return;
+		}
+		int m = Math.min(prefix.length, source.prefix.length);
+		int j = 0;
+		while (j < m && prefix[j] == source.prefix[j])
+			j++;
+		if (j < prefix.length)
+			shrinkPrefix(j);
+	}
+
+	/**
+	 * Returns the suffix that the specified key of the specified {@code PrefixNode} has in this {@code PrefixNode}.
+	 * The prefix of this {@code PrefixNode} must be a prefix of that of the specified {@code PrefixNode}.
+	 *
+	 * @param source
+	 *            a {@code PrefixNode}
+	 * @param i
+	 *            the index of a key of the specified {@code PrefixNode}
+	 * @return the suffix that the specified key has in this {@code PrefixNode}
+	 */
+	char[] suffixOf(PrefixNode<P> source, int i) {
+		if (source.prefix.length == prefix.length)
+			return source.suffixes[i]; // suffixes are immutable and thus can be shared
+		return join(source.prefix, prefix.length, source.suffixes[i]);
+	}
+
+	/**
+	 * Returns the concatenation of the tail of a prefix and a suffix.
+	 *
+	 * @param prefix
+	 *            a prefix
+	 * @param from
+	 *            the index of the first character of the prefix to include
+	 * @param suffix
+	 *            a suffix
+	 * @return the characters of the prefix from the specified index on, followed by those of the suffix
+	 */
+	static char[] join(char[] prefix, int from, char[] suffix) {
+		char[] c = new char[prefix.length - from + suffix.length];
+		System.arraycopy(prefix, from, c, 0, prefix.length - from);
+		System.arraycopy(suffix, 0, c, prefix.length - from, suffix.length);
+		return c;
+	}
+
+	/**
+	 * Returns a string representation of this {@code PrefixNode}.
+	 */
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append(keyCount).append(" \"").append(prefix).append("\" [");
+		for (int i = 0; i < keyCount; i++)
+			b.append(i == 0 ? "" : ", ").append(suffixes[i]);
+		return b.append(']').toString();
+	}
+
+	/**
+	 * Finds, starting from this {@code PrefixNode}, the {@code PrefixLeafNode} that is responsible for the specified
+	 * key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code PrefixLeafNode} that is responsible for the specified key
+	 */
+	public abstract PrefixLeafNode<P> find(String k);
+
+}
@@ -0,0 +1,145 @@
+package bptree.prefix;
+
+/**
+ * The {@code PrefixNonLeafNode} class implements non-leaf nodes in a {@code PrefixBPlusTree}. Its separating keys are
+ * prefix-compressed like the keys of leaves.
+ *
+ * @param <P>
+ *            the type of pointers
+ */
+public class PrefixNonLeafNode<P> extends PrefixNode<P> {
+
+	/**
+	 * The children of this {@code PrefixNonLeafNode}.
+	 */
+	protected final PrefixNode<P>[] children;
+
+	/**
+	 * Constructs a {@code PrefixNonLeafNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code PrefixNonLeafNode}
+	 */
+	@SuppressWarnings("unchecked")
+	public PrefixNonLeafNode(int degree) {
+		super(degree);
+		children = (PrefixNode<P>[]) new PrefixNode<?>[degree];
+	}
+
+	/**
+	 * Constructs a {@code PrefixNonLeafNode} while adding the specified key and registering the specified
+	 * {@code PrefixNode}s as children.
+	 *
+	 * @param degree
+	 *            the degree of the {@code PrefixNonLeafNode}
+	 * @param n
+	 *            a {@code PrefixNode}
+	 * @param key
+	 *            a key
+	 * @param nn
+	 *            a {@code PrefixNode}
+	 */
+	public PrefixNonLeafNode(int degree, PrefixNode<P> n, String key, PrefixNode<P> nn) {
+		this(degree);
+		children[0] = n;
+		n.parent = this;
+		suffixes[0] = encode(key);
+		children[1] = nn;
+		nn.parent = this;
+		keyCount = 1;
+	}
+
+	/**
+	 * Returns the child at the specified index.
+	 *
+	 * @param i
+	 *            the index of the child
+	 * @return the child at the specified index
+	 */
+	public PrefixNode<P> child(int i) {
+		return children[i];
+	}
+
+	/**
+	 * Returns the number of children that this {@code PrefixNonLeafNode} has.
+	 *
+	 * @return the number of children that this {@code PrefixNonLeafNode} has
+	 */
+	public int childCount() {
+		return keyCount + 1;
+	}
+
+	/**
+	 * Returns the index of the specified child.
+	 *
+	 * @param child
+	 *            a child of this {@code PrefixNonLeafNode}
+	 * @return the index of the specified child
+	 */
+	public int indexOf(PrefixNode<P> child) {
+		for (int i = 0; i <= keyCount; i++)
+			if (children[i] == child)
+				return i;
+		throw new IllegalStateException("There must be a bug in the code. This case must not happen!");
+	}
+
+	/**
+	 * Inserts a key at the specified index and a child right after the key.
+	 *
+	 * @param i
+	 *            the index at which the key is inserted
+	 * @param k
+	 *            a key
+	 * @param child
+	 *            the child to the right of the key
+	 */
+	public void insert(int i, String k, PrefixNode<P> child) {
+		char[] suffix = encode(k);
+		System.arraycopy(suffixes, i, suffixes, i + 1, keyCount - i);
+		System.arraycopy(children, i + 1, children, i + 2, keyCount - i);
+		suffixes[i] = suffix;
+		children[i + 1] = child;
+		child.parent = this;
+		keyCount++;
+	}
+
+	/**
+	 * Replaces the key at the specified index.
+	 *
+	 * @param i
+	 *            the index of the key
+	 * @param k
+	 *            the new key
+	 */
+	public void setKey(int i, String k) {
+		suffixes[i] = encode(k);
+	}
+
+	/**
+	 * Removes the key at the specified index and the child right after the key.
+	 *
+	 * @param i
+	 *            the index of the key to remove
+	 */
+	public void delete(int i) {
+		System.arraycopy(suffixes, i + 1, suffixes, i, keyCount - i - 1);
+		System.arraycopy(children, i + 2, children, i + 1, keyCount - i - 1);
+		suffixes[keyCount - 1] = null;
+		children[keyCount] = null;
+		keyCount--;
+	}
+
+	/**
+	 * Finds, starting from this {@code PrefixNonLeafNode}, the {@code PrefixLeafNode} that is responsible for the
+	 * specified key. Keys equal to a separating key are looked for in the left subtree.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code PrefixLeafNode} that is responsible for the specified key
+	 */
+	@Override
+	public PrefixLeafNode<P> find(String k) {
+		return children[lowerBound(k)].find(k);
+	}
+
+}
@@ -0,0 +1,343 @@
+package bptree.primitive;
+
+/**
+ * The {@code LongLongBPlusTree} class implements B+-trees whose keys and values are {@code long}s. It has the same
+ * semantics as {@code BPlusTree<Long, Long>} (several values may share a key, but the same key-value entry is never
+ * stored twice), but its nodes keep keys and values in {@code long[]}s. Thus no entry costs a boxed object and each
+ * probe is a primitive comparison within a binary search rather than a virtual {@code compareTo} call.
+ */
+public class LongLongBPlusTree {
+
+	/**
+	 * The maximum number of pointers that each {@code LongLongNode} of this {@code LongLongBPlusTree} can have.
+	 */
+	protected final int degree;
+
+	/**
+	 * The root node of this {@code LongLongBPlusTree}.
+	 */
+	protected LongLongNode root;
+
+	/**
+	 * The number of entries in this {@code LongLongBPlusTree}.
+	 */
+	protected long size = 0;
+
+	/**
+	 * Scratch keys used while splitting a full {@code LongLongNonLeafNode}.
+	 */
+	private final long[] splitKeys;
+
+	/**
+	 * Scratch children used while splitting a full {@code LongLongNonLeafNode}.
+	 */
+	private final LongLongNode[] splitChildren;
+
+	/**
+	 * Constructs a {@code LongLongBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongLongNode} of this {@code LongLongBPlusTree} can
+	 *            have.
+	 */
+	public LongLongBPlusTree(int degree) {
+		if (degree < 3)
+			throw new IllegalArgumentException("the degree must be at least 3");
+		this.degree = degree;
+		this.splitKeys = new long[degree];
+		this.splitChildren = new LongLongNode[degree + 1];
+	}
+
+	/**
+	 * Returns the degree of this {@code LongLongBPlusTree}.
+	 *
+	 * @return the degree of this {@code LongLongBPlusTree}
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the root {@code LongLongNode} of this {@code LongLongBPlusTree}.
+	 *
+	 * @return the root {@code LongLongNode} of this {@code LongLongBPlusTree}
+	 */
+	public LongLongNode root() {
+		return root;
+	}
+
+	/**
+	 * Returns the number of entries in this {@code LongLongBPlusTree}.
+	 *
+	 * @return the number of entries in this {@code LongLongBPlusTree}
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Finds the {@code LongLongLeafNode} in this {@code LongLongBPlusTree} that must be responsible for the specified
+	 * key.
+	 *
+	 * @param k
+	 *            the search key
+	 * @return the {@code LongLongLeafNode} in this {@code LongLongBPlusTree} that must be responsible for the
+	 *         specified key; {@code null} if this {@code LongLongBPlusTree} is empty
+	 */
+	public LongLongLeafNode find(long k) {
+		return root == null ? null : root.find(k);
+	}
+
+	/**
+	 * Determines whether or not the specified key and value are contained in this {@code LongLongBPlusTree}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 * @return {@code true} if the specified key and value are contained in this {@code LongLongBPlusTree};
+	 *         {@code false} otherwise
+	 */
+	public boolean contains(long k, long v) {
+		return root != null && leafOf(root.find(k), k, v) != null;
+	}
+
+	/**
+	 * Inserts the specified key and value into this {@code LongLongBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param v
+	 *            the value to insert
+	 */
+	public void insert(long k, long v) {
+		LongLongLeafNode l;
+		if (root == null) { // if the tree is empty
+			l = new LongLongLeafNode(degree);
+			root = l;
+		} else {
+			l = root.find(k);
+			if (leafOf(l, k, v) != null) // no duplicate key-value entries are allowed in the tree
+				return;
+		}
+		int i = l.lowerBound(k);
+		if (!l.isFull()) {
+			l.insert(i, k, v);
+		} else { // split l in place; only the new leaf is allocated
+			LongLongLeafNode lp = new LongLongLeafNode(degree);
+			int m = (degree + 1) / 2; // l keeps the first m of the degree entries
+			if (i < m) {
+				l.moveTo(lp, m - 1, l.keyCount);
+				l.insert(i, k, v);
+			} else {
+				l.moveTo(lp, m, l.keyCount);
+				lp.insert(i - m, k, v);
+			}
+			lp.successor = l.successor;
+			l.successor = lp;
+			insertInParent(l, lp.keys[0], lp);
+		}
+		size++;
+	}
+
+	/**
+	 * Inserts a pointer to the specified new {@code LongLongNode} into the parent of the specified
+	 * {@code LongLongNode}.
+	 *
+	 * @param n
+	 *            a {@code LongLongNode}
+	 * @param k
+	 *            the key between the {@code LongLongNode}s
+	 * @param np
+	 *            a new {@code LongLongNode}
+	 */
+	void insertInParent(LongLongNode n, long k, LongLongNode np) {
+		if (n == root) {
+			root = new LongLongNonLeafNode(degree, n, k, np);
+			return;
+		}
+		LongLongNonLeafNode p = n.parent;
+		int ci = p.indexOf(n);
+		if (!p.isFull()) {
+			p.insert(ci, k, np);
+			return;
+		}
+		// lay out the degree keys and degree + 1 children of the overfull node, then split them
+		System.arraycopy(p.keys, 0, splitKeys, 0, ci);
+		splitKeys[ci] = k;
+		System.arraycopy(p.keys, ci, splitKeys, ci + 1, p.keyCount - ci);
+		System.arraycopy(p.children, 0, splitChildren, 0, ci + 1);
+		splitChildren[ci + 1] = np;
+		System.arraycopy(p.children, ci + 1, splitChildren, ci + 2, p.keyCount - ci);
+		int m = (degree + 1) / 2; // p keeps m children; the key between the halves moves up
+		LongLongNonLeafNode pp = new LongLongNonLeafNode(degree);
+		System.arraycopy(splitKeys, 0, p.keys, 0, m - 1);
+		System.arraycopy(splitChildren, 0, p.children, 0, m);
+		for (int j = m; j < p.children.length; j++)
+			p.children[j] = null;
+		p.keyCount = m - 1;
+		System.arraycopy(splitKeys, m, pp.keys, 0, degree - m);
+		System.arraycopy(splitChildren, m, pp.children, 0, degree + 1 - m);
+		pp.keyCount = degree - m;
+		for (int j = 0; j < m; j++)
+			p.children[j].parent = p;
+		for (int j = 0; j <= pp.keyCount; j++)
+			pp.children[j].parent = pp;
+		insertInParent(p, splitKeys[m - 1], pp);
+	}
+
+	/**
+	 * Removes the specified key and value from this {@code LongLongBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param v
+	 *            the value to delete
+	 */
+	public void delete(long k, long v) {
+		if (root == null)
+			return;
+		LongLongLeafNode l = leafOf(root.find(k), k, v);
+		if (l == null)
+			return;
+		l.delete(l.indexOf(k, v));
+		size--;
+		if (l != root && l.keyCount < degree / 2) // fewer than ceil((degree - 1) / 2) entries
+			rebalance(l);
+	}
+
+	/**
+	 * Returns the {@code LongLongLeafNode} containing the specified key and value, starting from the specified
+	 * {@code LongLongLeafNode} and following successors while they may contain the key.
+	 *
+	 * @param l
+	 *            the leftmost {@code LongLongLeafNode} that may contain the key
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 * @return the {@code LongLongLeafNode} containing the specified key and value; {@code null} if there is none
+	 */
+	LongLongLeafNode leafOf(LongLongLeafNode l, long k, long v) {
+		for (; l != null; l = l.successor) {
+			if (l.indexOf(k, v) >= 0)
+				return l;
+			if (l.keyCount > 0 && l.keys[l.keyCount - 1] > k)
+				return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Merges or redistributes the specified under-utilized {@code LongLongLeafNode} with a sibling.
+	 *
+	 * @param l
+	 *            an under-utilized {@code LongLongLeafNode}
+	 */
+	void rebalance(LongLongLeafNode l) {
+		LongLongNonLeafNode p = l.parent;
+		int i = p.indexOf(l);
+		if (i > 0) {
+			LongLongLeafNode left = (LongLongLeafNode) p.children[i - 1];
+			if (left.keyCount + l.keyCount <= degree - 1) { // merge l into its left sibling
+				l.moveTo(left, 0, l.keyCount);
+				left.successor = l.successor;
+				p.delete(i - 1);
+				rebalance(p);
+			} else { // borrow the last entry of the left sibling
+				l.insert(0, left.keys[left.keyCount - 1], left.values[left.keyCount - 1]);
+				left.keyCount--;
+				p.keys[i - 1] = l.keys[0];
+			}
+		} else {
+			LongLongLeafNode right = (LongLongLeafNode) p.children[i + 1];
+			if (l.keyCount + right.keyCount <= degree - 1) { // merge the right sibling into l
+				right.moveTo(l, 0, right.keyCount);
+				l.successor = right.successor;
+				p.delete(i);
+				rebalance(p);
+			} else { // borrow the first entry of the right sibling
+				l.insert(l.keyCount, right.keys[0], right.values[0]);
+				right.delete(0);
+				p.keys[i] = right.keys[0];
+			}
+		}
+	}
+
+	/**
+	 * Merges or redistributes the specified {@code LongLongNonLeafNode} with a sibling if it is under-utilized, and
+	 * shrinks the tree if the root is left with a single child.
+	 *
+	 * @param n
+	 *            a {@code LongLongNonLeafNode} that has just lost a child
+	 */
+	void rebalance(LongLongNonLeafNode n) {
+		if (n == root) {
+			if (n.keyCount == 0) {
+				root = n.children[0];
+				root.parent = null;
+			}
+			return;
+		}
+		if (n.childCount() >= (degree + 1) / 2)
+			return;
+		LongLongNonLeafNode p = n.parent;
+		int i = p.indexOf(n);
+		if (i > 0) {
+			LongLongNonLeafNode left = (LongLongNonLeafNode) p.children[i - 1];
+			if (left.childCount() + n.childCount() <= degree) { // merge n into its left sibling
+				append(left, p.keys[i - 1], n);
+				p.delete(i - 1);
+				rebalance(p);
+			} else { // rotate the last child of the left sibling through the parent
+				LongLongNode child = left.children[left.keyCount];
+				System.arraycopy(n.keys, 0, n.keys, 1, n.keyCount);
+				System.arraycopy(n.children, 0, n.children, 1, n.keyCount + 1);
+				n.keys[0] = p.keys[i - 1];
+				n.children[0] = child;
+				child.parent = n;
+				n.keyCount++;
+				p.keys[i - 1] = left.keys[left.keyCount - 1];
+				left.children[left.keyCount] = null;
+				left.keyCount--;
+			}
+		} else {
+			LongLongNonLeafNode right = (LongLongNonLeafNode) p.children[i + 1];
+			if (n.childCount() + right.childCount() <= degree) { // merge the right sibling into n
+				append(n, p.keys[i], right);
+				p.delete(i);
+				rebalance(p);
+			} else { // rotate the first child of the right sibling through the parent
+				n.keys[n.keyCount] = p.keys[i];
+				n.children[n.keyCount + 1] = right.children[0];
+				right.children[0].parent = n;
+				n.keyCount++;
+				p.keys[i] = right.keys[0];
+				System.arraycopy(right.keys, 1, right.keys, 0, right.keyCount - 1);
+				System.arraycopy(right.children, 1, right.children, 0, right.keyCount);
+				right.children[right.keyCount] = null;
+				right.keyCount--;
+			}
+		}
+	}
+
+	/**
+	 * Appends the separating key and all keys and children of one {@code LongLongNonLeafNode} to another.
+	 *
+	 * @param target
+	 *            the {@code LongLongNonLeafNode} receiving the keys and children
+	 * @param k
+	 *            the key between the {@code LongLongNonLeafNode}s
+	 * @param source
+	 *            the {@code LongLongNonLeafNode} whose keys and children are moved
+	 */
+	private static void append(LongLongNonLeafNode target, long k, LongLongNonLeafNode source) {
+		target.keys[target.keyCount] = k;
+		System.arraycopy(source.keys, 0, target.keys, target.keyCount + 1, source.keyCount);
+		System.arraycopy(source.children, 0, target.children, target.keyCount + 1, source.keyCount + 1);
+		for (int j = 0; j <= source.keyCount; j++)
+			source.children[j].parent = target;
+		target.keyCount += source.keyCount + 1;
+	}
+
+}
@@ -0,0 +1,151 @@
+package bptree.primitive;
+
+/**
+ * The {@code LongLongLeafNode} class implements leaf nodes in a {@code LongLongBPlusTree}. Values are kept in a
+ * {@code long[]} parallel to the keys, and {@code LongLongLeafNode}s are chained so each {@code LongLongLeafNode}
+ * except the last one has a successor.
+ */
+public class LongLongLeafNode extends LongLongNode {
+
+	/**
+	 * The values that this {@code LongLongLeafNode} maintains.
+	 */
+	protected final long[] values;
+
+	/**
+	 * The successor of this {@code LongLongLeafNode}.
+	 */
+	protected LongLongLeafNode successor = null;
+
+	/**
+	 * Constructs a {@code LongLongLeafNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code LongLongLeafNode}
+	 */
+	public LongLongLeafNode(int degree) {
+		super(degree);
+		values = new long[degree - 1];
+	}
+
+	/**
+	 * Returns the value at the specified index.
+	 *
+	 * @param i
+	 *            the index of the value
+	 * @return the value at the specified index
+	 */
+	public long value(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Returns the successor of this {@code LongLongLeafNode}.
+	 *
+	 * @return the successor of this {@code LongLongLeafNode}
+	 */
+	public LongLongLeafNode successor() {
+		return successor;
+	}
+
+	/**
+	 * Inserts the specified key and value at the specified index.
+	 *
+	 * @param i
+	 *            the index at which the key and value are inserted
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 */
+	public void insert(int i, long k, long v) {
+		System.arraycopy(keys, i, keys, i + 1, keyCount - i);
+		System.arraycopy(values, i, values, i + 1, keyCount - i);
+		keys[i] = k;
+		values[i] = v;
+		keyCount++;
+	}
+
+	/**
+	 * Removes the key and value at the specified index.
+	 *
+	 * @param i
+	 *            the index at which the key and value are deleted
+	 */
+	public void delete(int i) {
+		System.arraycopy(keys, i + 1, keys, i, keyCount - i - 1);
+		System.arraycopy(values, i + 1, values, i, keyCount - i - 1);
+		keyCount--;
+	}
+
+	/**
+	 * Determines whether or not the specified key and value are contained in this {@code LongLongLeafNode}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 * @return {@code true} if the specified key and value are contained in this {@code LongLongLeafNode};
+	 *         {@code false} otherwise
+	 */
+	public boolean contains(long k, long v) {
+		return indexOf(k, v) >= 0;
+	}
+
+	/**
+	 * Returns the index of the specified key and value in this {@code LongLongLeafNode}.
+	 *
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 * @return the index of the specified key and value; -1 if they are not contained in this
+	 *         {@code LongLongLeafNode}
+	 */
+	public int indexOf(long k, long v) {
+		for (int i = lowerBound(k); i < keyCount && keys[i] == k; i++)
+			if (values[i] == v)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Moves the specified entries of this {@code LongLongLeafNode} to the end of the specified
+	 * {@code LongLongLeafNode}.
+	 *
+	 * @param target
+	 *            the {@code LongLongLeafNode} receiving the entries
+	 * @param beginIndex
+	 *            the index of the first entry to move, inclusive
+	 * @param endIndex
+	 *            the index of the last entry to move, exclusive
+	 */
+	void moveTo(LongLongLeafNode target, int beginIndex, int endIndex) {
+		int n = endIndex - beginIndex;
+		System.arraycopy(keys, beginIndex, target.keys, target.keyCount, n);
+		System.arraycopy(values, beginIndex, target.values, target.keyCount, n);
+		target.keyCount += n;
+		System.arraycopy(keys, endIndex, keys, beginIndex, keyCount - endIndex);
+		System.arraycopy(values, endIndex, values, beginIndex, keyCount - endIndex);
+		keyCount -= n;
+	}
+
+	/**
+	 * Finds, starting from this {@code LongLongLeafNode}, the {@code LongLongLeafNode} that is responsible for the
+	 * specified key. The successor is responsible for the key if all keys of this {@code LongLongLeafNode} are
+	 * smaller than the key and the successor starts with the key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code LongLongLeafNode} that is responsible for the specified key
+	 */
+	@Override
+	public LongLongLeafNode find(long k) {
+		LongLongLeafNode l = this;
+		while ((l.keyCount == 0 || l.keys[l.keyCount - 1] < k) && l.successor != null && l.successor.keyCount > 0
+				&& l.successor.keys[0] <= k)
+			l = l.successor;
+		return l;
+	}
+
+}
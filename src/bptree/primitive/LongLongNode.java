@@ -0,0 +1,112 @@
+package bptree.primitive;
+
+import java.util.Arrays;
+
+/**
+ * The {@code LongLongNode} class implements nodes that constitute a {@code LongLongBPlusTree}. Keys are kept in a
+ * {@code long[]} so that no key is boxed and each comparison is a primitive comparison.
+ */
+public abstract class LongLongNode {
+
+	/**
+	 * The number of keys that this {@code LongLongNode} currently maintains.
+	 */
+	protected int keyCount;
+
+	/**
+	 * The keys that this {@code LongLongNode} maintains.
+	 */
+	protected final long[] keys;
+
+	/**
+	 * The parent {@code LongLongNode} of this {@code LongLongNode}.
+	 */
+	protected LongLongNonLeafNode parent = null;
+
+	/**
+	 * Constructs a {@code LongLongNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code LongLongNode}
+	 */
+	public LongLongNode(int degree) {
+		keys = new long[degree - 1];
+	}
+
+	/**
+	 * Returns the parent {@code LongLongNode} of this {@code LongLongNode}.
+	 *
+	 * @return the parent {@code LongLongNode} of this {@code LongLongNode}
+	 */
+	public LongLongNonLeafNode parent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code LongLongNode}.
+	 *
+	 * @return the number of keys in this {@code LongLongNode}
+	 */
+	public int keyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Returns the key at the specified index.
+	 *
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index
+	 */
+	public long key(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Determines whether or not this {@code LongLongNode} is full and thus cannot contain more keys.
+	 *
+	 * @return {@code true} if this {@code LongLongNode} is full and thus cannot contain more keys; {@code false}
+	 *         otherwise
+	 */
+	public boolean isFull() {
+		return keyCount >= keys.length;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code LongLongNode} that are smaller than the specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the number of keys in this {@code LongLongNode} that are smaller than the specified key
+	 */
+	public int lowerBound(long k) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < k)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns a string representation of this {@code LongLongNode}.
+	 */
+	public String toString() {
+		return keyCount + " " + Arrays.toString(Arrays.copyOf(keys, keyCount));
+	}
+
+	/**
+	 * Finds, starting from this {@code LongLongNode}, the {@code LongLongLeafNode} that is responsible for the
+	 * specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code LongLongLeafNode} that is responsible for the specified key
+	 */
+	public abstract LongLongLeafNode find(long k);
+
+}
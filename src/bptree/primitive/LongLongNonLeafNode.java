@@ -0,0 +1,126 @@
+package bptree.primitive;
+
+/**
+ * The {@code LongLongNonLeafNode} class implements non-leaf nodes in a {@code LongLongBPlusTree}.
+ */
+public class LongLongNonLeafNode extends LongLongNode {
+
+	/**
+	 * The children of this {@code LongLongNonLeafNode}.
+	 */
+	protected final LongLongNode[] children;
+
+	/**
+	 * Constructs a {@code LongLongNonLeafNode}.
+	 *
+	 * @param degree
+	 *            the degree of the {@code LongLongNonLeafNode}
+	 */
+	public LongLongNonLeafNode(int degree) {
+		super(degree);
+		children = new LongLongNode[degree];
+	}
+
+	/**
+	 * Constructs a {@code LongLongNonLeafNode} while adding the specified key and registering the specified
+	 * {@code LongLongNode}s as children.
+	 *
+	 * @param degree
+	 *            the degree of the {@code LongLongNonLeafNode}
+	 * @param n
+	 *            a {@code LongLongNode}
+	 * @param key
+	 *            a key
+	 * @param nn
+	 *            a {@code LongLongNode}
+	 */
+	public LongLongNonLeafNode(int degree, LongLongNode n, long key, LongLongNode nn) {
+		this(degree);
+		children[0] = n;
+		n.parent = this;
+		keys[0] = key;
+		children[1] = nn;
+		nn.parent = this;
+		keyCount = 1;
+	}
+
+	/**
+	 * Returns the child at the specified index.
+	 *
+	 * @param i
+	 *            the index of the child
+	 * @return the child at the specified index
+	 */
+	public LongLongNode child(int i) {
+		return children[i];
+	}
+
+	/**
+	 * Returns the number of children that this {@code LongLongNonLeafNode} has.
+	 *
+	 * @return the number of children that this {@code LongLongNonLeafNode} has
+	 */
+	public int childCount() {
+		return keyCount + 1;
+	}
+
+	/**
+	 * Returns the index of the specified child.
+	 *
+	 * @param child
+	 *            a child of this {@code LongLongNonLeafNode}
+	 * @return the index of the specified child
+	 */
+	public int indexOf(LongLongNode child) {
+		for (int i = 0; i <= keyCount; i++)
+			if (children[i] == child)
+				return i;
+		throw new IllegalStateException("There must be a bug in the code. This case must not happen!");
+	}
+
+	/**
+	 * Inserts a key at the specified index and a child right after the key.
+	 *
+	 * @param i
+	 *            the index at which the key is inserted
+	 * @param k
+	 *            a key
+	 * @param child
+	 *            the child to the right of the key
+	 */
+	public void insert(int i, long k, LongLongNode child) {
+		System.arraycopy(keys, i, keys, i + 1, keyCount - i);
+		System.arraycopy(children, i + 1, children, i + 2, keyCount - i);
+		keys[i] = k;
+		children[i + 1] = child;
+		child.parent = this;
+		keyCount++;
+	}
+
+	/**
+	 * Removes the key at the specified index and the child right after the key.
+	 *
+	 * @param i
+	 *            the index of the key to remove
+	 */
+	public void delete(int i) {
+		System.arraycopy(keys, i + 1, keys, i, keyCount - i - 1);
+		System.arraycopy(children, i + 2, children, i + 1, keyCount - i - 1);
+		children[keyCount] = null;
+		keyCount--;
+	}
+
+	/**
+	 * Finds, starting from this {@code LongLongNonLeafNode}, the {@code LongLongLeafNode} that is responsible for the
+	 * specified key. Keys equal to a separating key are looked for in the left subtree.
+	 *
+	 * @param k
+	 *            a key
+	 * @return the {@code LongLongLeafNode} that is responsible for the specified key
+	 */
+	@Override
+	public LongLongLeafNode find(long k) {
+		return children[lowerBound(k)].find(k);
+	}
+
+}
@@ -0,0 +1,292 @@
+package bptree.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import bptree.BulkLoader;
+import bptree.codec.Codec;
+
+/**
+ * A {@code Checkpoint} writes the entries of a tree, in sorted order, to a checkpoint file that records the LSN of the
+ * {@link WriteAheadLog} from which the log must be replayed on top of it. The entries are written to a temporary file
+ * that replaces the checkpoint file only when {@link #commit()} is called, so a crash leaves the previous checkpoint
+ * intact. {@link #load(Path, Codec, Codec, BulkLoader)} feeds the entries of a checkpoint file to a
+ * {@code BulkLoader}.
+ * <p>
+ * A checkpoint file consists of a header:
+ *
+ * <pre>
+ * offset 0:  int   MAGIC
+ * offset 4:  int   VERSION
+ * offset 8:  long  the LSN
+ * offset 16: the names of the key and pointer codecs, each as a 2-byte length followed by UTF-8 bytes
+ * </pre>
+ *
+ * the entries, each as an int length followed by the key and the pointer encoded by the codecs, and a trailer made of
+ * the number of entries (a long) and the CRC-32 of the entries (an int).
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class Checkpoint<K, P> implements Closeable {
+
+	/**
+	 * The magic number identifying checkpoint files.
+	 */
+	public static final int MAGIC = 0x42505443; // "BPTC"
+
+	/**
+	 * The version of the checkpoint format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The number of bytes of the trailer.
+	 */
+	static final int TRAILER = 12;
+
+	/**
+	 * The checkpoint file.
+	 */
+	protected final Path file;
+
+	/**
+	 * The temporary file receiving the entries.
+	 */
+	protected final Path temporary;
+
+	/**
+	 * The {@code FileChannel} of the temporary file.
+	 */
+	protected final FileChannel channel;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for pointers.
+	 */
+	protected final Codec<P> pointerCodec;
+
+	/**
+	 * The LSN of the log from which the log must be replayed on top of this {@code Checkpoint}.
+	 */
+	protected final long lsn;
+
+	/**
+	 * The entries not yet written to the temporary file.
+	 */
+	protected ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+	/**
+	 * The checksum of the entries.
+	 */
+	protected final CRC32 crc = new CRC32();
+
+	/**
+	 * The number of entries added.
+	 */
+	protected long entries;
+
+	/**
+	 * A flag indicating whether this {@code Checkpoint} has been committed or closed.
+	 */
+	protected boolean closed;
+
+	/**
+	 * Starts a {@code Checkpoint}.
+	 *
+	 * @param file
+	 *            the checkpoint file (replaced when the {@code Checkpoint} is committed)
+	 * @param lsn
+	 *            the LSN from which the log must be replayed on top of the {@code Checkpoint}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public Checkpoint(Path file, long lsn, Codec<K> keyCodec, Codec<P> pointerCodec) throws IOException {
+		this.file = file;
+		this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		this.lsn = lsn;
+		this.keyCodec = keyCodec;
+		this.pointerCodec = pointerCodec;
+		this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		byte[] keyName = keyCodec.name().getBytes(StandardCharsets.UTF_8);
+		byte[] pointerName = pointerCodec.name().getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(lsn);
+		buffer.putShort((short) keyName.length).put(keyName);
+		buffer.putShort((short) pointerName.length).put(pointerName);
+		crc.reset();
+	}
+
+	/**
+	 * Adds an entry. Entries must be added in non-decreasing key order.
+	 *
+	 * @param k
+	 *            the key
+	 * @param p
+	 *            the pointer
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void add(K k, P p) throws IOException {
+		int keyLength = keyCodec.size(k);
+		int length = keyLength + pointerCodec.size(p);
+		if (buffer.remaining() < 4 + length) {
+			write();
+			if (buffer.capacity() < 4 + length)
+				buffer = ByteBuffer.allocate(4 + length);
+		}
+		int o = buffer.position();
+		buffer.putInt(o, length);
+		keyCodec.write(buffer, o + 4, k);
+		pointerCodec.write(buffer, o + 4 + keyLength, p);
+		crc.update(buffer.array(), buffer.arrayOffset() + o, 4 + length);
+		buffer.position(o + 4 + length);
+		entries++;
+	}
+
+	/**
+	 * Writes the buffered bytes to the temporary file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	void write() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the trailer, forces the temporary file to the disk and makes it the checkpoint file.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void commit() throws IOException {
+		if (buffer.remaining() < TRAILER)
+			write();
+		buffer.putLong(entries).putInt((int) crc.getValue());
+		write();
+		channel.force(false);
+		channel.close();
+		closed = true;
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		WriteAheadLog.syncDirectory(file);
+	}
+
+	/**
+	 * Returns the LSN from which the log must be replayed on top of this {@code Checkpoint}.
+	 *
+	 * @return the LSN from which the log must be replayed on top of this {@code Checkpoint}
+	 */
+	public long lsn() {
+		return lsn;
+	}
+
+	/**
+	 * Returns the number of entries added so far.
+	 *
+	 * @return the number of entries added so far
+	 */
+	public long entries() {
+		return entries;
+	}
+
+	/**
+	 * Abandons this {@code Checkpoint} unless it has been committed, leaving the checkpoint file unchanged.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		channel.close();
+		Files.deleteIfExists(temporary);
+	}
+
+	/**
+	 * Reads the entries of the specified checkpoint file into the specified {@code BulkLoader}.
+	 *
+	 * @param file
+	 *            a checkpoint file
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param loader
+	 *            the {@code BulkLoader} that receives the entries
+	 * @return the LSN from which the log must be replayed on top of the checkpoint
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a complete checkpoint file
+	 * @throws IllegalArgumentException
+	 *             if the checkpoint has been written with other codecs
+	 */
+	public static <K extends Comparable<K>, P> long load(Path file, Codec<K> keyCodec, Codec<P> pointerCodec,
+			BulkLoader<K, P> loader) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer b = ByteBuffer.allocate(1 << 16);
+			b.flip();
+			if ((b = WriteAheadLog.fill(channel, b, 20)) == null || b.getInt() != MAGIC)
+				throw new IOException("the file is not a checkpoint");
+			int version = b.getInt();
+			if (version != VERSION)
+				throw new IOException("unsupported checkpoint version: " + version);
+			long lsn = b.getLong();
+			String[] names = new String[2];
+			for (int i = 0; i < names.length; i++) {
+				if ((b = WriteAheadLog.fill(channel, b, 2)) == null
+						|| (b = WriteAheadLog.fill(channel, b, 2 + b.getShort(b.position()))) == null)
+					throw new IOException("truncated checkpoint header");
+				names[i] = WriteAheadLog.name(b);
+			}
+			if (!names[0].equals(keyCodec.name()) || !names[1].equals(pointerCodec.name()))
+				throw new IllegalArgumentException(
+						"the checkpoint has been written with codecs " + names[0] + " and " + names[1]);
+			long remaining = size - (channel.position() - b.remaining()) - TRAILER;
+			CRC32 crc = new CRC32();
+			long count = 0;
+			while (remaining > 0) {
+				if ((b = WriteAheadLog.fill(channel, b, 4)) == null)
+					break;
+				int length = b.getInt(b.position());
+				if (length < 0 || 4 + length > remaining || (b = WriteAheadLog.fill(channel, b, 4 + length)) == null)
+					break;
+				int o = b.position();
+				crc.update(b.array(), b.arrayOffset() + o, 4 + length);
+				int keyLength = keyCodec.size(b, o + 4);
+				loader.add(keyCodec.read(b, o + 4), pointerCodec.read(b, o + 4 + keyLength));
+				b.position(o + 4 + length);
+				remaining -= 4 + length;
+				count++;
+			}
+			if (remaining != 0 || (b = WriteAheadLog.fill(channel, b, TRAILER)) == null || b.getLong() != count
+					|| b.getInt() != (int) crc.getValue())
+				throw new IOException("corrupt checkpoint: " + file);
+			return lsn;
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package bptree.wal;
+
+/**
+ * A {@code Durability} tells a {@code WriteAheadLog} when to force its records to the disk, trading the number of
+ * operations that a crash may lose for the number of {@code fsync} calls.
+ */
+public final class Durability {
+
+	/**
+	 * The ways of forcing records to the disk.
+	 */
+	public enum Mode {
+
+		/**
+		 * Each operation returns only once its record is on the disk. Operations that wait at the same time share a
+		 * single {@code fsync} (group commit), so nothing is lost.
+		 */
+		SYNC,
+
+		/**
+		 * Records are forced to the disk once every given number of operations, by the operation that completes the
+		 * batch; the other operations do not wait. A crash may lose the operations of the last incomplete batch.
+		 */
+		BATCH,
+
+		/**
+		 * A background thread forces records to the disk every given number of milliseconds and no operation waits. A
+		 * crash may lose the operations of the last interval.
+		 */
+		TIMED
+
+	}
+
+	/**
+	 * The {@code Mode}.
+	 */
+	final Mode mode;
+
+	/**
+	 * The number of operations per batch or the number of milliseconds between {@code fsync}s (0 for {@code SYNC}).
+	 */
+	final long parameter;
+
+	/**
+	 * Constructs a {@code Durability}.
+	 *
+	 * @param mode
+	 *            the {@code Mode}
+	 * @param parameter
+	 *            the number of operations per batch or the number of milliseconds between {@code fsync}s
+	 */
+	private Durability(Mode mode, long parameter) {
+		this.mode = mode;
+		this.parameter = parameter;
+	}
+
+	/**
+	 * Returns a {@code Durability} under which each operation waits until its record is on the disk.
+	 *
+	 * @return a {@code Durability} of {@link Mode#SYNC}
+	 */
+	public static Durability perOperation() {
+		return new Durability(Mode.SYNC, 0);
+	}
+
+	/**
+	 * Returns a {@code Durability} under which records are forced to the disk once every given number of operations.
+	 *
+	 * @param operations
+	 *            the number of operations per batch
+	 * @return a {@code Durability} of {@link Mode#BATCH}
+	 * @throws IllegalArgumentException
+	 *             if the number of operations is not positive
+	 */
+	public static Durability perBatch(int operations) {
+		if (operations <= 0)
+			throw new IllegalArgumentException("operations per batch: " + operations);
+		return new Durability(Mode.BATCH, operations);
+	}
+
+	/**
+	 * Returns a {@code Durability} under which a background thread forces records to the disk periodically.
+	 *
+	 * @param millis
+	 *            the number of milliseconds between {@code fsync}s
+	 * @return a {@code Durability} of {@link Mode#TIMED}
+	 * @throws IllegalArgumentException
+	 *             if the number of milliseconds is not positive
+	 */
+	public static Durability timed(long millis) {
+		if (millis <= 0)
+			throw new IllegalArgumentException("interval: " + millis);
+		return new Durability(Mode.TIMED, millis);
+	}
+
+	/**
+	 * Returns the {@code Mode} of this {@code Durability}.
+	 *
+	 * @return the {@code Mode} of this {@code Durability}
+	 */
+	public Mode mode() {
+		return mode;
+	}
+
+	@Override
+	public String toString() {
+		switch (mode) {
+		case SYNC:
+			return "per-operation";
+		case BATCH:
+			return "per-batch(" + parameter + ")";
+		default:
+			return "timed(" + parameter + " ms)";
+		}
+	}
+
+}
@@ -0,0 +1,469 @@
+package bptree.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import bptree.BPlusTree;
+import bptree.BulkLoader;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.codec.Codec;
+
+/**
+ * A {@code DurableBPlusTree} makes the insertions and deletions of a {@code BPlusTree} survive crashes by recording
+ * each of them in a {@link WriteAheadLog} before applying it. When a {@code DurableBPlusTree} is opened, the log is
+ * replayed into the tree, so the tree is back in the state of the last durable operation.
+ * <p>
+ * A {@code DurableBPlusTree} can be shared by threads. Operations on the tree are serialized by a read-write lock, but
+ * callers wait for the disk outside the lock, so that concurrent callers share {@code fsync}s through group commit.
+ * Consequently, a reader may see an operation whose record has not reached the disk yet.
+ * <p>
+ * So that recovery does not replay the log from the beginning of time, a {@code DurableBPlusTree} can write fuzzy
+ * checkpoints while operations continue (see {@link #checkpoint()}), either on demand or in a background thread once
+ * the log has grown by a given number of bytes (see {@link #startCheckpoints(long)}). After each checkpoint, the log is
+ * truncated to the records that follow it. {@link #recover(Path, Path, BulkLoader, Codec, Codec, Durability)} builds
+ * the tree bottom-up from the checkpoint and replays only the rest of the log, so restart time is bounded by the size
+ * of the tree and of the log between checkpoints, however long the process has run.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class DurableBPlusTree<K extends Comparable<K>, P> implements Closeable {
+
+	/**
+	 * The {@code BPlusTree}.
+	 */
+	protected final BPlusTree<K, P> tree;
+
+	/**
+	 * The {@code WriteAheadLog}.
+	 */
+	protected final WriteAheadLog<K, P> log;
+
+	/**
+	 * The lock that serializes operations on the tree and keeps the log in the order of the operations.
+	 */
+	protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * The number of entries that a checkpoint copies each time it holds the read lock (the remaining entries of the
+	 * last key are copied as well, so that the checkpoint can resume after that key).
+	 */
+	public static final int CHECKPOINT_CHUNK = 1024;
+
+	/**
+	 * The checkpoint file ({@code null} if there is none).
+	 */
+	protected final Path checkpointFile;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for pointers.
+	 */
+	protected final Codec<P> pointerCodec;
+
+	/**
+	 * The lock that keeps checkpoints from overlapping.
+	 */
+	protected final Object checkpointing = new Object();
+
+	/**
+	 * The LSN of the last checkpoint (0 if there is none).
+	 */
+	protected volatile long checkpointed;
+
+	/**
+	 * The number of checkpoints written since this {@code DurableBPlusTree} was opened.
+	 */
+	protected volatile long checkpoints;
+
+	/**
+	 * The number of bytes by which the log grows before the background thread writes a checkpoint (0 if there is no
+	 * background thread).
+	 */
+	protected volatile long checkpointInterval;
+
+	/**
+	 * A flag indicating whether the background thread has been asked to write a checkpoint.
+	 */
+	protected volatile boolean requested;
+
+	/**
+	 * A flag indicating whether this {@code DurableBPlusTree} has been closed.
+	 */
+	protected boolean closed;
+
+	/**
+	 * The error that stopped the background thread ({@code null} if there is none).
+	 */
+	protected IOException checkpointFailure;
+
+	/**
+	 * The background thread that writes checkpoints ({@code null} if there is none).
+	 */
+	protected Thread checkpointer;
+
+	/**
+	 * Constructs a {@code DurableBPlusTree} by opening the specified log file and replaying it into the specified
+	 * {@code BPlusTree}.
+	 *
+	 * @param file
+	 *            the log file (created if it does not exist)
+	 * @param tree
+	 *            the {@code BPlusTree} to recover into (usually empty)
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability} of the log
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a log file
+	 */
+	public DurableBPlusTree(Path file, BPlusTree<K, P> tree, Codec<K> keyCodec, Codec<P> pointerCodec,
+			Durability durability) throws IOException {
+		this(file, null, 0, tree, keyCodec, pointerCodec, durability);
+	}
+
+	/**
+	 * Constructs a {@code DurableBPlusTree} by opening the specified log file and replaying the records that follow
+	 * the specified checkpoint into the specified {@code BPlusTree}.
+	 *
+	 * @param file
+	 *            the log file (created if it does not exist)
+	 * @param checkpointFile
+	 *            the checkpoint file ({@code null} if checkpoints are not written)
+	 * @param checkpointed
+	 *            the LSN of the checkpoint that the {@code BPlusTree} has been loaded from (0 if there is none)
+	 * @param tree
+	 *            the {@code BPlusTree} to recover into
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability} of the log
+	 * @throws IOException
+	 *             if an I/O error occurs, the file is not a log file, or the log does not continue the checkpoint
+	 */
+	protected DurableBPlusTree(Path file, Path checkpointFile, long checkpointed, final BPlusTree<K, P> tree,
+			Codec<K> keyCodec, Codec<P> pointerCodec, Durability durability) throws IOException {
+		this.tree = tree;
+		this.checkpointFile = checkpointFile;
+		this.checkpointed = checkpointed;
+		this.keyCodec = keyCodec;
+		this.pointerCodec = pointerCodec;
+		this.log = WriteAheadLog.open(file, keyCodec, pointerCodec, durability, checkpointed,
+				new WriteAheadLog.Handler<K, P>() {
+
+			@Override
+			public void apply(byte type, K key, P pointer) {
+					if (type == WriteAheadLog.INSERT)
+						tree.insert(key, pointer);
+					else
+						tree.delete(key, pointer);
+				}
+
+			});
+	}
+
+	/**
+	 * Recovers a {@code DurableBPlusTree} that writes checkpoints to the specified file. The tree is built by the
+	 * specified {@code BulkLoader} from the last checkpoint, if any, and the records of the log that follow the
+	 * checkpoint are then replayed into it.
+	 *
+	 * @param file
+	 *            the log file (created if it does not exist)
+	 * @param checkpointFile
+	 *            the checkpoint file (created by the first checkpoint if it does not exist)
+	 * @param loader
+	 *            a {@code BulkLoader} to which no entries have been added
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability} of the log
+	 * @return the recovered {@code DurableBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs, a file is corrupt, or the log does not continue the checkpoint
+	 */
+	public static <K extends Comparable<K>, P> DurableBPlusTree<K, P> recover(Path file, Path checkpointFile,
+			BulkLoader<K, P> loader, Codec<K> keyCodec, Codec<P> pointerCodec, Durability durability)
+			throws IOException {
+		long lsn = Files.exists(checkpointFile) ? Checkpoint.load(checkpointFile, keyCodec, pointerCodec, loader) : 0;
+		return new DurableBPlusTree<K, P>(file, checkpointFile, lsn, loader.build(), keyCodec, pointerCodec,
+				durability);
+	}
+
+	/**
+	 * Inserts the specified key and pointer.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insert(K k, P p) throws IOException {
+		long lsn;
+		lock.writeLock().lock();
+		try {
+			lsn = log.append(WriteAheadLog.INSERT, k, p);
+			tree.insert(k, p);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.commit(lsn);
+		requestCheckpoint(lsn);
+	}
+
+	/**
+	 * Deletes the specified key and pointer.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @param p
+	 *            the pointer to delete
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void delete(K k, P p) throws IOException {
+		long lsn;
+		lock.writeLock().lock();
+		try {
+			lsn = log.append(WriteAheadLog.DELETE, k, p);
+			tree.delete(k, p);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.commit(lsn);
+		requestCheckpoint(lsn);
+	}
+
+	/**
+	 * Wakes up the background thread if the log has grown enough since the last checkpoint.
+	 *
+	 * @param lsn
+	 *            the LSN of the last operation
+	 */
+	void requestCheckpoint(long lsn) {
+		long interval = checkpointInterval;
+		if (interval == 0 || requested || lsn - checkpointed < interval)
+			return;
+		synchronized (this) {
+			requested = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Writes a fuzzy checkpoint of this {@code DurableBPlusTree} while operations continue, then truncates the log to
+	 * the records that follow the checkpoint. The checkpoint records the LSN of the last operation applied when it
+	 * starts. The entries are then copied in key order, {@value #CHECKPOINT_CHUNK} at a time under the read lock,
+	 * resuming after the last copied key, so operations only wait for one chunk at a time. Each entry in the
+	 * checkpoint therefore reflects some moment between the start and the end of the checkpoint. Replaying the log
+	 * from the recorded LSN nevertheless restores the exact state: since the insertion or deletion of an entry does
+	 * not depend on the other entries, the last record for each entry decides whether it exists, and an entry without
+	 * records after the LSN did not change during the checkpoint. Before the checkpoint replaces the previous one, the
+	 * log is forced to the disk, so the checkpoint never contains an operation that the log could lose.
+	 *
+	 * @return the LSN of the checkpoint
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalStateException
+	 *             if this {@code DurableBPlusTree} has no checkpoint file
+	 */
+	public long checkpoint() throws IOException {
+		if (checkpointFile == null)
+			throw new IllegalStateException("no checkpoint file");
+		synchronized (checkpointing) {
+			long lsn;
+			lock.readLock().lock();
+			try {
+				lsn = log.appended();
+			} finally {
+				lock.readLock().unlock();
+			}
+			try (Checkpoint<K, P> checkpoint = new Checkpoint<K, P>(checkpointFile, lsn, keyCodec, pointerCodec)) {
+				K last = null;
+				for (boolean more = true; more;) {
+					more = false;
+					lock.readLock().lock();
+					try {
+						RangeCursor<K, P> c = tree.range(last, null,
+								last == null ? Inclusivity.CLOSED : Inclusivity.OPEN);
+						for (int n = 0; c.next(); n++) {
+							if (n >= CHECKPOINT_CHUNK && c.key().compareTo(last) != 0) {
+								more = true;
+								break;
+							}
+							checkpoint.add(last = c.key(), c.pointer());
+						}
+					} finally {
+						lock.readLock().unlock();
+					}
+				}
+				log.sync(log.appended());
+				checkpoint.commit();
+			}
+			log.truncate(lsn);
+			checkpointed = lsn;
+			checkpoints++;
+			return lsn;
+		}
+	}
+
+	/**
+	 * Starts a background thread that writes a checkpoint whenever the log has grown by the specified number of bytes
+	 * since the last checkpoint.
+	 *
+	 * @param interval
+	 *            the number of bytes by which the log grows between checkpoints
+	 * @throws IllegalArgumentException
+	 *             if the number of bytes is not positive
+	 * @throws IllegalStateException
+	 *             if this {@code DurableBPlusTree} has no checkpoint file or the background thread has already been
+	 *             started
+	 */
+	public synchronized void startCheckpoints(long interval) {
+		if (interval <= 0)
+			throw new IllegalArgumentException("interval: " + interval);
+		if (checkpointFile == null)
+			throw new IllegalStateException("no checkpoint file");
+		if (checkpointer != null)
+			throw new IllegalStateException("checkpoints already started");
+		checkpointer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				writeCheckpoints();
+			}
+
+		}, "wal-checkpointer");
+		checkpointer.setDaemon(true);
+		checkpointInterval = interval;
+		checkpointer.start();
+	}
+
+	/**
+	 * Writes checkpoints when requested until this {@code DurableBPlusTree} is closed or a checkpoint fails.
+	 */
+	void writeCheckpoints() {
+		try {
+			while (true) {
+				synchronized (this) {
+					while (!requested && !closed)
+						wait(); // not interrupted, since an interrupt would close the files
+					if (closed)
+						return;
+				}
+				checkpoint();
+				requested = false;
+			}
+		} catch (InterruptedException e) {
+		} catch (IOException e) {
+			synchronized (this) {
+				checkpointFailure = e;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether or not this {@code DurableBPlusTree} contains the specified key and pointer.
+	 *
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if this {@code DurableBPlusTree} contains the specified key and pointer; {@code false}
+	 *         otherwise
+	 */
+	public boolean contains(K k, P p) {
+		lock.readLock().lock();
+		try {
+			return tree.contains(k, p);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the underlying {@code BPlusTree}. It must not be modified directly, and it must only be read while no
+	 * operation is in progress.
+	 *
+	 * @return the underlying {@code BPlusTree}
+	 */
+	public BPlusTree<K, P> tree() {
+		return tree;
+	}
+
+	/**
+	 * Returns the {@code WriteAheadLog}.
+	 *
+	 * @return the {@code WriteAheadLog}
+	 */
+	public WriteAheadLog<K, P> log() {
+		return log;
+	}
+
+	/**
+	 * Returns the LSN of the last checkpoint.
+	 *
+	 * @return the LSN of the last checkpoint (0 if there is none)
+	 */
+	public long checkpointed() {
+		return checkpointed;
+	}
+
+	/**
+	 * Returns the number of checkpoints written since this {@code DurableBPlusTree} was opened.
+	 *
+	 * @return the number of checkpoints written since this {@code DurableBPlusTree} was opened
+	 */
+	public long checkpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Stops the background thread, if any, once its current checkpoint is complete, forces all operations to the
+	 * disk and closes the log.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs or the background thread has failed
+	 */
+	@Override
+	public void close() throws IOException {
+		Thread t;
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+			t = checkpointer;
+		}
+		try {
+			if (t != null)
+				t.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			log.close();
+		}
+		synchronized (this) {
+			if (checkpointFailure != null)
+				throw new IOException("a checkpoint has failed", checkpointFailure);
+		}
+	}
+
+}
@@ -0,0 +1,878 @@
+package bptree.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import bptree.codec.Codec;
+
+/**
+ * A {@code WriteAheadLog} records insertions and deletions in an append-only file before they are applied, so that
+ * they can be replayed after a crash. Records are appended to an in-memory buffer and written and forced to the disk
+ * according to a {@link Durability}. Forcing uses group commit: while one thread writes and forces the buffered
+ * records, the records appended by other threads accumulate in a second buffer, and the next {@code fsync} covers all
+ * of them, so that concurrent callers share {@code fsync}s instead of queuing for one each.
+ * <p>
+ * Each record is identified by its log sequence number (LSN), which is the origin of the file plus the position in the
+ * file right after the record. The origin is 0 until {@link #truncate(long)} drops the records preceding a checkpoint,
+ * so LSNs keep growing however often the log is truncated. The file starts with a header:
+ *
+ * <pre>
+ * offset 0:  int   MAGIC
+ * offset 4:  int   VERSION
+ * offset 8:  long  the origin
+ * offset 16: the names of the key and pointer codecs, each as a 2-byte length followed by UTF-8 bytes
+ * </pre>
+ *
+ * and each record consists of:
+ *
+ * <pre>
+ * int   the length of the payload
+ * int   the CRC-32 of the payload
+ * byte  INSERT or DELETE (the payload starts here)
+ *       the key, encoded by the key codec
+ *       the pointer, encoded by the pointer codec
+ * </pre>
+ *
+ * When a log is opened, its records are replayed up to the first incomplete or corrupt record, which can only result
+ * from a crash in the middle of a write, and the file is truncated there. The header of a new log file is written to a
+ * temporary file that then atomically becomes the log file, so a crash cannot leave a log file with a partial header.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class WriteAheadLog<K, P> implements Closeable {
+
+	/**
+	 * The magic number identifying log files.
+	 */
+	public static final int MAGIC = 0x42505457; // "BPTW"
+
+	/**
+	 * The version of the log format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The type of insertion records.
+	 */
+	public static final byte INSERT = 1;
+
+	/**
+	 * The type of deletion records.
+	 */
+	public static final byte DELETE = 2;
+
+	/**
+	 * The number of bytes preceding the payload of each record.
+	 */
+	static final int RECORD_HEADER = 8;
+
+	/**
+	 * A {@code Handler} receives the records of a log when it is replayed.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <P>
+	 *            the type of pointers
+	 */
+	public interface Handler<K, P> {
+
+		/**
+		 * Applies a record.
+		 *
+		 * @param type
+		 *            {@link WriteAheadLog#INSERT} or {@link WriteAheadLog#DELETE}
+		 * @param key
+		 *            the key of the record
+		 * @param pointer
+		 *            the pointer of the record
+		 */
+		void apply(byte type, K key, P pointer);
+
+	}
+
+	/**
+	 * The log file.
+	 */
+	protected final Path file;
+
+	/**
+	 * The {@code FileChannel} of the log file, positioned at its end.
+	 */
+	protected FileChannel channel;
+
+	/**
+	 * The LSN of a record minus its position in the log file.
+	 */
+	protected long origin;
+
+	/**
+	 * The LSN of the beginning of the first record in the log file.
+	 */
+	protected long first;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for pointers.
+	 */
+	protected final Codec<P> pointerCodec;
+
+	/**
+	 * The {@code Durability} of this {@code WriteAheadLog}.
+	 */
+	protected final Durability durability;
+
+	/**
+	 * The records appended but not yet handed to a {@code sync}.
+	 */
+	protected ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+	/**
+	 * The other buffer ({@code null} while a {@code sync} is writing it).
+	 */
+	protected ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+
+	/**
+	 * The checksum of records being appended.
+	 */
+	protected final CRC32 crc = new CRC32();
+
+	/**
+	 * The LSN of the last appended record.
+	 */
+	protected long appended;
+
+	/**
+	 * The LSN up to which records have been forced to the disk.
+	 */
+	protected long durable;
+
+	/**
+	 * A flag indicating whether a thread is writing and forcing records.
+	 */
+	protected boolean syncing;
+
+	/**
+	 * The number of operations committed since the last batch was forced.
+	 */
+	protected long unsynced;
+
+	/**
+	 * The error that made this {@code WriteAheadLog} unusable ({@code null} if there is none).
+	 */
+	protected IOException failure;
+
+	/**
+	 * A flag indicating whether this {@code WriteAheadLog} has been closed.
+	 */
+	protected boolean closed;
+
+	/**
+	 * The number of records replayed when this {@code WriteAheadLog} was opened.
+	 */
+	protected final long replayed;
+
+	/**
+	 * The number of records appended since this {@code WriteAheadLog} was opened.
+	 */
+	protected long records;
+
+	/**
+	 * The number of {@code fsync}s performed since this {@code WriteAheadLog} was opened.
+	 */
+	protected long syncs;
+
+	/**
+	 * The background thread that forces records periodically ({@code null} unless the {@code Durability} is
+	 * {@link Durability.Mode#TIMED}).
+	 */
+	protected final Thread flusher;
+
+	/**
+	 * Constructs a {@code WriteAheadLog}.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param channel
+	 *            the {@code FileChannel} of the log file, positioned at the end of its last valid record
+	 * @param origin
+	 *            the LSN of a record minus its position in the log file
+	 * @param first
+	 *            the LSN of the beginning of the first record in the log file
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability}
+	 * @param replayed
+	 *            the number of records replayed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected WriteAheadLog(Path file, FileChannel channel, long origin, long first, Codec<K> keyCodec,
+			Codec<P> pointerCodec, Durability durability, long replayed) throws IOException {
+		this.file = file;
+		this.channel = channel;
+		this.origin = origin;
+		this.first = first;
+		this.keyCodec = keyCodec;
+		this.pointerCodec = pointerCodec;
+		this.durability = durability;
+		this.replayed = replayed;
+		this.appended = this.durable = origin + channel.position();
+		if (durability.mode == Durability.Mode.TIMED) {
+			flusher = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					flush();
+				}
+
+			}, "wal-flusher");
+			flusher.setDaemon(true);
+			flusher.start();
+		} else
+			flusher = null;
+	}
+
+	/**
+	 * Opens the specified log file, creating it if it does not exist, and replays its records.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability}
+	 * @param handler
+	 *            the {@code Handler} that receives the records of the log
+	 * @return the opened {@code WriteAheadLog}
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a log file
+	 * @throws IllegalArgumentException
+	 *             if the log has been written with other codecs
+	 */
+	public static <K, P> WriteAheadLog<K, P> open(Path file, Codec<K> keyCodec, Codec<P> pointerCodec,
+			Durability durability, Handler<? super K, ? super P> handler) throws IOException {
+		return open(file, keyCodec, pointerCodec, durability, 0, handler);
+	}
+
+	/**
+	 * Opens the specified log file, creating it if it does not exist, and replays the records that follow the
+	 * specified LSN, which is usually the LSN of a checkpoint. A new log file starts at that LSN.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param durability
+	 *            the {@code Durability}
+	 * @param from
+	 *            the LSN of the last record not to replay (0 to replay all records)
+	 * @param handler
+	 *            the {@code Handler} that receives the records of the log
+	 * @return the opened {@code WriteAheadLog}
+	 * @throws IOException
+	 *             if an I/O error occurs, the file is not a log file, or records between the specified LSN and the end
+	 *             of the log are missing
+	 * @throws IllegalArgumentException
+	 *             if the log has been written with other codecs
+	 */
+	public static <K, P> WriteAheadLog<K, P> open(Path file, Codec<K> keyCodec, Codec<P> pointerCodec,
+			Durability durability, long from, Handler<? super K, ? super P> handler) throws IOException {
+		FileChannel channel = null;
+		try {
+			long[] origin = new long[1];
+			long position = -1;
+			if (Files.exists(file)) {
+				channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				position = readHeader(channel, keyCodec, pointerCodec, origin);
+			}
+			if (position < 0) { // a new log, or a file holding only part of a header and hence no records
+				if (channel != null)
+					channel.close();
+				channel = create(file, from, keyCodec, pointerCodec, origin);
+				position = channel.size();
+			}
+			if (origin[0] != 0 && origin[0] + position > from)
+				throw new IOException("the log has been truncated after LSN " + from);
+			long[] count = new long[1];
+			long end = replay(channel, position, from - origin[0], keyCodec, pointerCodec, handler, count);
+			if (origin[0] + end < from)
+				throw new IOException("the log ends before LSN " + from);
+			if (end < channel.size()) { // drop the incomplete record left by a crash
+				channel.truncate(end);
+				channel.force(false);
+			}
+			channel.position(end);
+			return new WriteAheadLog<K, P>(file, channel, origin[0], origin[0] + position, keyCodec, pointerCodec,
+					durability, count[0]);
+		} catch (IOException | RuntimeException e) {
+			if (channel != null)
+				channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a log file holding only a header. The header is written and forced to a temporary file, which then
+	 * atomically replaces the log file, so a crash leaves either no log file or a complete header.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param start
+	 *            the LSN at which the first record of the file begins (0 for a new log)
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param origin
+	 *            an array whose first element receives the origin of the file
+	 * @return the {@code FileChannel} of the log file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static FileChannel create(Path file, long start, Codec<?> keyCodec, Codec<?> pointerCodec, long[] origin)
+			throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeHeader(channel, start, keyCodec, pointerCodec, origin);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(file);
+		return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Writes the header of a new log file and forces it to the disk.
+	 *
+	 * @param channel
+	 *            the {@code FileChannel} of an empty log file
+	 * @param start
+	 *            the LSN at which the first record of the file begins (0 for a new log)
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param origin
+	 *            an array whose first element receives the origin of the file
+	 * @return the position of the first record
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static long writeHeader(FileChannel channel, long start, Codec<?> keyCodec, Codec<?> pointerCodec, long[] origin)
+			throws IOException {
+		byte[] keyName = keyCodec.name().getBytes(StandardCharsets.UTF_8);
+		byte[] pointerName = pointerCodec.name().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(20 + keyName.length + pointerName.length);
+		origin[0] = Math.max(0, start - header.capacity());
+		header.putInt(MAGIC).putInt(VERSION).putLong(origin[0]);
+		header.putShort((short) keyName.length).put(keyName);
+		header.putShort((short) pointerName.length).put(pointerName);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header, header.position());
+		channel.force(true);
+		return header.limit();
+	}
+
+	/**
+	 * Reads and checks the header of a log file. A file that holds only the beginning of a header is reported as such
+	 * rather than rejected.
+	 *
+	 * @param channel
+	 *            the {@code FileChannel} of a log file
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param origin
+	 *            an array whose first element receives the origin of the file
+	 * @return the position of the first record; {@code -1} if the file holds only the beginning of a header
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a log file
+	 * @throws IllegalArgumentException
+	 *             if the log has been written with other codecs
+	 */
+	static long readHeader(FileChannel channel, Codec<?> keyCodec, Codec<?> pointerCodec, long[] origin)
+			throws IOException {
+		ByteBuffer header = ByteBuffer.allocate((int) Math.min(channel.size(), 16 + 2 * (2 + Short.MAX_VALUE)));
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0)
+			;
+		header.flip();
+		for (int i = 0; i < Math.min(4, header.limit()); i++)
+			if (header.get(i) != (byte) (MAGIC >>> 24 - 8 * i))
+				throw new IOException("the file is not a write-ahead log");
+		if (header.limit() < 8)
+			return -1;
+		int version = header.getInt(4);
+		if (version != VERSION)
+			throw new IOException("unsupported write-ahead log version: " + version);
+		if (header.limit() < 16)
+			return -1;
+		origin[0] = header.getLong(8);
+		header.position(16);
+		String keyCodecName = name(header);
+		String pointerCodecName = name(header);
+		if (keyCodecName == null || pointerCodecName == null)
+			return -1;
+		if (!keyCodecName.equals(keyCodec.name()) || !pointerCodecName.equals(pointerCodec.name()))
+			throw new IllegalArgumentException(
+					"the log has been written with codecs " + keyCodecName + " and " + pointerCodecName);
+		return header.position();
+	}
+
+	/**
+	 * Reads a name written as a 2-byte length followed by UTF-8 bytes at the position of the specified
+	 * {@code ByteBuffer}.
+	 *
+	 * @param buffer
+	 *            a {@code ByteBuffer}
+	 * @return the name; {@code null} if the name is truncated
+	 */
+	static String name(ByteBuffer buffer) {
+		if (buffer.remaining() < 2 || buffer.remaining() < 2 + buffer.getShort(buffer.position()))
+			return null;
+		byte[] bytes = new byte[buffer.getShort()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Replays the records of a log file from the specified position up to the first incomplete or corrupt record.
+	 *
+	 * @param channel
+	 *            the {@code FileChannel} of a log file
+	 * @param position
+	 *            the position of the first record
+	 * @param skip
+	 *            the position up to which records are checked but not handed to the {@code Handler}
+	 * @param keyCodec
+	 *            the {@code Codec} for keys
+	 * @param pointerCodec
+	 *            the {@code Codec} for pointers
+	 * @param handler
+	 *            the {@code Handler} that receives the records
+	 * @param count
+	 *            an array whose first element receives the number of records replayed
+	 * @return the position right after the last valid record
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static <K, P> long replay(FileChannel channel, long position, long skip, Codec<K> keyCodec, Codec<P> pointerCodec,
+			Handler<? super K, ? super P> handler, long[] count) throws IOException {
+		long size = channel.size();
+		ByteBuffer b = ByteBuffer.allocate(1 << 16);
+		b.flip();
+		CRC32 crc = new CRC32();
+		channel.position(position);
+		while ((b = fill(channel, b, RECORD_HEADER)) != null) {
+			int length = b.getInt(b.position());
+			int checksum = b.getInt(b.position() + 4);
+			if (length <= 0 || length > size - position - RECORD_HEADER)
+				break;
+			if ((b = fill(channel, b, RECORD_HEADER + length)) == null)
+				break;
+			int o = b.position() + RECORD_HEADER;
+			crc.reset();
+			crc.update(b.array(), b.arrayOffset() + o, length);
+			if ((int) crc.getValue() != checksum)
+				break;
+			byte type = b.get(o);
+			int keyLength = keyCodec.size(b, o + 1);
+			if (type != INSERT && type != DELETE || 1 + keyLength + pointerCodec.size(b, o + 1 + keyLength) != length)
+				break;
+			b.position(o + length);
+			position += RECORD_HEADER + length;
+			if (position <= skip)
+				continue;
+			handler.apply(type, keyCodec.read(b, o + 1), pointerCodec.read(b, o + 1 + keyLength));
+			count[0]++;
+		}
+		return position;
+	}
+
+	/**
+	 * Reads from the specified {@code FileChannel} until the specified {@code ByteBuffer} has the specified number of
+	 * bytes remaining, growing it if needed.
+	 *
+	 * @param channel
+	 *            a {@code FileChannel}
+	 * @param b
+	 *            a {@code ByteBuffer} ready to be read
+	 * @param n
+	 *            the number of bytes needed
+	 * @return a {@code ByteBuffer} ready to be read with at least {@code n} bytes remaining; {@code null} if the end
+	 *         of the file comes first
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static ByteBuffer fill(FileChannel channel, ByteBuffer b, int n) throws IOException {
+		if (b.remaining() >= n)
+			return b;
+		if (b.capacity() < n)
+			b = ByteBuffer.allocate(Math.max(n, 2 * b.capacity())).put(b);
+		else
+			b.compact();
+		while (b.position() < n)
+			if (channel.read(b) < 0)
+				return null;
+		b.flip();
+		return b;
+	}
+
+	/**
+	 * Appends a record to this {@code WriteAheadLog}. The record is not durable until {@link #commit(long)} or
+	 * {@link #sync(long)} says so.
+	 *
+	 * @param type
+	 *            {@link #INSERT} or {@link #DELETE}
+	 * @param k
+	 *            the key
+	 * @param p
+	 *            the pointer
+	 * @return the LSN of the record
+	 * @throws IOException
+	 *             if this {@code WriteAheadLog} has been closed or has failed
+	 */
+	public synchronized long append(byte type, K k, P p) throws IOException {
+		check();
+		int keyLength = keyCodec.size(k);
+		int length = 1 + keyLength + pointerCodec.size(p);
+		if (buffer.remaining() < RECORD_HEADER + length) {
+			int capacity = Math.max(2 * buffer.capacity(), buffer.position() + RECORD_HEADER + length);
+			ByteBuffer b = ByteBuffer.allocate(capacity);
+			buffer.flip();
+			buffer = b.put(buffer);
+		}
+		int o = buffer.position();
+		buffer.put(o + RECORD_HEADER, type);
+		keyCodec.write(buffer, o + RECORD_HEADER + 1, k);
+		pointerCodec.write(buffer, o + RECORD_HEADER + 1 + keyLength, p);
+		crc.reset();
+		crc.update(buffer.array(), buffer.arrayOffset() + o + RECORD_HEADER, length);
+		buffer.putInt(o, length);
+		buffer.putInt(o + 4, (int) crc.getValue());
+		buffer.position(o + RECORD_HEADER + length);
+		records++;
+		return appended += RECORD_HEADER + length;
+	}
+
+	/**
+	 * Completes an operation whose record has been appended, forcing records to the disk as the {@code Durability} of
+	 * this {@code WriteAheadLog} demands. Under {@link Durability.Mode#SYNC}, the record is durable when this method
+	 * returns.
+	 *
+	 * @param lsn
+	 *            the LSN of the record of the operation
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void commit(long lsn) throws IOException {
+		switch (durability.mode) {
+		case SYNC:
+			sync(lsn);
+			break;
+		case BATCH:
+			boolean full;
+			synchronized (this) {
+				full = ++unsynced >= durability.parameter;
+				if (full)
+					unsynced = 0;
+			}
+			if (full)
+				sync(lsn);
+			break;
+		default: // the flusher forces the record
+		}
+	}
+
+	/**
+	 * Waits until the records up to the specified LSN are on the disk. If no other thread is writing records, the
+	 * calling thread writes and forces all records appended so far; otherwise it waits for that thread and checks
+	 * again, so that the records appended in the meantime are forced together.
+	 *
+	 * @param lsn
+	 *            an LSN
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void sync(long lsn) throws IOException {
+		ByteBuffer batch;
+		long target;
+		synchronized (this) {
+			while (true) {
+				if (failure != null)
+					throw new IOException("the write-ahead log has failed", failure);
+				if (durable >= lsn)
+					return;
+				if (!syncing)
+					break;
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+			}
+			syncing = true;
+			batch = buffer;
+			buffer = spare;
+			spare = null;
+			target = appended;
+		}
+		IOException error = null;
+		try {
+			batch.flip();
+			while (batch.hasRemaining())
+				channel.write(batch);
+			channel.force(false);
+		} catch (IOException e) {
+			error = e;
+		}
+		synchronized (this) {
+			batch.clear();
+			spare = batch;
+			syncing = false;
+			if (error == null) {
+				durable = target;
+				syncs++;
+			} else
+				failure = error;
+			notifyAll();
+		}
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Drops the records up to the specified LSN, which must be the LSN of a record whose effects are on the disk
+	 * elsewhere, typically in a checkpoint. The remaining records are copied to a new file, which then atomically
+	 * replaces the log file, so a crash leaves either the old or the new file. Records can be appended while the
+	 * copy is made; only forcing them waits for it.
+	 *
+	 * @param lsn
+	 *            the LSN of a record
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if the LSN is beyond the last appended record
+	 */
+	public void truncate(long lsn) throws IOException {
+		sync(lsn);
+		synchronized (this) {
+			while (syncing)
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+			check();
+			if (lsn > appended)
+				throw new IllegalArgumentException("LSN beyond the end of the log: " + lsn);
+			if (lsn <= first)
+				return;
+			syncing = true; // keeps other threads from writing to the old file
+		}
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		FileChannel truncated = null;
+		long[] newOrigin = new long[1];
+		try {
+			truncated = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long position = writeHeader(truncated, lsn, keyCodec, pointerCodec, newOrigin);
+			truncated.position(position);
+			for (long from = lsn - origin, end = channel.size(); from < end;)
+				from += channel.transferTo(from, end - from, truncated);
+			truncated.force(false);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			syncDirectory(file);
+		} catch (IOException e) {
+			if (truncated != null)
+				truncated.close();
+			Files.deleteIfExists(temporary);
+			synchronized (this) {
+				syncing = false;
+				notifyAll();
+			}
+			throw e;
+		}
+		FileChannel old;
+		synchronized (this) {
+			old = channel;
+			channel = truncated;
+			origin = newOrigin[0];
+			first = lsn;
+			syncing = false;
+			notifyAll();
+		}
+		old.close();
+	}
+
+	/**
+	 * Forces the directory entry of the specified file to the disk, so that a rename survives a crash. This is only
+	 * possible on some platforms and is skipped elsewhere.
+	 *
+	 * @param file
+	 *            a file
+	 */
+	static void syncDirectory(Path file) {
+		Path directory = file.toAbsolutePath().getParent();
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) { // directories cannot be opened on this platform
+		}
+	}
+
+	/**
+	 * Forces records to the disk periodically until this {@code WriteAheadLog} is closed.
+	 */
+	void flush() {
+		try {
+			while (true) {
+				long lsn;
+				synchronized (this) {
+					long deadline = System.currentTimeMillis() + durability.parameter;
+					for (long now; !closed && (now = System.currentTimeMillis()) < deadline;)
+						wait(deadline - now); // not interrupted, since an interrupt would close the channel
+					if (closed || failure != null)
+						return;
+					lsn = appended;
+				}
+				sync(lsn);
+			}
+		} catch (InterruptedException | IOException e) { // failed
+		}
+	}
+
+	/**
+	 * Throws an exception if this {@code WriteAheadLog} cannot accept records.
+	 *
+	 * @throws IOException
+	 *             if this {@code WriteAheadLog} has been closed or has failed
+	 */
+	void check() throws IOException {
+		if (closed)
+			throw new ClosedChannelException();
+		if (failure != null)
+			throw new IOException("the write-ahead log has failed", failure);
+	}
+
+	/**
+	 * Returns the {@code Durability} of this {@code WriteAheadLog}.
+	 *
+	 * @return the {@code Durability} of this {@code WriteAheadLog}
+	 */
+	public Durability durability() {
+		return durability;
+	}
+
+	/**
+	 * Returns the LSN at which the records kept in the log file begin.
+	 *
+	 * @return the LSN at which the records kept in the log file begin
+	 */
+	public synchronized long first() {
+		return first;
+	}
+
+	/**
+	 * Returns the LSN of the last appended record.
+	 *
+	 * @return the LSN of the last appended record
+	 */
+	public synchronized long appended() {
+		return appended;
+	}
+
+	/**
+	 * Returns the LSN up to which records are on the disk.
+	 *
+	 * @return the LSN up to which records are on the disk
+	 */
+	public synchronized long durable() {
+		return durable;
+	}
+
+	/**
+	 * Returns the number of records replayed when this {@code WriteAheadLog} was opened.
+	 *
+	 * @return the number of records replayed when this {@code WriteAheadLog} was opened
+	 */
+	public long replayed() {
+		return replayed;
+	}
+
+	/**
+	 * Returns the number of records appended since this {@code WriteAheadLog} was opened.
+	 *
+	 * @return the number of records appended since this {@code WriteAheadLog} was opened
+	 */
+	public synchronized long records() {
+		return records;
+	}
+
+	/**
+	 * Returns the number of {@code fsync}s performed since this {@code WriteAheadLog} was opened.
+	 *
+	 * @return the number of {@code fsync}s performed since this {@code WriteAheadLog} was opened
+	 */
+	public synchronized long syncs() {
+		return syncs;
+	}
+
+	/**
+	 * Forces all appended records to the disk and closes this {@code WriteAheadLog}.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		long lsn;
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			lsn = failure == null ? appended : durable;
+			notifyAll(); // wakes up the flusher
+		}
+		try {
+			if (flusher != null)
+				flusher.join();
+			sync(lsn);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			channel.close();
+		}
+	}
+
+}
@@ -10,6 +10,7 @@ import javax.swing.JPanel;
 import bptree.BPlusTree;
 import bptree.Node;
 import bptree.NonLeafNode;
+import bptree.PersistentBPlusTree;
 import bptree.LeafNode;
 
 /**
@@ -50,6 +51,11 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 	 */
 	protected static int pointerWidth = 15;
 
+	/**
+	 * The number of leaf nodes in the tree shown.
+	 */
+	protected int leafCount = 0;
+
 	/**
 	 * Constructs a BPlusTreeVisualizer.
 	 * 
@@ -101,7 +107,9 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 			}
 			x = (minX + maxX) / 2;
 		} else { // if leaf node
-			if (((LeafNode<Integer, String>) node).successor() != null) // if there is a next leaf node
+			// leaves are drawn from left to right, so this is not the last leaf if fewer leaves precede it; snapshots
+			// of persistent trees have no successor links to follow
+			if (leafNodes < leafCount - 1) // if there is a next leaf node
 				zoomGraphics.drawLine(x + keyWidth * (degree - 1), y + keyHeight / 2,
 						x + keyWidth * (degree) - pointerWidth / 2, y + keyHeight / 2);
 		}
@@ -129,11 +137,33 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 		return new util.Pair<Integer, Integer>(leafNodes, x);
 	}
 
+	/**
+	 * Returns the number of leaf nodes in the subtree rooted at the specified node.
+	 * 
+	 * @param node
+	 *            a node
+	 * @param degree
+	 *            the degree of the tree
+	 * @return the number of leaf nodes in the subtree rooted at the specified node
+	 */
+	protected static int leaves(Node<?, ?> node, int degree) {
+		if (node == null)
+			return 0;
+		if (node instanceof LeafNode)
+			return 1;
+		int leaves = 0;
+		for (int i = 0; i < degree; i++) // the same children as draw(Node, int, int, int)
+			if (node.pointer(i) instanceof Node)
+				leaves += leaves((Node<?, ?>) node.pointer(i), degree);
+		return leaves;
+	}
+
 	@Override
 	public void draw() {
 		try {
 			BPlusTree<?, ?> tree = trees.elementAt(currentFrame).getFirst();
 			zoomGraphics.setColor(Color.BLACK);
+			leafCount = leaves(tree.root(), tree.degree());
 			draw(tree.root(), 1, 0, tree.degree());
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -162,7 +192,7 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 	}
 
 	public static void startVisualizer(int degree, String inputFile) throws IOException {
-		BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(degree);
+		PersistentBPlusTree<String, Integer> tree = new PersistentBPlusTree<String, Integer>(degree);
 		java.util.Vector<util.Pair<BPlusTree<?, ?>, String>> trees = new java.util.Vector<util.Pair<BPlusTree<?, ?>, String>>();
 		java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(inputFile));
 		System.out.println(inputFile);
@@ -176,7 +206,7 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 				} else if (tokens[0].equals("delete")) {
 					tree.delete(tokens[1], Integer.parseInt(tokens[2]));
 				}
-				trees.add(new util.Pair<BPlusTree<?, ?>, String>(new BPlusTree<String, Integer>(tree), line));
+				trees.add(new util.Pair<BPlusTree<?, ?>, String>(tree.snapshot(), line)); // O(1) thanks to path copying
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -0,0 +1,50 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import bptree.metrics.RecordingTreeMetrics;
+import bptree.metrics.TreeMetrics;
+
+public class BPlusTreeTest {
+
+	@Test
+	public void testCopyOfEmptiedTree() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (int i = 0; i < 20; i++)
+			tree.insert(i, i);
+		for (int i = 0; i < 20; i++)
+			tree.delete(i, i);
+		BPlusTree<Integer, Integer> copy = new BPlusTree<Integer, Integer>(tree);
+		assertNull(copy.find(3));
+		assertFalse(copy.containsKey(3));
+		copy.insert(3, 30);
+		assertEquals(Integer.valueOf(30), copy.find(3).pointers[0]);
+	}
+
+	@Test
+	public void testComparisonsCountedOnlyWhileRecording() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (int i = 0; i < 100; i++)
+			tree.insert(i, i);
+		for (int i = 0; i < 100; i++)
+			tree.find(i);
+		assertEquals(0, tree.searchStrategy().comparisons());
+		RecordingTreeMetrics metrics = new RecordingTreeMetrics();
+		tree.setMetrics(metrics);
+		for (int i = 0; i < 100; i++)
+			tree.find(i);
+		assertTrue(metrics.comparisons() > 0);
+		assertEquals(tree.searchStrategy().comparisons(), metrics.comparisons());
+		long comparisons = metrics.comparisons();
+		tree.setMetrics(TreeMetrics.NONE);
+		for (int i = 0; i < 100; i++)
+			tree.insert(i + 100, i);
+		assertEquals(comparisons, tree.searchStrategy().comparisons());
+	}
+
+}
@@ -0,0 +1,123 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BulkLoaderTest {
+
+	@Test
+	public void testBuild() {
+		for (int degree = 3; degree <= 8; degree++)
+			for (double fillFactor : new double[] { 0.1, 0.5, 0.75, 1.0 })
+				for (int n = 0; n <= 300; n += n < 40 ? 1 : 37) {
+					BulkLoader<Integer, Integer> loader = new BulkLoader<Integer, Integer>(degree, fillFactor);
+					List<String> expected = new ArrayList<String>();
+					for (int i = 0; i < n; i++) {
+						loader.add(i / 3, i); // three pointers per key, so that keys span leaves
+						expected.add(i / 3 + "=" + i);
+					}
+					assertEquals(n, loader.size());
+					BPlusTree<Integer, Integer> tree = loader.build();
+					String context = "degree " + degree + ", fill factor " + fillFactor + ", " + n + " entries";
+					assertEquals(context, expected, entries(tree));
+					if (n == 0) {
+						assertNull(tree.root());
+						continue;
+					}
+					List<LeafNode<Integer, Integer>> leaves = new ArrayList<LeafNode<Integer, Integer>>();
+					check(tree.root(), null, null, degree, true, leaves);
+					for (int i = 0; i < leaves.size(); i++) {
+						LeafNode<Integer, Integer> next = i + 1 < leaves.size() ? leaves.get(i + 1) : null;
+						assertSame(context, next, leaves.get(i).successor());
+					}
+					for (int i = 0; i < n; i += 2) // the built tree remains usable
+						tree.delete(i / 3, i);
+					for (int i = 0; i < n; i++) {
+						assertEquals(context, i % 2 != 0, tree.contains(i / 3, i));
+						tree.insert(i / 3, i);
+					}
+					List<String> actual = entries(tree);
+					Collections.sort(expected); // reinserted pointers follow the other pointers of their key
+					Collections.sort(actual);
+					assertEquals(context, expected, actual);
+				}
+	}
+
+	@Test
+	public void testArguments() {
+		try {
+			new BulkLoader<Integer, Integer>(2, 1.0);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new BulkLoader<Integer, Integer>(4, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		BulkLoader<Integer, Integer> loader = new BulkLoader<Integer, Integer>(4, 1.0);
+		loader.add(1, 1);
+		loader.add(1, 2);
+		try {
+			loader.add(0, 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		loader.build();
+		try {
+			loader.add(2, 4);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	/**
+	 * Returns the entries of the specified tree in key order.
+	 */
+	static List<String> entries(BPlusTree<Integer, Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		return entries;
+	}
+
+	/**
+	 * Checks that the keys of the specified subtree lie between the specified bounds, that its {@code Node}s are not
+	 * under-utilized and point to their parents, and collects its {@code LeafNode}s from left to right.
+	 *
+	 * @return the height of the specified subtree
+	 */
+	static int check(Node<Integer, Integer> n, Integer lo, Integer hi, int degree, boolean root,
+			List<LeafNode<Integer, Integer>> leaves) {
+		assertTrue(root || !n.isUnderUtilized(degree));
+		for (int i = 0; i < n.keyCount(); i++) {
+			assertTrue(lo == null || n.key(i) >= lo);
+			assertTrue(hi == null || n.key(i) <= hi);
+			assertTrue(i == 0 || n.key(i - 1) <= n.key(i));
+		}
+		if (n instanceof LeafNode) {
+			leaves.add((LeafNode<Integer, Integer>) n);
+			return 1;
+		}
+		NonLeafNode<Integer, Integer> p = (NonLeafNode<Integer, Integer>) n;
+		int height = -1;
+		for (int i = 0; i <= p.keyCount(); i++) {
+			assertSame(p, p.pointer(i).parent());
+			int h = check(p.pointer(i), i == 0 ? lo : p.key(i - 1), i == p.keyCount() ? hi : p.key(i), degree, false,
+					leaves);
+			assertTrue(height < 0 || h == height); // all leaves are at the same depth
+			height = h;
+		}
+		return height + 1;
+	}
+
+}
@@ -0,0 +1,89 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class InsertAllTest {
+
+	@Test
+	public void testAgainstSingleInserts() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++)
+			for (int round = 0; round < 20; round++) {
+				BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+				BPlusTree<Integer, Integer> model = new BPlusTree<Integer, Integer>(degree);
+				int range = 1 + random.nextInt(300);
+				for (int i = random.nextInt(300); i > 0; i--) {
+					int k = random.nextInt(range);
+					int p = random.nextInt(4);
+					tree.insert(k, p);
+					model.insert(k, p);
+				}
+				List<Map.Entry<Integer, Integer>> batch = new ArrayList<Map.Entry<Integer, Integer>>();
+				for (int i = random.nextInt(500); i > 0; i--) // the batch repeats pairs of its own and of the tree
+					batch.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(random.nextInt(range),
+							random.nextInt(4)));
+				long size = entries(model).size();
+				for (Map.Entry<Integer, Integer> e : batch)
+					model.insert(e.getKey(), e.getValue());
+				BatchStats stats = tree.insertAll(batch);
+				String context = "degree " + degree + ", round " + round + ": " + stats;
+				List<String> expected = entries(model);
+				assertEquals(context, expected, entries(tree));
+				assertEquals(context, batch.size(), stats.entries());
+				assertEquals(context, expected.size() - size, stats.inserted());
+				assertTrue(context, stats.descents() <= batch.size());
+				assertTrue(context, stats.splits() <= stats.nodesCreated());
+				if (tree.root() != null)
+					BulkLoaderTest.check(tree.root(), null, null, degree, true,
+							new ArrayList<LeafNode<Integer, Integer>>());
+			}
+	}
+
+	@Test
+	public void testSortedBatch() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(16);
+		List<Map.Entry<Integer, Integer>> batch = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 999; i >= 0; i--)
+			batch.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i, i));
+		BatchStats stats = tree.insertAll(batch);
+		assertEquals(1000, stats.inserted());
+		assertEquals(1, stats.descents()); // the whole batch fits under the fence of the empty root
+		assertEquals(999, stats.descentsSaved());
+		assertTrue(stats.splitsSaved() > 50); // the root leaf is split once into as many leaves as needed
+		for (int i = 0; i < 1000; i++)
+			assertTrue(tree.contains(i, i));
+		stats = tree.insertAll(batch);
+		assertEquals(0, stats.inserted()); // every pair is a duplicate
+		assertEquals(1000, entries(tree).size());
+	}
+
+	@Test
+	public void testEmptyBatch() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		BatchStats stats = tree.insertAll(Collections.<Map.Entry<Integer, Integer>>emptyList());
+		assertEquals(0, stats.entries());
+		assertEquals(0, stats.descents());
+		assertNull(tree.root());
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings.
+	 */
+	static List<String> entries(BPlusTree<Integer, Integer> tree) {
+		List<String> entries = BulkLoaderTest.entries(tree);
+		Collections.sort(entries); // the pointers of a key may be in any order
+		return entries;
+	}
+
+}
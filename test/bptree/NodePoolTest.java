@@ -0,0 +1,170 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NodePoolTest {
+
+	/**
+	 * Inserts each odd key into a full {@code LeafNode} of even keys and checks the halves that the split produces.
+	 */
+	@Test
+	public void testLeafSplit() {
+		for (int degree = 3; degree <= 9; degree++)
+			for (int i = 0; i < degree; i++) {
+				LeafNode<Integer, Integer> l = new LeafNode<Integer, Integer>(degree);
+				for (int j = 0; j < degree - 1; j++)
+					l.insert(j, 2 * j, 2 * j);
+				LeafNode<Integer, Integer> lp = new LeafNode<Integer, Integer>(degree);
+				BPlusTree.split(l, i, 2 * i - 1, 2 * i - 1, lp);
+				List<Integer> expected = new ArrayList<Integer>();
+				for (int j = 0; j < degree - 1; j++)
+					expected.add(2 * j);
+				expected.add(i, 2 * i - 1);
+				int m = (degree + 1) / 2; // ceil(degree / 2) entries remain in l
+				String context = "degree " + degree + ", index " + i;
+				assertEquals(context, expected.subList(0, m), keys(l));
+				assertEquals(context, expected.subList(m, degree), keys(lp));
+				for (int j = 0; j < l.keyCount(); j++)
+					assertEquals(context, l.key(j), l.pointers[j]);
+				for (int j = 0; j < lp.keyCount(); j++)
+					assertEquals(context, lp.key(j), lp.pointers[j]);
+				for (int j = l.keyCount(); j < degree - 1; j++) { // no stale references remain in l
+					assertNull(context, keyArray(l)[j]);
+					assertNull(context, l.pointers[j]);
+				}
+			}
+	}
+
+	/**
+	 * Inserts a new child after each child of a full {@code NonLeafNode} and checks the halves that the split produces,
+	 * the separator that moves up and the parents of the children.
+	 */
+	@Test
+	public void testNonLeafSplit() {
+		for (int degree = 3; degree <= 9; degree++)
+			for (int c = 0; c < degree; c++) {
+				NonLeafNode<Integer, Integer> p = new NonLeafNode<Integer, Integer>(degree);
+				Object[] pk = keyArray(p);
+				List<Node<Integer, Integer>> children = new ArrayList<Node<Integer, Integer>>();
+				List<Integer> keys = new ArrayList<Integer>();
+				for (int j = 0; j < degree; j++) {
+					LeafNode<Integer, Integer> child = new LeafNode<Integer, Integer>(degree);
+					child.setParent(p);
+					p.pointers[j] = child;
+					children.add(child);
+					if (j > 0) {
+						pk[j - 1] = 2 * j;
+						keys.add(2 * j);
+					}
+				}
+				p.keyCount = degree - 1;
+				LeafNode<Integer, Integer> np = new LeafNode<Integer, Integer>(degree);
+				children.add(c + 1, np);
+				keys.add(c, 2 * c + 1);
+				NonLeafNode<Integer, Integer> pp = new NonLeafNode<Integer, Integer>(degree);
+				Integer separator = BPlusTree.split(p, children.get(c), 2 * c + 1, np, pp);
+				int m = (degree + 1) / 2; // ceil(degree / 2) children remain in p
+				String context = "degree " + degree + ", child " + c;
+				assertEquals(context, keys.get(m - 1), separator);
+				assertEquals(context, keys.subList(0, m - 1), keys(p));
+				assertEquals(context, keys.subList(m, degree), keys(pp));
+				for (int j = 0; j <= degree; j++) {
+					NonLeafNode<Integer, Integer> parent = j < m ? p : pp;
+					assertSame(context, children.get(j), parent.pointer(j < m ? j : j - m));
+					assertSame(context, parent, children.get(j).parent());
+				}
+				for (int j = p.keyCount(); j < degree - 1; j++) { // no stale references remain in p
+					assertNull(context, pk[j]);
+					assertNull(context, p.pointers[j + 1]);
+				}
+			}
+	}
+
+	@Test
+	public void testReuse() {
+		NodePool<Integer, Integer> pool = new NodePool<Integer, Integer>(4, 2);
+		LeafNode<Integer, Integer> l = pool.leafNode();
+		NonLeafNode<Integer, Integer> n = pool.nonLeafNode();
+		assertEquals(2, pool.allocated());
+		l.insert(0, 1, 1);
+		l.setParent(n);
+		pool.release(l);
+		pool.release(new LeafNode<Integer, Integer>(5)); // a node of another degree is not pooled
+		assertEquals(1, pool.size());
+		assertSame(l, pool.leafNode());
+		assertEquals(1, pool.reused());
+		assertEquals(0, l.keyCount()); // released nodes are cleared
+		assertNull(keyArray(l)[0]);
+		assertNull(l.parent());
+		for (int i = 0; i < 3; i++)
+			pool.release(new LeafNode<Integer, Integer>(4));
+		pool.release(n);
+		assertEquals(3, pool.size()); // at most 2 leaf nodes are kept
+		assertSame(n, pool.nonLeafNode());
+		pool.leafNode();
+		pool.leafNode();
+		pool.leafNode();
+		assertEquals(3, pool.allocated()); // the third leaf node is new
+		assertEquals(4, pool.reused());
+	}
+
+	/**
+	 * Deletes and reinserts entries so that merged {@code Node}s are recycled, and checks the tree against a model.
+	 */
+	@Test
+	public void testRecycledNodes() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++) {
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+			List<String> model = new ArrayList<String>();
+			for (int i = 0; i < 2000; i++) {
+				tree.insert(i / 2, i);
+				model.add(i / 2 + "=" + i);
+			}
+			Collections.sort(model);
+			for (int round = 0; round < 5; round++) {
+				List<Integer> order = new ArrayList<Integer>();
+				for (int i = 0; i < 2000; i++)
+					order.add(i);
+				Collections.shuffle(order, random);
+				for (int i : order.subList(0, 1500))
+					tree.delete(i / 2, i);
+				for (int i : order.subList(0, 1500))
+					tree.insert(i / 2, i);
+				String context = "degree " + degree + ", round " + round;
+				assertEquals(context, model, InsertAllTest.entries(tree));
+				BulkLoaderTest.check(tree.root(), null, null, degree, true,
+						new ArrayList<LeafNode<Integer, Integer>>());
+			}
+			assertTrue(tree.pool().reused() > 0);
+		}
+	}
+
+	/**
+	 * Returns the keys of the specified {@code Node}.
+	 */
+	static List<Integer> keys(Node<Integer, Integer> n) {
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < n.keyCount(); i++)
+			keys.add(n.key(i));
+		return keys;
+	}
+
+	/**
+	 * Returns the key array of the specified {@code Node}, whose runtime type is not {@code Integer[]}.
+	 */
+	static Object[] keyArray(Node<?, ?> n) {
+		return n.keys;
+	}
+
+}
@@ -0,0 +1,119 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import bptree.metrics.RecordingTreeMetrics;
+import bptree.metrics.TreeMetrics.Operation;
+
+public class PersistentBPlusTreeTest {
+
+	@Test
+	public void testSpliterator() {
+		Random random = new Random(42);
+		for (int run = 0; run < 100; run++) {
+			PersistentBPlusTree<Integer, Integer> tree = new PersistentBPlusTree<Integer, Integer>(4 + run % 5);
+			int entries = random.nextInt(500);
+			for (int i = 0; i < entries; i++)
+				tree.insert(random.nextInt(200), i);
+			Integer from = random.nextBoolean() ? null : random.nextInt(200);
+			Integer to = random.nextBoolean() ? null : random.nextInt(200);
+			List<String> expected = new ArrayList<String>();
+			for (RangeCursor<Integer, Integer> c = tree.range(from, to, Inclusivity.CLOSED); c.next();)
+				expected.add(c.key() + "=" + c.pointer());
+			assertEquals(expected, StreamSupport.stream(tree.spliterator(from, to, Inclusivity.CLOSED), true)
+					.map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.toList()));
+			assertEquals(expected, split(tree.spliterator(from, to, Inclusivity.CLOSED)));
+		}
+	}
+
+	/**
+	 * Splits the specified {@code Spliterator} as far as possible and concatenates the entries of the pieces.
+	 */
+	static List<String> split(Spliterator<Map.Entry<Integer, Integer>> s) {
+		List<String> entries = new ArrayList<String>();
+		Spliterator<Map.Entry<Integer, Integer>> prefix = s.trySplit();
+		if (prefix != null) {
+			entries.addAll(split(prefix));
+			entries.addAll(split(s));
+		} else
+			s.forEachRemaining(e -> entries.add(e.getKey() + "=" + e.getValue()));
+		return entries;
+	}
+
+	@Test
+	public void testInsertAllReportsSplits() {
+		PersistentBPlusTree<Integer, Integer> tree = new PersistentBPlusTree<Integer, Integer>(4);
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < 100; i++)
+			entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i, i));
+		BatchStats stats = tree.insertAll(entries);
+		assertEquals(100, stats.inserted());
+		assertTrue(stats.splits() > 0);
+		assertEquals(stats.splits(), stats.nodesCreated());
+	}
+
+	@Test
+	public void testDuplicatesDescendOnce() {
+		PersistentBPlusTree<Integer, Integer> tree = new PersistentBPlusTree<Integer, Integer>(4);
+		RecordingTreeMetrics metrics = new RecordingTreeMetrics();
+		tree.setMetrics(metrics);
+		tree.insert(-1, -1); // the first entry becomes the root without a descent
+		for (int i = 0; i < 300; i++)
+			tree.insert(i % 10, i); // 30 pointers per key, so that the entries of each key span several leaves
+		assertEquals(300, metrics.descents());
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		PersistentBPlusTree<Integer, Integer> snapshot = tree.snapshot();
+		long descents = metrics.descents();
+		for (int i = 299; i >= 0; i--)
+			tree.insert(i % 10, i);
+		List<Map.Entry<Integer, Integer>> batch = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < 300; i++)
+			batch.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i % 10, i));
+		assertEquals(0, tree.insertAll(batch).inserted());
+		assertEquals(descents + 600, metrics.descents());
+		assertTrue(tree.root() == snapshot.root()); // no path has been copied
+		List<String> after = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			after.add(c.key() + "=" + c.pointer());
+		assertEquals(entries, after);
+	}
+
+	@Test
+	public void testSeparatorAndMetrics() {
+		PersistentBPlusTree<String, Integer> tree = new PersistentBPlusTree<String, Integer>(4);
+		tree.setSeparator(Separator.shortestPrefix());
+		RecordingTreeMetrics metrics = new RecordingTreeMetrics();
+		tree.setMetrics(metrics);
+		for (int i = 0; i < 200; i++)
+			tree.insert(String.format("key-%05d-suffix", i * 7919 % 200), i);
+		for (int i = 0; i < 150; i++)
+			tree.delete(String.format("key-%05d-suffix", i * 7919 % 200), i);
+		assertTrue(metrics.splits() > 0);
+		assertTrue(metrics.merges() + metrics.redistributions() > 0);
+		assertEquals(200, metrics.histogram(Operation.INSERT).count());
+		assertEquals(150, metrics.histogram(Operation.DELETE).count());
+		for (Node<String, Integer> n = tree.root(); n instanceof NonLeafNode;) {
+			NonLeafNode<String, Integer> p = (NonLeafNode<String, Integer>) n;
+			for (int i = 0; i < p.keyCount(); i++)
+				assertTrue(p.key(i).length() < "key-00000-suffix".length()); // shortened by the separator
+			n = p.pointer(0);
+		}
+		for (int i = 150; i < 200; i++)
+			assertTrue(tree.contains(String.format("key-%05d-suffix", i * 7919 % 200), i));
+	}
+
+}
@@ -0,0 +1,121 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import bptree.metrics.RecordingTreeMetrics;
+
+public class RangeCursorTest {
+
+	@Test
+	public void testAgainstModel() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 6; degree++) {
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+			List<int[]> model = new ArrayList<int[]>(); // the entries in key order
+			for (int i = 0; i < 120; i++)
+				if (random.nextInt(4) > 0) { // leave gaps between keys
+					tree.insert(i / 4, i); // four pointers per key, so that keys span leaves
+					model.add(new int[] { i / 4, i });
+				}
+			for (Integer from = null;; from = from == null ? -1 : from + 1) {
+				for (Integer to = null;; to = to == null ? -1 : to + 1) {
+					for (Inclusivity inclusivity : Inclusivity.values()) {
+						String context = "degree " + degree + ", " + from + " " + inclusivity + " " + to;
+						List<String> expected = new ArrayList<String>();
+						for (int[] e : model)
+							if (contains(from, to, inclusivity, e[0]))
+								expected.add(e[0] + "=" + e[1]);
+						check(context, expected, entries(tree.range(from, to, inclusivity)));
+						List<String> actual = new ArrayList<String>();
+						tree.range(from, to, inclusivity).forEachRemaining((k, p) -> actual.add(k + "=" + p));
+						check(context, expected, actual);
+						check(context, expected, tree.range(from, to, inclusivity).stream()
+								.map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.toList()));
+					}
+					if (to != null && to > 31)
+						break;
+				}
+				if (from != null && from > 31)
+					break;
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyTree() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (Inclusivity inclusivity : Inclusivity.values()) {
+			assertFalse(tree.range(null, null, inclusivity).next());
+			assertFalse(tree.range(0, 10, inclusivity).next());
+		}
+		for (int i = 0; i < 50; i++)
+			tree.insert(i, i);
+		for (int i = 0; i < 50; i++)
+			tree.delete(i, i);
+		assertFalse(tree.range(null, null, Inclusivity.CLOSED).next());
+		RangeCursor<Integer, Integer> c = tree.range(10, 5, Inclusivity.CLOSED);
+		assertFalse(c.next());
+		assertFalse(c.next()); // a finished cursor stays finished
+	}
+
+	@Test
+	public void testSingleDescent() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (int i = 0; i < 1000; i++)
+			tree.insert(i, i);
+		RecordingTreeMetrics metrics = new RecordingTreeMetrics();
+		tree.setMetrics(metrics);
+		assertEquals(901, entries(tree.range(50, 950, Inclusivity.CLOSED)).size());
+		assertEquals(1, metrics.descents());
+	}
+
+	/**
+	 * Determines whether or not the specified key falls in the specified range.
+	 */
+	static boolean contains(Integer from, Integer to, Inclusivity inclusivity, int k) {
+		if (from != null && (k < from || k == from && !inclusivity.includesFrom()))
+			return false;
+		return to == null || k < to || k == to && inclusivity.includesTo();
+	}
+
+	/**
+	 * Checks that the specified entries have the expected keys in order and the expected entries in any order, since
+	 * the pointers of a key need not be in insertion order.
+	 */
+	static void check(String context, List<String> expected, List<String> actual) {
+		assertEquals(context, keys(expected), keys(actual));
+		expected = new ArrayList<String>(expected);
+		actual = new ArrayList<String>(actual);
+		Collections.sort(expected);
+		Collections.sort(actual);
+		assertEquals(context, expected, actual);
+	}
+
+	/**
+	 * Returns the keys of the specified entries.
+	 */
+	static List<String> keys(List<String> entries) {
+		return entries.stream().map(e -> e.substring(0, e.indexOf('='))).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the remaining entries of the specified {@code RangeCursor}.
+	 */
+	static List<String> entries(RangeCursor<Integer, Integer> c) {
+		List<String> entries = new ArrayList<String>();
+		while (c.next())
+			entries.add(c.key() + "=" + c.pointer());
+		assertFalse(c.next());
+		return entries;
+	}
+
+}
@@ -0,0 +1,103 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class RangeSpliteratorTest {
+
+	@Test
+	public void testSplitAgainstCursor() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++) {
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+			for (int i = 0; i < 2000; i++)
+				tree.insert(random.nextInt(500), i); // repeated keys span leaves
+			for (int i = 0; i < 100; i++) {
+				Integer from = random.nextInt(10) == 0 ? null : random.nextInt(520) - 10;
+				Integer to = random.nextInt(10) == 0 ? null : random.nextInt(520) - 10;
+				Inclusivity inclusivity = Inclusivity.values()[random.nextInt(Inclusivity.values().length)];
+				String context = "degree " + degree + ", " + from + " " + inclusivity + " " + to;
+				List<String> expected = RangeCursorTest.entries(tree.range(from, to, inclusivity));
+				RangeSpliterator<Integer, Integer> s = tree.spliterator(from, to, inclusivity);
+				long estimate = s.estimateSize();
+				long[] estimates = new long[1];
+				assertEquals(context, expected, split(s, estimates));
+				assertEquals(context, estimate, estimates[0]); // the estimate is divided among the chunks
+				assertEquals(context, expected, entries(tree.spliterator(from, to, inclusivity), false));
+				assertEquals(context, expected, entries(tree.spliterator(from, to, inclusivity), true));
+			}
+		}
+	}
+
+	@Test
+	public void testChunks() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (int i = 0; i < 10000; i++)
+			tree.insert(i, i);
+		List<RangeSpliterator<Integer, Integer>> chunks = new ArrayList<RangeSpliterator<Integer, Integer>>();
+		chunks.add(tree.spliterator(null, null, Inclusivity.CLOSED));
+		for (int i = 0; i < chunks.size();) { // split until no chunk can be split
+			RangeSpliterator<Integer, Integer> prefix = chunks.get(i).trySplit();
+			if (prefix != null)
+				chunks.add(i, prefix);
+			else
+				i++;
+		}
+		assertTrue(chunks.size() > 1000);
+		int next = 0;
+		for (RangeSpliterator<Integer, Integer> c : chunks) {
+			int count = 0;
+			for (; c.next(); count++)
+				assertEquals(Integer.valueOf(next++), c.key());
+			assertTrue(count > 0 && count < 4); // a chunk is a single leaf
+		}
+		assertEquals(10000, next);
+	}
+
+	@Test
+	public void testNoSplit() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		assertNull(tree.spliterator(null, null, Inclusivity.CLOSED).trySplit());
+		assertEquals(0, tree.spliterator(null, null, Inclusivity.CLOSED).estimateSize());
+		for (int i = 0; i < 100; i++)
+			tree.insert(i, i);
+		RangeSpliterator<Integer, Integer> s = tree.spliterator(null, null, Inclusivity.CLOSED);
+		assertTrue(s.tryAdvance(e -> assertEquals(Integer.valueOf(0), e.getKey())));
+		assertNull(s.trySplit()); // a started RangeSpliterator is not split
+		assertNull(tree.spliterator(200, null, Inclusivity.CLOSED).trySplit());
+		assertNull(tree.spliterator(10, 11, Inclusivity.CLOSED).trySplit()); // a range within a leaf
+	}
+
+	/**
+	 * Splits the specified {@code RangeSpliterator} recursively and returns the entries of the chunks in order, adding
+	 * the estimated sizes of the chunks to {@code estimates[0]}.
+	 */
+	static List<String> split(RangeSpliterator<Integer, Integer> s, long[] estimates) {
+		RangeSpliterator<Integer, Integer> prefix = s.trySplit();
+		if (prefix == null) {
+			estimates[0] += s.estimateSize();
+			return RangeCursorTest.entries(s);
+		}
+		List<String> entries = split(prefix, estimates);
+		entries.addAll(split(s, estimates));
+		return entries;
+	}
+
+	/**
+	 * Returns the entries of a sequential or parallel {@code Stream} over the specified {@code RangeSpliterator}.
+	 */
+	static List<String> entries(RangeSpliterator<Integer, Integer> s, boolean parallel) {
+		return StreamSupport.stream(s, parallel).map(e -> e.getKey() + "=" + e.getValue())
+				.collect(Collectors.toList());
+	}
+
+}
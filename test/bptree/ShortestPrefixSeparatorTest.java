@@ -0,0 +1,136 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShortestPrefixSeparatorTest {
+
+	/**
+	 * The characters of random keys: a small alphabet, so that keys share prefixes, and the halves of a surrogate pair.
+	 */
+	static final char[] CHARS = { 'a', 'b', 'c', '\ud83d', '\ude00', '\ude01' };
+
+	@Test
+	public void testSeparate() {
+		Separator<String> s = Separator.shortestPrefix();
+		assertEquals("b", s.separate("a", "b"));
+		assertEquals("b", s.separate("apple", "banana"));
+		assertEquals("https://example.com/b", s.separate("https://example.com/apple", "https://example.com/banana"));
+		assertEquals("abc", s.separate("ab", "abcdef")); // left is a prefix of right
+		assertEquals("a", s.separate("", "abc"));
+		assertEquals("abc", s.separate("abc", "abc")); // equal keys
+		assertEquals("abc", s.separate("abb", "abc"));
+	}
+
+	/**
+	 * Separates keys that differ in a supplementary character, whose surrogate pair must not be split.
+	 */
+	@Test
+	public void testSurrogatePairs() {
+		Separator<String> s = Separator.shortestPrefix();
+		String grinning = "\ud83d\ude00";
+		String beaming = "\ud83d\ude01";
+		assertEquals("x" + beaming, s.separate("x" + grinning + "z", "x" + beaming + "a"));
+		assertEquals(beaming, s.separate("a", beaming + "a")); // the pair is kept whole although one char separates
+		assertEquals("\ud83d", s.separate("a", "\ud83d")); // a lone high surrogate is returned as is
+		assertEquals("b\ud83db", s.separate("b\ud83da", "b\ud83dbc")); // an unpaired high surrogate is a plain char
+	}
+
+	/**
+	 * Checks on random pairs of keys that {@code separate} returns the shortest prefix of the right key that is greater
+	 * than the left key, extended by one char where it would end inside a surrogate pair.
+	 */
+	@Test
+	public void testRandomKeys() {
+		Random random = new Random(42);
+		Separator<String> s = Separator.shortestPrefix();
+		for (int i = 0; i < 100000; i++) {
+			String a = key(random);
+			String b = key(random);
+			if (a.compareTo(b) > 0) {
+				String t = a;
+				a = b;
+				b = t;
+			}
+			String sep = s.separate(a, b);
+			String context = a + " / " + b + " -> " + sep;
+			assertTrue(context, b.startsWith(sep));
+			if (a.equals(b)) {
+				assertEquals(context, b, sep);
+				continue;
+			}
+			assertTrue(context, a.compareTo(sep) < 0);
+			int c = common(a, b); // the prefixes of b longer than c are exactly those greater than a
+			boolean pair = c + 1 < b.length() && Character.isHighSurrogate(b.charAt(c))
+					&& Character.isLowSurrogate(b.charAt(c + 1));
+			assertEquals(context, pair ? c + 2 : c + 1, sep.length());
+		}
+	}
+
+	/**
+	 * Inserts and deletes URL-like keys in {@code BPlusTree}s that promote the shortest separating prefix and checks
+	 * them against {@code BPlusTree}s that promote the first key of the new leaf.
+	 */
+	@Test
+	public void testBPlusTree() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++) {
+			BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(degree);
+			tree.setSeparator(Separator.shortestPrefix());
+			BPlusTree<String, Integer> model = new BPlusTree<String, Integer>(degree);
+			for (int i = 0; i < 5000; i++) {
+				String k = "https://example.com/" + (random.nextBoolean() ? "\ud83d\ude00" : "") // a surrogate pair
+						+ random.nextInt(300);
+				int p = random.nextInt(3);
+				assertEquals(model.contains(k, p), tree.contains(k, p));
+				if (random.nextInt(3) > 0) {
+					tree.insert(k, p);
+					model.insert(k, p);
+				} else {
+					tree.delete(k, p);
+					model.delete(k, p);
+				}
+			}
+			assertEquals(entries(model), entries(tree));
+		}
+	}
+
+	/**
+	 * Returns a random key made of up to 6 {@link #CHARS}.
+	 */
+	static String key(Random random) {
+		StringBuilder k = new StringBuilder();
+		for (int i = random.nextInt(7); i > 0; i--)
+			k.append(CHARS[random.nextInt(CHARS.length)]);
+		return k.toString();
+	}
+
+	/**
+	 * Returns the length of the longest common prefix of the specified keys.
+	 */
+	static int common(String a, String b) {
+		int i = 0;
+		while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i))
+			i++;
+		return i;
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings.
+	 */
+	static List<String> entries(BPlusTree<String, Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<String, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		Collections.sort(entries);
+		return entries;
+	}
+
+}
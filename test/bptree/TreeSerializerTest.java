@@ -0,0 +1,63 @@
+package bptree;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bptree.codec.IntegerCodec;
+
+public class TreeSerializerTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Random random = new Random(42);
+		for (int run = 0; run < 200; run++) {
+			BPlusTree<Integer, Integer> tree = run % 2 == 0 ? new BPlusTree<Integer, Integer>(4)
+					: new PersistentBPlusTree<Integer, Integer>(4);
+			int entries = random.nextInt(100);
+			for (int i = 0; i < entries; i++)
+				tree.insert(random.nextInt(50), i);
+			for (boolean innerNodes : new boolean[] { false, true })
+				assertEquals(entries(tree), entries(roundTrip(tree, innerNodes)));
+		}
+	}
+
+	/**
+	 * Persistent trees have no successor links, so their leaves must not be found by following them.
+	 */
+	@Test
+	public void testPersistentTree() throws Exception {
+		PersistentBPlusTree<Integer, Integer> tree = new PersistentBPlusTree<Integer, Integer>(4);
+		for (int i = 0; i < 39; i++)
+			tree.insert(i, i);
+		for (boolean innerNodes : new boolean[] { false, true }) {
+			BPlusTree<Integer, Integer> copy = roundTrip(tree, innerNodes);
+			assertEquals(39, entries(copy).size());
+			assertEquals(entries(tree), entries(copy));
+		}
+	}
+
+	static BPlusTree<Integer, Integer> roundTrip(BPlusTree<Integer, Integer> tree, boolean innerNodes)
+			throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TreeSerializer.write(tree, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE, innerNodes,
+				Channels.newChannel(out));
+		return TreeSerializer.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+				IntegerCodec.INSTANCE, IntegerCodec.INSTANCE);
+	}
+
+	static List<String> entries(BPlusTree<Integer, Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		return entries;
+	}
+
+}
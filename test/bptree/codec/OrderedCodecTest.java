@@ -0,0 +1,152 @@
+package bptree.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.SearchStrategy;
+
+public class OrderedCodecTest {
+
+	/**
+	 * Chars at the boundaries of the 1-, 2- and 3-byte encodings of {@code OrderedStringCodec}, {@code \0}, and the
+	 * halves of a surrogate pair.
+	 */
+	static final char[] CHARS = { '\0', '\1', 'a', 'b', '~', '\u007f', '\u0080', '\u00e9', '\u407e', '\u407f', '\u4080',
+			'\ud83d', '\ude00', '\uffff' };
+
+	@Test
+	public void testIntegers() {
+		List<Integer> values = new ArrayList<Integer>();
+		for (int v : new int[] { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -65536, -256, -255, -1, 0, 1, 255, 256,
+				65536, Integer.MAX_VALUE - 1, Integer.MAX_VALUE })
+			values.add(v);
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++)
+			values.add(random.nextInt() >> random.nextInt(32));
+		check(OrderedCodec.integers(), values, Comparator.<Integer>naturalOrder());
+	}
+
+	@Test
+	public void testLongs() {
+		List<Long> values = new ArrayList<Long>();
+		for (long v : new long[] { Long.MIN_VALUE, Long.MIN_VALUE + 1, Integer.MIN_VALUE - 1L, -256, -1, 0, 1, 255,
+				256, Integer.MAX_VALUE + 1L, Long.MAX_VALUE - 1, Long.MAX_VALUE })
+			values.add(v);
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++)
+			values.add(random.nextLong() >> random.nextInt(64));
+		check(OrderedCodec.longs(), values, Comparator.<Long>naturalOrder());
+	}
+
+	@Test
+	public void testStrings() {
+		List<String> values = new ArrayList<String>();
+		for (String v : new String[] { "", "\0", "\0\0", "a", "a\0", "a\0b", "ab", "\u007f", "\u407f", "\uffff",
+				"\ud83d\ude00", "https://example.com/" })
+			values.add(v);
+		Random random = new Random(42);
+		for (int i = 0; i < 300; i++)
+			values.add(string(random));
+		check(OrderedCodec.strings(), values, Comparator.<String>naturalOrder());
+	}
+
+	/**
+	 * Checks composite keys whose first component is a {@code String}, so that a shorter {@code String} and
+	 * {@code \0} chars must not let the second component decide the order.
+	 */
+	@Test
+	public void testComposite() {
+		OrderedCodec<Object[]> codec = OrderedCodec.composite(OrderedCodec.strings(), OrderedCodec.integers(),
+				OrderedCodec.longs());
+		List<Object[]> values = new ArrayList<Object[]>();
+		Random random = new Random(42);
+		String[] strings = { "", "\0", "a", "a\0", "ab" };
+		for (String s : strings)
+			for (int i : new int[] { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE })
+				values.add(new Object[] { s, i, random.nextLong() });
+		for (int i = 0; i < 200; i++)
+			values.add(new Object[] { string(random), random.nextInt(5) - 2, (long) random.nextInt(5) - 2 });
+		Comparator<Object[]> order = Comparator.<Object[], String>comparing(v -> (String) v[0])
+				.thenComparing(v -> (Integer) v[1]).thenComparing(v -> (Long) v[2]);
+		check(codec, values, order);
+		try {
+			codec.encode(new Object[] { "a", 1 });
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Inserts normalized composite keys into a {@code BPlusTree} that searches with
+	 * {@link SearchStrategy#normalized()} and checks that a scan returns them in the order of the values.
+	 */
+	@Test
+	public void testBPlusTree() {
+		OrderedCodec<Object[]> codec = OrderedCodec.composite(OrderedCodec.integers(), OrderedCodec.strings());
+		BPlusTree<BinaryKey, Integer> tree = new BPlusTree<BinaryKey, Integer>(5, SearchStrategy.normalized());
+		List<Object[]> values = new ArrayList<Object[]>();
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			Object[] v = { random.nextInt(21) - 10, string(random) };
+			values.add(v);
+			tree.insert(codec.encode(v), i);
+		}
+		Comparator<Object[]> order = Comparator.<Object[], Integer>comparing(v -> (Integer) v[0])
+				.thenComparing(v -> (String) v[1]);
+		boolean[] found = new boolean[values.size()];
+		Object[] previous = null;
+		for (RangeCursor<BinaryKey, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();) {
+			Object[] v = codec.decode(c.key());
+			assertArrayEquals(values.get(c.pointer()), v);
+			assertTrue(previous == null || order.compare(previous, v) <= 0);
+			found[c.pointer()] = true;
+			previous = v;
+		}
+		for (boolean f : found)
+			assertTrue(f);
+	}
+
+	/**
+	 * Checks that the specified {@code OrderedCodec} decodes each value to an equal value and orders every pair of
+	 * encodings as the specified {@code Comparator} orders the values.
+	 */
+	static <T> void check(OrderedCodec<T> codec, List<T> values, Comparator<T> order) {
+		List<BinaryKey> keys = new ArrayList<BinaryKey>();
+		for (T v : values) {
+			BinaryKey k = codec.encode(v);
+			keys.add(k);
+			if (v instanceof Object[])
+				assertArrayEquals((Object[]) v, (Object[]) codec.decode(k));
+			else
+				assertEquals(v, codec.decode(k));
+		}
+		for (int i = 0; i < values.size(); i++)
+			for (int j = 0; j < values.size(); j++)
+				assertEquals(values.get(i) + " vs " + values.get(j),
+						Integer.signum(order.compare(values.get(i), values.get(j))),
+						Integer.signum(keys.get(i).compareTo(keys.get(j))));
+	}
+
+	/**
+	 * Returns a random {@code String} of up to 5 {@link #CHARS}.
+	 */
+	static String string(Random random) {
+		StringBuilder s = new StringBuilder();
+		for (int i = random.nextInt(6); i > 0; i--)
+			s.append(CHARS[random.nextInt(CHARS.length)]);
+		return s.toString();
+	}
+
+}
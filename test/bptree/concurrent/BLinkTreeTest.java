@@ -0,0 +1,95 @@
+package bptree.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class BLinkTreeTest {
+
+	/**
+	 * Pauses one writer after it has split the root but before it installs the new root, while another writer splits
+	 * the new right sibling of the old root and looks for a parent at a level that the tree does not have yet.
+	 */
+	@Test
+	public void testSplitWhileNewRootIsPending() throws Exception {
+		CountDownLatch paused = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+		Thread[] threads = new Thread[2];
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4) {
+
+			@Override
+			BLinkNode parent(BLinkNode n, Integer separator, ArrayList<BLinkNode> stack) {
+				if (Thread.currentThread() == threads[0] && paused.getCount() > 0) {
+					paused.countDown();
+					await(resume);
+				}
+				return super.parent(n, separator, stack);
+			}
+
+			@Override
+			BLinkNode descend(Integer k, int level, ArrayList<BLinkNode> stack) {
+				BLinkNode n = super.descend(k, level, stack);
+				if (Thread.currentThread() == threads[1] && level > 0)
+					waiting.countDown(); // the descent for a parent has ended before the new root was installed
+				return n;
+			}
+
+		};
+		for (int i = 0; i < 3; i++)
+			tree.insert(i, i);
+		threads[0] = new Thread(() -> tree.insert(3, 3)); // splits the root leaf
+		threads[1] = new Thread(() -> {
+			for (int i = 10; i < 20; i++)
+				tree.insert(i, i); // splits the new right sibling of the root leaf
+		});
+		threads[0].start();
+		await(paused);
+		threads[1].start();
+		await(waiting);
+		resume.countDown();
+		threads[0].join();
+		threads[1].join();
+		assertEquals(14, tree.size());
+		for (int i = 0; i < 4; i++)
+			assertEquals(Integer.valueOf(i), tree.find(i));
+		for (int i = 10; i < 20; i++)
+			assertEquals(Integer.valueOf(i), tree.find(i));
+	}
+
+	/**
+	 * Inserts keys from several threads and checks that every key can be found.
+	 */
+	@Test
+	public void testConcurrentInserts() throws Exception {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4);
+		int threads = 4;
+		int keys = 20000;
+		Thread[] writers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int offset = t;
+			writers[t] = new Thread(() -> {
+				for (int i = offset; i < keys; i += threads)
+					tree.insert(i, i);
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers)
+			writer.join();
+		assertEquals(keys, tree.size());
+		for (int i = 0; i < keys; i++)
+			assertEquals(Integer.valueOf(i), tree.find(i));
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
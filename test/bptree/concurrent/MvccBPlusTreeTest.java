@@ -0,0 +1,148 @@
+package bptree.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+
+public class MvccBPlusTreeTest {
+
+	@Test
+	public void testSnapshotsKeepTheirEpochs() {
+		Random random = new Random(42);
+		MvccBPlusTree<Integer, Integer> tree = new MvccBPlusTree<Integer, Integer>(4);
+		TreeSet<String> model = new TreeSet<String>();
+		List<MvccBPlusTree<Integer, Integer>.Snapshot> snapshots =
+				new ArrayList<MvccBPlusTree<Integer, Integer>.Snapshot>();
+		List<List<String>> expected = new ArrayList<List<String>>();
+		for (int i = 0; i < 3000; i++) {
+			int k = random.nextInt(100);
+			int p = random.nextInt(5); // several pointers per key, so that keys span leaves
+			if (random.nextInt(3) > 0) {
+				tree.insert(k, p);
+				model.add(k + "=" + p);
+			} else {
+				tree.delete(k, p);
+				model.remove(k + "=" + p);
+			}
+			assertEquals(i + 1, tree.epoch());
+			if (i % 100 == 0) {
+				snapshots.add(tree.snapshot());
+				expected.add(new ArrayList<String>(model));
+			}
+		}
+		assertEquals(snapshots.size() + 1, tree.retainedVersions());
+		for (int i = 0; i < snapshots.size(); i++) {
+			MvccBPlusTree<Integer, Integer>.Snapshot s = snapshots.get(i);
+			assertEquals(100 * i + 1, s.epoch());
+			assertEquals(expected.get(i), entries(s));
+			for (int k = 0; k < 100; k++)
+				for (int p = 0; p < 5; p++)
+					assertEquals(expected.get(i).contains(k + "=" + p), s.contains(k, p));
+			try (MvccBPlusTree<Integer, Integer>.Snapshot t = tree.snapshot(s.epoch())) { // pins a pinned epoch again
+				assertEquals(expected.get(i), entries(t));
+			}
+		}
+		for (MvccBPlusTree<Integer, Integer>.Snapshot s : snapshots)
+			s.close();
+		assertEquals(1, tree.retainedVersions());
+		try {
+			snapshots.get(0).contains(0, 0);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			tree.snapshot(snapshots.get(0).epoch());
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try (MvccBPlusTree<Integer, Integer>.Snapshot s = tree.snapshot()) {
+			assertEquals(tree.epoch(), s.epoch());
+			assertEquals(new ArrayList<String>(model), entries(s));
+		}
+	}
+
+	@Test
+	public void testRetainedVersions() {
+		MvccBPlusTree<Integer, Integer> tree = new MvccBPlusTree<Integer, Integer>(4);
+		MvccBPlusTree<Integer, Integer>.Snapshot empty = tree.snapshot();
+		tree.insert(1, 1);
+		tree.insert(2, 2);
+		assertEquals(2, tree.retainedVersions()); // epoch 0 is pinned and epoch 1 has been retired
+		assertNull(empty.find(1));
+		assertFalse(empty.range(null, null, Inclusivity.CLOSED).next());
+		empty.close();
+		empty.close(); // closing twice has no effect
+		assertEquals(1, tree.retainedVersions());
+		MvccBPlusTree<Integer, Integer>.Snapshot latest = tree.snapshot();
+		tree.insert(3, 3);
+		assertEquals(2, tree.retainedVersions());
+		assertFalse(latest.contains(3, 3));
+		latest.close();
+		assertEquals(1, tree.retainedVersions());
+	}
+
+	/**
+	 * Runs readers alongside a writer that inserts key {@code i} at epoch {@code i + 1}, and checks that every
+	 * {@code Snapshot} contains exactly the keys inserted up to its epoch.
+	 */
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		MvccBPlusTree<Integer, Integer> tree = new MvccBPlusTree<Integer, Integer>(8);
+		int keys = 5000;
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<String> failure = new AtomicReference<String>();
+		Thread[] readers = new Thread[3];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread(() -> {
+				while (!done.get())
+					try (MvccBPlusTree<Integer, Integer>.Snapshot s = tree.snapshot()) {
+						int next = 0;
+						for (RangeCursor<Integer, Integer> c = s.range(null, null, Inclusivity.CLOSED); c.next();)
+							if (c.key() != next++)
+								failure.compareAndSet(null, "epoch " + s.epoch() + " has key " + c.key());
+						if (next != s.epoch())
+							failure.compareAndSet(null, "epoch " + s.epoch() + " has " + next + " keys");
+					}
+			});
+			readers[t].start();
+		}
+		for (int i = 0; i < keys; i++)
+			tree.insert(i, i);
+		done.set(true);
+		for (Thread reader : readers)
+			reader.join();
+		assertNull(failure.get());
+		assertEquals(1, tree.retainedVersions());
+		try (MvccBPlusTree<Integer, Integer>.Snapshot s = tree.snapshot()) {
+			assertEquals(keys, entries(s).size());
+			assertTrue(s.contains(keys - 1, keys - 1));
+		}
+	}
+
+	/**
+	 * Returns the entries of the specified {@code Snapshot} as sorted strings.
+	 */
+	static List<String> entries(MvccBPlusTree<Integer, Integer>.Snapshot s) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = s.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		Collections.sort(entries); // the pointers of a key may be in any order
+		return entries;
+	}
+
+}
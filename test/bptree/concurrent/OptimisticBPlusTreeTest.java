@@ -0,0 +1,109 @@
+package bptree.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class OptimisticBPlusTreeTest {
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random random = new Random(42);
+		for (int degree = 4; degree <= 8; degree++) {
+			OptimisticBPlusTree<Integer, Integer> tree = new OptimisticBPlusTree<Integer, Integer>(degree);
+			TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+			for (int i = 0; i < 20000; i++) {
+				int k = random.nextInt(500);
+				if (random.nextInt(3) > 0)
+					assertEquals(model.put(k, i), tree.insert(k, i));
+				else
+					assertEquals(model.remove(k), tree.delete(k));
+				assertEquals(model.size(), tree.size());
+			}
+			for (int k = -1; k <= 500; k++)
+				assertEquals(model.get(k), tree.find(k));
+			for (int k = 0; k < 500; k++) // empty the tree, merging its leaves
+				assertEquals(model.remove(k), tree.delete(k));
+			assertEquals(0, tree.size());
+			assertNull(tree.find(7));
+			tree.insert(7, 70);
+			assertEquals(Integer.valueOf(70), tree.find(7));
+		}
+	}
+
+	/**
+	 * Runs readers of keys that are never deleted alongside writers that insert and delete other keys, and checks
+	 * that the readers always find the stable keys and that the writers leave the expected keys behind.
+	 */
+	@Test
+	public void testConcurrentReadersAndWriters() throws Exception {
+		OptimisticBPlusTree<Integer, Integer> tree = new OptimisticBPlusTree<Integer, Integer>(4);
+		int keys = 20000;
+		for (int i = 0; i < keys; i += 2)
+			tree.insert(i, i); // even keys are stable
+		int writers = 4;
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<String> failure = new AtomicReference<String>();
+		Thread[] threads = new Thread[writers + 2];
+		for (int t = 0; t < writers; t++) {
+			int offset = 2 * t + 1;
+			threads[t] = new Thread(() -> {
+				for (int round = 0; round < 3; round++) {
+					for (int i = offset; i < keys; i += 2 * writers)
+						tree.insert(i, i);
+					if (round < 2)
+						for (int i = offset; i < keys; i += 2 * writers)
+							if (tree.delete(i) == null)
+								failure.compareAndSet(null, "lost " + i);
+				}
+			});
+		}
+		for (int t = writers; t < threads.length; t++) {
+			int seed = t;
+			threads[t] = new Thread(() -> {
+				Random random = new Random(seed);
+				while (!done.get()) {
+					int k = 2 * random.nextInt(keys / 2);
+					Integer p = tree.find(k);
+					if (p == null || p != k)
+						failure.compareAndSet(null, "found " + p + " for " + k);
+				}
+			});
+		}
+		for (Thread t : threads)
+			t.start();
+		for (int t = 0; t < writers; t++)
+			threads[t].join();
+		done.set(true);
+		for (int t = writers; t < threads.length; t++)
+			threads[t].join();
+		assertNull(failure.get());
+		assertEquals(keys, tree.size());
+		for (int i = 0; i < keys; i++)
+			assertEquals(Integer.valueOf(i), tree.find(i));
+	}
+
+	@Test
+	public void testArguments() {
+		try {
+			new OptimisticBPlusTree<Integer, Integer>(3);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		OptimisticBPlusTree<Integer, Integer> tree = new OptimisticBPlusTree<Integer, Integer>(4);
+		try {
+			tree.insert(1, null);
+			fail();
+		} catch (NullPointerException e) {
+		}
+		assertEquals(0, tree.size());
+	}
+
+}
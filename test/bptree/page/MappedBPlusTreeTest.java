@@ -0,0 +1,133 @@
+package bptree.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.codec.IntegerCodec;
+import bptree.codec.StringCodec;
+
+public class MappedBPlusTreeTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAgainstBPlusTree() throws Exception {
+		Random random = new Random(42);
+		for (int pageSize : new int[] { 512, 4096 }) {
+			BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(8);
+			for (int i = 0; i < 5000; i++) // keys of varying lengths, several pointers per key
+				tree.insert(Integer.toString(random.nextInt(2000), 36) + "-" + repeat(random.nextInt(20)), i);
+			Path file = folder.getRoot().toPath().resolve("tree-" + pageSize + ".bpt");
+			long pages = MappedBPlusTree.write(tree, file, pageSize, StringCodec.INSTANCE, IntegerCodec.INSTANCE);
+			try (MappedBPlusTree<String, Integer> mapped = MappedBPlusTree.open(file, StringCodec.INSTANCE,
+					IntegerCodec.INSTANCE)) {
+				List<String> expected = entries(tree.range(null, null, Inclusivity.CLOSED));
+				assertEquals(expected.size(), mapped.size());
+				assertEquals(pageSize, mapped.pageSize());
+				assertTrue(pages > 1 && mapped.height() > 1);
+				assertEquals(expected, entries(mapped.cursor(null, null, Inclusivity.CLOSED)));
+				for (int i = 0; i < 200; i++) {
+					String from = Integer.toString(random.nextInt(2100), 36);
+					String to = Integer.toString(random.nextInt(2100), 36);
+					Inclusivity inclusivity = Inclusivity.values()[random.nextInt(Inclusivity.values().length)];
+					assertEquals(from + " " + inclusivity + " " + to, entries(tree.range(from, to, inclusivity)),
+							entries(mapped.cursor(from, to, inclusivity)));
+				}
+				for (RangeCursor<String, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();) {
+					RangeCursor<String, Integer> first = tree.range(c.key(), c.key(), Inclusivity.CLOSED);
+					first.next();
+					assertEquals(first.pointer(), mapped.get(c.key()));
+					assertTrue(mapped.contains(c.key(), c.pointer()));
+					assertFalse(mapped.contains(c.key(), -1));
+				}
+				assertNull(mapped.get(""));
+				assertNull(mapped.get("zzzz"));
+				assertNull(mapped.get("1-"));
+			}
+		}
+	}
+
+	/**
+	 * Writes a file with a {@code PagedBPlusTree} and searches it with a {@code MappedBPlusTree}.
+	 */
+	@Test
+	public void testPagedFile() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("paged.bpt");
+		try (PagedBPlusTree<Integer, Integer> paged = PagedBPlusTree.create(file, 512, 16, IntegerCodec.INSTANCE,
+				IntegerCodec.INSTANCE)) {
+			for (int i = 0; i < 3000; i++)
+				paged.insert(i * 7 % 3000, i);
+		}
+		try (MappedBPlusTree<Integer, Integer> mapped = MappedBPlusTree.open(file, IntegerCodec.INSTANCE,
+				IntegerCodec.INSTANCE)) {
+			assertEquals(3000, mapped.size());
+			for (int i = 0; i < 3000; i++)
+				assertEquals(Integer.valueOf(i), mapped.get(i * 7 % 3000));
+			MappedBPlusTree<Integer, Integer>.Cursor c = mapped.cursor(100, 200, Inclusivity.CLOSED_OPEN);
+			for (int k = 100; k < 200; k++) {
+				assertTrue(c.next());
+				assertEquals(Integer.valueOf(k), c.key());
+			}
+			assertFalse(c.next());
+		}
+	}
+
+	@Test
+	public void testPageSize() throws Exception {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		tree.insert(1, 1);
+		try {
+			MappedBPlusTree.write(tree, folder.getRoot().toPath().resolve("small.bpt"), 256, IntegerCodec.INSTANCE,
+					IntegerCodec.INSTANCE);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Returns a string of the specified number of characters.
+	 */
+	static String repeat(int n) {
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < n; i++)
+			s.append((char) ('a' + i));
+		return s.toString();
+	}
+
+	/**
+	 * Returns the remaining entries of the specified {@code RangeCursor}.
+	 */
+	static List<String> entries(RangeCursor<String, Integer> c) {
+		List<String> entries = new ArrayList<String>();
+		while (c.next())
+			entries.add(c.key() + "=" + c.pointer());
+		return entries;
+	}
+
+	/**
+	 * Returns the remaining entries of the specified {@code Cursor}.
+	 */
+	static List<String> entries(MappedBPlusTree<String, Integer>.Cursor c) {
+		List<String> entries = new ArrayList<String>();
+		while (c.next())
+			entries.add(c.key() + "=" + c.pointer());
+		return entries;
+	}
+
+}
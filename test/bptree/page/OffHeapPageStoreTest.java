@@ -0,0 +1,103 @@
+package bptree.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import bptree.codec.IntegerCodec;
+
+public class OffHeapPageStoreTest {
+
+	/**
+	 * Writes a distinct pattern into pages that span several arenas and more pages than there are cached views, and
+	 * reads the pages back.
+	 */
+	@Test
+	public void testPages() throws Exception {
+		OffHeapPageStore store = new OffHeapPageStore(512, 512 * 5 + 100); // 5 pages per arena
+		long pages = OffHeapPageStore.VIEWS + 37;
+		for (long i = 0; i < pages; i++) {
+			assertEquals(i, store.allocate());
+			ByteBuffer page = store.pin(i);
+			assertEquals(512, page.remaining());
+			assertEquals(0, page.getLong(0)); // allocated pages are zero-filled
+			page.putLong(0, i);
+			page.putLong(504, ~i);
+			store.unpin(i, true);
+		}
+		assertEquals(pages, store.pageCount());
+		assertEquals((pages + 4) / 5 * 5 * 512, store.capacity());
+		for (long i = pages - 1; i >= 0; i--) {
+			ByteBuffer page = store.pin(i);
+			assertEquals(i, page.getLong(0));
+			assertEquals(~i, page.getLong(504));
+			store.unpin(i, false);
+		}
+		try {
+			store.pin(pages);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		store.close();
+		try {
+			store.allocate();
+			fail();
+		} catch (IOException e) {
+		}
+	}
+
+	@Test
+	public void testArguments() {
+		try {
+			new OffHeapPageStore(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new OffHeapPageStore(4096, 4095);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Runs a {@code PagedBPlusTree} on an {@code OffHeapPageStore} with small arenas against a {@code TreeMap}.
+	 */
+	@Test
+	public void testPagedBPlusTree() throws Exception {
+		Random random = new Random(42);
+		OffHeapPageStore store = new OffHeapPageStore(512, 512 * 8);
+		try (PagedBPlusTree<Integer, Integer> tree = PagedBPlusTree.create(store, IntegerCodec.INSTANCE,
+				IntegerCodec.INSTANCE)) {
+			TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+			for (int i = 0; i < 20000; i++) {
+				int k = random.nextInt(5000);
+				if (random.nextInt(3) > 0) {
+					if (!model.containsKey(k)) {
+						model.put(k, i);
+						tree.insert(k, i);
+					}
+				} else if (model.containsKey(k))
+					tree.delete(k, model.remove(k));
+			}
+			assertEquals(model.size(), tree.size());
+			assertTrue(tree.height() > 2);
+			assertTrue(store.pageCount() > OffHeapPageStore.VIEWS / 8);
+			for (int k = 0; k < 5000; k++) {
+				assertEquals(model.get(k), tree.get(k));
+				assertFalse(tree.contains(k, -1));
+			}
+			assertNull(tree.get(-1));
+		}
+	}
+
+}
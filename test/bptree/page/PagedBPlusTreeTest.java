@@ -0,0 +1,71 @@
+package bptree.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.codec.IntegerCodec;
+
+public class PagedBPlusTreeTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReopen() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("tree.bpt");
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < 3000; i++)
+			keys.add(i / 3); // three pointers per key, so that keys span leaves
+		Collections.shuffle(keys, new Random(1));
+		// 8 frames of 512 bytes are far fewer than the pages, so pages are evicted and read back
+		PagedBPlusTree<Integer, Integer> tree = PagedBPlusTree.create(file, 512, 8, IntegerCodec.INSTANCE,
+				IntegerCodec.INSTANCE);
+		for (int i = 0; i < keys.size(); i++)
+			tree.insert(keys.get(i), i);
+		for (int i = 0; i < keys.size(); i++) {
+			tree.insert(keys.get(i), i); // duplicates are ignored
+			if (i % 2 == 0)
+				tree.delete(keys.get(i), i);
+		}
+		int height = tree.height();
+		tree.close();
+
+		tree = PagedBPlusTree.open(file, 8, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE);
+		assertEquals(keys.size() / 2, tree.size());
+		assertEquals(height, tree.height());
+		assertTrue(height > 2);
+		for (int i = 0; i < keys.size(); i++)
+			assertEquals(i % 2 != 0, tree.contains(keys.get(i), i));
+		tree.insert(-1, -1);
+		tree.close();
+
+		tree = PagedBPlusTree.open(file, 8, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE);
+		assertEquals(keys.size() / 2 + 1, tree.size());
+		assertEquals(Integer.valueOf(-1), tree.get(-1));
+		assertFalse(tree.contains(-1, 0));
+		tree.close();
+	}
+
+	@Test
+	public void testBufferPoolTooLarge() throws Exception {
+		try (PageFile file = new PageFile(folder.getRoot().toPath().resolve("pages"), 65536)) {
+			new BufferPool(file, 32768); // 2 GB
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("32768 frames of 65536 bytes"));
+		}
+	}
+
+}
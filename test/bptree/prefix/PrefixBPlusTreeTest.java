@@ -0,0 +1,147 @@
+package bptree.prefix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+
+public class PrefixBPlusTreeTest {
+
+	/**
+	 * Keys that share long prefixes, keys that are prefixes of other keys, non-ASCII keys, and the empty key.
+	 */
+	static final String[] KEYS = { "", "a", "ab", "abc", "https://example.com/", "https://example.com/a",
+			"https://example.com/a/b", "https://example.com/b", "https://example.org/", "tenant-0001/order-0001",
+			"tenant-0001/order-0002", "tenant-0001/order-0010", "tenant-0002/order-0001", "tenant-0010",
+			"\u00e9t\u00e9", "\uffff" };
+
+	@Test
+	public void testAgainstBPlusTree() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++) {
+			PrefixBPlusTree<Integer> tree = new PrefixBPlusTree<Integer>(degree);
+			BPlusTree<String, Integer> model = new BPlusTree<String, Integer>(degree);
+			long size = 0;
+			for (int i = 0; i < 5000; i++) {
+				String k = random.nextInt(4) == 0 ? KEYS[random.nextInt(KEYS.length)]
+						: KEYS[random.nextInt(KEYS.length)] + random.nextInt(30);
+				int p = random.nextInt(3); // several pointers per key, so that keys span leaves
+				boolean contained = model.contains(k, p);
+				assertEquals(contained, tree.contains(k, p));
+				if (random.nextInt(3) > 0) {
+					tree.insert(k, p);
+					model.insert(k, p);
+					size += contained ? 0 : 1;
+				} else {
+					tree.delete(k, p);
+					model.delete(k, p);
+					size -= contained ? 1 : 0;
+				}
+				assertEquals(size, tree.size());
+			}
+			String context = "degree " + degree;
+			assertEquals(context, entries(model), entries(tree));
+			if (tree.root() != null)
+				check(tree.root(), null, null, degree, true);
+			for (String k : KEYS)
+				for (int p = 0; p < 3; p++)
+					assertEquals(context, model.contains(k, p), tree.contains(k, p));
+		}
+	}
+
+	@Test
+	public void testEmptied() {
+		PrefixBPlusTree<Integer> tree = new PrefixBPlusTree<Integer>(4);
+		assertFalse(tree.contains("a", 0));
+		for (int i = 0; i < 200; i++)
+			tree.insert("https://example.com/" + i * 37 % 200, i);
+		for (int i = 0; i < 200; i++) {
+			assertTrue(tree.contains("https://example.com/" + i * 37 % 200, i));
+			tree.delete("https://example.com/" + i * 37 % 200, i);
+		}
+		assertEquals(0, tree.size());
+		tree.insert("x", 1);
+		assertTrue(tree.contains("x", 1));
+		assertEquals(1, tree.size());
+	}
+
+	@Test
+	public void testDegree() {
+		try {
+			new PrefixBPlusTree<Integer>(2);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Checks that the keys of the specified subtree lie between the specified bounds, start with the prefix of their
+	 * {@code PrefixNode} and are sorted, that its {@code PrefixNode}s are not under-utilized and point to their
+	 * parents, and that its leaves are at the same depth.
+	 *
+	 * @return the height of the specified subtree
+	 */
+	static int check(PrefixNode<Integer> n, String lo, String hi, int degree, boolean root) {
+		for (int i = 0; i < n.keyCount(); i++) {
+			String k = n.key(i);
+			assertTrue(k.startsWith(n.prefix()));
+			assertTrue(lo == null || k.compareTo(lo) >= 0);
+			assertTrue(hi == null || k.compareTo(hi) <= 0);
+			assertTrue(i == 0 || n.key(i - 1).compareTo(k) <= 0);
+		}
+		if (n instanceof PrefixLeafNode) {
+			assertTrue(root || n.keyCount() >= (degree - 1) / 2);
+			return 1;
+		}
+		PrefixNonLeafNode<Integer> p = (PrefixNonLeafNode<Integer>) n;
+		assertTrue(root || p.childCount() >= (degree + 1) / 2);
+		int height = -1;
+		for (int i = 0; i < p.childCount(); i++) {
+			assertSame(p, p.child(i).parent());
+			int h = check(p.child(i), i == 0 ? lo : p.key(i - 1), i == p.keyCount() ? hi : p.key(i), degree, false);
+			assertTrue(height < 0 || h == height);
+			height = h;
+		}
+		return height + 1;
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings, walking the successor chain of its leaves.
+	 */
+	static List<String> entries(PrefixBPlusTree<Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		String previous = "";
+		for (PrefixLeafNode<Integer> l = tree.root() == null ? null : tree.find(""); l != null; l = l.successor())
+			for (int i = 0; i < l.keyCount(); i++) {
+				assertTrue(l.key(i).compareTo(previous) >= 0);
+				previous = l.key(i);
+				entries.add(l.key(i) + "=" + l.pointer(i));
+			}
+		Collections.sort(entries); // the pointers of a key may be in any order
+		return entries;
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings.
+	 */
+	static List<String> entries(BPlusTree<String, Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<String, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		Collections.sort(entries);
+		return entries;
+	}
+
+}
@@ -0,0 +1,102 @@
+package bptree.primitive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+
+public class LongLongBPlusTreeTest {
+
+	/**
+	 * Keys at both ends of the range of {@code long}s and around zero.
+	 */
+	static final long[] KEYS = { Long.MIN_VALUE, Long.MIN_VALUE + 1, -3, -2, -1, 0, 1, 2, 3, Long.MAX_VALUE - 1,
+			Long.MAX_VALUE };
+
+	@Test
+	public void testAgainstBPlusTree() {
+		Random random = new Random(42);
+		for (int degree = 3; degree <= 8; degree++) {
+			LongLongBPlusTree tree = new LongLongBPlusTree(degree);
+			BPlusTree<Long, Long> model = new BPlusTree<Long, Long>(degree);
+			long size = 0;
+			for (int i = 0; i < 5000; i++) {
+				long k = KEYS[random.nextInt(KEYS.length)];
+				long v = random.nextInt(40) - 20; // several values per key, so that keys span leaves
+				boolean contained = model.contains(k, v);
+				assertEquals(contained, tree.contains(k, v));
+				if (random.nextInt(3) > 0) {
+					tree.insert(k, v);
+					model.insert(k, v);
+					size += contained ? 0 : 1;
+				} else {
+					tree.delete(k, v);
+					model.delete(k, v);
+					size -= contained ? 1 : 0;
+				}
+				assertEquals(size, tree.size());
+			}
+			assertEquals(entries(model), entries(tree));
+			for (long k : KEYS)
+				for (long v = -20; v < 20; v++)
+					assertEquals(model.contains(k, v), tree.contains(k, v));
+		}
+	}
+
+	@Test
+	public void testEmptied() {
+		LongLongBPlusTree tree = new LongLongBPlusTree(4);
+		assertNull(tree.find(0));
+		assertFalse(tree.contains(0, 0));
+		for (long i = 0; i < 100; i++)
+			tree.insert(i * 31 % 100, i);
+		for (long i = 0; i < 100; i++) {
+			assertTrue(tree.contains(i * 31 % 100, i));
+			tree.delete(i * 31 % 100, i);
+			assertFalse(tree.contains(i * 31 % 100, i));
+		}
+		assertEquals(0, tree.size());
+		tree.insert(7, 70);
+		assertEquals(1, tree.size());
+		assertTrue(tree.contains(7, 70));
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings, walking the successor chain of its leaves.
+	 */
+	static List<String> entries(LongLongBPlusTree tree) {
+		List<String> entries = new ArrayList<String>();
+		long previous = Long.MIN_VALUE;
+		for (LongLongLeafNode l = tree.find(Long.MIN_VALUE); l != null; l = l.successor())
+			for (int i = 0; i < l.keyCount(); i++) {
+				assertTrue(l.key(i) >= previous);
+				previous = l.key(i);
+				entries.add(l.key(i) + "=" + l.value(i));
+			}
+		Collections.sort(entries); // the values of a key may be in any order
+		return entries;
+	}
+
+	/**
+	 * Returns the entries of the specified tree as sorted strings.
+	 */
+	static List<String> entries(BPlusTree<Long, Long> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Long, Long> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		Collections.sort(entries);
+		return entries;
+	}
+
+}
@@ -0,0 +1,240 @@
+package bptree.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.BPlusTree;
+import bptree.BulkLoader;
+import bptree.codec.IntegerCodec;
+
+public class CheckpointTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Fuzzy checkpoints written while writers run, on demand and in the background, restore the exact state together
+	 * with the rest of the log.
+	 */
+	@Test
+	public void testCheckpointWhileWriting() throws Exception {
+		Path log = file("log"), checkpoint = file("checkpoint");
+		final DurableBPlusTree<Integer, Integer> tree = recover(log, checkpoint);
+		tree.startCheckpoints(4096);
+		final int writers = 4;
+		final List<List<int[]>> operations = new ArrayList<List<int[]>>();
+		final IOException[] failure = new IOException[1];
+		Thread[] threads = new Thread[writers];
+		for (int t = 0; t < writers; t++) {
+			final List<int[]> done = new ArrayList<int[]>();
+			operations.add(done);
+			final Random random = new Random(t);
+			final int id = t;
+			threads[t] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 5000; i++) {
+							int[] o = { random.nextInt(4), writers * random.nextInt(500) + id, random.nextInt(3) };
+							if (o[0] == 0)
+								tree.delete(o[1], o[2]);
+							else
+								tree.insert(o[1], o[2]);
+							done.add(o);
+						}
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				}
+
+			};
+			threads[t].start();
+		}
+		int checkpoints = 0;
+		for (boolean running = true; running; checkpoints++) {
+			tree.checkpoint();
+			running = false;
+			for (Thread t : threads)
+				running |= t.isAlive();
+		}
+		for (Thread t : threads)
+			t.join();
+		tree.close();
+		assertEquals(null, failure[0]);
+		assertTrue(tree.checkpoints() >= checkpoints);
+		BPlusTree<Integer, Integer> model = new BPlusTree<Integer, Integer>(4);
+		for (List<int[]> done : operations) // the writers use disjoint keys, so the order of the writers is irrelevant
+			for (int[] o : done)
+				if (o[0] == 0)
+					model.delete(o[1], o[2]);
+				else
+					model.insert(o[1], o[2]);
+		try (DurableBPlusTree<Integer, Integer> recovered = recover(log, checkpoint)) {
+			// the pointers of a key are kept in the order of insertion, which a checkpoint does not preserve
+			assertEquals(sorted(model), sorted(recovered.tree()));
+			assertTrue(recovered.log().replayed() < writers * 5000);
+		}
+	}
+
+	/**
+	 * A truncated log keeps its LSNs and can only be replayed from the LSN it has been truncated at or later.
+	 */
+	@Test
+	public void testTruncate() throws Exception {
+		Path file = file("log");
+		long[] lsns = new long[10];
+		long appended;
+		try (WriteAheadLog<Integer, Integer> log = WriteAheadLogTest.open(file, new ArrayList<String>())) {
+			for (int i = 0; i < lsns.length; i++)
+				lsns[i] = log.append(WriteAheadLog.INSERT, i, i);
+			log.truncate(lsns[4]);
+			assertEquals(lsns[4], log.first());
+			log.truncate(lsns[2]); // already dropped
+			assertEquals(lsns[4], log.first());
+			appended = log.append(WriteAheadLog.INSERT, 10, 10);
+			log.sync(appended);
+		}
+		List<String> records = new ArrayList<String>();
+		try (WriteAheadLog<Integer, Integer> log = open(file, lsns[4], records)) {
+			assertEquals(lsns[4], log.first());
+			assertEquals(appended, log.appended());
+			assertEquals("[1 5 5, 1 6 6, 1 7 7, 1 8 8, 1 9 9, 1 10 10]", records.toString());
+			log.truncate(lsns[7]);
+			log.sync(log.append(WriteAheadLog.DELETE, 11, 11));
+		}
+		records.clear();
+		open(file, lsns[8], records).close();
+		assertEquals("[1 9 9, 1 10 10, 2 11 11]", records.toString());
+		for (long from : new long[] { 0, lsns[4], lsns[6] })
+			try {
+				open(file, from, new ArrayList<String>()).close();
+				fail("replayed from " + from);
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("truncated after"));
+			}
+		try {
+			open(file, appended + 100, new ArrayList<String>()).close();
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("ends before"));
+		}
+	}
+
+	/**
+	 * A checkpoint whose trailer does not match its entries is rejected.
+	 */
+	@Test
+	public void testCorruptTrailer() throws Exception {
+		Path log = file("log"), checkpoint = file("checkpoint");
+		try (DurableBPlusTree<Integer, Integer> tree = recover(log, checkpoint)) {
+			for (int i = 0; i < 100; i++)
+				tree.insert(i, i);
+			tree.checkpoint();
+		}
+		long size = Files.size(checkpoint);
+		for (long offset : new long[] { size - 1, size - Checkpoint.TRAILER }) {
+			flip(checkpoint, offset);
+			try {
+				recover(log, checkpoint).close();
+				fail("corrupted at " + offset);
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("corrupt checkpoint"));
+			}
+			flip(checkpoint, offset);
+		}
+		try (DurableBPlusTree<Integer, Integer> tree = recover(log, checkpoint)) {
+			assertEquals(100, DurableBPlusTreeTest.entries(tree.tree()).size());
+		}
+	}
+
+	/**
+	 * Recovery fails rather than silently losing operations when the log does not continue the checkpoint.
+	 */
+	@Test
+	public void testLogDoesNotContinueCheckpoint() throws Exception {
+		Path log = file("log"), checkpoint = file("checkpoint");
+		Path oldLog = file("old.log"), oldCheckpoint = file("old.checkpoint");
+		try (DurableBPlusTree<Integer, Integer> tree = recover(log, checkpoint)) {
+			for (int i = 0; i < 100; i++)
+				tree.insert(i, i);
+			tree.log().sync(tree.log().appended());
+			Files.copy(log, oldLog);
+			tree.checkpoint();
+			Files.copy(checkpoint, oldCheckpoint);
+			for (int i = 100; i < 200; i++)
+				tree.insert(i, i);
+			tree.checkpoint(); // truncates the log past the LSN of the first checkpoint
+		}
+		Files.move(checkpoint, file("new.checkpoint"));
+		Files.copy(oldCheckpoint, checkpoint);
+		try {
+			recover(log, checkpoint).close();
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("truncated after"));
+		}
+		Files.copy(file("new.checkpoint"), checkpoint, StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(oldLog, log, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			recover(log, checkpoint).close();
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("ends before"));
+		}
+	}
+
+	static List<String> sorted(BPlusTree<Integer, Integer> tree) {
+		List<String> entries = DurableBPlusTreeTest.entries(tree);
+		Collections.sort(entries);
+		return entries;
+	}
+
+	Path file(String name) {
+		return folder.getRoot().toPath().resolve(name);
+	}
+
+	static DurableBPlusTree<Integer, Integer> recover(Path log, Path checkpoint) throws IOException {
+		return DurableBPlusTree.recover(log, checkpoint, new BulkLoader<Integer, Integer>(4, 0.75),
+				IntegerCodec.INSTANCE, IntegerCodec.INSTANCE, Durability.perBatch(64));
+	}
+
+	static WriteAheadLog<Integer, Integer> open(Path file, long from, final List<String> records) throws IOException {
+		return WriteAheadLog.open(file, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE, Durability.perOperation(), from,
+				new WriteAheadLog.Handler<Integer, Integer>() {
+
+					@Override
+					public void apply(byte type, Integer key, Integer pointer) {
+						records.add(type + " " + key + " " + pointer);
+					}
+
+				});
+	}
+
+	static void flip(Path file, long offset) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(1);
+			channel.read(b, offset);
+			b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+			channel.write(b, offset);
+		}
+	}
+
+}
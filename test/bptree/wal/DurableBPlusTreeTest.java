@@ -0,0 +1,65 @@
+package bptree.wal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.BPlusTree;
+import bptree.Inclusivity;
+import bptree.RangeCursor;
+import bptree.codec.IntegerCodec;
+
+public class DurableBPlusTreeTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Durability[] durabilities = { Durability.perOperation(), Durability.perBatch(7), Durability.timed(5) };
+		for (Durability durability : durabilities) {
+			Path file = folder.getRoot().toPath().resolve(durability.mode() + ".log");
+			BPlusTree<Integer, Integer> model = new BPlusTree<Integer, Integer>(4);
+			Random random = new Random(42);
+			for (int session = 0; session < 3; session++) {
+				try (DurableBPlusTree<Integer, Integer> tree = open(file, durability)) {
+					assertEquals(durability.toString(), entries(model), entries(tree.tree()));
+					for (int i = 0; i < 300; i++) {
+						int k = random.nextInt(100), p = random.nextInt(3);
+						if (random.nextInt(3) == 0) {
+							tree.delete(k, p);
+							model.delete(k, p);
+						} else {
+							tree.insert(k, p);
+							model.insert(k, p);
+						}
+					}
+				}
+			}
+			try (DurableBPlusTree<Integer, Integer> tree = open(file, durability)) {
+				assertEquals(durability.toString(), entries(model), entries(tree.tree()));
+			}
+		}
+	}
+
+	static DurableBPlusTree<Integer, Integer> open(Path file, Durability durability) throws IOException {
+		return new DurableBPlusTree<Integer, Integer>(file, new BPlusTree<Integer, Integer>(4), IntegerCodec.INSTANCE,
+				IntegerCodec.INSTANCE, durability);
+	}
+
+	static List<String> entries(BPlusTree<Integer, Integer> tree) {
+		List<String> entries = new ArrayList<String>();
+		for (RangeCursor<Integer, Integer> c = tree.range(null, null, Inclusivity.CLOSED); c.next();)
+			entries.add(c.key() + "=" + c.pointer());
+		return entries;
+	}
+
+}
@@ -0,0 +1,204 @@
+package bptree.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bptree.codec.IntegerCodec;
+import bptree.codec.StringCodec;
+
+public class WriteAheadLogTest {
+
+	/**
+	 * The number of bytes of a record of two {@code Integer}s.
+	 */
+	static final int RECORD = WriteAheadLog.RECORD_HEADER + 1 + 4 + 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A crash while the header of a new log is written must not make the log impossible to open.
+	 */
+	@Test
+	public void testPartialHeader() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		open(file, new ArrayList<String>()).close();
+		byte[] header = Files.readAllBytes(file);
+		for (int cut = 0; cut < header.length; cut++) {
+			Files.write(file, Arrays.copyOf(header, cut));
+			try (WriteAheadLog<Integer, Integer> log = open(file, new ArrayList<String>())) {
+				log.sync(log.append(WriteAheadLog.INSERT, cut, cut));
+			}
+			List<String> records = new ArrayList<String>();
+			open(file, records).close();
+			assertEquals("cut at " + cut, "[1 " + cut + " " + cut + "]", records.toString());
+		}
+	}
+
+	/**
+	 * A temporary file left by a crash before the header of a new log was moved into place is ignored.
+	 */
+	@Test
+	public void testLeftoverTemporaryFile() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		try (FileChannel channel = FileChannel.open(file.resolveSibling("log.tmp"), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0x42, 0x50 }));
+		}
+		try (WriteAheadLog<Integer, Integer> log = open(file, new ArrayList<String>())) {
+			log.sync(log.append(WriteAheadLog.INSERT, 1, 2));
+		}
+		List<String> records = new ArrayList<String>();
+		open(file, records).close();
+		assertEquals("[1 1 2]", records.toString());
+	}
+
+	/**
+	 * A record torn by a crash is dropped on reopen and the file is truncated to the last complete record.
+	 */
+	@Test
+	public void testTornTail() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		long end = write(file, 10);
+		for (int cut = 1; cut < RECORD; cut++) {
+			write(file, 10);
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(channel.size() - cut);
+			}
+			List<String> records = new ArrayList<String>();
+			try (WriteAheadLog<Integer, Integer> log = open(file, records)) {
+				assertEquals(9, log.replayed());
+				assertEquals(end - RECORD, Files.size(file));
+				log.sync(log.append(WriteAheadLog.DELETE, 0, 0));
+			}
+			records.clear();
+			open(file, records).close();
+			assertEquals(10, records.size());
+			assertEquals("2 0 0", records.get(9));
+		}
+	}
+
+	/**
+	 * A record whose checksum does not match is dropped on reopen together with the records that follow it.
+	 */
+	@Test
+	public void testCorruptTail() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		long end = write(file, 10);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(1);
+			channel.read(b, end - 2 * RECORD + 9); // the key of the second to last record
+			b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+			channel.write(b, end - 2 * RECORD + 9);
+		}
+		List<String> records = new ArrayList<String>();
+		open(file, records).close();
+		assertEquals(8, records.size());
+		assertEquals("1 7 70", records.get(7));
+		assertEquals(end - 2 * RECORD, Files.size(file));
+	}
+
+	/**
+	 * A log can only be opened with the codecs it has been written with.
+	 */
+	@Test
+	public void testCodecMismatch() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		write(file, 1);
+		try {
+			WriteAheadLog.open(file, StringCodec.INSTANCE, IntegerCodec.INSTANCE, Durability.perOperation(),
+					new WriteAheadLog.Handler<String, Integer>() {
+
+						@Override
+						public void apply(byte type, String key, Integer pointer) {
+						}
+
+					}).close();
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		List<String> records = new ArrayList<String>();
+		open(file, records).close();
+		assertEquals(1, records.size());
+	}
+
+	/**
+	 * Threads that wait for their records at the same time share {@code fsync}s.
+	 */
+	@Test
+	public void testGroupCommit() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("log");
+		final WriteAheadLog<Integer, Integer> log = open(file, new ArrayList<String>());
+		Thread[] threads = new Thread[8];
+		final IOException[] failure = new IOException[1];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 200; i++)
+							log.commit(log.append(WriteAheadLog.INSERT, id, i));
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				}
+
+			};
+			threads[t].start();
+		}
+		for (Thread t : threads)
+			t.join();
+		log.close();
+		assertEquals(null, failure[0]);
+		assertEquals(1600, log.records());
+		assertTrue(log.syncs() + " fsyncs", log.syncs() < log.records());
+		assertEquals(log.appended(), log.durable());
+		List<String> records = new ArrayList<String>();
+		open(file, records).close();
+		assertEquals(1600, records.size());
+	}
+
+	/**
+	 * Writes a new log with the specified number of insertions of {@code (i, 10 * i)}, each taking {@link #RECORD}
+	 * bytes, and returns the size of the log.
+	 */
+	static long write(Path file, int records) throws IOException {
+		Files.deleteIfExists(file);
+		try (WriteAheadLog<Integer, Integer> log = open(file, new ArrayList<String>())) {
+			for (int i = 0; i < records; i++)
+				log.append(WriteAheadLog.INSERT, i, 10 * i);
+			log.sync(log.appended());
+		}
+		return Files.size(file);
+	}
+
+	static WriteAheadLog<Integer, Integer> open(Path file, final List<String> records) throws IOException {
+		return WriteAheadLog.open(file, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE, Durability.perOperation(),
+				new WriteAheadLog.Handler<Integer, Integer>() {
+
+					@Override
+					public void apply(byte type, Integer key, Integer pointer) {
+						records.add(type + " " + key + " " + pointer);
+					}
+
+				});
+	}
+
+}